@@ -0,0 +1,81 @@
+package org.opensource.energy.vpp_backend.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.opensource.energy.vpp_backend.dto.request.CreateBatteryRequest;
+import org.opensource.energy.vpp_backend.metrics.BatteryMetrics;
+import org.opensource.energy.vpp_backend.repository.BatteryCopyRepository;
+import org.opensource.energy.vpp_backend.repository.BatteryJdbcRepository;
+import org.opensource.energy.vpp_backend.repository.BatteryPostcodeSummaryRepository;
+import org.opensource.energy.vpp_backend.repository.BatteryRepository;
+import org.opensource.energy.vpp_backend.repository.BatteryUpsertRepository;
+import org.opensource.energy.vpp_backend.service.impl.BatteryServiceImpl;
+import org.opensource.energy.vpp_backend.service.reader.DatabaseBatteryStatReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Cost of {@code saveBatteries} in front of the database: mapping a {@code POST /batteries} body to entities and
+ * checking its names. The repositories are stubs that record nothing, so only the service's own work is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatteryMappingBenchmark {
+
+    @Param({"1000", "100000"})
+    public int batchSize;
+
+    private List<CreateBatteryRequest> requests;
+    private BatteryServiceImpl service;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        BenchmarkLogging.useProductionLevel();
+        // Two INFO lines per save would measure console output here rather than the mapping.
+        BenchmarkLogging.onlyWarnings(BatteryServiceImpl.class);
+        requests = SyntheticFleet.requests(batchSize);
+
+        BatteryRepository batteryRepository = stub(BatteryRepository.class);
+        when(batteryRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        // Bulk COPY is off in a hand-built service, so every batch goes through the stubbed saveAll.
+        service = new BatteryServiceImpl(batteryRepository, stub(BatteryJdbcRepository.class),
+                stub(BatteryCopyRepository.class), stub(BatteryUpsertRepository.class),
+                stub(BatteryPostcodeSummaryRepository.class), stub(DatabaseBatteryStatReader.class),
+                stub(ObjectProvider.class), stub(ObjectProvider.class), stub(ObjectProvider.class),
+                stub(ObjectProvider.class), stub(ObjectProvider.class), stub(ApplicationEventPublisher.class),
+                new BatteryMetrics(new SimpleMeterRegistry()));
+    }
+
+    @Benchmark
+    public List<Long> saveBatteries() {
+        return service.saveBatteries(requests);
+    }
+
+    private static <T> T stub(Class<T> type) {
+        return mock(type, withSettings().stubOnly());
+    }
+}
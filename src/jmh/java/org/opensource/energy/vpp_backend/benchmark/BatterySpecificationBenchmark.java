@@ -0,0 +1,86 @@
+package org.opensource.energy.vpp_backend.benchmark;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.opensource.energy.vpp_backend.entity.Battery;
+import org.opensource.energy.vpp_backend.specification.BatterySpecification;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the {@link BatterySpecification} filter and turning it into a criteria predicate, per request. The
+ * criteria builder comes from a Hibernate session factory bootstrapped without a database connection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatterySpecificationBenchmark {
+
+    @Param({"false", "true"})
+    public boolean wattageFilter;
+
+    private SessionFactory sessionFactory;
+    private CriteriaBuilder criteriaBuilder;
+    private Long wattageFrom;
+    private Long wattageTo;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkLogging.useProductionLevel();
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+                .applySetting("hibernate.dialect", PostgreSQLDialect.class.getName())
+                .applySetting("hibernate.boot.allow_jdbc_metadata_access", "false")
+                .applySetting("jakarta.persistence.validation.mode", "none")
+                .build();
+        sessionFactory = new MetadataSources(registry)
+                .addAnnotatedClass(Battery.class)
+                .buildMetadata()
+                .buildSessionFactory();
+        criteriaBuilder = sessionFactory.getCriteriaBuilder();
+        wattageFrom = wattageFilter ? 1_000L : null;
+        wattageTo = wattageFilter ? 50_000L : null;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public Specification<Battery> construct() {
+        return BatterySpecification.byPostcodeAndWattageRange(6000, 6999, wattageFrom, wattageTo);
+    }
+
+    @Benchmark
+    public Predicate constructAndApply() {
+        Specification<Battery> specification =
+                BatterySpecification.byPostcodeAndWattageRange(6000, 6999, wattageFrom, wattageTo);
+        CriteriaQuery<Battery> query = criteriaBuilder.createQuery(Battery.class);
+        Root<Battery> root = query.from(Battery.class);
+        return specification.toPredicate(root, query, criteriaBuilder);
+    }
+}
@@ -0,0 +1,169 @@
+package org.opensource.energy.vpp_backend.benchmark;
+
+import com.fasterxml.jackson.core.util.DefaultIndenter;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares a JMH JSON result with a stored baseline and prints the change of every benchmark found in both,
+ * as a percentage where positive means slower. Run by the {@code benchmark} profile after the benchmarks.
+ * Benchmarks only in the result are listed as {@code NEW}, baseline entries without a result as {@code MISSING},
+ * and results whose unit differs from the baseline's as {@code UNIT CHANGED}.
+ *
+ * <p>Arguments: the result file, the baseline file, and optionally the largest tolerated slowdown as a fraction
+ * ({@code 0.15} for 15%); when it is given, any larger slowdown exits with status 1 and fails the build, and so
+ * does any baseline entry that was not run or not compared, since it went unchecked. A slowdown only counts when it
+ * also exceeds both scores' error margins together, so that run-to-run noise does not fail the build. Scores are only
+ * comparable between runs on the same machine, so the baseline should be recorded where the check runs.</p>
+ *
+ * <p>With {@code --record} as first argument, the result is written to the baseline file instead, keeping only
+ * {@code benchmark}, {@code mode}, {@code params}, {@code score}, {@code scoreError} and {@code unit} per
+ * benchmark.</p>
+ */
+public final class BenchmarkBaselineDiff {
+
+    private static final String PACKAGE_PREFIX = "org.opensource.energy.vpp_backend.benchmark.";
+
+    private BenchmarkBaselineDiff() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--record")) {
+            record(Path.of(args[1]), Path.of(args[2]));
+            return;
+        }
+
+        Path result = Path.of(args[0]);
+        Path baseline = Path.of(args[1]);
+        Double maxRegression = args.length > 2 && !args[2].isBlank() ? Double.valueOf(args[2]) : null;
+        if (!Files.exists(result) || !Files.exists(baseline)) {
+            System.out.println("No benchmark result or baseline to compare (" + result + ", " + baseline + ")");
+            return;
+        }
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        Map<String, Score> current = scores(objectMapper.readTree(result.toFile()));
+        Map<String, Score> reference = scores(objectMapper.readTree(baseline.toFile()));
+
+        int regressions = 0;
+        int unchecked = 0;
+        Map<String, Score> all = new TreeMap<>(reference);
+        all.putAll(current);
+        System.out.printf(Locale.ROOT, "%-80s %30s %30s %9s%n", "Benchmark", "Baseline", "Current", "Change");
+        for (String benchmark : all.keySet()) {
+            Score before = reference.get(benchmark);
+            Score after = current.get(benchmark);
+            if (before == null) {
+                System.out.printf(Locale.ROOT, "%-80s %30s %30s %9s%n", benchmark, "", after, "NEW");
+            } else if (after == null) {
+                unchecked++;
+                System.out.printf(Locale.ROOT, "%-80s %30s %30s %9s%n", benchmark, before, "", "MISSING");
+            } else if (!before.unit().equals(after.unit())) {
+                unchecked++;
+                System.out.printf(Locale.ROOT, "%-80s %30s %30s %9s%n", benchmark, before, after, "UNIT CHANGED");
+            } else {
+                double slowdown = after.slowdownFrom(before);
+                boolean slower = maxRegression != null && slowdown > maxRegression;
+                boolean regressed = slower && after.worseBeyondErrorThan(before);
+                if (regressed) {
+                    regressions++;
+                }
+                System.out.printf(Locale.ROOT, "%-80s %30s %30s %+8.1f%%%s%n", benchmark, before, after,
+                        slowdown * 100, regressed ? "  REGRESSION" : slower ? "  within error" : "");
+            }
+        }
+        if (maxRegression == null) {
+            return;
+        }
+        if (regressions > 0) {
+            System.out.printf(Locale.ROOT, "%d benchmark(s) slower than the baseline by more than %.0f%% and their "
+                    + "error margins%n", regressions, maxRegression * 100);
+        }
+        if (unchecked > 0) {
+            System.out.printf(Locale.ROOT, "%d baseline benchmark(s) could not be compared; run the full suite, or "
+                    + "record a new baseline if they were removed or changed%n", unchecked);
+        }
+        if (regressions > 0 || unchecked > 0) {
+            System.exit(1);
+        }
+    }
+
+    /** Writes the fields the comparison needs; raw samples, histograms and JVM details stay out of the baseline. */
+    private static void record(Path result, Path baseline) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        ArrayNode entries = objectMapper.createArrayNode();
+        for (JsonNode run : objectMapper.readTree(result.toFile())) {
+            Score score = score(run);
+            ObjectNode entry = entries.addObject();
+            entry.put("benchmark", run.path("benchmark").asText());
+            entry.put("mode", run.path("mode").asText());
+            if (!run.path("params").isEmpty()) {
+                entry.set("params", run.path("params"));
+            }
+            entry.put("score", score.value());
+            entry.put("scoreError", score.error());
+            entry.put("unit", score.unit());
+        }
+        // Laid out like JMH's own result file.
+        DefaultIndenter indenter = new DefaultIndenter("    ", DefaultIndenter.SYS_LF);
+        objectMapper.writer(new DefaultPrettyPrinter().withObjectIndenter(indenter).withArrayIndenter(indenter))
+                .writeValue(baseline.toFile(), entries);
+        System.out.println("Recorded " + entries.size() + " benchmark(s) from " + result + " in " + baseline);
+    }
+
+    /** Keyed by benchmark name and parameters, e.g. {@code StatAggregationBenchmark.totals fleetSize=1000}. */
+    private static Map<String, Score> scores(JsonNode results) {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (JsonNode run : results) {
+            StringBuilder key = new StringBuilder(run.path("benchmark").asText().replace(PACKAGE_PREFIX, ""));
+            run.path("params").fields().forEachRemaining(param ->
+                    key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText()));
+            scores.put(key.toString(), score(run));
+        }
+        return scores;
+    }
+
+    /** Reads a JMH result entry ({@code primaryMetric}) as well as a recorded baseline entry. */
+    private static Score score(JsonNode run) {
+        JsonNode metric = run.has("primaryMetric") ? run.path("primaryMetric") : run;
+        String unit = metric.has("scoreUnit") ? metric.path("scoreUnit").asText() : metric.path("unit").asText();
+        // JMH reports "NaN" when too few iterations ran to estimate the error.
+        double error = metric.path("scoreError").asDouble();
+        return new Score(metric.path("score").asDouble(), Double.isNaN(error) ? 0 : error, unit);
+    }
+
+    private record Score(double value, double error, String unit) {
+
+        /** Throughput units ({@code ops/s}) are better when higher, time units ({@code us/op}) when lower. */
+        double slowdownFrom(Score baseline) {
+            return higherIsBetter() ? baseline.value / value - 1 : value / baseline.value - 1;
+        }
+
+        /** Whether the confidence intervals of both scores do not overlap, with this one on the worse side. */
+        boolean worseBeyondErrorThan(Score baseline) {
+            return higherIsBetter()
+                    ? value + error < baseline.value - baseline.error
+                    : value - error > baseline.value + baseline.error;
+        }
+
+        private boolean higherIsBetter() {
+            return unit.startsWith("ops/");
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%.3f +- %.3f %s", value, error, unit);
+        }
+    }
+}
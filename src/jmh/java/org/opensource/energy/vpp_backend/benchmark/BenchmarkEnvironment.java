@@ -0,0 +1,102 @@
+package org.opensource.energy.vpp_backend.benchmark;
+
+import lombok.extern.slf4j.Slf4j;
+import org.opensource.energy.vpp_backend.VppBackendApplication;
+import org.opensource.energy.vpp_backend.constant.FixedDBConstant;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Boots the application without a web server against a PostgreSQL instance and seeds a synthetic fleet.
+ *
+ * <p>By default a throw-away Testcontainers database is started. Set {@code VPP_BENCHMARK_JDBC_URL} (plus
+ * {@code VPP_BENCHMARK_JDBC_USER} / {@code VPP_BENCHMARK_JDBC_PASSWORD}) to use an existing database instead;
+ * its {@code battery} table is truncated before seeding, so never point it at real data. Environment variables
+ * are used rather than system properties because they reach the JVMs forked by JMH.</p>
+ */
+@Slf4j
+public final class BenchmarkEnvironment implements AutoCloseable {
+    /** Seeded postcodes are spread over {@code [POSTCODE_BASE, POSTCODE_BASE + POSTCODE_COUNT)}. */
+    public static final int POSTCODE_BASE = 1000;
+    public static final int POSTCODE_COUNT = 1000;
+
+    private static final String SEED_SQL = """
+            INSERT INTO battery (id, name, postcode, watt_capacity, created_at, modified_at)
+            SELECT nextval('battery_id_seq'), 'bat-' || g, ? + (g % ?), 100 + (g * 7919) % 10000, now(), now()
+            FROM generate_series(1, ?) AS g
+            """;
+
+    private final PostgreSQLContainer<?> container;
+    private final ConfigurableApplicationContext context;
+
+    private BenchmarkEnvironment(PostgreSQLContainer<?> container, ConfigurableApplicationContext context) {
+        this.container = container;
+        this.context = context;
+    }
+
+    /**
+     * @param extraArguments additional {@code --key=value} application properties
+     */
+    public static BenchmarkEnvironment start(String... extraArguments) {
+        String url = System.getenv("VPP_BENCHMARK_JDBC_URL");
+        String user = System.getenv().getOrDefault("VPP_BENCHMARK_JDBC_USER", "postgres");
+        String password = System.getenv().getOrDefault("VPP_BENCHMARK_JDBC_PASSWORD", "");
+
+        PostgreSQLContainer<?> container = null;
+        if (url == null) {
+            container = new PostgreSQLContainer<>(FixedDBConstant.DB_VERSION)
+                    .withDatabaseName(FixedDBConstant.DB_NAME)
+                    .withUsername(FixedDBConstant.DB_USER)
+                    .withPassword(FixedDBConstant.DB_PASS);
+            container.start();
+            url = container.getJdbcUrl();
+            user = container.getUsername();
+            password = container.getPassword();
+        }
+
+        List<String> arguments = new ArrayList<>(List.of(
+                "--spring.datasource.url=" + url,
+                "--spring.datasource.username=" + user,
+                "--spring.datasource.password=" + password,
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.generate_statistics=false",
+                "--logging.level.root=WARN"));
+        arguments.addAll(List.of(extraArguments));
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(VppBackendApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("dev")
+                .run(arguments.toArray(String[]::new));
+        return new BenchmarkEnvironment(container, context);
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * Replaces the content of the {@code battery} table with {@code fleetSize} synthetic batteries named
+     * {@code bat-1..bat-N}, spread evenly over the seeded postcodes.
+     */
+    public void seed(int fleetSize) {
+        JdbcTemplate jdbcTemplate = bean(JdbcTemplate.class);
+        jdbcTemplate.execute("TRUNCATE battery");
+        jdbcTemplate.update(SEED_SQL, POSTCODE_BASE, POSTCODE_COUNT, fleetSize);
+        jdbcTemplate.execute("ANALYZE battery");
+        log.warn("Seeded {} battery record(s)", fleetSize);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+        if (container != null) {
+            container.stop();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package org.opensource.energy.vpp_backend.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Logging for the benchmarks that run without Spring, which would otherwise leave Logback at its default
+ * {@code DEBUG} level and measure debug statements that production never evaluates.
+ */
+final class BenchmarkLogging {
+
+    private BenchmarkLogging() {
+    }
+
+    static void useProductionLevel() {
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.INFO);
+    }
+
+    /** For code that logs at {@code INFO} on every benchmarked call, where console output would dominate. */
+    static void onlyWarnings(Class<?> type) {
+        ((Logger) LoggerFactory.getLogger(type)).setLevel(Level.WARN);
+    }
+}
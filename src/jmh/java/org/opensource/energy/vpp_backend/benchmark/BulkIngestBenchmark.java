@@ -0,0 +1,82 @@
+package org.opensource.energy.vpp_backend.benchmark;
+
+import org.opensource.energy.vpp_backend.dto.request.CreateBatteryRequest;
+import org.opensource.energy.vpp_backend.service.BatteryService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.opensource.energy.vpp_backend.benchmark.BenchmarkEnvironment.POSTCODE_BASE;
+import static org.opensource.energy.vpp_backend.benchmark.BenchmarkEnvironment.POSTCODE_COUNT;
+
+/**
+ * Compares {@code saveBatteries} through JPA batch inserts with the binary {@code COPY} path, in rows per second.
+ * The engine is chosen through {@code vpp.bulk-copy.min-batch-size}, so both go through the full service call
+ * including the postcode summary update.
+ *
+ * <p>The score is per row: each invocation saves {@value #BATCH_SIZE} batteries.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BulkIngestBenchmark {
+
+    private static final int BATCH_SIZE = 5_000;
+
+    @Param({"jpa", "copy"})
+    public String engine;
+
+    private BenchmarkEnvironment environment;
+    private BatteryService batteryService;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int minBatchSize = "copy".equals(engine) ? 1 : 0;
+        environment = BenchmarkEnvironment.start("--vpp.bulk-copy.min-batch-size=" + minBatchSize);
+        batteryService = environment.bean(BatteryService.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void emptyTable() {
+        environment.seed(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        environment.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<Long> saveBatteries() {
+        List<CreateBatteryRequest> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            long n = sequence++;
+            batch.add(CreateBatteryRequest.builder()
+                    .name("ingest-" + n)
+                    .postcode(POSTCODE_BASE + (int) (n % POSTCODE_COUNT))
+                    .capacity(100 + (n * 7919) % 10_000)
+                    .build());
+        }
+        return batteryService.saveBatteries(batch);
+    }
+}
@@ -0,0 +1,132 @@
+package org.opensource.energy.vpp_backend.benchmark;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import ch.qos.logback.core.encoder.Encoder;
+import org.opensource.energy.vpp_backend.logging.JsonLogEncoder;
+import org.opensource.energy.vpp_backend.logging.LossyAsyncAppender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Latency distribution of the logging done on a save request's thread, with the synchronous pattern layout used before
+ * the {@code async-logging} profile ({@code sync}) and with {@link LossyAsyncAppender} and {@link JsonLogEncoder}
+ * ({@code async}). Both write to a file, as outside the dev profile; JMH's sample mode reports the p99.
+ *
+ * <p>Each invocation logs what {@code LoggingFilter} and {@code saveBatteries} log for a request, including the list
+ * of saved IDs, from eight threads at once so they contend for the appender.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 5)
+@Threads(8)
+@Fork(1)
+public class LoggingBenchmark {
+
+    private static final String PATTERN =
+            "%d{yyyy-MM-dd HH:mm:ss.SSS} %5p --- [%15.15t] [traceId=%X{traceId}, spanId=%X{spanId}] %-40.40logger{39} : %m%n";
+
+    @Param({"sync", "async"})
+    public String mode;
+
+    @Param({"1000"})
+    public int savedIds;
+
+    private LoggerContext context;
+    private Path logFile;
+    private Logger logger;
+    private LossyAsyncAppender asyncAppender;
+    private List<Long> ids;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        logFile = Files.createTempFile("vpp-logging-benchmark", ".log");
+        context = new LoggerContext();
+        context.setMDCAdapter(new LogbackMDCAdapter());
+
+        boolean async = "async".equals(mode);
+        Encoder<ILoggingEvent> encoder = async ? new JsonLogEncoder() : patternEncoder();
+        encoder.setContext(context);
+        encoder.start();
+
+        FileAppender<ILoggingEvent> file = new FileAppender<>();
+        file.setContext(context);
+        file.setFile(logFile.toString());
+        file.setEncoder(encoder);
+        file.start();
+
+        Appender<ILoggingEvent> root = file;
+        if (async) {
+            asyncAppender = new LossyAsyncAppender();
+            asyncAppender.setContext(context);
+            asyncAppender.addAppender(file);
+            asyncAppender.start();
+            root = asyncAppender;
+        }
+
+        logger = context.getLogger("org.opensource.energy.vpp_backend.service.impl.BatteryServiceImpl");
+        logger.setLevel(ch.qos.logback.classic.Level.INFO);
+        logger.addAppender(root);
+        ids = LongStream.rangeClosed(1, savedIds).boxed().toList();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (asyncAppender != null) {
+            System.out.println("Discarded events: " + asyncAppender.getDiscardedCount());
+        }
+        context.stop();
+        Files.deleteIfExists(logFile);
+    }
+
+    @Benchmark
+    public void saveRequest(RequestThread thread) {
+        logger.info("Request -> {} {} | Body: {}", "POST", "/api/batteries", "[{\"name\":\"Cannington\",...}]");
+        logger.info("Saving {} battery record(s)...", ids.size());
+        logger.debug("Mapped request to battery entities to save: {}", ids);
+        logger.info("Successfully saved {} battery record(s). IDs: {}", ids.size(), ids);
+        logger.info("Response -> {} {} | Status: {} | Time: {}ms", "POST", "/api/batteries", 201, 12);
+    }
+
+    /** Tracing context of a request thread, set once per benchmark thread. */
+    @State(Scope.Thread)
+    public static class RequestThread {
+        @Setup(Level.Trial)
+        public void setUp(LoggingBenchmark benchmark) {
+            benchmark.context.getMDCAdapter().put("traceId", "6ad3d704e7e3f1bbb01d9431f8f05745");
+            benchmark.context.getMDCAdapter().put("spanId", "b01d9431f8f05745");
+        }
+    }
+
+    private PatternLayoutEncoder patternEncoder() {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setPattern(PATTERN);
+        return encoder;
+    }
+}
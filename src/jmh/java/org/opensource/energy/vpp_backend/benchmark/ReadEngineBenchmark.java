@@ -0,0 +1,82 @@
+package org.opensource.energy.vpp_backend.benchmark;
+
+import org.opensource.energy.vpp_backend.dto.response.FilteredBatteryStat;
+import org.opensource.energy.vpp_backend.index.BatteryColumnarIndex;
+import org.opensource.energy.vpp_backend.service.reader.DatabaseBatteryStatReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.opensource.energy.vpp_backend.benchmark.BenchmarkEnvironment.POSTCODE_BASE;
+
+/**
+ * Compares {@code GET /batteries} statistics computed by PostgreSQL ({@code vpp.read-engine=database}) with the
+ * in-memory {@link BatteryColumnarIndex} ({@code vpp.read-engine=columnar}) over the same seeded fleet.
+ *
+ * <p>{@code postcodeSpan} controls selectivity: the fleet is spread over 1000 postcodes, so a span of 10 matches
+ * about 1% of the batteries.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadEngineBenchmark {
+
+    @Param({"100000"})
+    public int fleetSize;
+
+    @Param({"10", "500"})
+    public int postcodeSpan;
+
+    private BenchmarkEnvironment environment;
+    private DatabaseBatteryStatReader databaseReader;
+    private BatteryColumnarIndex columnarIndex;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        environment = BenchmarkEnvironment.start("--vpp.read-engine=columnar");
+        environment.seed(fleetSize);
+        databaseReader = environment.bean(DatabaseBatteryStatReader.class);
+        columnarIndex = environment.bean(BatteryColumnarIndex.class);
+        columnarIndex.load();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        environment.close();
+    }
+
+    @Benchmark
+    public FilteredBatteryStat database() {
+        return databaseReader.read(POSTCODE_BASE, POSTCODE_BASE + postcodeSpan - 1, null, null);
+    }
+
+    @Benchmark
+    public FilteredBatteryStat columnar() {
+        return columnarIndex.read(POSTCODE_BASE, POSTCODE_BASE + postcodeSpan - 1, null, null);
+    }
+
+    @Benchmark
+    public FilteredBatteryStat databaseWithWattageFilter() {
+        return databaseReader.read(POSTCODE_BASE, POSTCODE_BASE + postcodeSpan - 1, 2_000L, 6_000L);
+    }
+
+    @Benchmark
+    public FilteredBatteryStat columnarWithWattageFilter() {
+        return columnarIndex.read(POSTCODE_BASE, POSTCODE_BASE + postcodeSpan - 1, 2_000L, 6_000L);
+    }
+}
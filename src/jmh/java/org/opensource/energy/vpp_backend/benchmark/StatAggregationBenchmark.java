@@ -0,0 +1,69 @@
+package org.opensource.energy.vpp_backend.benchmark;
+
+import org.opensource.energy.vpp_backend.aggregate.BatteryStatAccumulator;
+import org.opensource.energy.vpp_backend.dto.response.FilteredBatteryStat;
+import org.opensource.energy.vpp_backend.entity.Battery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Java-side statistics over loaded {@link Battery} entities, as the columnar index and the parallel scan compute
+ * them: the {@link BatteryStatAccumulator} totals alone, and together with the sorted name list.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class StatAggregationBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int fleetSize;
+
+    private List<Battery> batteries;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkLogging.useProductionLevel();
+        batteries = SyntheticFleet.batteries(fleetSize);
+    }
+
+    @Benchmark
+    public BatteryStatAccumulator totals() {
+        BatteryStatAccumulator accumulator = new BatteryStatAccumulator();
+        for (Battery battery : batteries) {
+            accumulator.accept(battery.getName(), battery.getWattCapacity());
+        }
+        return accumulator;
+    }
+
+    @Benchmark
+    public FilteredBatteryStat totalsAndSortedNames() {
+        BatteryStatAccumulator accumulator = new BatteryStatAccumulator();
+        List<String> names = new ArrayList<>(batteries.size());
+        for (Battery battery : batteries) {
+            accumulator.accept(battery.getName(), battery.getWattCapacity());
+            names.add(battery.getName());
+        }
+        names.sort(Comparator.naturalOrder());
+        return accumulator.toStatBuilder()
+                .batteryNames(names)
+                .build();
+    }
+}
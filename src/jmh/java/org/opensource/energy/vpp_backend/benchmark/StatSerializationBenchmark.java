@@ -0,0 +1,65 @@
+package org.opensource.energy.vpp_backend.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.opensource.energy.vpp_backend.aggregate.BatteryStatAccumulator;
+import org.opensource.energy.vpp_backend.dto.response.FilteredBatteryStat;
+import org.opensource.energy.vpp_backend.entity.Battery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of a {@code GET /batteries} response with large name lists, with an object mapper built the
+ * way Spring MVC builds its own. Output goes to a discarding stream, so only encoding is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class StatSerializationBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int nameCount;
+
+    private ObjectMapper objectMapper;
+    private FilteredBatteryStat stat;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkLogging.useProductionLevel();
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        BatteryStatAccumulator accumulator = new BatteryStatAccumulator();
+        List<String> names = new ArrayList<>(nameCount);
+        for (Battery battery : SyntheticFleet.batteries(nameCount)) {
+            accumulator.accept(battery.getName(), battery.getWattCapacity());
+            names.add(battery.getName());
+        }
+        names.sort(null);
+        stat = accumulator.toStatBuilder()
+                .batteryNames(names)
+                .build();
+    }
+
+    @Benchmark
+    public void writeJson() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), stat);
+    }
+}
@@ -0,0 +1,54 @@
+package org.opensource.energy.vpp_backend.benchmark;
+
+import org.opensource.energy.vpp_backend.dto.request.CreateBatteryRequest;
+import org.opensource.energy.vpp_backend.entity.Battery;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.opensource.energy.vpp_backend.benchmark.BenchmarkEnvironment.POSTCODE_BASE;
+import static org.opensource.energy.vpp_backend.benchmark.BenchmarkEnvironment.POSTCODE_COUNT;
+
+/**
+ * In-memory batteries for the benchmarks that do not need a database, spread over the same postcodes as
+ * {@link BenchmarkEnvironment#seed(int)}. A fixed seed keeps runs comparable with the stored baseline.
+ */
+final class SyntheticFleet {
+    private static final long SEED = 42;
+
+    private SyntheticFleet() {
+    }
+
+    static List<CreateBatteryRequest> requests(int size) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        List<CreateBatteryRequest> requests = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            requests.add(CreateBatteryRequest.builder()
+                    .name(name(random))
+                    .postcode(POSTCODE_BASE + random.nextInt(POSTCODE_COUNT))
+                    .capacity(500L + random.nextLong(10_000))
+                    .build());
+        }
+        return requests;
+    }
+
+    static List<Battery> batteries(int size) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        List<Battery> batteries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            batteries.add(Battery.builder()
+                    .id((long) i + 1)
+                    .name(name(random))
+                    .postcode(POSTCODE_BASE + random.nextInt(POSTCODE_COUNT))
+                    .wattCapacity(500L + random.nextLong(10_000))
+                    .build());
+        }
+        return batteries;
+    }
+
+    /** Unsorted, so that sorting names costs what it does on real data. */
+    private static String name(SplittableRandom random) {
+        return "Battery-" + Long.toString(random.nextLong() & Long.MAX_VALUE, 36);
+    }
+}
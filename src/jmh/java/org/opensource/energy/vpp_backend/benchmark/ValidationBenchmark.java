@@ -0,0 +1,58 @@
+package org.opensource.energy.vpp_backend.benchmark;
+
+import org.opensource.energy.vpp_backend.util.ValidationUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@link ValidationUtil} checks every {@code GET /batteries} filter goes through, with and without a wattage
+ * range. Filters are read from fields so the JIT cannot fold the checks away.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+
+    private Integer postcodeFrom;
+    private Integer postcodeTo;
+    private Long wattageFrom;
+    private Long wattageTo;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkLogging.useProductionLevel();
+        postcodeFrom = 6000;
+        postcodeTo = 6999;
+        wattageFrom = 1_000L;
+        wattageTo = 50_000L;
+    }
+
+    @Benchmark
+    public void postcodeRange() {
+        ValidationUtil.validateRangePair("postcode", postcodeFrom, postcodeTo);
+        ValidationUtil.validateRangePair("wattage", null, null);
+        ValidationUtil.validateRange("postcode", postcodeFrom.longValue(), postcodeTo.longValue());
+    }
+
+    @Benchmark
+    public void postcodeAndWattageRange() {
+        ValidationUtil.validateRangePair("postcode", postcodeFrom, postcodeTo);
+        ValidationUtil.validateRangePair("wattage", wattageFrom, wattageTo);
+        ValidationUtil.validateRange("postcode", postcodeFrom.longValue(), postcodeTo.longValue());
+        ValidationUtil.validateRange("wattage", wattageFrom, wattageTo);
+    }
+}
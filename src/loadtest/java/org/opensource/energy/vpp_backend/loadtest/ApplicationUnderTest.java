@@ -0,0 +1,132 @@
+package org.opensource.energy.vpp_backend.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.opensource.energy.vpp_backend.constant.FixedDBConstant;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The deployment under load: either one already running at {@code loadtest.base-url}, or the packaged application
+ * started as its own JVM against a throw-away Testcontainers PostgreSQL. A separate JVM keeps the load generator
+ * out of the application's heap and CPU budget, so {@code loadtest.app-jvm-args} can mimic a pod's limits.
+ */
+@Slf4j
+final class ApplicationUnderTest implements AutoCloseable {
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(3);
+
+    private final String baseUrl;
+    private final PostgreSQLContainer<?> database;
+    private final Process process;
+
+    private ApplicationUnderTest(String baseUrl, PostgreSQLContainer<?> database, Process process) {
+        this.baseUrl = baseUrl;
+        this.database = database;
+        this.process = process;
+    }
+
+    static ApplicationUnderTest start(LoadTestConfig config) throws IOException, InterruptedException {
+        if (!config.baseUrl().isBlank()) {
+            log.info("Using the deployment at {}", config.baseUrl());
+            return new ApplicationUnderTest(config.baseUrl(), null, null);
+        }
+        if (!Files.exists(config.appJar())) {
+            throw new IllegalStateException("Application jar " + config.appJar() + " not found; run the package phase");
+        }
+
+        PostgreSQLContainer<?> database = new PostgreSQLContainer<>(FixedDBConstant.DB_VERSION)
+                .withDatabaseName(FixedDBConstant.DB_NAME)
+                .withUsername(FixedDBConstant.DB_USER)
+                .withPassword(FixedDBConstant.DB_PASS);
+        database.start();
+
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.addAll(split(config.appJvmArgs()));
+        command.addAll(List.of("-jar", config.appJar().toAbsolutePath().toString(),
+                "--server.port=" + port,
+                "--spring.profiles.active=dev,async-logging",
+                "--spring.datasource.url=" + database.getJdbcUrl(),
+                "--spring.datasource.username=" + database.getUsername(),
+                "--spring.datasource.password=" + database.getPassword(),
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.generate_statistics=false"));
+        command.addAll(split(config.appArgs()));
+
+        Files.createDirectories(config.outputDir());
+        Path appLog = config.outputDir().resolve("app.log");
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(appLog.toFile())
+                .start();
+        ApplicationUnderTest application = new ApplicationUnderTest("http://localhost:" + port + "/api", database, process);
+        try {
+            application.awaitHealthy();
+        } catch (IOException | InterruptedException | RuntimeException ex) {
+            application.close();
+            throw ex;
+        }
+        log.info("Application started on port {} with {}; log in {}", port, config.appJvmArgs(), appLog);
+        return application;
+    }
+
+    String baseUrl() {
+        return baseUrl;
+    }
+
+    private void awaitHealthy() throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest health = HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/health")).build();
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Application exited with status " + process.exitValue());
+            }
+            try {
+                if (client.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException ex) {
+                // Not listening yet.
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException("Application not healthy after " + STARTUP_TIMEOUT);
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        if (process != null) {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+        if (database != null) {
+            database.stop();
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static List<String> split(String arguments) {
+        return arguments.isBlank() ? List.of() : Arrays.asList(arguments.trim().split("\\s+"));
+    }
+}
@@ -0,0 +1,111 @@
+package org.opensource.energy.vpp_backend.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Seeds the synthetic fleet through the bulk path: concurrent NDJSON uploads to {@code POST /batteries/stream},
+ * generated while they are sent, so neither side holds the fleet in memory. The server saves each chunk with COPY.
+ */
+@Slf4j
+final class FleetSeeder {
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final String runId;
+
+    FleetSeeder(HttpClient client, String baseUrl, String runId) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.runId = runId;
+    }
+
+    /**
+     * @return batteries seeded per second
+     */
+    double seed(long fleetSize, int streams) {
+        log.info("Seeding {} batteries over {} streams", fleetSize, streams);
+        long start = System.nanoTime();
+        List<CompletableFuture<HttpResponse<String>>> uploads = new ArrayList<>(streams);
+        for (int stream = 0; stream < streams; stream++) {
+            long from = fleetSize * stream / streams;
+            long to = fleetSize * (stream + 1) / streams;
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/batteries/stream"))
+                    .header("Content-Type", "application/x-ndjson")
+                    .POST(HttpRequest.BodyPublishers.ofInputStream(
+                            () -> new NdjsonFleet(new SyntheticFleet(runId.hashCode() + from), runId, from, to)))
+                    .build();
+            uploads.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+        }
+        for (CompletableFuture<HttpResponse<String>> upload : uploads) {
+            HttpResponse<String> response = upload.join();
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Seeding failed with " + response.statusCode() + ": " + response.body());
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        log.info("Seeded {} batteries in {} s", fleetSize, String.format("%.1f", seconds));
+        return fleetSize / seconds;
+    }
+
+    /** Batteries {@code from} (inclusive) to {@code to} (exclusive) of the fleet, one JSON object per line. */
+    private static final class NdjsonFleet extends InputStream {
+        private final SyntheticFleet fleet;
+        private final String runId;
+        private final long to;
+        private long next;
+        private byte[] line = new byte[0];
+        private int position;
+
+        NdjsonFleet(SyntheticFleet fleet, String runId, long from, long to) {
+            this.fleet = fleet;
+            this.runId = runId;
+            this.next = from;
+            this.to = to;
+        }
+
+        @Override
+        public int read() {
+            if (!fill()) {
+                return -1;
+            }
+            return line[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            int read = 0;
+            while (read < length && fill()) {
+                int count = Math.min(length - read, line.length - position);
+                System.arraycopy(line, position, buffer, offset + read, count);
+                position += count;
+                read += count;
+            }
+            return read == 0 ? -1 : read;
+        }
+
+        private boolean fill() {
+            if (position < line.length) {
+                return true;
+            }
+            if (next >= to) {
+                return false;
+            }
+            line = (fleet.batteryJson("LT-" + runId + "-" + next++) + "\n").getBytes(StandardCharsets.UTF_8);
+            position = 0;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package org.opensource.energy.vpp_backend.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Prints the throughput and latency summary of a run and writes it to {@code loadtest.output-dir}: one HdrHistogram
+ * percentile distribution per workload ({@code *.hgrm}, loadable in HdrHistogram's plotter) and {@code summary.json}.
+ * Checks the run against {@code loadtest.max-p99} and {@code loadtest.max-error-rate}.
+ */
+final class LatencyReport {
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    private LatencyReport() {
+    }
+
+    /**
+     * @return the thresholds the run exceeded; empty if it passed
+     */
+    static List<String> write(LoadTestConfig config, double seedRate, List<OpenLoopWorkload> workloads)
+            throws IOException {
+        Files.createDirectories(config.outputDir());
+        double seconds = config.duration().toNanos() / 1e9;
+        List<String> violations = new ArrayList<>();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("fleetSize", config.fleetSize());
+        summary.put("seedBatteriesPerSecond", Math.round(seedRate));
+        summary.put("measuredSeconds", seconds);
+
+        PrintStream out = System.out;
+        out.printf(Locale.ROOT, "%nSeeded %,d batteries at %,.0f batteries/s; measured for %.0f s%n",
+                config.fleetSize(), seedRate, seconds);
+        out.printf(Locale.ROOT, "%-16s %9s %9s %9s %7s %7s %7s %9s %9s %9s %9s %9s%n", "Workload", "Target/s",
+                "Actual/s", "OK", "429", "Failed", "Dropped", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (OpenLoopWorkload workload : workloads) {
+            Histogram latencies = workload.latencies();
+            long total = latencies.getTotalCount();
+            double errorRate = total == 0 ? 0 : (double) workload.unsuccessful() / total;
+            double p99 = millis(latencies.getValueAtPercentile(99));
+            out.printf(Locale.ROOT, "%-16s %9.1f %9.1f %9d %7d %7d %7d %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                    workload.name(), workload.rate(), workload.succeeded() / seconds, workload.succeeded(),
+                    workload.rejected(), workload.failed(), workload.dropped(),
+                    millis(latencies.getValueAtPercentile(50)), millis(latencies.getValueAtPercentile(90)), p99,
+                    millis(latencies.getValueAtPercentile(99.9)), millis(latencies.getMaxValue()));
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("workload", workload.name());
+            result.put("targetRate", workload.rate());
+            result.put("throughput", workload.succeeded() / seconds);
+            result.put("succeeded", workload.succeeded());
+            result.put("rejected", workload.rejected());
+            result.put("failed", workload.failed());
+            result.put("dropped", workload.dropped());
+            result.put("errorRate", errorRate);
+            result.put("p50Ms", millis(latencies.getValueAtPercentile(50)));
+            result.put("p90Ms", millis(latencies.getValueAtPercentile(90)));
+            result.put("p99Ms", p99);
+            result.put("p999Ms", millis(latencies.getValueAtPercentile(99.9)));
+            result.put("maxMs", millis(latencies.getMaxValue()));
+            results.add(result);
+
+            Path distribution = config.outputDir().resolve(fileName(workload.name()) + ".hgrm");
+            try (PrintStream file = new PrintStream(Files.newOutputStream(distribution))) {
+                latencies.outputPercentileDistribution(file, NANOS_PER_MILLI);
+            }
+
+            if (config.maxP99() != null && p99 > config.maxP99().toMillis()) {
+                violations.add(String.format(Locale.ROOT, "%s p99 of %.1f ms is above %d ms", workload.name(), p99,
+                        config.maxP99().toMillis()));
+            }
+            if (errorRate > config.maxErrorRate()) {
+                violations.add(String.format(Locale.ROOT, "%s error rate of %.2f%% is above %.2f%%", workload.name(),
+                        errorRate * 100, config.maxErrorRate() * 100));
+            }
+        }
+        summary.put("workloads", results);
+        summary.put("violations", violations);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(config.outputDir().resolve("summary.json").toFile(), summary);
+
+        violations.forEach(violation -> out.println("FAILED: " + violation));
+        out.println("Latency distributions and summary.json written to " + config.outputDir());
+        return violations;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / NANOS_PER_MILLI;
+    }
+
+    private static String fileName(String workloadName) {
+        return workloadName.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "-").replaceAll("^-|-$", "");
+    }
+}
@@ -0,0 +1,122 @@
+package org.opensource.energy.vpp_backend.loadtest;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.ConsoleAppender;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * End-to-end load test, run by {@code mvn -P loadtest verify}: starts the application (see
+ * {@link ApplicationUnderTest}), seeds a synthetic fleet, drives {@code GET /batteries} and {@code POST /batteries}
+ * at fixed open-loop rates and reports their latency distributions and throughput ({@link LatencyReport}). Exits
+ * with status 1, failing the build, when the run exceeds {@code loadtest.max-p99} or {@code loadtest.max-error-rate}.
+ */
+@Slf4j
+public final class LoadTest {
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        configureLogging();
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        List<String> violations;
+        try (ApplicationUnderTest application = ApplicationUnderTest.start(config)) {
+            String baseUrl = application.baseUrl();
+            double seedRate = config.fleetSize() > 0
+                    ? new FleetSeeder(client, baseUrl, runId).seed(config.fleetSize(), config.seedStreams())
+                    : 0;
+
+            OpenLoopWorkload reads = new OpenLoopWorkload("GET /batteries", config.readRate(), config.maxInFlight(),
+                    REQUEST_TIMEOUT, reads(baseUrl, new SyntheticFleet(1)));
+            OpenLoopWorkload writes = new OpenLoopWorkload("POST /batteries", config.writeRate(), config.maxInFlight(),
+                    REQUEST_TIMEOUT, writes(baseUrl, new SyntheticFleet(2), runId, config.writeBatchSize()));
+            List<OpenLoopWorkload> workloads = List.of(reads, writes);
+
+            log.info("Running {}/s reads and {}/s writes: {} warmup, then {} measured", config.readRate(),
+                    config.writeRate(), config.warmup(), config.duration());
+            long start = System.nanoTime() + Duration.ofMillis(100).toNanos();
+            long measureFrom = start + config.warmup().toNanos();
+            long end = measureFrom + config.duration().toNanos();
+            // One scheduling thread per workload, so a slow arrival loop cannot delay the other's schedule.
+            List<Thread> schedulers = new ArrayList<>();
+            for (OpenLoopWorkload workload : workloads) {
+                Thread scheduler = new Thread(() -> workload.run(client, start, measureFrom, end), workload.name());
+                scheduler.start();
+                schedulers.add(scheduler);
+            }
+            for (Thread scheduler : schedulers) {
+                scheduler.join();
+            }
+            for (OpenLoopWorkload workload : workloads) {
+                workload.awaitCompletion(REQUEST_TIMEOUT.toNanos());
+            }
+
+            violations = LatencyReport.write(config, seedRate, workloads);
+        }
+        System.exit(violations.isEmpty() ? 0 : 1);
+    }
+
+    /**
+     * Outside Spring, the test Logback configuration declares no appender (its console appender is scoped to the
+     * {@code test} profile) and leaves the root logger at {@code DEBUG}; log progress to the console at {@code INFO}.
+     */
+    private static void configureLogging() {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{HH:mm:ss.SSS} %-5level %logger{20} : %msg%n");
+        encoder.start();
+        ConsoleAppender<ILoggingEvent> console = new ConsoleAppender<>();
+        console.setContext(context);
+        console.setEncoder(encoder);
+        console.start();
+        Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.setLevel(Level.INFO);
+        root.addAppender(console);
+    }
+
+    private static Supplier<HttpRequest> reads(String baseUrl, SyntheticFleet fleet) {
+        return () -> HttpRequest.newBuilder(URI.create(baseUrl + "/batteries?" + fleet.statQuery()))
+                .header("Content-Type", "application/json")
+                .timeout(REQUEST_TIMEOUT)
+                .GET()
+                .build();
+    }
+
+    private static Supplier<HttpRequest> writes(String baseUrl, SyntheticFleet fleet, String runId, int batchSize) {
+        AtomicLong sequence = new AtomicLong();
+        return () -> {
+            StringBuilder body = new StringBuilder("[");
+            for (int i = 0; i < batchSize; i++) {
+                body.append(i == 0 ? "" : ",")
+                        .append(fleet.batteryJson("LT-" + runId + "-w" + sequence.incrementAndGet()));
+            }
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/batteries"))
+                    .header("Content-Type", "application/json")
+                    .timeout(REQUEST_TIMEOUT)
+                    .POST(HttpRequest.BodyPublishers.ofString(body.append(']').toString()))
+                    .build();
+        };
+    }
+}
@@ -0,0 +1,64 @@
+package org.opensource.energy.vpp_backend.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings of a load test run, read from {@code loadtest.*} system properties; pass them to
+ * {@code mvn -P loadtest verify} as {@code -Dloadtest.args="-Dloadtest.read-rate=500 ..."}.
+ *
+ * @param baseUrl        URL of an already running deployment, including the context path; when blank the
+ *                       packaged application is started against a Testcontainers PostgreSQL
+ * @param fleetSize      batteries seeded before the workload, through {@code POST /batteries/stream}; 0 skips seeding
+ * @param seedStreams    concurrent seeding streams
+ * @param readRate       {@code GET /batteries} requests started per second
+ * @param writeRate      {@code POST /batteries} requests started per second
+ * @param writeBatchSize batteries per {@code POST /batteries} request
+ * @param warmup         time the workload runs before latencies are recorded
+ * @param duration       time latencies are recorded for
+ * @param maxInFlight    requests outstanding per workload beyond which arrivals are dropped and counted as errors
+ * @param maxP99         largest acceptable p99 latency of either workload, or {@code null} for no limit
+ * @param maxErrorRate   largest acceptable fraction of requests that did not succeed
+ */
+record LoadTestConfig(String baseUrl,
+                      Path appJar,
+                      String appJvmArgs,
+                      String appArgs,
+                      Path outputDir,
+                      long fleetSize,
+                      int seedStreams,
+                      double readRate,
+                      double writeRate,
+                      int writeBatchSize,
+                      Duration warmup,
+                      Duration duration,
+                      int maxInFlight,
+                      Duration maxP99,
+                      double maxErrorRate) {
+
+    static LoadTestConfig fromSystemProperties() {
+        String maxP99 = property("max-p99", "");
+        return new LoadTestConfig(
+                property("base-url", ""),
+                Path.of(property("app-jar", "target/vpp-backend-0.0.1-SNAPSHOT.jar")),
+                property("app-jvm-args", "-Xmx1g"),
+                property("app-args", ""),
+                Path.of(property("output-dir", "target/loadtest")),
+                Long.parseLong(property("fleet-size", "1000000")),
+                Integer.parseInt(property("seed-streams", "4")),
+                Double.parseDouble(property("read-rate", "200")),
+                Double.parseDouble(property("write-rate", "20")),
+                Integer.parseInt(property("write-batch-size", "10")),
+                DurationStyle.detectAndParse(property("warmup", "15s")),
+                DurationStyle.detectAndParse(property("duration", "60s")),
+                Integer.parseInt(property("max-in-flight", "2000")),
+                maxP99.isBlank() ? null : DurationStyle.detectAndParse(maxP99),
+                Double.parseDouble(property("max-error-rate", "0.01")));
+    }
+
+    private static String property(String name, String defaultValue) {
+        return System.getProperty("loadtest." + name, defaultValue);
+    }
+}
@@ -0,0 +1,138 @@
+package org.opensource.energy.vpp_backend.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Sends requests at a fixed arrival rate regardless of how fast responses come back (an open loop), as independent
+ * clients would, and records their latencies.
+ *
+ * <p>Latency is measured from the moment a request was scheduled to start, not from when it was actually sent, so a
+ * stalled server is charged for the requests that queued up behind the stall (no coordinated omission). Requests
+ * scheduled during the warmup are sent but not recorded. Arrivals finding {@code maxInFlight} requests outstanding
+ * are dropped and counted as errors rather than piling up in the load generator; a dropped arrival is recorded at
+ * the request timeout, the latency a client would have seen by giving up, so drops cannot hide a stall from the
+ * percentiles.</p>
+ */
+final class OpenLoopWorkload {
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    private final String name;
+    private final double rate;
+    private final Supplier<HttpRequest> requests;
+    private final int maxInFlight;
+    private final long droppedLatencyNanos;
+    private final Semaphore inFlight;
+    private final Histogram latencies = new ConcurrentHistogram(MAX_LATENCY_NANOS, 3);
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    OpenLoopWorkload(String name, double rate, int maxInFlight, Duration requestTimeout,
+                     Supplier<HttpRequest> requests) {
+        this.name = name;
+        this.rate = rate;
+        this.requests = requests;
+        this.maxInFlight = maxInFlight;
+        this.droppedLatencyNanos = Math.min(requestTimeout.toNanos(), MAX_LATENCY_NANOS);
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Schedules arrivals from {@code startNanos} until {@code endNanos}, recording those from {@code measureFromNanos}.
+     * Blocks the calling thread until the last arrival has been sent.
+     */
+    void run(HttpClient client, long startNanos, long measureFromNanos, long endNanos) {
+        if (rate <= 0) {
+            return;
+        }
+        long interval = Math.max(1, Math.round(1e9 / rate));
+        for (long scheduled = startNanos; scheduled < endNanos; scheduled += interval) {
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            boolean measured = scheduled >= measureFromNanos;
+            if (!inFlight.tryAcquire()) {
+                if (measured) {
+                    latencies.recordValue(droppedLatencyNanos);
+                    dropped.increment();
+                }
+                continue;
+            }
+            long intendedStart = scheduled;
+            client.sendAsync(requests.get(), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        inFlight.release();
+                        if (measured) {
+                            record(intendedStart, response, error);
+                        }
+                    });
+        }
+    }
+
+    /** Waits until every request sent has completed, or the timeout has passed. */
+    void awaitCompletion(long timeoutNanos) throws InterruptedException {
+        if (inFlight.tryAcquire(maxInFlight, timeoutNanos, TimeUnit.NANOSECONDS)) {
+            inFlight.release(maxInFlight);
+        }
+    }
+
+    private void record(long intendedStart, HttpResponse<Void> response, Throwable error) {
+        latencies.recordValue(Math.min(System.nanoTime() - intendedStart, MAX_LATENCY_NANOS));
+        if (error != null) {
+            failed.increment();
+        } else if (response.statusCode() == 429) {
+            rejected.increment();
+        } else if (response.statusCode() >= 200 && response.statusCode() < 300) {
+            succeeded.increment();
+        } else {
+            failed.increment();
+        }
+    }
+
+    String name() {
+        return name;
+    }
+
+    double rate() {
+        return rate;
+    }
+
+    Histogram latencies() {
+        return latencies;
+    }
+
+    long succeeded() {
+        return succeeded.sum();
+    }
+
+    /** Answered with {@code 429 Too Many Requests} by the load shedding filter. */
+    long rejected() {
+        return rejected.sum();
+    }
+
+    /** Other error statuses and transport errors. */
+    long failed() {
+        return failed.sum();
+    }
+
+    long dropped() {
+        return dropped.sum();
+    }
+
+    long unsuccessful() {
+        return rejected() + failed() + dropped();
+    }
+}
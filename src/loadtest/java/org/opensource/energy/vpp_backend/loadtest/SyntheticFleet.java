@@ -0,0 +1,61 @@
+package org.opensource.energy.vpp_backend.loadtest;
+
+import java.util.SplittableRandom;
+
+/**
+ * Batteries shaped like a residential VPP fleet in Australia, where this service's postcodes come from.
+ *
+ * <p>States are weighted by their share of home batteries, and within a state's postcode range the low,
+ * metropolitan postcodes are denser than the regional ones. Capacities are log-normal: most batteries are home
+ * systems around 10 kW, one in twelve is a commercial system around 100 kW. Not thread-safe.</p>
+ */
+final class SyntheticFleet {
+
+    /** Postcode ranges of NSW, VIC, QLD, SA, WA, TAS, ACT and NT, with cumulative weights. */
+    private static final int[][] STATES = {
+            {2000, 2599, 30}, {3000, 3999, 52}, {4000, 4999, 74}, {5000, 5799, 86},
+            {6000, 6797, 96}, {7000, 7799, 98}, {2600, 2618, 99}, {800, 899, 100}};
+    private static final double COMMERCIAL_SHARE = 1 / 12.0;
+
+    private final SplittableRandom random;
+
+    SyntheticFleet(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    int postcode() {
+        int draw = random.nextInt(100);
+        for (int[] state : STATES) {
+            if (draw < state[2]) {
+                double skewed = Math.pow(random.nextDouble(), 2);
+                return state[0] + (int) (skewed * (state[1] - state[0] + 1));
+            }
+        }
+        throw new IllegalStateException("State weights must end at 100");
+    }
+
+    long capacity() {
+        if (random.nextDouble() < COMMERCIAL_SHARE) {
+            return logNormal(100_000, 0.7, 40_000, 2_000_000);
+        }
+        return logNormal(10_000, 0.4, 2_000, 40_000);
+    }
+
+    /** A filter as a dashboard would send it: mostly a single suburb, sometimes a region, rarely a wattage band. */
+    String statQuery() {
+        int from = postcode();
+        double draw = random.nextDouble();
+        int span = draw < 0.6 ? 1 : draw < 0.9 ? 10 : 100;
+        String query = "postcodeFrom=" + from + "&postcodeTo=" + Math.min(from + span - 1, 9999);
+        return random.nextDouble() < 0.3 ? query + "&wattageFrom=5000&wattageTo=20000" : query;
+    }
+
+    String batteryJson(String name) {
+        return "{\"name\":\"" + name + "\",\"postcode\":" + postcode() + ",\"capacity\":" + capacity() + "}";
+    }
+
+    private long logNormal(double median, double sigma, long min, long max) {
+        double value = median * Math.exp(sigma * random.nextGaussian());
+        return Math.max(min, Math.min(max, Math.round(value)));
+    }
+}
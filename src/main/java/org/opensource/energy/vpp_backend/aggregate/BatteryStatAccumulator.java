@@ -0,0 +1,103 @@
+package org.opensource.energy.vpp_backend.aggregate;
+
+import org.opensource.energy.vpp_backend.dto.response.FilteredBatteryStat;
+import org.opensource.energy.vpp_backend.util.CodePointUtil;
+
+/**
+ * Single-pass accumulator for battery statistics (count, total capacity and the highest/lowest capacity battery).
+ *
+ * <p>The result does not depend on the order in which batteries are accepted or partial results are merged:
+ * ties on the highest or lowest capacity resolve to the first name in code point order
+ * ({@link CodePointUtil#CODE_POINT_ORDER}), matching the SQL path.</p>
+ *
+ * <p>Instances are not thread-safe; use one accumulator per thread and {@link #merge(BatteryStatAccumulator)}
+ * the partial results.</p>
+ */
+public final class BatteryStatAccumulator {
+    private long count;
+    private long totalCapacity;
+    private long maxCapacity;
+    private String maxName;
+    private long minCapacity;
+    private String minName;
+
+    public void accept(String name, long capacity) {
+        count++;
+        totalCapacity += capacity;
+        if (maxName == null || capacity > maxCapacity || (capacity == maxCapacity && CodePointUtil.compare(name, maxName) < 0)) {
+            maxCapacity = capacity;
+            maxName = name;
+        }
+        if (minName == null || capacity < minCapacity || (capacity == minCapacity && CodePointUtil.compare(name, minName) < 0)) {
+            minCapacity = capacity;
+            minName = name;
+        }
+    }
+
+    /**
+     * Folds another partial result into this accumulator.
+     *
+     * @param other the partial result to merge; left unchanged
+     * @return this accumulator
+     */
+    public BatteryStatAccumulator merge(BatteryStatAccumulator other) {
+        if (other.count == 0) {
+            return this;
+        }
+        count += other.count;
+        totalCapacity += other.totalCapacity;
+        if (maxName == null || other.maxCapacity > maxCapacity
+                || (other.maxCapacity == maxCapacity && CodePointUtil.compare(other.maxName, maxName) < 0)) {
+            maxCapacity = other.maxCapacity;
+            maxName = other.maxName;
+        }
+        if (minName == null || other.minCapacity < minCapacity
+                || (other.minCapacity == minCapacity && CodePointUtil.compare(other.minName, minName) < 0)) {
+            minCapacity = other.minCapacity;
+            minName = other.minName;
+        }
+        return this;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getTotalCapacity() {
+        return totalCapacity;
+    }
+
+    public long getMaxCapacity() {
+        return maxCapacity;
+    }
+
+    /**
+     * @return the name of the highest capacity battery, or {@code null} if nothing was accepted
+     */
+    public String getMaxName() {
+        return maxName;
+    }
+
+    public long getMinCapacity() {
+        return minCapacity;
+    }
+
+    /**
+     * @return the name of the lowest capacity battery, or {@code null} if nothing was accepted
+     */
+    public String getMinName() {
+        return minName;
+    }
+
+    /**
+     * @return a builder pre-populated with the accumulated totals; battery names are left for the caller
+     */
+    public FilteredBatteryStat.FilteredBatteryStatBuilder toStatBuilder() {
+        return FilteredBatteryStat.builder()
+                .totalCount(count)
+                .totalCapacity(totalCapacity)
+                .averageCapacity(count == 0 ? 0 : totalCapacity / count)
+                .highestCapacityBatteryName(maxName)
+                .lowestCapacityBatteryName(minName);
+    }
+}
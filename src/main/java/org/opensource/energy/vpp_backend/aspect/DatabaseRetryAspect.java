@@ -0,0 +1,256 @@
+package org.opensource.energy.vpp_backend.aspect;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.opensource.energy.vpp_backend.exception.DatabaseUnavailableException;
+import org.opensource.energy.vpp_backend.retry.CircuitBreaker;
+import org.opensource.energy.vpp_backend.retry.RetryBudget;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implements {@link RetryOnDatabaseFailure}: retries transient database failures with exponential backoff and
+ * decorrelated jitter, within a global {@link RetryBudget}, behind a {@link CircuitBreaker} that fails fast while the
+ * database is down. Only connection-level failures count towards opening the breaker; lock contention is retried
+ * but shows the database is up.
+ *
+ * <p>Each delay is drawn uniformly from {@code [base-delay, 3 * previous delay]} and capped at {@code max-delay}, so
+ * callers that failed together do not retry together. Runs outside {@code @Transactional}, so every attempt gets a
+ * fresh transaction; a method joining its caller's transaction is not retried, as only the caller can start over.
+ * A call nested in another retried call passes the breaker without asking it: the outer call holds the permit,
+ * which may be the single half-open probe, and reports the outcome.</p>
+ *
+ * <p>Published meters: {@code vpp.db_retry.attempts} tagged {@code method} and
+ * {@code outcome=success|unavailable|contention|other}, {@code vpp.db_retry.retries}, {@code vpp.db_retry.backoff},
+ * {@code vpp.db_retry.failures}
+ * tagged {@code reason=attempts_exhausted|budget_exhausted|short_circuited}, {@code vpp.db_retry.budget.tokens},
+ * {@code vpp.db_retry.breaker.state} (0 closed, 1 half-open, 2 open) and {@code vpp.db_retry.breaker.transitions}
+ * tagged {@code state}.</p>
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Slf4j
+public class DatabaseRetryAspect {
+    /** The database could not be reached or lost the connection; retried, and counted by the circuit breaker. */
+    private static final List<Class<? extends Throwable>> UNAVAILABLE_FAILURES = List.of(
+            org.springframework.dao.DataAccessResourceFailureException.class,
+            org.springframework.dao.TransientDataAccessResourceException.class,
+            org.springframework.dao.RecoverableDataAccessException.class,
+            org.springframework.transaction.CannotCreateTransactionException.class,
+            org.hibernate.exception.JDBCConnectionException.class,
+            java.sql.SQLTransientConnectionException.class,
+            java.sql.SQLNonTransientConnectionException.class);
+
+    /** The database answered but the statement lost a race or timed out; retried only. */
+    private static final List<Class<? extends Throwable>> CONTENTION_FAILURES = List.of(
+            org.springframework.dao.ConcurrencyFailureException.class,
+            org.springframework.dao.CannotAcquireLockException.class,
+            java.sql.SQLTransientException.class,
+            java.sql.SQLTimeoutException.class);
+
+    enum Failure {
+        UNAVAILABLE, CONTENTION, OTHER
+    }
+
+    private final int maxAttempts;
+    private final long baseDelayNanos;
+    private final long maxDelayNanos;
+    private final RetryBudget budget;
+    private final CircuitBreaker breaker;
+
+    private final Meter.MeterProvider<Counter> attemptCounters;
+    private final Counter retries;
+    private final Timer backoff;
+    private final Counter attemptsExhausted;
+    private final Counter budgetExhausted;
+    private final Counter shortCircuited;
+    /** Set while the current thread runs a call admitted by the breaker. */
+    private final ThreadLocal<Boolean> insideAdmittedCall = new ThreadLocal<>();
+
+    public DatabaseRetryAspect(MeterRegistry meterRegistry,
+                               @Value("${vpp.db-retry.max-attempts:3}") int maxAttempts,
+                               @Value("${vpp.db-retry.base-delay:50ms}") Duration baseDelay,
+                               @Value("${vpp.db-retry.max-delay:2s}") Duration maxDelay,
+                               @Value("${vpp.db-retry.budget.ratio:0.1}") double budgetRatio,
+                               @Value("${vpp.db-retry.budget.max-tokens:20}") int budgetMaxTokens,
+                               @Value("${vpp.db-retry.breaker.failure-threshold:5}") int breakerFailureThreshold,
+                               @Value("${vpp.db-retry.breaker.open-duration:5s}") Duration breakerOpenDuration) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("vpp.db-retry.max-attempts must be at least 1");
+        }
+        this.maxAttempts = maxAttempts;
+        this.baseDelayNanos = baseDelay.toNanos();
+        this.maxDelayNanos = Math.max(baseDelayNanos, maxDelay.toNanos());
+        this.budget = new RetryBudget(budgetRatio, budgetMaxTokens);
+
+        Map<CircuitBreaker.State, Counter> transitions = new EnumMap<>(CircuitBreaker.State.class);
+        for (CircuitBreaker.State state : CircuitBreaker.State.values()) {
+            transitions.put(state, Counter.builder("vpp.db_retry.breaker.transitions")
+                    .description("Database circuit breaker state changes, by new state")
+                    .tag("state", state.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+        this.breaker = new CircuitBreaker(breakerFailureThreshold, breakerOpenDuration.toNanos(), System::nanoTime,
+                state -> {
+                    transitions.get(state).increment();
+                    log.warn("Database circuit breaker is now {}", state);
+                });
+
+        Gauge.builder("vpp.db_retry.breaker.state", breaker, b -> b.getState().ordinal())
+                .description("Database circuit breaker state: 0 closed, 1 half-open, 2 open")
+                .register(meterRegistry);
+        Gauge.builder("vpp.db_retry.budget.tokens", budget, RetryBudget::availableTokens)
+                .description("Retries the retry budget still allows right now")
+                .register(meterRegistry);
+        this.attemptCounters = Counter.builder("vpp.db_retry.attempts")
+                .description("Calls of @RetryOnDatabaseFailure methods that reached the method, retries included, by outcome")
+                .withRegistry(meterRegistry);
+        this.retries = Counter.builder("vpp.db_retry.retries")
+                .description("Attempts repeated after a transient database failure")
+                .register(meterRegistry);
+        this.backoff = Timer.builder("vpp.db_retry.backoff")
+                .description("Time slept before a retry")
+                .register(meterRegistry);
+        this.attemptsExhausted = failures(meterRegistry, "attempts_exhausted");
+        this.budgetExhausted = failures(meterRegistry, "budget_exhausted");
+        this.shortCircuited = failures(meterRegistry, "short_circuited");
+    }
+
+    private static Counter failures(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("vpp.db_retry.failures")
+                .description("Calls given up on, by reason")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    @Around("@annotation(org.opensource.energy.vpp_backend.aspect.RetryOnDatabaseFailure)")
+    public Object retry(ProceedingJoinPoint joinPoint) throws Throwable {
+        int attempts = TransactionSynchronizationManager.isActualTransactionActive() ? 1 : maxAttempts;
+        String method = joinPoint.getSignature().toShortString();
+        long delayNanos = baseDelayNanos;
+        Throwable lastFailure = null;
+
+        boolean nested = Boolean.TRUE.equals(insideAdmittedCall.get());
+
+        for (int attempt = 1; ; attempt++) {
+            budget.recordCall();
+            if (!nested && !breaker.tryAcquire()) {
+                shortCircuited.increment();
+                throw new DatabaseUnavailableException(Duration.ofNanos(breaker.remainingOpenNanos()), lastFailure);
+            }
+
+            insideAdmittedCall.set(true);
+            try {
+                Object result = joinPoint.proceed();
+                if (!nested) {
+                    breaker.onSuccess();
+                }
+                countAttempt(method, "success");
+                return result;
+            } catch (DatabaseUnavailableException ex) {
+                // Refused by a breaker further down; nothing reached the database, but the permit must be returned.
+                if (!nested) {
+                    breaker.release();
+                }
+                throw ex;
+            } catch (Throwable ex) {
+                Failure failure = classify(ex);
+                countAttempt(method, failure.name().toLowerCase());
+                if (!nested && failure == Failure.UNAVAILABLE) {
+                    breaker.onFailure();
+                } else if (!nested) {
+                    // The database answered; deadlocks and bad data say nothing about its availability.
+                    breaker.onSuccess();
+                }
+                if (failure == Failure.OTHER) {
+                    throw ex;
+                }
+                lastFailure = ex;
+                if (attempt >= attempts) {
+                    attemptsExhausted.increment();
+                    throw ex;
+                }
+                if (!budget.tryAcquireRetry()) {
+                    budgetExhausted.increment();
+                    log.warn("Not retrying {} after a transient database failure: retry budget exhausted", method);
+                    throw ex;
+                }
+
+                delayNanos = nextDelay(delayNanos);
+                log.warn("Transient database failure in {} (attempt {} of {}), retrying in {} ms: {}",
+                        method, attempt, attempts,
+                        TimeUnit.NANOSECONDS.toMillis(delayNanos), ex.getMessage());
+                retries.increment();
+                backoff.record(delayNanos, TimeUnit.NANOSECONDS);
+                sleep(delayNanos, ex);
+            } finally {
+                if (!nested) {
+                    insideAdmittedCall.remove();
+                }
+            }
+        }
+    }
+
+    private void countAttempt(String method, String outcome) {
+        attemptCounters.withTags("method", method, "outcome", outcome).increment();
+    }
+
+    /** Decorrelated jitter: uniform in {@code [base, 3 * previous]}, capped. */
+    private long nextDelay(long previousNanos) {
+        long upper = Math.min(maxDelayNanos, Math.max(baseDelayNanos, previousNanos) * 3);
+        return upper <= baseDelayNanos ? baseDelayNanos : ThreadLocalRandom.current().nextLong(baseDelayNanos, upper + 1);
+    }
+
+    private static void sleep(long nanos, Throwable failure) throws Throwable {
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw failure;
+        }
+    }
+
+    /** Looks through the whole cause chain, as connection failures often surface wrapped in other exceptions. */
+    static Failure classify(Throwable ex) {
+        Failure failure = Failure.OTHER;
+        for (Throwable cause = ex; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            if (isAnyOf(cause, UNAVAILABLE_FAILURES)) {
+                return Failure.UNAVAILABLE;
+            }
+            if (isAnyOf(cause, CONTENTION_FAILURES)) {
+                failure = Failure.CONTENTION;
+            }
+        }
+        return failure;
+    }
+
+    private static boolean isAnyOf(Throwable ex, List<Class<? extends Throwable>> types) {
+        for (Class<? extends Throwable> type : types) {
+            if (type.isInstance(ex)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
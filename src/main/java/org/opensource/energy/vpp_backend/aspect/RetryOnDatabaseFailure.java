@@ -1,8 +1,5 @@
 package org.opensource.energy.vpp_backend.aspect;
 
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Retryable;
-
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
@@ -11,18 +8,23 @@ import java.lang.annotation.Target;
 /**
  * Annotation for retrying methods that perform database operations prone to transient failures.
  * <p>
- * Automatically retries the annotated method up to 3 times (default)
- * with a backoff delay of 2000 milliseconds between attempts.
+ * Automatically retries the annotated method up to {@code vpp.db-retry.max-attempts} times (3 by default), sleeping
+ * an exponentially growing, randomly jittered delay between attempts. Retries are limited by a budget shared by all
+ * callers, and a circuit breaker fails calls fast with {@link org.opensource.energy.vpp_backend.exception.DatabaseUnavailableException}
+ * while the database is unreachable. See {@link DatabaseRetryAspect} for the details.
  * <p>
- * Retryable exceptions include common transient issues such as:
+ * Retryable exceptions, found anywhere in the cause chain, include common transient issues such as:
  * <ul>
  *     <li>{@link org.springframework.dao.ConcurrencyFailureException}</li>
  *     <li>{@link org.springframework.dao.CannotAcquireLockException}</li>
+ *     <li>{@link org.springframework.dao.DataAccessResourceFailureException}</li>
  *     <li>{@link org.springframework.dao.TransientDataAccessResourceException}</li>
  *     <li>{@link org.springframework.dao.RecoverableDataAccessException}</li>
+ *     <li>{@link org.springframework.transaction.CannotCreateTransactionException}</li>
  *     <li>{@link org.hibernate.exception.JDBCConnectionException}</li>
  *     <li>{@link java.sql.SQLTransientException}</li>
  *     <li>{@link java.sql.SQLTimeoutException}</li>
+ *     <li>{@link java.sql.SQLNonTransientConnectionException}</li>
  * </ul>
  *
  * <strong>Important:</strong> This annotation relies on Spring AOP proxies.
@@ -54,17 +56,5 @@ import java.lang.annotation.Target;
  */
 @Target({ElementType.METHOD})
 @Retention(RetentionPolicy.RUNTIME)
-@Retryable(
-        retryFor = {
-                org.springframework.dao.ConcurrencyFailureException.class,
-                org.springframework.dao.CannotAcquireLockException.class,
-                org.springframework.dao.TransientDataAccessResourceException.class,
-                org.springframework.dao.RecoverableDataAccessException.class,
-                org.hibernate.exception.JDBCConnectionException.class,
-                java.sql.SQLTransientException.class,
-                java.sql.SQLTimeoutException.class
-        },
-        backoff = @Backoff(delay = 2000)
-)
 public @interface RetryOnDatabaseFailure {
-}
\ No newline at end of file
+}
@@ -0,0 +1,201 @@
+package org.opensource.energy.vpp_backend.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.opensource.energy.vpp_backend.datasource.DataSourceRoutingContext;
+import org.opensource.energy.vpp_backend.dto.response.FilteredBatteryStat;
+import org.opensource.energy.vpp_backend.entity.Battery;
+import org.opensource.energy.vpp_backend.event.BatteriesSavedEvent;
+import org.opensource.energy.vpp_backend.event.BatteriesUpdatedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Bounded cache of {@link FilteredBatteryStat} results keyed by the normalized filter.
+ *
+ * <p>Backed by Caffeine (W-TinyLFU admission) with a byte-weighted bound ({@code vpp.stat-cache.max-bytes}), so a
+ * few huge ranges cannot push out many small dashboard queries. A committed save only invalidates the entries whose
+ * filter matches at least one inserted battery, or an overwritten battery before or after the change.</p>
+ *
+ * <p>A result computed while a save commits could be stale. Every invalidation therefore bumps a write version;
+ * a freshly computed result is discarded again if the version moved while it was being stored. Hit, miss and
+ * eviction counters are published as the {@code cache.*} meters tagged {@code cache=batteryStats}.</p>
+ *
+ * <p>With a read replica, that guard is not enough: a result read from a lagging replica right after the
+ * invalidation is still stale when stored. Results are therefore cached separately for callers pinned to the primary
+ * (a client inside its read-your-writes window), which read committed data, and for the others, whose entries expire
+ * after {@code vpp.stat-cache.replica-ttl} so that a stale replica result does not outlive it.</p>
+ */
+@Component
+@ConditionalOnProperty(name = "vpp.stat-cache.enabled", havingValue = "true")
+@Slf4j
+public class BatteryStatCache {
+    static final String CACHE_NAME = "batteryStats";
+
+    private final Cache<StatCacheKey, FilteredBatteryStat> cache;
+    private final AtomicLong writeVersion = new AtomicLong();
+
+    public BatteryStatCache(@Value("${vpp.stat-cache.max-bytes:67108864}") long maxBytes,
+                            @Value("${vpp.datasource.replica.enabled:false}") boolean replicaEnabled,
+                            @Value("${vpp.stat-cache.replica-ttl:5s}") Duration replicaTtl,
+                            MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((StatCacheKey key, FilteredBatteryStat stat) -> estimateBytes(stat))
+                .expireAfter(new ReplicaResultExpiry(replicaEnabled ? replicaTtl.toNanos() : Long.MAX_VALUE))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Returns the cached result for the filter, computing and caching it with {@code loader} on a miss.
+     */
+    public FilteredBatteryStat get(int postcodeFrom, int postcodeTo, Long wattageFrom, Long wattageTo,
+                                   Supplier<FilteredBatteryStat> loader) {
+        StatCacheKey key = new StatCacheKey(postcodeFrom, postcodeTo, wattageFrom, wattageTo,
+                DataSourceRoutingContext.isPinnedToPrimary());
+        FilteredBatteryStat cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long version = writeVersion.get();
+        FilteredBatteryStat loaded = loader.get();
+        if (writeVersion.get() == version) {
+            cache.put(key, loaded);
+            // An invalidation that started after the first check may have scanned the keys before this put.
+            if (writeVersion.get() != version) {
+                cache.asMap().remove(key, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    @TransactionalEventListener
+    public void onBatteriesSaved(BatteriesSavedEvent event) {
+        int invalidated = invalidate(event.batteries());
+        log.debug("Invalidated {} cached battery stat(s) after saving {} battery record(s)",
+                invalidated, event.batteries().size());
+    }
+
+    /**
+     * An overwritten battery leaves the filters matching its previous values and joins those matching its current
+     * ones, so both sides are invalidated.
+     */
+    @TransactionalEventListener
+    public void onBatteriesUpdated(BatteriesUpdatedEvent event) {
+        List<Battery> affected = event.changes().stream()
+                .flatMap(change -> Stream.of(change.previous(), change.current()))
+                .toList();
+        int invalidated = invalidate(affected);
+        log.debug("Invalidated {} cached battery stat(s) after updating {} battery record(s)",
+                invalidated, event.changes().size());
+    }
+
+    private int invalidate(List<Battery> batteries) {
+        List<Battery> sorted = batteries.stream()
+                .sorted(Comparator.comparing(Battery::getPostcode))
+                .toList();
+        int[] postcodes = sorted.stream().mapToInt(Battery::getPostcode).toArray();
+
+        writeVersion.incrementAndGet();
+        int before = cache.asMap().size();
+        cache.asMap().keySet().removeIf(key -> key.matchesAny(sorted, postcodes));
+        return before - cache.asMap().size();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * Rough retained size of a result: the per-name cost dominates for any non-trivial range.
+     */
+    static int estimateBytes(FilteredBatteryStat stat) {
+        long bytes = 160;
+        if (stat.getBatteryNames() != null) {
+            for (String name : stat.getBatteryNames()) {
+                bytes += 48 + name.length();
+            }
+        }
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Entries read by callers pinned to the primary never expire; the others live for the replica TTL, which is
+     * {@link Long#MAX_VALUE} (no expiry) without a replica.
+     */
+    private record ReplicaResultExpiry(long replicaTtlNanos) implements Expiry<StatCacheKey, FilteredBatteryStat> {
+
+        @Override
+        public long expireAfterCreate(StatCacheKey key, FilteredBatteryStat stat, long currentTime) {
+            return key.primary() ? Long.MAX_VALUE : replicaTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(StatCacheKey key, FilteredBatteryStat stat, long currentTime,
+                                      long currentDuration) {
+            return expireAfterCreate(key, stat, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(StatCacheKey key, FilteredBatteryStat stat, long currentTime,
+                                    long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    /**
+     * Normalized filter; {@code wattageFrom}/{@code wattageTo} are both {@code null} when no wattage filter applies.
+     * {@code primary} is set for callers pinned to the primary, whose results must not come from the replica.
+     */
+    record StatCacheKey(int postcodeFrom, int postcodeTo, Long wattageFrom, Long wattageTo, boolean primary) {
+
+        /**
+         * @param saved     batteries sorted by postcode
+         * @param postcodes the postcodes of {@code saved}, in the same order
+         */
+        boolean matchesAny(List<Battery> saved, int[] postcodes) {
+            int from = lowerBound(postcodes, postcodeFrom);
+            int to = lowerBound(postcodes, postcodeTo + 1L);
+            if (wattageFrom == null) {
+                return from < to;
+            }
+            for (int i = from; i < to; i++) {
+                long capacity = saved.get(i).getWattCapacity();
+                if (capacity >= wattageFrom && capacity <= wattageTo) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static int lowerBound(int[] values, long key) {
+            int low = 0;
+            int high = values.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[mid] < key) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package org.opensource.energy.vpp_backend.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.opensource.energy.vpp_backend.cache.BatteryStatCache.StatCacheKey;
+import org.opensource.energy.vpp_backend.datasource.DataSourceRoutingContext;
+import org.opensource.energy.vpp_backend.dto.response.FilteredBatteryStat;
+import org.opensource.energy.vpp_backend.event.BatteriesSavedEvent;
+import org.opensource.energy.vpp_backend.event.BatteriesUpdatedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight for {@link FilteredBatteryStat} reads: concurrent callers with the same normalized filter share one
+ * in-flight computation instead of each scanning the batteries.
+ *
+ * <p>The first caller runs the query; callers arriving while it runs wait for its result, or for its exception,
+ * which is rethrown to every one of them. A caller that waited {@code vpp.single-flight.max-wait} without an answer
+ * stops waiting and runs the query itself. Callers pinned to the primary only share with each other, so a client
+ * inside its read-your-writes window never receives a replica result. A committed save detaches the queries in
+ * flight, as they may have started before it; later callers start a fresh one.</p>
+ *
+ * <p>Published meters: {@code vpp.single_flight.collapsed} (callers answered by another caller's query, with its
+ * result or its failure), {@code vpp.single_flight.timeouts} (callers that gave up waiting and are not counted as
+ * collapsed) and {@code vpp.single_flight.in_flight}.</p>
+ */
+@Component
+@ConditionalOnProperty(name = "vpp.single-flight.enabled", havingValue = "true")
+@Slf4j
+public class BatteryStatSingleFlight {
+
+    private final Map<StatCacheKey, CompletableFuture<FilteredBatteryStat>> flights = new ConcurrentHashMap<>();
+    private final long maxWaitNanos;
+    private final Counter collapsed;
+    private final Counter timeouts;
+
+    public BatteryStatSingleFlight(@Value("${vpp.single-flight.max-wait:30s}") Duration maxWait,
+                                   MeterRegistry meterRegistry) {
+        this.maxWaitNanos = maxWait.toNanos();
+        this.collapsed = Counter.builder("vpp.single_flight.collapsed")
+                .description("Battery stat requests served by an identical request already in flight")
+                .register(meterRegistry);
+        this.timeouts = Counter.builder("vpp.single_flight.timeouts")
+                .description("Battery stat requests that stopped waiting for an identical request and queried themselves")
+                .register(meterRegistry);
+        Gauge.builder("vpp.single_flight.in_flight", flights, Map::size)
+                .description("Distinct battery stat queries currently running")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the result of the in-flight query for the filter, or runs {@code loader} if there is none.
+     */
+    public FilteredBatteryStat get(int postcodeFrom, int postcodeTo, Long wattageFrom, Long wattageTo,
+                                   Supplier<FilteredBatteryStat> loader) {
+        StatCacheKey key = new StatCacheKey(postcodeFrom, postcodeTo, wattageFrom, wattageTo,
+                DataSourceRoutingContext.isPinnedToPrimary());
+        CompletableFuture<FilteredBatteryStat> flight = new CompletableFuture<>();
+        CompletableFuture<FilteredBatteryStat> running = flights.putIfAbsent(key, flight);
+        if (running != null) {
+            return await(key, running, loader);
+        }
+
+        try {
+            FilteredBatteryStat result = loader.get();
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error ex) {
+            flight.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+
+    private FilteredBatteryStat await(StatCacheKey key, CompletableFuture<FilteredBatteryStat> running,
+                                      Supplier<FilteredBatteryStat> loader) {
+        try {
+            FilteredBatteryStat result = running.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+            collapsed.increment();
+            return result;
+        } catch (ExecutionException ex) {
+            collapsed.increment();
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Shared battery stat query failed", ex.getCause());
+        } catch (TimeoutException ex) {
+            timeouts.increment();
+            log.warn("Gave up waiting for the shared battery stat query {} after {} ms, querying directly",
+                    key, TimeUnit.NANOSECONDS.toMillis(maxWaitNanos));
+            return loader.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a shared battery stat query", ex);
+        }
+    }
+
+    @TransactionalEventListener
+    public void onBatteriesSaved(BatteriesSavedEvent event) {
+        flights.clear();
+    }
+
+    @TransactionalEventListener
+    public void onBatteriesUpdated(BatteriesUpdatedEvent event) {
+        flights.clear();
+    }
+}
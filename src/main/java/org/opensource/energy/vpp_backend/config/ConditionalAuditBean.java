@@ -1,5 +1,6 @@
 package org.opensource.energy.vpp_backend.config;
 
+import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 
@@ -11,6 +12,7 @@ import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
  * like @CreatedAt and @ModifiedAt work during normal application runtime but
  * do not interfere with unit or integration tests.</p>
  */
+@Configuration
 @EnableJpaAuditing
 @Profile("!test")
 public class ConditionalAuditBean {
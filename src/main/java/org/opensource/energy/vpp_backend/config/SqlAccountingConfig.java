@@ -0,0 +1,36 @@
+package org.opensource.energy.vpp_backend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.opensource.energy.vpp_backend.datasource.StatementAccountingDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+/**
+ * Counts the SQL statements of every connection pool, the auto-configured one or both pools of
+ * {@link DataSourceRoutingConfig}, by wrapping each {@link HikariDataSource} in a
+ * {@link StatementAccountingDataSource}. Wrapping the pools rather than the routing data source counts every statement
+ * exactly once, whichever pool it went to.
+ */
+@Configuration
+@ConditionalOnProperty(name = "vpp.sql-accounting.enabled", havingValue = "true")
+public class SqlAccountingConfig {
+
+    @Bean
+    public static BeanPostProcessor statementAccountingPostProcessor(Environment environment) {
+        Duration slowStatement = environment.getProperty("vpp.sql-accounting.slow-statement", Duration.class,
+                Duration.ofMillis(500));
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof HikariDataSource pool
+                        ? new StatementAccountingDataSource(pool, slowStatement)
+                        : bean;
+            }
+        };
+    }
+}
@@ -1,20 +1,42 @@
 package org.opensource.energy.vpp_backend.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
+import org.opensource.energy.vpp_backend.dto.request.BatteryStatFilterRequest;
+import org.opensource.energy.vpp_backend.dto.request.ConflictPolicy;
 import org.opensource.energy.vpp_backend.dto.request.CreateBatteryRequest;
+import org.opensource.energy.vpp_backend.dto.response.BatteryIngestJob;
+import org.opensource.energy.vpp_backend.dto.response.BatteryIngestResult;
+import org.opensource.energy.vpp_backend.dto.response.BatteryPartialSaveResult;
+import org.opensource.energy.vpp_backend.dto.response.BatteryUpsertResult;
 import org.opensource.energy.vpp_backend.dto.response.FilteredBatteryStat;
 import org.opensource.energy.vpp_backend.service.BatteryService;
+import org.opensource.energy.vpp_backend.service.ingest.BatteryPartialIngestor;
+import org.opensource.energy.vpp_backend.service.ingest.BatteryStreamIngestor;
+import org.opensource.energy.vpp_backend.service.ingest.BatteryWriteBehindQueue;
 import org.opensource.energy.vpp_backend.util.ValidationUtil;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.Collection;
 import java.util.List;
+import java.util.UUID;
 
 @RestController
 @RequiredArgsConstructor
@@ -26,7 +48,15 @@ import java.util.List;
 )
 public class BatteryController {
 
+    private static final int MAX_PAGE_SIZE = 10_000;
+    private static final int MAX_BATCH_FILTERS = 1_000;
+    private static final String NDJSON_LINE_SEPARATOR = "\n";
+
     private final BatteryService batteryService;
+    private final BatteryStreamIngestor batteryStreamIngestor;
+    private final BatteryPartialIngestor batteryPartialIngestor;
+    private final BatteryWriteBehindQueue batteryWriteBehindQueue;
+    private final ObjectMapper objectMapper;
 
     @Operation(
             summary = "Save a list of batteries",
@@ -41,10 +71,106 @@ public class BatteryController {
         return batteryService.saveBatteries(createBatteryRequests);
     }
 
+    @PostMapping("upsert")
+    @Operation(
+            summary = "Save a list of batteries, tolerating names that already exist",
+            description = "Validates the list like the plain save and writes it with INSERT ... ON CONFLICT (name) in multi-row batches. "
+                    + "onConflict decides what happens to existing names: SKIP keeps them, OVERWRITE replaces their postcode and "
+                    + "capacity, FAIL rejects the whole list with 409 and the conflicting names. Returns which names were inserted, "
+                    + "updated or skipped, so a batch can be resent safely."
+    )
+    public BatteryUpsertResult upsertBatteries(@RequestBody
+                                               @Valid
+                                               @NotEmpty(message = "List cannot be empty")
+                                               Collection<CreateBatteryRequest> createBatteryRequests,
+                                               @Parameter(description = "How names that already exist are handled")
+                                               @RequestParam(defaultValue = "SKIP")
+                                               ConflictPolicy onConflict) {
+
+        return batteryService.upsertBatteries(createBatteryRequests, onConflict);
+    }
+
+    @PostMapping(params = "async=true")
+    @Operation(
+            summary = "Queue a list of batteries for asynchronous saving",
+            description = "Validates the list like the synchronous variant, queues it and returns 202 with a job immediately. "
+                    + "Writer threads save queued submissions in coalesced batches; poll the Location header for progress, "
+                    + "the created IDs and failures. Returns 503 when the queue is full."
+    )
+    public ResponseEntity<BatteryIngestJob> saveBatteriesAsync(@RequestBody
+                                                               @Valid
+                                                               @NotEmpty(message = "List cannot be empty")
+                                                               Collection<CreateBatteryRequest> createBatteryRequests) {
+
+        BatteryIngestJob job = batteryWriteBehindQueue.submit(createBatteryRequests);
+        return ResponseEntity.accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentContextPath()
+                        .path("/batteries/jobs/{id}")
+                        .buildAndExpand(job.getId())
+                        .toUri())
+                .body(job);
+    }
+
+    @PostMapping(params = "partial=true")
+    @Operation(
+            summary = "Save the valid part of a list of batteries",
+            description = "Saves every battery that passes validation and does not clash with a stored name, in chunks that each commit "
+                    + "on their own. Instead of rejecting the whole list, returns the ID of each battery in input order (null where "
+                    + "rejected) and one error per rejected battery with its index, field and reason. A bad row is isolated by "
+                    + "bisecting its chunk behind savepoints rather than replaying the chunk."
+    )
+    public BatteryPartialSaveResult saveBatteriesPartially(@RequestBody
+                                                           @NotEmpty(message = "List cannot be empty")
+                                                           List<CreateBatteryRequest> createBatteryRequests) {
+
+        return batteryPartialIngestor.ingest(createBatteryRequests);
+    }
+
+    @GetMapping("jobs/{id}")
+    @Operation(
+            summary = "Get the status of an asynchronous battery ingestion job",
+            description = "Returns progress, the IDs created so far and the failure reason, if any. Job status is kept for a limited time."
+    )
+    public BatteryIngestJob getIngestJob(@Parameter(description = "Job ID returned by the asynchronous save", required = true)
+                                         @PathVariable
+                                         UUID id) {
+
+        return batteryWriteBehindQueue.getJob(id);
+    }
+
+    @PostMapping(value = "stream", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @Operation(
+            summary = "Save batteries from a streamed body",
+            description = "Takes a JSON array or NDJSON stream of batteries of any size. Elements are parsed and validated one at a time "
+                    + "and saved in fixed-size chunks, each in its own transaction, so server memory is bounded by the chunk size. "
+                    + "Returns the ID ranges created for each chunk. On an invalid element, chunks saved before it remain stored."
+    )
+    public BatteryIngestResult ingestBatteries(InputStream body) throws IOException {
+
+        return batteryStreamIngestor.ingest(body);
+    }
+
+    @PostMapping("stats")
+    @Operation(
+            summary = "Get battery statistics for several filters at once",
+            description = "Takes a list of postcode ranges, each with an optional wattage range, and returns one statistics object per "
+                    + "filter in the same order. All filters are evaluated in a single database query."
+    )
+    public List<FilteredBatteryStat> getBatteryStats(@RequestBody
+                                                     @Valid
+                                                     @NotEmpty(message = "List cannot be empty")
+                                                     @Size(max = MAX_BATCH_FILTERS, message = "At most " + MAX_BATCH_FILTERS + " filters are allowed")
+                                                     List<BatteryStatFilterRequest> filters) {
+
+        return batteryService.getFilteredBatteryStats(filters);
+    }
+
     @GetMapping
     @Operation(
             summary = "Get battery statistics by filter",
-            description = "Returns battery statistics including names, total, average, and min/max capacity based on given postcode and optional wattage range."
+            description = "Returns battery statistics including names, total, average, and min/max capacity based on given postcode and optional wattage range. "
+                    + "When pageSize is given, names are returned one keyset page at a time: totals are included on the first page only "
+                    + "and nextCursor must be passed as 'after' to fetch the following page."
     )
     public FilteredBatteryStat getBatteries(@Parameter(description = "Postcode range start", required = true)
                                             @RequestParam
@@ -57,11 +183,80 @@ public class BatteryController {
                                             Long wattageFrom,
                                             @Parameter(description = "Optional wattage range end")
                                             @RequestParam(required = false)
-                                            Long wattageTo) {
+                                            Long wattageTo,
+                                            @Parameter(description = "Optional page size; enables cursor mode")
+                                            @RequestParam(required = false)
+                                            @Min(value = 1, message = "Page size must be at least 1")
+                                            @Max(value = MAX_PAGE_SIZE, message = "Page size must not exceed " + MAX_PAGE_SIZE)
+                                            Integer pageSize,
+                                            @Parameter(description = "Opaque cursor returned as nextCursor by the previous page")
+                                            @RequestParam(required = false)
+                                            String after) {
+
+        ValidationUtil.validateRangePair("postcode", postcodeFrom, postcodeTo);
+        ValidationUtil.validateRangePair("wattage", wattageFrom, wattageTo);
+        if (pageSize == null) {
+            if (after != null) {
+                throw new IllegalArgumentException("pageSize must be provided when after is provided.");
+            }
+            return batteryService.getFilteredBatteryStat(postcodeFrom, postcodeTo, wattageFrom, wattageTo);
+        }
+        return batteryService.getFilteredBatteryStatPage(postcodeFrom, postcodeTo, wattageFrom, wattageTo, pageSize, after);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(
+            summary = "Stream battery statistics by filter",
+            description = "Content-negotiated (Accept: application/x-ndjson) variant of the statistics endpoint for very wide ranges. "
+                    + "Emits one {\"batteryName\": ...} line per matching battery in alphabetical order while reading them from a "
+                    + "database cursor, followed by a trailer line holding the totals. Server memory stays flat regardless of the range size."
+    )
+    public ResponseEntity<StreamingResponseBody> streamBatteries(@Parameter(description = "Postcode range start", required = true)
+                                                                 @RequestParam
+                                                                 Integer postcodeFrom,
+                                                                 @Parameter(description = "Postcode range end", required = true)
+                                                                 @RequestParam
+                                                                 Integer postcodeTo,
+                                                                 @Parameter(description = "Optional wattage range start")
+                                                                 @RequestParam(required = false)
+                                                                 Long wattageFrom,
+                                                                 @Parameter(description = "Optional wattage range end")
+                                                                 @RequestParam(required = false)
+                                                                 Long wattageTo) {
 
+        // Validate eagerly: once streaming starts the status line is already committed.
         ValidationUtil.validateRangePair("postcode", postcodeFrom, postcodeTo);
         ValidationUtil.validateRangePair("wattage", wattageFrom, wattageTo);
-        return batteryService.getFilteredBatteryStat(postcodeFrom, postcodeTo, wattageFrom, wattageTo);
+        ValidationUtil.validateRange("postcode", postcodeFrom.longValue(), postcodeTo.longValue());
+        if (wattageFrom != null) {
+            ValidationUtil.validateRange("wattage", wattageFrom, wattageTo);
+        }
+
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+                generator.setRootValueSeparator(new SerializedString(NDJSON_LINE_SEPARATOR));
+
+                FilteredBatteryStat totals = batteryService.streamFilteredBatteryStat(
+                        postcodeFrom, postcodeTo, wattageFrom, wattageTo, name -> writeNameLine(generator, name));
+
+                generator.writeObject(totals);
+                generator.writeRaw(NDJSON_LINE_SEPARATOR);
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
+    private static void writeNameLine(JsonGenerator generator, String name) {
+        try {
+            generator.writeStartObject();
+            generator.writeStringField("batteryName", name);
+            generator.writeEndObject();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
 }
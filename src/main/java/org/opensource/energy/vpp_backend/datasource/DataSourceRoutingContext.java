@@ -0,0 +1,62 @@
+package org.opensource.energy.vpp_backend.datasource;
+
+/**
+ * Thread-bound hints for {@link ReplicaRoutingDataSource}.
+ *
+ * <p>Code that has to see the latest committed data (index loads, consistency checks, a client inside its
+ * read-your-writes window) pins the current thread to the primary. A write listener lets the web layer learn that
+ * the current request opened a read-write connection. Both are no-ops when no replica is configured.</p>
+ */
+public final class DataSourceRoutingContext {
+    private static final ThreadLocal<Boolean> PINNED_TO_PRIMARY = new ThreadLocal<>();
+    private static final ThreadLocal<Runnable> WRITE_LISTENER = new ThreadLocal<>();
+
+    private DataSourceRoutingContext() {
+    }
+
+    /**
+     * Routes every connection the current thread opens to the primary until the returned scope is closed.
+     */
+    public static Scope pinToPrimary() {
+        boolean alreadyPinned = isPinnedToPrimary();
+        PINNED_TO_PRIMARY.set(Boolean.TRUE);
+        return () -> {
+            if (!alreadyPinned) {
+                PINNED_TO_PRIMARY.remove();
+            }
+        };
+    }
+
+    public static boolean isPinnedToPrimary() {
+        return Boolean.TRUE.equals(PINNED_TO_PRIMARY.get());
+    }
+
+    /**
+     * Calls {@code listener} whenever the current thread opens a connection for a read-write transaction, until the
+     * returned scope is closed.
+     */
+    public static Scope onWrite(Runnable listener) {
+        Runnable previous = WRITE_LISTENER.get();
+        WRITE_LISTENER.set(listener);
+        return () -> {
+            if (previous == null) {
+                WRITE_LISTENER.remove();
+            } else {
+                WRITE_LISTENER.set(previous);
+            }
+        };
+    }
+
+    static void recordWrite() {
+        Runnable listener = WRITE_LISTENER.get();
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,39 @@
+package org.opensource.energy.vpp_backend.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Sends connections of {@code readOnly} transactions to the replica pool and everything else to the primary.
+ *
+ * <p>The transaction's read-only flag is only bound after the transaction manager has begun it, so this data source
+ * must sit behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} that defers fetching
+ * the physical connection to the first statement. Work outside a transaction always goes to the primary.</p>
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY, REPLICA
+    }
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica) {
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Route determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                DataSourceRoutingContext.recordWrite();
+            }
+            return Route.PRIMARY;
+        }
+        return DataSourceRoutingContext.isPinnedToPrimary() ? Route.PRIMARY : Route.REPLICA;
+    }
+}
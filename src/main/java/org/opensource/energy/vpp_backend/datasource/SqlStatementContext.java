@@ -0,0 +1,127 @@
+package org.opensource.energy.vpp_backend.datasource;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-bound SQL accounting for {@link StatementAccountingDataSource}: while a scope is open, every statement the
+ * current thread executes adds to its {@link Stats}.
+ *
+ * <p>Scopes nest: a statement counts towards every enclosing scope, so a test can put a budget around code that
+ * opens its own scope per request. Work handed to another thread counts towards the caller's scope if that thread
+ * {@linkplain #bind binds} the caller's {@link Stats}.</p>
+ */
+public final class SqlStatementContext {
+    private static final ThreadLocal<Stats> CURRENT = new ThreadLocal<>();
+
+    private SqlStatementContext() {
+    }
+
+    /**
+     * Starts counting the statements of the current thread until the returned scope is closed.
+     *
+     * @param listener called on the recording thread after each statement or batch of fetched rows, or {@code null}
+     */
+    public static Scope begin(Listener listener) {
+        Stats previous = CURRENT.get();
+        CURRENT.set(new Stats(previous, listener));
+        return () -> restore(previous);
+    }
+
+    /**
+     * Counts the statements of the current thread towards {@code stats}, typically those of the thread that handed
+     * it work, until the returned scope is closed. A {@code null} {@code stats} counts nothing.
+     */
+    public static Scope bind(Stats stats) {
+        Stats previous = CURRENT.get();
+        if (stats == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(stats);
+        }
+        return () -> restore(previous);
+    }
+
+    /**
+     * @return the innermost open scope's counts, or {@code null} if there is none
+     */
+    public static Stats current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Records a statement the current thread executed without going through JDBC statements, such as a COPY.
+     */
+    public static void recordStatement(String sql, long nanos) {
+        Stats stats = CURRENT.get();
+        if (stats != null) {
+            stats.addStatement(sql, nanos);
+        }
+    }
+
+    private static void restore(Stats previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    /** Statements executed, rows fetched and time spent executing statements within a scope. */
+    public static final class Stats {
+        private final Stats parent;
+        private final Listener listener;
+        private final LongAdder statements = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        private Stats(Stats parent, Listener listener) {
+            this.parent = parent;
+            this.listener = listener;
+        }
+
+        void addStatement(String sql, long elapsedNanos) {
+            for (Stats stats = this; stats != null; stats = stats.parent) {
+                stats.statements.increment();
+                stats.nanos.add(elapsedNanos);
+                if (stats.listener != null) {
+                    stats.listener.onRecorded(stats, sql);
+                }
+            }
+        }
+
+        void addRows(long fetched) {
+            for (Stats stats = this; stats != null; stats = stats.parent) {
+                stats.rows.add(fetched);
+                if (stats.listener != null) {
+                    stats.listener.onRecorded(stats, null);
+                }
+            }
+        }
+
+        public long getStatements() {
+            return statements.sum();
+        }
+
+        public long getRows() {
+            return rows.sum();
+        }
+
+        public long getNanos() {
+            return nanos.sum();
+        }
+    }
+
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * @param sql the statement just executed, or {@code null} if rows were fetched
+         */
+        void onRecorded(Stats stats, String sql);
+    }
+
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,207 @@
+package org.opensource.energy.vpp_backend.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Wraps a pool's connections so every statement executed through them is timed, logged when slower than
+ * {@code slowStatementThreshold}, and counted in the executing thread's {@link SqlStatementContext}, together with
+ * the rows read from its result sets.
+ *
+ * <p>A JDBC batch counts as one statement, as it is one round trip. The time counted is the time spent in
+ * {@code execute*} calls; rows fetched later from a cursor add to the row count only. Statements issued through
+ * driver APIs reached by {@link Connection#unwrap}, such as PostgreSQL's COPY, are not seen here and have to be
+ * recorded by the caller.</p>
+ *
+ * <p>The wrapper takes the place of the pool's bean, so it also closes the pool when the context shuts down.</p>
+ */
+@Slf4j
+public class StatementAccountingDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    private static final String BATCH = "[batch]";
+
+    private final long slowStatementNanos;
+
+    public StatementAccountingDataSource(DataSource target, Duration slowStatementThreshold) {
+        super(target);
+        this.slowStatementNanos = slowStatementThreshold.toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return proxy(Connection.class, new ConnectionHandler(obtainTargetDataSource().getConnection()));
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return proxy(Connection.class, new ConnectionHandler(obtainTargetDataSource().getConnection(username, password)));
+    }
+
+    /**
+     * Closes the wrapped data source if it can be closed, such as a Hikari pool.
+     */
+    @Override
+    public void close() throws Exception {
+        if (obtainTargetDataSource() instanceof AutoCloseable target) {
+            target.close();
+        }
+    }
+
+    private void record(String sql, long elapsedNanos) {
+        SqlStatementContext.recordStatement(sql, elapsedNanos);
+        if (elapsedNanos >= slowStatementNanos) {
+            log.warn("Slow SQL statement took {} ms: {}", elapsedNanos / 1_000_000, sql);
+        }
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(StatementAccountingDataSource.class.getClassLoader(),
+                new Class<?>[]{type}, handler));
+    }
+
+    /** Forwards calls to the wrapped JDBC object, except identity: a proxy equals only itself. */
+    private abstract static class DelegatingHandler implements InvocationHandler {
+        final Object target;
+
+        DelegatingHandler(Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            return switch (method.getName()) {
+                case "equals" -> args.length == 1 && proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                default -> handle(method, args);
+            };
+        }
+
+        abstract Object handle(Method method, Object[] args) throws Throwable;
+
+        Object forward(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        }
+    }
+
+    private final class ConnectionHandler extends DelegatingHandler {
+
+        ConnectionHandler(Connection target) {
+            super(target);
+        }
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            Object result = forward(method, args);
+            if (result instanceof Statement statement) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+                if (statement instanceof CallableStatement) {
+                    return proxy(CallableStatement.class, new StatementHandler(statement, sql));
+                }
+                if (statement instanceof PreparedStatement) {
+                    return proxy(PreparedStatement.class, new StatementHandler(statement, sql));
+                }
+                return proxy(Statement.class, new StatementHandler(statement, sql));
+            }
+            return result;
+        }
+    }
+
+    private final class StatementHandler extends DelegatingHandler {
+        private final String preparedSql;
+
+        StatementHandler(Statement target, String preparedSql) {
+            super(target);
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                String sql = sql(name, args);
+                long start = System.nanoTime();
+                try {
+                    return wrapResultSet(forward(method, args));
+                } finally {
+                    record(sql, System.nanoTime() - start);
+                }
+            }
+            if (name.equals("getResultSet") || name.equals("getGeneratedKeys")) {
+                return wrapResultSet(forward(method, args));
+            }
+            return forward(method, args);
+        }
+
+        private String sql(String method, Object[] args) {
+            if (method.endsWith("Batch")) {
+                return preparedSql != null ? preparedSql : BATCH;
+            }
+            return args != null && args.length > 0 && args[0] instanceof String text ? text : preparedSql;
+        }
+    }
+
+    /** Rows are counted only for threads inside a {@link SqlStatementContext} scope, so others pay nothing per row. */
+    private static Object wrapResultSet(Object result) {
+        if (result instanceof ResultSet resultSet) {
+            SqlStatementContext.Stats stats = SqlStatementContext.current();
+            if (stats != null) {
+                return proxy(ResultSet.class, new ResultSetHandler(resultSet, stats));
+            }
+        }
+        return result;
+    }
+
+    private static final class ResultSetHandler extends DelegatingHandler {
+        private final ResultSet resultSet;
+        private final SqlStatementContext.Stats stats;
+        private long unrecordedRows;
+
+        ResultSetHandler(ResultSet resultSet, SqlStatementContext.Stats stats) {
+            super(resultSet);
+            this.resultSet = resultSet;
+            this.stats = stats;
+        }
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("next")) {
+                boolean hasRow = resultSet.next();
+                if (hasRow) {
+                    unrecordedRows++;
+                } else {
+                    flush();
+                }
+                return hasRow;
+            }
+            if (name.equals("close")) {
+                flush();
+            }
+            return forward(method, args);
+        }
+
+        private void flush() {
+            if (unrecordedRows > 0) {
+                stats.addRows(unrecordedRows);
+                unrecordedRows = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package org.opensource.energy.vpp_backend.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Schema(description = "One postcode range, with an optional wattage range, of a batch statistics request")
+@Builder
+public class BatteryStatFilterRequest {
+    @Schema(description = "Postcode range start", example = "2000")
+    @NotNull(message = "postcodeFrom is required")
+    private Integer postcodeFrom;
+
+    @Schema(description = "Postcode range end", example = "2999")
+    @NotNull(message = "postcodeTo is required")
+    private Integer postcodeTo;
+
+    @Schema(description = "Optional wattage range start", example = "100")
+    private Long wattageFrom;
+
+    @Schema(description = "Optional wattage range end", example = "5000")
+    private Long wattageTo;
+}
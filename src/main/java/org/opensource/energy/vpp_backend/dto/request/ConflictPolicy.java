@@ -0,0 +1,16 @@
+package org.opensource.energy.vpp_backend.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * How an upsert treats a battery whose name is already stored.
+ */
+@Schema(description = "How batteries whose name already exists are handled")
+public enum ConflictPolicy {
+    /** Keep the stored battery and report the name as skipped. */
+    SKIP,
+    /** Overwrite the stored postcode and capacity; unchanged batteries are reported as skipped. */
+    OVERWRITE,
+    /** Reject the whole request, listing the names that already exist. */
+    FAIL
+}
@@ -0,0 +1,49 @@
+package org.opensource.energy.vpp_backend.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Status of an asynchronous battery ingestion job")
+public class BatteryIngestJob {
+    public enum Status { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    @Schema(description = "Job ID", example = "6f1c2a1e-8a8e-4a43-9a57-3f0d8f1b2c55")
+    private UUID id;
+
+    @Schema(description = "QUEUED until the first batch is written, RUNNING while batches remain, then COMPLETED or FAILED",
+            example = "RUNNING")
+    private Status status;
+
+    @Schema(description = "Number of batteries submitted", example = "20000")
+    private Integer totalCount;
+
+    @Schema(description = "Number of batteries saved so far", example = "15000")
+    private Integer savedCount;
+
+    @Schema(description = "IDs of the saved batteries as inclusive ranges, in the order of the submitted list")
+    private List<BatteryIngestResult.IdRange> idRanges;
+
+    @Schema(description = "Why the job failed; batteries not yet saved at that point are not written",
+            example = "ERROR: duplicate key value violates unique constraint \"battery_name_key\"")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String error;
+
+    @Schema(description = "When the job was accepted")
+    private Instant submittedAt;
+
+    @Schema(description = "When the last batch of the job finished")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Instant completedAt;
+}
@@ -0,0 +1,48 @@
+package org.opensource.energy.vpp_backend.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Outcome of a streamed battery ingestion")
+public class BatteryIngestResult {
+    @Schema(description = "Total number of batteries saved", example = "2500")
+    private Long totalCount;
+
+    @Schema(description = "One entry per chunk, in the order the chunks were written")
+    private List<Chunk> chunks;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "One chunk of a streamed ingestion, saved in its own transaction")
+    public static class Chunk {
+        @Schema(description = "Number of batteries in the chunk", example = "1000")
+        private Integer count;
+
+        @Schema(description = "Generated IDs as inclusive ranges, in the order of the input elements")
+        private List<IdRange> idRanges;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "Inclusive range of consecutive battery IDs")
+    public static class IdRange {
+        @Schema(description = "First ID of the range", example = "1051")
+        private Long from;
+
+        @Schema(description = "Last ID of the range", example = "2050")
+        private Long to;
+    }
+}
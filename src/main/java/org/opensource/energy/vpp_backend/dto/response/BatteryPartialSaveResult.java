@@ -0,0 +1,29 @@
+package org.opensource.energy.vpp_backend.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.opensource.energy.vpp_backend.dto.response.error.ItemErrorDetail;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Outcome of a partial-success battery save")
+public class BatteryPartialSaveResult {
+    @Schema(description = "Number of batteries stored", example = "9999")
+    private Integer savedCount;
+
+    @Schema(description = "Number of batteries rejected", example = "1")
+    private Integer rejectedCount;
+
+    @Schema(description = "One entry per submitted battery, in order: the generated ID, or null if the battery was rejected")
+    private List<Long> ids;
+
+    @Schema(description = "One entry per rejected battery, giving its 0-based index in the submitted list and the reason")
+    private List<ItemErrorDetail> errors;
+}
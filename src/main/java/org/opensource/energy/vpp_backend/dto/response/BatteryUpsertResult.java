@@ -0,0 +1,25 @@
+package org.opensource.energy.vpp_backend.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Outcome of a battery upsert; every submitted name appears in exactly one list, in submission order")
+public class BatteryUpsertResult {
+    @Schema(description = "Names of the batteries that were newly stored", example = "[\"Cannington\"]")
+    private List<String> inserted;
+
+    @Schema(description = "Names of stored batteries whose postcode or capacity was overwritten", example = "[\"Midland\"]")
+    private List<String> updated;
+
+    @Schema(description = "Names that already existed and were left unchanged", example = "[\"Hay Street\"]")
+    private List<String> skipped;
+}
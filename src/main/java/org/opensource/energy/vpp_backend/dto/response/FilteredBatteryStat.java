@@ -1,5 +1,6 @@
 package org.opensource.energy.vpp_backend.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -14,7 +15,9 @@ import java.util.Collection;
 @AllArgsConstructor
 @Schema(description = "Filtered battery statistics based on provided range")
 public class FilteredBatteryStat {
-    @Schema(description = "List of battery names sorted alphabetically", example = "[\"Battery-A1\", \"Battery-Z9\"]")
+    @Schema(description = "List of battery names sorted alphabetically; omitted from the trailer of a streamed response",
+            example = "[\"Battery-A1\", \"Battery-Z9\"]")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private Collection<String> batteryNames;
 
     @Schema(description = "Sum of watt capacities of the matched batteries", example = "4500")
@@ -31,4 +34,9 @@ public class FilteredBatteryStat {
 
     @Schema(description = "Name of the battery with the lowest capacity", example = "Battery-A1")
     private String lowestCapacityBatteryName;
+
+    @Schema(description = "Opaque cursor for the next page of battery names; absent on the last page or when paging is not used",
+            example = "bjpCYXR0ZXJ5LUEx")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
 }
@@ -0,0 +1,17 @@
+package org.opensource.energy.vpp_backend.dto.response.error;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Why one element of a submitted list was rejected; like {@link FieldErrorDetail}, plus the element's position.
+ */
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ItemErrorDetail {
+    private Integer index;
+    private String field;
+    private String message;
+}
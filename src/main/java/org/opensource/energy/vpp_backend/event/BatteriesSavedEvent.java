@@ -0,0 +1,16 @@
+package org.opensource.energy.vpp_backend.event;
+
+import org.opensource.energy.vpp_backend.entity.Battery;
+
+import java.util.List;
+
+/**
+ * Published by the ingestion paths once new batteries have been written.
+ *
+ * <p>Listeners that maintain derived read models should use
+ * {@link org.springframework.transaction.event.TransactionalEventListener} so they only observe committed data.</p>
+ *
+ * @param batteries the newly inserted batteries, with their generated IDs
+ */
+public record BatteriesSavedEvent(List<Battery> batteries) {
+}
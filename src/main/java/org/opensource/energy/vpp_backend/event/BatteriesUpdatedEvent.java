@@ -0,0 +1,23 @@
+package org.opensource.energy.vpp_backend.event;
+
+import org.opensource.energy.vpp_backend.entity.Battery;
+
+import java.util.List;
+
+/**
+ * Published by the upsert path once existing batteries have been overwritten with a different postcode or capacity.
+ *
+ * <p>Like {@link BatteriesSavedEvent}, listeners maintaining derived read models should use
+ * {@link org.springframework.transaction.event.TransactionalEventListener}.</p>
+ *
+ * @param changes one entry per overwritten battery
+ */
+public record BatteriesUpdatedEvent(List<Change> changes) {
+
+    /**
+     * @param previous the battery as it was stored before the update
+     * @param current  the battery as it is stored now; same ID and name as {@code previous}
+     */
+    public record Change(Battery previous, Battery current) {
+    }
+}
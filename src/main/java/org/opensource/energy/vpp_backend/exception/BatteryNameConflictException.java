@@ -0,0 +1,20 @@
+package org.opensource.energy.vpp_backend.exception;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Thrown when some of the submitted names already exist and nothing of the request is stored: by an upsert with the
+ * {@code FAIL} conflict policy, and by a plain save once the name filter has spotted them. A save stopped by the
+ * unique index instead is reported the same way, with {@code names} empty if the database did not name the row.
+ */
+@Getter
+public class BatteryNameConflictException extends RuntimeException {
+    private final List<String> names;
+
+    public BatteryNameConflictException(List<String> names) {
+        super(names.isEmpty() ? "Battery name already exists" : names.size() + " battery name(s) already exist");
+        this.names = List.copyOf(names);
+    }
+}
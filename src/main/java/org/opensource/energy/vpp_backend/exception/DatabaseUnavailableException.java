@@ -0,0 +1,26 @@
+package org.opensource.energy.vpp_backend.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Thrown instead of calling the database while the circuit breaker behind {@code @RetryOnDatabaseFailure} is open;
+ * the client should retry after {@link #getRetryAfterSeconds()}.
+ */
+@Getter
+public class DatabaseUnavailableException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    /**
+     * @param cause the failure that made the breaker open, or {@code null} if the call was refused up front
+     */
+    public DatabaseUnavailableException(Duration retryAfter, Throwable cause) {
+        this(Math.max(1, (retryAfter.toMillis() + 999) / 1000), cause);
+    }
+
+    private DatabaseUnavailableException(long retryAfterSeconds, Throwable cause) {
+        super("Database is temporarily unavailable, retry in " + retryAfterSeconds + " s", cause);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,13 @@
+package org.opensource.energy.vpp_backend.exception;
+
+import java.util.UUID;
+
+/**
+ * Thrown when an ingestion job ID is unknown or its status has already expired.
+ */
+public class IngestJobNotFoundException extends RuntimeException {
+
+    public IngestJobNotFoundException(UUID jobId) {
+        super("Ingestion job " + jobId + " was not found");
+    }
+}
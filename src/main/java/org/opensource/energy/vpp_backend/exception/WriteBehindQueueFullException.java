@@ -0,0 +1,12 @@
+package org.opensource.energy.vpp_backend.exception;
+
+/**
+ * Thrown when an asynchronous submission does not fit into the write-behind queue; the client should retry later.
+ */
+public class WriteBehindQueueFullException extends RuntimeException {
+
+    public WriteBehindQueueFullException(int batteries, long queued, long capacity) {
+        super("Write-behind queue is full: " + batteries + " battery record(s) do not fit next to " + queued
+                + " already queued (capacity " + capacity + ")");
+    }
+}
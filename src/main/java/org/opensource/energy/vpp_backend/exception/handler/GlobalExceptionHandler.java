@@ -5,8 +5,15 @@ import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.opensource.energy.vpp_backend.dto.response.error.ErrorResponse;
 import org.opensource.energy.vpp_backend.dto.response.error.FieldErrorDetail;
+import org.opensource.energy.vpp_backend.exception.BatteryNameConflictException;
+import org.opensource.energy.vpp_backend.exception.DatabaseUnavailableException;
+import org.opensource.energy.vpp_backend.exception.IngestJobNotFoundException;
+import org.opensource.energy.vpp_backend.exception.WriteBehindQueueFullException;
 import org.springframework.core.MethodParameter;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.validation.method.ParameterValidationResult;
@@ -19,9 +26,12 @@ import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.method.annotation.HandlerMethodValidationException;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
+import java.sql.SQLException;
 import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Hidden
 @RestControllerAdvice
@@ -34,6 +44,12 @@ public class GlobalExceptionHandler {
     private static final String GENERIC_ERROR_MESSAGE = "An unexpected error occurred. Please try again later.";
     private static final String GENERIC_ERROR_CODE = "GEN-500";
 
+    private static final String UNIQUE_VIOLATION = "23505";
+    private static final String BATTERY_NAME_CONSTRAINT = "battery_name_key";
+    private static final Pattern DUPLICATE_KEY_DETAIL = Pattern.compile("Key \\(name\\)=\\((.*)\\) already exists");
+
+    // Error bodies are always JSON, even when the client negotiated a streaming type such as application/x-ndjson.
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ErrorResponse> handleValidationException(
             MethodArgumentNotValidException ex,
@@ -56,7 +72,7 @@ public class GlobalExceptionHandler {
                 .errors(errorDetails)
                 .build();
 
-        return ResponseEntity.badRequest().body(errorResponse);
+        return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON).body(errorResponse);
     }
 
     @ExceptionHandler(HandlerMethodValidationException.class)
@@ -88,7 +104,7 @@ public class GlobalExceptionHandler {
                 .timestamp(Instant.now())
                 .build();
 
-        return ResponseEntity.badRequest().body(errorResponse);
+        return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON).body(errorResponse);
     }
 
 
@@ -110,12 +126,12 @@ public class GlobalExceptionHandler {
                 .timestamp(Instant.now())
                 .build();
 
-        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).contentType(MediaType.APPLICATION_JSON).body(response);
     }
 
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<ErrorResponse> handleIllegalArgument(IllegalArgumentException ex, WebRequest request) {
-        return ResponseEntity.badRequest().body(
+        return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON).body(
                 ErrorResponse.builder()
                         .message(ex.getMessage())
                         .errorCode("BAD_REQUEST")
@@ -125,6 +141,95 @@ public class GlobalExceptionHandler {
         );
     }
 
+    @ExceptionHandler(IngestJobNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleIngestJobNotFound(IngestJobNotFoundException ex, HttpServletRequest request) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).contentType(MediaType.APPLICATION_JSON).body(
+                ErrorResponse.builder()
+                        .message(ex.getMessage())
+                        .errorCode("NOT_FOUND")
+                        .path(request.getRequestURI())
+                        .timestamp(Instant.now())
+                        .build()
+        );
+    }
+
+    @ExceptionHandler(WriteBehindQueueFullException.class)
+    public ResponseEntity<ErrorResponse> handleWriteBehindQueueFull(WriteBehindQueueFullException ex, HttpServletRequest request) {
+        log.warn("Rejected asynchronous submission at {}: {}", request.getRequestURI(), ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(ErrorResponse.builder()
+                        .message(ex.getMessage())
+                        .errorCode("QUEUE_FULL")
+                        .path(request.getRequestURI())
+                        .timestamp(Instant.now())
+                        .build());
+    }
+
+    @ExceptionHandler(DatabaseUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleDatabaseUnavailable(DatabaseUnavailableException ex, HttpServletRequest request) {
+        log.warn("Failed fast at {}: {}", request.getRequestURI(), ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(ErrorResponse.builder()
+                        .message(ex.getMessage())
+                        .errorCode("DATABASE_UNAVAILABLE")
+                        .path(request.getRequestURI())
+                        .timestamp(Instant.now())
+                        .build());
+    }
+
+    @ExceptionHandler(BatteryNameConflictException.class)
+    public ResponseEntity<ErrorResponse> handleBatteryNameConflict(BatteryNameConflictException ex, HttpServletRequest request) {
+        log.warn("Rejected save at {}: {}", request.getRequestURI(), ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.CONFLICT).contentType(MediaType.APPLICATION_JSON).body(
+                ErrorResponse.builder()
+                        .message(ex.getMessage())
+                        .errorCode("CONFLICT")
+                        .path(request.getRequestURI())
+                        .errors(ex.getNames().stream()
+                                .map(name -> FieldErrorDetail.builder()
+                                        .field("name")
+                                        .message("Battery '" + name + "' already exists")
+                                        .build())
+                                .toList())
+                        .timestamp(Instant.now())
+                        .build()
+        );
+    }
+
+    /**
+     * A save that reaches the unique index on {@code battery.name}, because the name filter is disabled or still
+     * loading, is reported like one the filter stopped: 409 with the name. Other integrity violations stay 500s.
+     */
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<ErrorResponse> handleDataIntegrityViolation(DataIntegrityViolationException ex,
+                                                                      HttpServletRequest request) {
+        return duplicateBatteryNames(ex)
+                .map(names -> handleBatteryNameConflict(new BatteryNameConflictException(names), request))
+                .orElseGet(() -> handleGeneric(ex, request));
+    }
+
+    /**
+     * @return the names PostgreSQL reported as duplicates of {@code battery.name}, possibly none if its message
+     * carries no detail, or empty if the violation is of another constraint
+     */
+    private static Optional<List<String>> duplicateBatteryNames(DataIntegrityViolationException ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException && UNIQUE_VIOLATION.equals(sqlException.getSQLState())
+                    && String.valueOf(sqlException.getMessage()).contains(BATTERY_NAME_CONSTRAINT)) {
+                Matcher detail = DUPLICATE_KEY_DETAIL.matcher(sqlException.getMessage());
+                return Optional.of(detail.find() ? List.of(detail.group(1)) : List.of());
+            }
+        }
+        return Optional.empty();
+    }
+
     @ExceptionHandler(MissingServletRequestParameterException.class)
     public ResponseEntity<ErrorResponse> handleMissingParams(MissingServletRequestParameterException ex, WebRequest webRequest) {
         String name = ex.getParameterName();
@@ -141,7 +246,7 @@ public class GlobalExceptionHandler {
                         .build()))
                 .build();
 
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).contentType(MediaType.APPLICATION_JSON).body(response);
     }
 
     @ExceptionHandler(HttpMediaTypeNotSupportedException.class)
@@ -163,7 +268,7 @@ public class GlobalExceptionHandler {
                         .build()))
                 .build();
 
-        return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE).body(response);
+        return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE).contentType(MediaType.APPLICATION_JSON).body(response);
     }
 
     @ExceptionHandler(MethodArgumentTypeMismatchException.class)
@@ -185,7 +290,7 @@ public class GlobalExceptionHandler {
                 .errors(List.of(errorDetail))
                 .build();
 
-        return ResponseEntity.badRequest().body(error);
+        return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON).body(error);
     }
 
 }
@@ -0,0 +1,97 @@
+package org.opensource.energy.vpp_backend.filter;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Passes the request body through unchanged while keeping a copy of at most {@code maxBytes} of it for logging.
+ *
+ * <p>Unlike {@link org.springframework.web.util.ContentCachingRequestWrapper} the copy is a fixed-size array
+ * allocated up front, so neither a large upload nor a long stream grows it.</p>
+ */
+public class BoundedCaptureRequestWrapper extends HttpServletRequestWrapper {
+    private final CappedByteBuffer capture;
+    private ServletInputStream inputStream;
+    private BufferedReader reader;
+
+    public BoundedCaptureRequestWrapper(HttpServletRequest request, int maxBytes) {
+        super(request);
+        this.capture = new CappedByteBuffer(maxBytes);
+    }
+
+    @Override
+    public ServletInputStream getInputStream() throws IOException {
+        if (inputStream == null) {
+            inputStream = new CapturingInputStream(super.getInputStream());
+        }
+        return inputStream;
+    }
+
+    @Override
+    public BufferedReader getReader() throws IOException {
+        if (reader == null) {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+            reader = new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+        return reader;
+    }
+
+    /** @return the first bytes of the body read so far */
+    public byte[] getCapturedBody() {
+        return capture.toByteArray();
+    }
+
+    public boolean isTruncated() {
+        return capture.isTruncated();
+    }
+
+    private final class CapturingInputStream extends ServletInputStream {
+        private final ServletInputStream delegate;
+
+        CapturingInputStream(ServletInputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = delegate.read();
+            if (b != -1) {
+                capture.write(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            int read = delegate.read(bytes, offset, length);
+            if (read > 0) {
+                capture.write(bytes, offset, read);
+            }
+            return read;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return delegate.isFinished();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            delegate.setReadListener(readListener);
+        }
+    }
+}
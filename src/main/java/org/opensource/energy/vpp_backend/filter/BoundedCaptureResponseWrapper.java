@@ -0,0 +1,130 @@
+package org.opensource.energy.vpp_backend.filter;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+
+/**
+ * Writes the response body straight through to the client while keeping a copy of at most {@code maxBytes} of it
+ * for logging.
+ *
+ * <p>Unlike {@link org.springframework.web.util.ContentCachingResponseWrapper} the body is neither buffered in full
+ * nor copied a second time once the request completes. A response declaring a {@code Content-Length} above
+ * {@code maxContentLength} is not captured at all. Call {@link #finish()} after the chain returns, so that a body
+ * written through {@link #getWriter()} is flushed.</p>
+ */
+public class BoundedCaptureResponseWrapper extends HttpServletResponseWrapper {
+    private final CappedByteBuffer capture;
+    private final long maxContentLength;
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+
+    public BoundedCaptureResponseWrapper(HttpServletResponse response, int maxBytes, long maxContentLength) {
+        super(response);
+        this.capture = new CappedByteBuffer(maxBytes);
+        this.maxContentLength = maxContentLength;
+    }
+
+    @Override
+    public void setContentLength(int length) {
+        setContentLengthLong(length);
+    }
+
+    @Override
+    public void setContentLengthLong(long length) {
+        if (length > maxContentLength) {
+            capture.skip();
+        }
+        super.setContentLengthLong(length);
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (outputStream == null) {
+            outputStream = new CapturingOutputStream(super.getOutputStream());
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), Charset.forName(getCharacterEncoding())));
+        }
+        return writer;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        super.flushBuffer();
+    }
+
+    public void finish() {
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    /** @return the first bytes of the body written so far */
+    public byte[] getCapturedBody() {
+        return capture.toByteArray();
+    }
+
+    public boolean isTruncated() {
+        return capture.isTruncated();
+    }
+
+    /** @return whether the body was not captured because of its declared length */
+    public boolean isSkipped() {
+        return capture.isSkipped();
+    }
+
+    private final class CapturingOutputStream extends ServletOutputStream {
+        private final ServletOutputStream delegate;
+
+        CapturingOutputStream(ServletOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            capture.write(b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            delegate.write(bytes, offset, length);
+            capture.write(bytes, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+}
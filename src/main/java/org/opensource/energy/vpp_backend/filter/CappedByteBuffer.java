@@ -0,0 +1,53 @@
+package org.opensource.energy.vpp_backend.filter;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the first {@code capacity} bytes written to it and counts, but drops, the rest.
+ */
+final class CappedByteBuffer {
+    private final byte[] buffer;
+    private int size;
+    private long total;
+    private boolean skipped;
+
+    CappedByteBuffer(int capacity) {
+        this.buffer = new byte[Math.max(0, capacity)];
+    }
+
+    void write(int b) {
+        if (!skipped && size < buffer.length) {
+            buffer[size++] = (byte) b;
+        }
+        total++;
+    }
+
+    void write(byte[] bytes, int offset, int length) {
+        int kept = skipped ? 0 : Math.min(length, buffer.length - size);
+        if (kept > 0) {
+            System.arraycopy(bytes, offset, buffer, size, kept);
+            size += kept;
+        }
+        total += length;
+    }
+
+    /** Drops whatever was kept and stops keeping anything more. */
+    void skip() {
+        skipped = true;
+        size = 0;
+    }
+
+    /** @return whether {@link #skip()} was called */
+    boolean isSkipped() {
+        return skipped;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    /** @return whether more bytes went through than were kept */
+    boolean isTruncated() {
+        return total > size;
+    }
+}
@@ -0,0 +1,195 @@
+package org.opensource.energy.vpp_backend.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.opensource.energy.vpp_backend.dto.response.error.ErrorResponse;
+import org.opensource.energy.vpp_backend.limit.GradientConcurrencyLimit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Load shedding for the battery endpoints: requests beyond an adaptive concurrency limit are answered with
+ * {@code 429 Too Many Requests} and {@code Retry-After} at once, instead of queueing for a database connection until
+ * the pool's connection timeout expires.
+ *
+ * <p>Reads ({@code GET}, and {@code POST /batteries/stats}) and ingestion (every other method) have separate
+ * {@link GradientConcurrencyLimit}s, so a bulk upload cannot starve dashboards or the other way round. Runs before
+ * {@link LoggingFilter}, so shed requests cost no body buffering. A request that goes asynchronous, such as an NDJSON
+ * stream, holds its slot until the response completes.</p>
+ *
+ * <p>Published meters, tagged {@code class=read|ingest}: {@code vpp.concurrency.limit},
+ * {@code vpp.concurrency.in_flight} and {@code vpp.concurrency.rejected}.</p>
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnProperty(name = "vpp.concurrency-limit.enabled", havingValue = "true")
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final String BATTERIES_PATH = "/batteries";
+    private static final String STATS_PATH = "/batteries/stats";
+
+    private final ObjectMapper objectMapper;
+    private final long retryAfterSeconds;
+    private final Limit read;
+    private final Limit ingest;
+
+    public ConcurrencyLimitFilter(ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${vpp.concurrency-limit.read.initial:20}") int readInitial,
+                                  @Value("${vpp.concurrency-limit.read.min:4}") int readMin,
+                                  @Value("${vpp.concurrency-limit.read.max:200}") int readMax,
+                                  @Value("${vpp.concurrency-limit.ingest.initial:8}") int ingestInitial,
+                                  @Value("${vpp.concurrency-limit.ingest.min:2}") int ingestMin,
+                                  @Value("${vpp.concurrency-limit.ingest.max:40}") int ingestMax,
+                                  @Value("${vpp.concurrency-limit.rtt-tolerance:2.0}") double rttTolerance,
+                                  @Value("${vpp.concurrency-limit.retry-after:1s}") Duration retryAfter) {
+        this.objectMapper = objectMapper;
+        this.retryAfterSeconds = Math.max(1, retryAfter.toSeconds());
+        this.read = new Limit("read", new GradientConcurrencyLimit(readInitial, readMin, readMax, rttTolerance),
+                meterRegistry);
+        this.ingest = new Limit("ingest", new GradientConcurrencyLimit(ingestInitial, ingestMin, ingestMax, rttTolerance),
+                meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !path.equals(BATTERIES_PATH) && !path.startsWith(BATTERIES_PATH + "/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+
+        Limit limit = isRead(request) ? read : ingest;
+        if (!limit.concurrency.tryAcquire()) {
+            limit.rejected.increment();
+            log.debug("Shed {} {}: {} limit of {} reached", request.getMethod(), request.getRequestURI(),
+                    limit.name, limit.concurrency.getLimit());
+            reject(request, response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        Completion completion = new Completion(limit.concurrency, start, response);
+        try {
+            filterChain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException ex) {
+            completion.complete(true);
+            throw ex;
+        }
+        if (request.isAsyncStarted()) {
+            request.getAsyncContext().addListener(completion);
+        } else {
+            completion.complete(false);
+        }
+    }
+
+    private static boolean isRead(HttpServletRequest request) {
+        String method = request.getMethod();
+        if (HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method)) {
+            return true;
+        }
+        return HttpMethod.POST.matches(method)
+                && request.getRequestURI().substring(request.getContextPath().length()).equals(STATS_PATH);
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), ErrorResponse.builder()
+                .message("Too many concurrent requests, retry in " + retryAfterSeconds + " s")
+                .errorCode("TOO_MANY_REQUESTS")
+                .path(request.getRequestURI())
+                .timestamp(Instant.now())
+                .build());
+    }
+
+    private static final class Limit {
+        private final String name;
+        private final GradientConcurrencyLimit concurrency;
+        private final Counter rejected;
+
+        Limit(String name, GradientConcurrencyLimit concurrency, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.concurrency = concurrency;
+            Gauge.builder("vpp.concurrency.limit", concurrency, GradientConcurrencyLimit::getLimit)
+                    .description("Current adaptive concurrency limit")
+                    .tag("class", name)
+                    .register(meterRegistry);
+            Gauge.builder("vpp.concurrency.in_flight", concurrency, GradientConcurrencyLimit::getInFlight)
+                    .description("Requests currently holding a concurrency slot")
+                    .tag("class", name)
+                    .register(meterRegistry);
+            this.rejected = Counter.builder("vpp.concurrency.rejected")
+                    .description("Requests shed with 429 because the concurrency limit was reached")
+                    .tag("class", name)
+                    .register(meterRegistry);
+        }
+    }
+
+    /** Releases a slot exactly once, on whichever of the synchronous return or the async events comes first. */
+    private static final class Completion implements AsyncListener {
+        private final GradientConcurrencyLimit concurrency;
+        private final long start;
+        private final HttpServletResponse response;
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        Completion(GradientConcurrencyLimit concurrency, long start, HttpServletResponse response) {
+            this.concurrency = concurrency;
+            this.start = start;
+            this.response = response;
+        }
+
+        void complete(boolean failed) {
+            if (done.compareAndSet(false, true)) {
+                concurrency.onComplete(System.nanoTime() - start, failed || response.getStatus() >= 500);
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            complete(false);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            complete(true);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            complete(true);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
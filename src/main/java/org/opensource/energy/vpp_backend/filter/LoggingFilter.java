@@ -5,20 +5,46 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
-import org.springframework.web.util.ContentCachingRequestWrapper;
-import org.springframework.web.util.ContentCachingResponseWrapper;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
 
+/**
+ * Logs every request with its status and duration, and a sample of them with the first
+ * {@code vpp.request-logging.max-body-bytes} of their request and response bodies.
+ *
+ * <p>Bodies are captured into fixed-size buffers while streaming through, and only for requests that may end up
+ * sampled ({@link RequestLogSampler}). Bodies declaring a {@code Content-Length} above
+ * {@code vpp.request-logging.max-content-length} are not captured.</p>
+ */
 @Slf4j
 @Component
 public class LoggingFilter extends OncePerRequestFilter {
 
-    private static final int MAX_BODY_LENGTH = 1000;
+    private static final String STREAMED_BODY = "[streamed]";
+    private static final String SKIPPED_BODY = "[not captured]";
+
+    private final int maxBodyBytes;
+    private final long maxContentLength;
+    private final RequestLogSampler sampler;
+
+    public LoggingFilter(@Value("${vpp.request-logging.max-body-bytes:1000}") int maxBodyBytes,
+                         @Value("${vpp.request-logging.max-content-length:1048576}") long maxContentLength,
+                         @Value("${vpp.request-logging.sample-rate.success:0.01}") double successRate,
+                         @Value("${vpp.request-logging.sample-rate.client-error:1.0}") double clientErrorRate,
+                         @Value("${vpp.request-logging.sample-rate.server-error:1.0}") double serverErrorRate,
+                         @Value("${vpp.request-logging.route-sample-rates:}") String routeSampleRates) {
+        this.maxBodyBytes = maxBodyBytes;
+        this.maxContentLength = maxContentLength;
+        this.sampler = new RequestLogSampler(successRate, clientErrorRate, serverErrorRate, routeSampleRates);
+    }
 
     @Override
     protected void doFilterInternal(
@@ -27,36 +53,90 @@ public class LoggingFilter extends OncePerRequestFilter {
             FilterChain filterChain
     ) throws ServletException, IOException {
 
-        ContentCachingRequestWrapper wrappedRequest = new ContentCachingRequestWrapper(request);
-        ContentCachingResponseWrapper wrappedResponse = new ContentCachingResponseWrapper(response);
+        // One draw decides both whether to capture now and whether to log once the status is known.
+        double draw = ThreadLocalRandom.current().nextDouble();
+        double routeRate = sampler.routeRate(request.getMethod(),
+                request.getRequestURI().substring(request.getContextPath().length()));
+        if (draw >= routeRate * sampler.maxStatusRate()) {
+            filterWithoutCapture(request, response, filterChain);
+            return;
+        }
+
+        BoundedCaptureRequestWrapper wrappedRequest = request.getContentLengthLong() > maxContentLength
+                ? null
+                : new BoundedCaptureRequestWrapper(request, maxBodyBytes);
+        // Streamed responses are written asynchronously, after this filter returns, so there is nothing to log.
+        BoundedCaptureResponseWrapper wrappedResponse = isStreamingResponse(request)
+                ? null
+                : new BoundedCaptureResponseWrapper(response, maxBodyBytes, maxContentLength);
 
         Instant start = Instant.now();
 
         try {
-            filterChain.doFilter(wrappedRequest, wrappedResponse);
+            filterChain.doFilter(wrappedRequest != null ? wrappedRequest : request,
+                    wrappedResponse != null ? wrappedResponse : response);
         } finally {
+            if (wrappedResponse != null) {
+                wrappedResponse.finish();
+            }
             long duration = java.time.Duration.between(start, Instant.now()).toMillis();
 
-            String requestBody = getBody(wrappedRequest.getContentAsByteArray());
-            log.info("Request -> {} {} | Body: {}", request.getMethod(), request.getRequestURI(), requestBody);
+            if (draw < routeRate * sampler.statusRate(response.getStatus())) {
+                String requestBody = wrappedRequest != null
+                        ? getBody(wrappedRequest.getCapturedBody(), wrappedRequest.isTruncated())
+                        : SKIPPED_BODY;
+                log.info("Request -> {} {} | Body: {}", request.getMethod(), request.getRequestURI(), requestBody);
 
-            String responseBody = getBody(wrappedResponse.getContentAsByteArray());
-            log.info("Response -> {} {} | Status: {} | Time: {}ms | Body: {}",
-                    request.getMethod(),
-                    request.getRequestURI(),
-                    wrappedResponse.getStatus(),
-                    duration,
-                    responseBody
-            );
+                String responseBody;
+                if (wrappedResponse == null) {
+                    responseBody = STREAMED_BODY;
+                } else if (wrappedResponse.isSkipped()) {
+                    responseBody = SKIPPED_BODY;
+                } else {
+                    responseBody = getBody(wrappedResponse.getCapturedBody(), wrappedResponse.isTruncated());
+                }
+                log.info("Response -> {} {} | Status: {} | Time: {}ms | Body: {}",
+                        request.getMethod(),
+                        request.getRequestURI(),
+                        response.getStatus(),
+                        duration,
+                        responseBody
+                );
+            } else {
+                logWithoutBody(request, response, duration);
+            }
+        }
+    }
 
-            wrappedResponse.copyBodyToResponse();
+    private void filterWithoutCapture(HttpServletRequest request,
+                                      HttpServletResponse response,
+                                      FilterChain filterChain) throws ServletException, IOException {
+        Instant start = Instant.now();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            logWithoutBody(request, response, java.time.Duration.between(start, Instant.now()).toMillis());
         }
     }
 
-    private String getBody(byte[] content) {
-        if (content == null || content.length == 0) return "[empty]";
+    private void logWithoutBody(HttpServletRequest request, HttpServletResponse response, long duration) {
+        log.info("Response -> {} {} | Status: {} | Time: {}ms",
+                request.getMethod(),
+                request.getRequestURI(),
+                response.getStatus(),
+                duration
+        );
+    }
+
+    private boolean isStreamingResponse(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        return accept != null && accept.contains(MediaType.APPLICATION_NDJSON_VALUE);
+    }
+
+    private String getBody(byte[] content, boolean truncated) {
+        if (content.length == 0) return truncated ? "..." : "[empty]";
 
         String body = new String(content, StandardCharsets.UTF_8);
-        return body.length() > MAX_BODY_LENGTH ? body.substring(0, MAX_BODY_LENGTH) + "..." : body;
+        return truncated ? body + "..." : body;
     }
 }
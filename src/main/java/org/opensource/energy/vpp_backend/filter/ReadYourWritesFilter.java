@@ -0,0 +1,82 @@
+package org.opensource.energy.vpp_backend.filter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.opensource.energy.vpp_backend.datasource.DataSourceRoutingContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Read-your-writes for replica routing: a request that opens a read-write transaction gets a cookie holding the
+ * end of the {@code vpp.datasource.replica.read-your-writes.window}. Until then, requests carrying the cookie read
+ * from the primary, so a client never sees its own batteries missing because the replica lags behind.
+ */
+@Component
+@ConditionalOnProperty(name = {"vpp.datasource.replica.enabled", "vpp.datasource.replica.read-your-writes.enabled"},
+        havingValue = "true")
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    public static final String PRIMARY_UNTIL_COOKIE = "VPP_PRIMARY_UNTIL";
+
+    private final Duration window;
+
+    public ReadYourWritesFilter(@Value("${vpp.datasource.replica.read-your-writes.window:5s}") Duration window) {
+        this.window = window;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+
+        boolean[] cookieSet = new boolean[1];
+        Runnable onWrite = () -> {
+            if (!cookieSet[0] && !response.isCommitted()) {
+                response.addHeader(HttpHeaders.SET_COOKIE, primaryUntilCookie(request).toString());
+                cookieSet[0] = true;
+            }
+        };
+
+        try (DataSourceRoutingContext.Scope ignored = DataSourceRoutingContext.onWrite(onWrite);
+             DataSourceRoutingContext.Scope pin = isInWindow(request) ? DataSourceRoutingContext.pinToPrimary() : null) {
+            filterChain.doFilter(request, response);
+        }
+    }
+
+    private ResponseCookie primaryUntilCookie(HttpServletRequest request) {
+        String contextPath = request.getContextPath();
+        return ResponseCookie.from(PRIMARY_UNTIL_COOKIE, Long.toString(System.currentTimeMillis() + window.toMillis()))
+                .path(contextPath.isEmpty() ? "/" : contextPath)
+                .maxAge(window.toSeconds() + 1)
+                .httpOnly(true)
+                .sameSite("Lax")
+                .build();
+    }
+
+    private static boolean isInWindow(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return false;
+        }
+        for (Cookie cookie : cookies) {
+            if (PRIMARY_UNTIL_COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue()) > System.currentTimeMillis();
+                } catch (NumberFormatException ex) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,80 @@
+package org.opensource.energy.vpp_backend.filter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Decides which requests {@link LoggingFilter} logs with their bodies.
+ *
+ * <p>The probability is the rate for the response status class (successful, client error, server error) times the
+ * rate of the most specific matching route. Routes are configured as comma separated {@code [METHOD ]path-prefix=rate}
+ * entries, e.g. {@code POST /batteries/stream=0,GET /batteries=0.1}; routes without an entry use {@code 1}.</p>
+ */
+public class RequestLogSampler {
+    private final double successRate;
+    private final double clientErrorRate;
+    private final double serverErrorRate;
+    private final List<RouteRate> routeRates;
+
+    public RequestLogSampler(double successRate, double clientErrorRate, double serverErrorRate, String routeRates) {
+        this.successRate = checkRate(successRate);
+        this.clientErrorRate = checkRate(clientErrorRate);
+        this.serverErrorRate = checkRate(serverErrorRate);
+        this.routeRates = parse(routeRates);
+    }
+
+    /** @return the factor for the route, from its longest matching prefix */
+    public double routeRate(String method, String path) {
+        for (RouteRate route : routeRates) {
+            if ((route.method() == null || route.method().equalsIgnoreCase(method)) && path.startsWith(route.prefix())) {
+                return route.rate();
+            }
+        }
+        return 1.0;
+    }
+
+    public double statusRate(int status) {
+        if (status >= 500) {
+            return serverErrorRate;
+        }
+        return status >= 400 ? clientErrorRate : successRate;
+    }
+
+    /** @return the highest rate any status can get, i.e. whether a body may end up being logged at all */
+    public double maxStatusRate() {
+        return Math.max(successRate, Math.max(clientErrorRate, serverErrorRate));
+    }
+
+    private static List<RouteRate> parse(String routeRates) {
+        List<RouteRate> routes = new ArrayList<>();
+        if (routeRates == null || routeRates.isBlank()) {
+            return routes;
+        }
+        for (String entry : routeRates.split(",")) {
+            int equals = entry.lastIndexOf('=');
+            if (equals < 0) {
+                throw new IllegalArgumentException("Route sample rate '" + entry.trim() + "' must look like '[METHOD ]/path=rate'");
+            }
+            String[] route = entry.substring(0, equals).trim().split("\\s+", 2);
+            double rate = checkRate(Double.parseDouble(entry.substring(equals + 1).trim()));
+            routes.add(route.length == 2
+                    ? new RouteRate(route[0], route[1], rate)
+                    : new RouteRate(null, route[0], rate));
+        }
+        // Longest prefix first, and a method-specific entry before a catch-all one for the same prefix.
+        routes.sort(Comparator.comparingInt((RouteRate route) -> route.prefix().length()).reversed()
+                .thenComparing(route -> route.method() == null));
+        return List.copyOf(routes);
+    }
+
+    private static double checkRate(double rate) {
+        if (rate < 0 || rate > 1) {
+            throw new IllegalArgumentException("Sample rates must be between 0 and 1, got " + rate);
+        }
+        return rate;
+    }
+
+    private record RouteRate(String method, String prefix, double rate) {
+    }
+}
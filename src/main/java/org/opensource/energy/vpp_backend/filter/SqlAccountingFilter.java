@@ -0,0 +1,151 @@
+package org.opensource.energy.vpp_backend.filter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.opensource.energy.vpp_backend.datasource.SqlStatementContext;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Accounts the SQL each request runs: statements executed, rows fetched and time spent in the database, as counted
+ * by {@code StatementAccountingDataSource}.
+ *
+ * <p>The running totals are kept in the MDC as {@code dbStatements}, {@code dbRows} and {@code dbTimeMs}, so they
+ * appear in every log line of the request (in full in the JSON logs), including {@link LoggingFilter}'s. The totals
+ * when the response starts are sent as a {@code Server-Timing: db} header, which browser developer tools show next to
+ * the request. Requests running more than {@code vpp.sql-accounting.max-request-statements} statements or spending
+ * more than {@code vpp.sql-accounting.max-request-time} in them are logged as a warning. Statements run after the
+ * request returns, such as those of an NDJSON stream, are not counted.</p>
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+@ConditionalOnProperty(name = "vpp.sql-accounting.enabled", havingValue = "true")
+public class SqlAccountingFilter extends OncePerRequestFilter {
+
+    public static final String SERVER_TIMING = "Server-Timing";
+    static final String MDC_STATEMENTS = "dbStatements";
+    static final String MDC_ROWS = "dbRows";
+    static final String MDC_TIME = "dbTimeMs";
+
+    private final long maxRequestStatements;
+    private final long maxRequestNanos;
+
+    public SqlAccountingFilter(@Value("${vpp.sql-accounting.max-request-statements:50}") long maxRequestStatements,
+                               @Value("${vpp.sql-accounting.max-request-time:1s}") Duration maxRequestTime) {
+        this.maxRequestStatements = maxRequestStatements;
+        this.maxRequestNanos = maxRequestTime.toNanos();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+
+        Thread requestThread = Thread.currentThread();
+        SqlStatementContext.Listener toMdc = (stats, sql) -> {
+            if (Thread.currentThread() == requestThread) {
+                putMdc(stats);
+            }
+        };
+
+        try (SqlStatementContext.Scope ignored = SqlStatementContext.begin(toMdc)) {
+            SqlStatementContext.Stats stats = SqlStatementContext.current();
+            ServerTimingResponseWrapper wrappedResponse = new ServerTimingResponseWrapper(response, stats);
+            putMdc(stats);
+            try {
+                filterChain.doFilter(request, wrappedResponse);
+                wrappedResponse.addServerTiming();
+            } finally {
+                MDC.remove(MDC_STATEMENTS);
+                MDC.remove(MDC_ROWS);
+                MDC.remove(MDC_TIME);
+                if (stats.getStatements() > maxRequestStatements || stats.getNanos() > maxRequestNanos) {
+                    log.warn("{} {} ran {} SQL statement(s) taking {} ms and fetching {} row(s)",
+                            request.getMethod(), request.getRequestURI(), stats.getStatements(),
+                            stats.getNanos() / 1_000_000, stats.getRows());
+                }
+            }
+        }
+    }
+
+    private static void putMdc(SqlStatementContext.Stats stats) {
+        MDC.put(MDC_STATEMENTS, Long.toString(stats.getStatements()));
+        MDC.put(MDC_ROWS, Long.toString(stats.getRows()));
+        MDC.put(MDC_TIME, Long.toString(stats.getNanos() / 1_000_000));
+    }
+
+    static String serverTiming(SqlStatementContext.Stats stats) {
+        return String.format(Locale.ROOT, "db;dur=%.1f;desc=\"%d statement(s), %d row(s)\"",
+                stats.getNanos() / 1_000_000.0, stats.getStatements(), stats.getRows());
+    }
+
+    /** Adds the {@code Server-Timing} header just before the response is committed, once the handler has run. */
+    private static final class ServerTimingResponseWrapper extends HttpServletResponseWrapper {
+        private final SqlStatementContext.Stats stats;
+        private boolean added;
+
+        ServerTimingResponseWrapper(HttpServletResponse response, SqlStatementContext.Stats stats) {
+            super(response);
+            this.stats = stats;
+        }
+
+        void addServerTiming() {
+            if (!added && !isCommitted()) {
+                addHeader(SERVER_TIMING, serverTiming(stats));
+            }
+            added = true;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            addServerTiming();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            addServerTiming();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            addServerTiming();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            addServerTiming();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            addServerTiming();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            addServerTiming();
+            super.sendRedirect(location);
+        }
+    }
+}
@@ -0,0 +1,580 @@
+package org.opensource.energy.vpp_backend.index;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.opensource.energy.vpp_backend.datasource.DataSourceRoutingContext;
+import org.opensource.energy.vpp_backend.dto.response.FilteredBatteryStat;
+import org.opensource.energy.vpp_backend.entity.Battery;
+import org.opensource.energy.vpp_backend.event.BatteriesSavedEvent;
+import org.opensource.energy.vpp_backend.event.BatteriesUpdatedEvent;
+import org.opensource.energy.vpp_backend.repository.BatteryJdbcRepository;
+import org.opensource.energy.vpp_backend.repository.BatteryPostcodeSummaryRepository;
+import org.opensource.energy.vpp_backend.repository.projection.PostcodeAggregate;
+import org.opensource.energy.vpp_backend.util.CodePointUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Postcode-keyed aggregate index answering the totals of a postcode-only query in {@code O(log P)} time, where
+ * {@code P} is the size of the postcode domain, independently of how many batteries match.
+ *
+ * <ul>
+ *     <li>Two Fenwick trees hold the battery count and the total capacity per postcode, so a range sum is the
+ *     difference of two prefix sums.</li>
+ *     <li>A segment tree keeps, per node, the battery with the highest and the lowest capacity below it. Ties
+ *     resolve to the alphabetically first name, like the SQL path.</li>
+ * </ul>
+ *
+ * <p>Only postcodes in {@code [0, vpp.aggregate-index.max-postcode]} are indexed; ranges reaching past it are
+ * reported as not covered and must be answered elsewhere. Committed inserts are applied in place from
+ * {@link BatteriesSavedEvent}s. Overwrites ({@link BatteriesUpdatedEvent}) mark their old and new postcodes dirty;
+ * a background refresh re-reads just those rows of {@code battery_postcode_summary}, and ranges containing a dirty
+ * postcode are not covered until then. Since it only sees writes made by this instance, it is meant for
+ * single-instance deployments.</p>
+ */
+@Component
+@ConditionalOnProperty(name = "vpp.aggregate-index.enabled", havingValue = "true")
+@Slf4j
+public class BatteryAggregateIndex {
+    private static final long INITIAL_RETRY_DELAY_MILLIS = 1_000;
+    private static final long MAX_RETRY_DELAY_MILLIS = 60_000;
+
+    private final BatteryJdbcRepository batteryJdbcRepository;
+    private final BatteryPostcodeSummaryRepository postcodeSummaryRepository;
+    private final TransactionTemplate snapshotTransaction;
+    private final int maxPostcode;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    /** Serialises loads and refreshes, which both install rows read from a database snapshot. */
+    private final Lock maintenanceLock = new ReentrantLock();
+    /** Saves between their commit and their {@link #onBatteriesSaved} call, which may come after a load. */
+    private final Set<BatteriesSavedEvent> committingSaves = Collections.newSetFromMap(new IdentityHashMap<>());
+    /** Names of committing saves a load or refresh already found in its snapshot; their save event must skip them. */
+    private final Set<String> countedByLoad = new HashSet<>();
+    /** Postcodes whose leaves may be stale; a range containing one is not covered until it is refreshed. */
+    private final NavigableSet<Integer> dirtyPostcodes = new TreeSet<>();
+    /** Bumped whenever a postcode is marked dirty; a refresh only cleans postcodes left alone while it ran. */
+    private final int[] versions;
+    private final AtomicBoolean maintenanceQueued = new AtomicBoolean();
+    private final ScheduledExecutorService maintenanceExecutor = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("aggregate-index-refresh").daemon(true).factory());
+    /** Guarded by {@link #maintenanceLock}. */
+    private long retryDelayMillis = INITIAL_RETRY_DELAY_MILLIS;
+    private volatile boolean ready;
+
+    /** Fenwick trees over postcode + 1 (index 0 unused). */
+    private final long[] countTree;
+    private final long[] capacityTree;
+
+    /** Segment tree with {@code leafCount} leaves; node {@code i} has children {@code 2i} and {@code 2i + 1}. */
+    private final int leafCount;
+    private final long[] maxCapacities;
+    private final String[] maxNames;
+    private final long[] minCapacities;
+    private final String[] minNames;
+
+    public BatteryAggregateIndex(BatteryJdbcRepository batteryJdbcRepository,
+                                 BatteryPostcodeSummaryRepository postcodeSummaryRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${vpp.aggregate-index.max-postcode:9999}") int maxPostcode) {
+        this.batteryJdbcRepository = batteryJdbcRepository;
+        this.postcodeSummaryRepository = postcodeSummaryRepository;
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setReadOnly(true);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        // Never join a caller's transaction: all queries of a load must read one fresh snapshot.
+        this.snapshotTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxPostcode = maxPostcode;
+
+        this.versions = new int[maxPostcode + 1];
+        this.countTree = new long[maxPostcode + 2];
+        this.capacityTree = new long[maxPostcode + 2];
+        this.leafCount = Integer.highestOneBit(maxPostcode) << 1;
+        this.maxCapacities = new long[2 * leafCount];
+        this.maxNames = new String[2 * leafCount];
+        this.minCapacities = new long[2 * leafCount];
+        this.minNames = new String[2 * leafCount];
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        maintenanceExecutor.shutdownNow();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * @return whether totals for the postcode range can be read from this index
+     */
+    public boolean covers(int postcodeFrom, int postcodeTo) {
+        lock.readLock().lock();
+        try {
+            return isCovered(postcodeFrom, postcodeTo);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Loads the index on startup. A failed load does not stop the application: reads use the database while it is
+     * retried in the background with exponential backoff.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        maintain();
+    }
+
+    /**
+     * Loads the per-postcode aggregates from {@code battery_postcode_summary}. Writes committed while loading leave
+     * their postcodes dirty for the next refresh. Saves that commit before the snapshot but are only delivered after
+     * the load has finished are matched by name, so nothing is counted twice.
+     */
+    public void load() {
+        long start = System.nanoTime();
+        int[] skipped = new int[1];
+        boolean refreshNeeded;
+        maintenanceLock.lock();
+        // Committing saves are matched against this snapshot, so it must not lag behind the primary.
+        try (DataSourceRoutingContext.Scope ignored = DataSourceRoutingContext.pinToPrimary()) {
+            refreshNeeded = Boolean.TRUE.equals(snapshotTransaction.execute(status -> {
+                // Captured before the first query takes the snapshot, which therefore sees every write marked so far.
+                Map<Integer, Integer> capturedVersions = captureDirtyVersions();
+                List<PostcodeAggregate> aggregates = postcodeSummaryRepository.findAll();
+
+                lock.writeLock().lock();
+                try {
+                    clearTrees();
+                    for (PostcodeAggregate aggregate : aggregates) {
+                        if (aggregate.postcode() <= maxPostcode) {
+                            setLeaf(aggregate);
+                        } else {
+                            skipped[0] += (int) aggregate.totalCount();
+                        }
+                    }
+                    buildTrees();
+
+                    // Same snapshot as the aggregates: a committing save found here is already counted.
+                    countedByLoad.clear();
+                    countedByLoad.addAll(batteryJdbcRepository.findExistingNames(committingSaves.stream()
+                            .flatMap(event -> event.batteries().stream())
+                            .map(Battery::getName)
+                            .toList()));
+                    cleanDirtyPostcodes(capturedVersions);
+                    ready = true;
+                    return !dirtyPostcodes.isEmpty();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }));
+        } finally {
+            maintenanceLock.unlock();
+        }
+
+        if (skipped[0] > 0) {
+            log.warn("{} battery record(s) have a postcode above {} and are not covered by the aggregate index",
+                    skipped[0], maxPostcode);
+        }
+        log.info("Battery aggregate index loaded for postcodes [0 - {}] in {} ms",
+                maxPostcode, (System.nanoTime() - start) / 1_000_000);
+        if (refreshNeeded) {
+            scheduleMaintenance(0);
+        }
+    }
+
+    /**
+     * Registers a save before its transaction commits, so a load whose snapshot already contains it knows that its
+     * {@link #onBatteriesSaved} call is still to come.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onBatteriesCommitting(BatteriesSavedEvent event) {
+        lock.writeLock().lock();
+        try {
+            committingSaves.add(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_ROLLBACK)
+    public void onBatteriesRolledBack(BatteriesSavedEvent event) {
+        lock.writeLock().lock();
+        try {
+            committingSaves.remove(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the saved batteries in place. Batteries of a dirty postcode, or saved before the first load has finished,
+     * only mark their postcode dirty again: the refresh reading it afterwards sees them.
+     */
+    @TransactionalEventListener
+    public void onBatteriesSaved(BatteriesSavedEvent event) {
+        boolean refreshNeeded = false;
+        lock.writeLock().lock();
+        try {
+            committingSaves.remove(event);
+            for (Battery battery : event.batteries()) {
+                int postcode = battery.getPostcode();
+                if (countedByLoad.remove(battery.getName()) || postcode > maxPostcode) {
+                    continue;
+                }
+                if (!ready || dirtyPostcodes.contains(postcode)) {
+                    markDirty(postcode);
+                    refreshNeeded = ready;
+                } else {
+                    add(battery);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (refreshNeeded) {
+            scheduleMaintenance(0);
+        }
+    }
+
+    /**
+     * Overwriting a battery may remove a postcode's minimum or maximum, which cannot be undone in place, so the old
+     * and the new postcode are marked dirty and re-read from {@code battery_postcode_summary} on a background
+     * thread. Reads of ranges containing them fall back to the database until then; overwrites committed meanwhile
+     * share the next refresh.
+     */
+    @TransactionalEventListener
+    public void onBatteriesUpdated(BatteriesUpdatedEvent event) {
+        boolean refreshNeeded;
+        lock.writeLock().lock();
+        try {
+            for (BatteriesUpdatedEvent.Change change : event.changes()) {
+                markDirty(change.previous().getPostcode());
+                markDirty(change.current().getPostcode());
+            }
+            // Before the first load has finished, the load itself picks the dirty postcodes up.
+            refreshNeeded = ready;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.debug("Refreshing the battery aggregate index after {} battery update(s)", event.changes().size());
+        if (refreshNeeded) {
+            scheduleMaintenance(0);
+        }
+    }
+
+    private void scheduleMaintenance(long delayMillis) {
+        if (maintenanceQueued.compareAndSet(false, true)) {
+            maintenanceExecutor.schedule(this::maintain, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Loads the index, or refreshes its dirty postcodes once it is loaded. Failures are retried with exponential
+     * backoff; reads use the database meanwhile.
+     */
+    private void maintain() {
+        // Cleared first, so a postcode marked dirty while this runs queues another run.
+        maintenanceQueued.set(false);
+        maintenanceLock.lock();
+        try {
+            if (ready) {
+                refresh();
+            } else {
+                load();
+            }
+            retryDelayMillis = INITIAL_RETRY_DELAY_MILLIS;
+        } catch (RuntimeException ex) {
+            log.error("Maintaining the battery aggregate index failed; retrying in {} ms", retryDelayMillis, ex);
+            scheduleMaintenance(retryDelayMillis);
+            retryDelayMillis = Math.min(retryDelayMillis * 2, MAX_RETRY_DELAY_MILLIS);
+        } finally {
+            maintenanceLock.unlock();
+        }
+    }
+
+    /**
+     * Re-reads the summary rows of the dirty postcodes and updates their Fenwick entries and segment-tree paths in
+     * {@code O(log P)} per postcode.
+     */
+    private void refresh() {
+        Map<Integer, Integer> capturedVersions = captureDirtyVersions();
+        if (capturedVersions.isEmpty()) {
+            return;
+        }
+        try (DataSourceRoutingContext.Scope ignored = DataSourceRoutingContext.pinToPrimary()) {
+            snapshotTransaction.executeWithoutResult(status -> {
+                Map<Integer, PostcodeAggregate> aggregates = new HashMap<>();
+                postcodeSummaryRepository.findByPostcodes(capturedVersions.keySet())
+                        .forEach(aggregate -> aggregates.put(aggregate.postcode(), aggregate));
+
+                lock.writeLock().lock();
+                try {
+                    for (int postcode : capturedVersions.keySet()) {
+                        updateLeaf(aggregates.getOrDefault(postcode,
+                                new PostcodeAggregate(postcode, 0, 0, 0, null, 0, null)));
+                    }
+                    countedByLoad.addAll(batteryJdbcRepository.findExistingNames(committingSaves.stream()
+                            .flatMap(event -> event.batteries().stream())
+                            .filter(battery -> capturedVersions.containsKey(battery.getPostcode()))
+                            .map(Battery::getName)
+                            .toList()));
+                    cleanDirtyPostcodes(capturedVersions);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            });
+        }
+        log.debug("Refreshed {} postcode(s) of the battery aggregate index", capturedVersions.size());
+    }
+
+    /**
+     * Returns the totals of all batteries with a postcode in the range; battery names are left for the caller.
+     *
+     * @throws IllegalStateException if the range is not {@link #covers(int, int) covered}
+     */
+    public FilteredBatteryStat.FilteredBatteryStatBuilder readTotals(int postcodeFrom, int postcodeTo) {
+        lock.readLock().lock();
+        try {
+            if (!isCovered(postcodeFrom, postcodeTo)) {
+                throw new IllegalStateException("Postcode range [" + postcodeFrom + " - " + postcodeTo
+                        + "] is not covered by the aggregate index");
+            }
+
+            long totalCount = prefixSum(countTree, postcodeTo) - prefixSum(countTree, postcodeFrom - 1);
+            long totalCapacity = prefixSum(capacityTree, postcodeTo) - prefixSum(capacityTree, postcodeFrom - 1);
+
+            // Bottom-up range query over the leaves [from, to].
+            long maxCapacity = 0;
+            String maxName = null;
+            long minCapacity = 0;
+            String minName = null;
+            for (int low = postcodeFrom + leafCount, high = postcodeTo + leafCount + 1; low < high; low >>= 1, high >>= 1) {
+                if ((low & 1) == 1) {
+                    if (isBetterMax(maxCapacities[low], maxNames[low], maxCapacity, maxName)) {
+                        maxCapacity = maxCapacities[low];
+                        maxName = maxNames[low];
+                    }
+                    if (isBetterMin(minCapacities[low], minNames[low], minCapacity, minName)) {
+                        minCapacity = minCapacities[low];
+                        minName = minNames[low];
+                    }
+                    low++;
+                }
+                if ((high & 1) == 1) {
+                    high--;
+                    if (isBetterMax(maxCapacities[high], maxNames[high], maxCapacity, maxName)) {
+                        maxCapacity = maxCapacities[high];
+                        maxName = maxNames[high];
+                    }
+                    if (isBetterMin(minCapacities[high], minNames[high], minCapacity, minName)) {
+                        minCapacity = minCapacities[high];
+                        minName = minNames[high];
+                    }
+                }
+            }
+
+            return FilteredBatteryStat.builder()
+                    .totalCount(totalCount)
+                    .totalCapacity(totalCapacity)
+                    .averageCapacity(totalCount == 0 ? 0 : totalCapacity / totalCount)
+                    .highestCapacityBatteryName(maxName)
+                    .lowestCapacityBatteryName(minName);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean isCovered(int postcodeFrom, int postcodeTo) {
+        if (!ready || postcodeFrom < 0 || postcodeTo > maxPostcode) {
+            return false;
+        }
+        Integer dirty = dirtyPostcodes.ceiling(postcodeFrom);
+        return dirty == null || dirty > postcodeTo;
+    }
+
+    private void markDirty(int postcode) {
+        if (postcode < 0 || postcode > maxPostcode) {
+            return;
+        }
+        versions[postcode]++;
+        dirtyPostcodes.add(postcode);
+    }
+
+    private Map<Integer, Integer> captureDirtyVersions() {
+        lock.readLock().lock();
+        try {
+            Map<Integer, Integer> capturedVersions = new HashMap<>();
+            dirtyPostcodes.forEach(postcode -> capturedVersions.put(postcode, versions[postcode]));
+            return capturedVersions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Postcodes marked dirty again since their version was captured stay dirty for the next refresh. */
+    private void cleanDirtyPostcodes(Map<Integer, Integer> capturedVersions) {
+        capturedVersions.forEach((postcode, version) -> {
+            if (versions[postcode] == version) {
+                dirtyPostcodes.remove(postcode);
+            }
+        });
+    }
+
+    private void add(Battery battery) {
+        int postcode = battery.getPostcode();
+        long capacity = battery.getWattCapacity();
+        for (int i = postcode + 1; i < countTree.length; i += i & -i) {
+            countTree[i]++;
+            capacityTree[i] += capacity;
+        }
+
+        // Walk from the leaf to the root, stopping as soon as a node keeps its current champions.
+        String name = battery.getName();
+        for (int node = postcode + leafCount; node >= 1; node >>= 1) {
+            boolean changed = false;
+            if (isBetterMax(capacity, name, maxCapacities[node], maxNames[node])) {
+                maxCapacities[node] = capacity;
+                maxNames[node] = name;
+                changed = true;
+            }
+            if (isBetterMin(capacity, name, minCapacities[node], minNames[node])) {
+                minCapacities[node] = capacity;
+                minNames[node] = name;
+                changed = true;
+            }
+            if (!changed) {
+                break;
+            }
+        }
+    }
+
+    private void setLeaf(PostcodeAggregate aggregate) {
+        int postcode = aggregate.postcode();
+        // Raw per-postcode values first; buildTrees() turns them into Fenwick partial sums.
+        countTree[postcode + 1] = aggregate.totalCount();
+        capacityTree[postcode + 1] = aggregate.totalCapacity();
+
+        int leaf = postcode + leafCount;
+        maxCapacities[leaf] = aggregate.maxCapacity();
+        maxNames[leaf] = aggregate.highestCapacityBatteryName();
+        minCapacities[leaf] = aggregate.minCapacity();
+        minNames[leaf] = aggregate.lowestCapacityBatteryName();
+    }
+
+    /**
+     * Replaces one postcode's values in an already built index: its Fenwick entries move by the difference to the
+     * current values, and its segment-tree path is recomputed, since a removed champion cannot be undone in place.
+     */
+    private void updateLeaf(PostcodeAggregate aggregate) {
+        int postcode = aggregate.postcode();
+        long countDelta = aggregate.totalCount() - pointValue(countTree, postcode);
+        long capacityDelta = aggregate.totalCapacity() - pointValue(capacityTree, postcode);
+        for (int i = postcode + 1; i < countTree.length; i += i & -i) {
+            countTree[i] += countDelta;
+            capacityTree[i] += capacityDelta;
+        }
+
+        int leaf = postcode + leafCount;
+        maxCapacities[leaf] = aggregate.maxCapacity();
+        maxNames[leaf] = aggregate.highestCapacityBatteryName();
+        minCapacities[leaf] = aggregate.minCapacity();
+        minNames[leaf] = aggregate.lowestCapacityBatteryName();
+        for (int node = leaf >> 1; node >= 1; node >>= 1) {
+            combine(node);
+        }
+    }
+
+    private void clearTrees() {
+        Arrays.fill(countTree, 0);
+        Arrays.fill(capacityTree, 0);
+        Arrays.fill(maxCapacities, 0);
+        Arrays.fill(maxNames, null);
+        Arrays.fill(minCapacities, 0);
+        Arrays.fill(minNames, null);
+    }
+
+    /**
+     * Builds both structures in linear time from the raw leaf values written by {@link #setLeaf}.
+     */
+    private void buildTrees() {
+        for (int i = 1; i < countTree.length; i++) {
+            int parent = i + (i & -i);
+            if (parent < countTree.length) {
+                countTree[parent] += countTree[i];
+                capacityTree[parent] += capacityTree[i];
+            }
+        }
+        for (int node = leafCount - 1; node >= 1; node--) {
+            combine(node);
+        }
+    }
+
+    /** Recomputes a segment-tree node from its two children. */
+    private void combine(int node) {
+        int left = 2 * node;
+        int right = left + 1;
+        boolean rightMax = isBetterMax(maxCapacities[right], maxNames[right], maxCapacities[left], maxNames[left]);
+        maxCapacities[node] = rightMax ? maxCapacities[right] : maxCapacities[left];
+        maxNames[node] = rightMax ? maxNames[right] : maxNames[left];
+        boolean rightMin = isBetterMin(minCapacities[right], minNames[right], minCapacities[left], minNames[left]);
+        minCapacities[node] = rightMin ? minCapacities[right] : minCapacities[left];
+        minNames[node] = rightMin ? minNames[right] : minNames[left];
+    }
+
+    private static long pointValue(long[] tree, int postcode) {
+        return prefixSum(tree, postcode) - prefixSum(tree, postcode - 1);
+    }
+
+    private static long prefixSum(long[] tree, int postcode) {
+        long sum = 0;
+        for (int i = postcode + 1; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /** An empty slot has a {@code null} name and loses against any battery. */
+    private static boolean isBetterMax(long capacity, String name, long currentCapacity, String currentName) {
+        if (name == null) {
+            return false;
+        }
+        return currentName == null || capacity > currentCapacity
+                || (capacity == currentCapacity && CodePointUtil.compare(name, currentName) < 0);
+    }
+
+    private static boolean isBetterMin(long capacity, String name, long currentCapacity, String currentName) {
+        if (name == null) {
+            return false;
+        }
+        return currentName == null || capacity < currentCapacity
+                || (capacity == currentCapacity && CodePointUtil.compare(name, currentName) < 0);
+    }
+}
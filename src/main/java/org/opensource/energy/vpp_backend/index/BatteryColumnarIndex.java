@@ -0,0 +1,420 @@
+package org.opensource.energy.vpp_backend.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.opensource.energy.vpp_backend.datasource.DataSourceRoutingContext;
+import org.opensource.energy.vpp_backend.dto.response.FilteredBatteryStat;
+import org.opensource.energy.vpp_backend.entity.Battery;
+import org.opensource.energy.vpp_backend.event.BatteriesSavedEvent;
+import org.opensource.energy.vpp_backend.event.BatteriesUpdatedEvent;
+import org.opensource.energy.vpp_backend.metrics.BatteryMetrics;
+import org.opensource.energy.vpp_backend.metrics.BatteryMetrics.Engine;
+import org.opensource.energy.vpp_backend.metrics.BatteryMetrics.Phase;
+import org.opensource.energy.vpp_backend.repository.BatteryJdbcRepository;
+import org.opensource.energy.vpp_backend.util.CodePointUtil;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import static org.opensource.energy.vpp_backend.util.CodePointUtil.CODE_POINT_ORDER;
+
+/**
+ * In-process, read-optimized copy of the battery fleet that answers postcode/wattage range statistics without
+ * querying PostgreSQL.
+ *
+ * <p>The fleet is held as primitive columns sorted by postcode ({@code int[]} postcodes, {@code long[]} capacities)
+ * and a dictionary-encoded name column: names are stored once in a binary-sorted dictionary and each row keeps the
+ * {@code int} rank of its name. A query binary-searches the postcode bounds, scans the capacity column and sorts the
+ * matching ranks, which yields the names in alphabetical order without comparing strings.</p>
+ *
+ * <p>Enabled with {@code vpp.read-engine=columnar}. The index is loaded once the application is ready and then
+ * follows committed writes published as {@link BatteriesSavedEvent} and {@link BatteriesUpdatedEvent}. Every write
+ * builds a new immutable snapshot, so readers never block; until the first load completes {@link #isReady()} is
+ * {@code false} and callers must fall back to the database.</p>
+ */
+@Component
+@ConditionalOnProperty(name = "vpp.read-engine", havingValue = "columnar")
+@Slf4j
+public class BatteryColumnarIndex {
+    private final BatteryJdbcRepository batteryJdbcRepository;
+    private final BatteryMetrics batteryMetrics;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final Object writeLock = new Object();
+    private final List<UnaryOperator<Snapshot>> pendingWrites = new ArrayList<>();
+    private volatile Snapshot snapshot;
+
+    public BatteryColumnarIndex(BatteryJdbcRepository batteryJdbcRepository, BatteryMetrics batteryMetrics,
+                                PlatformTransactionManager transactionManager) {
+        this.batteryJdbcRepository = batteryJdbcRepository;
+        this.batteryMetrics = batteryMetrics;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    public int size() {
+        Snapshot current = snapshot;
+        return current == null ? 0 : current.postcodes.length;
+    }
+
+    /**
+     * Loads the whole {@code battery} table. Writes committed while loading are buffered and applied afterwards in
+     * commit order; batteries already present in the loaded data are skipped and re-applying an update is harmless,
+     * so nothing is counted twice.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.nanoTime();
+        Snapshot loaded;
+        try (DataSourceRoutingContext.Scope ignored = DataSourceRoutingContext.pinToPrimary()) {
+            loaded = readOnlyTransaction.execute(status -> loadFromDatabase());
+        }
+
+        synchronized (writeLock) {
+            Snapshot current = loaded;
+            for (UnaryOperator<Snapshot> pending : pendingWrites) {
+                current = pending.apply(current);
+            }
+            pendingWrites.clear();
+            snapshot = current;
+        }
+        log.info("Columnar battery index loaded with {} battery record(s) in {} ms",
+                size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @TransactionalEventListener
+    public void onBatteriesSaved(BatteriesSavedEvent event) {
+        apply(current -> current.withInserted(event.batteries()));
+        log.debug("Applied {} battery record(s) to the columnar index", event.batteries().size());
+    }
+
+    @TransactionalEventListener
+    public void onBatteriesUpdated(BatteriesUpdatedEvent event) {
+        apply(current -> current.withUpdated(event.changes()));
+        log.debug("Applied {} battery update(s) to the columnar index", event.changes().size());
+    }
+
+    private void apply(UnaryOperator<Snapshot> write) {
+        synchronized (writeLock) {
+            if (snapshot == null) {
+                pendingWrites.add(write);
+                return;
+            }
+            snapshot = write.apply(snapshot);
+        }
+    }
+
+    /**
+     * Computes the statistics for the given filter from the current snapshot.
+     *
+     * @throws IllegalStateException if the index has not been loaded yet
+     */
+    public FilteredBatteryStat read(int postcodeFrom, int postcodeTo, Long wattageFrom, Long wattageTo) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            throw new IllegalStateException("Columnar battery index is not loaded yet");
+        }
+        return current.read(postcodeFrom, postcodeTo,
+                wattageFrom == null ? Long.MIN_VALUE : wattageFrom,
+                wattageTo == null ? Long.MAX_VALUE : wattageTo,
+                batteryMetrics);
+    }
+
+    private Snapshot loadFromDatabase() {
+        List<String> names = new ArrayList<>();
+        IntColumn postcodes = new IntColumn();
+        LongColumn capacities = new LongColumn();
+        batteryJdbcRepository.streamAllOrderedByPostcode((name, postcode, capacity) -> {
+            names.add(name);
+            postcodes.add(postcode);
+            capacities.add(capacity);
+        });
+
+        String[] dictionary = names.toArray(String[]::new);
+        Arrays.sort(dictionary, CODE_POINT_ORDER);
+        int[] nameRanks = new int[names.size()];
+        for (int i = 0; i < nameRanks.length; i++) {
+            nameRanks[i] = Arrays.binarySearch(dictionary, names.get(i), CODE_POINT_ORDER);
+        }
+        return new Snapshot(postcodes.toArray(), capacities.toArray(), nameRanks, dictionary);
+    }
+
+    /**
+     * Immutable column set. Row {@code i} is ({@code postcodes[i]}, {@code capacities[i]},
+     * {@code dictionary[nameRanks[i]]}); rows are sorted by postcode and the dictionary is sorted binary.
+     */
+    private record Snapshot(int[] postcodes, long[] capacities, int[] nameRanks, String[] dictionary) {
+
+        FilteredBatteryStat read(int postcodeFrom, int postcodeTo, long wattageFrom, long wattageTo,
+                                 BatteryMetrics metrics) {
+            long start = System.nanoTime();
+            int from = lowerBound(postcodes, postcodeFrom);
+            int to = upperBound(postcodes, postcodeTo);
+
+            int[] matchedRanks = new int[Math.max(0, to - from)];
+            int matched = 0;
+            long totalCapacity = 0;
+            long maxCapacity = 0;
+            long minCapacity = 0;
+            int maxRank = -1;
+            int minRank = -1;
+
+            for (int i = from; i < to; i++) {
+                long capacity = capacities[i];
+                if (capacity < wattageFrom || capacity > wattageTo) {
+                    continue;
+                }
+                int rank = nameRanks[i];
+                matchedRanks[matched++] = rank;
+                totalCapacity += capacity;
+                // Lower rank means alphabetically first name, which wins ties like in the SQL path.
+                if (maxRank < 0 || capacity > maxCapacity || (capacity == maxCapacity && rank < maxRank)) {
+                    maxCapacity = capacity;
+                    maxRank = rank;
+                }
+                if (minRank < 0 || capacity < minCapacity || (capacity == minCapacity && rank < minRank)) {
+                    minCapacity = capacity;
+                    minRank = rank;
+                }
+            }
+
+            start = metrics.recordPhase(Engine.COLUMNAR, Phase.AGGREGATE, start);
+            Arrays.sort(matchedRanks, 0, matched);
+            String[] names = new String[matched];
+            for (int i = 0; i < matched; i++) {
+                names[i] = dictionary[matchedRanks[i]];
+            }
+            metrics.recordPhase(Engine.COLUMNAR, Phase.SORT, start);
+
+            return FilteredBatteryStat.builder()
+                    .batteryNames(Arrays.asList(names))
+                    .totalCount((long) matched)
+                    .totalCapacity(totalCapacity)
+                    .averageCapacity(matched == 0 ? 0 : totalCapacity / matched)
+                    .highestCapacityBatteryName(maxRank < 0 ? null : dictionary[maxRank])
+                    .lowestCapacityBatteryName(minRank < 0 ? null : dictionary[minRank])
+                    .build();
+        }
+
+        /**
+         * Returns a new snapshot including {@code batteries}. Names already present are ignored.
+         * Runs in O(n + k log k) for k new batteries.
+         */
+        Snapshot withInserted(List<Battery> batteries) {
+            List<Battery> added = batteries.stream()
+                    .filter(battery -> Arrays.binarySearch(dictionary, battery.getName(), CODE_POINT_ORDER) < 0)
+                    .sorted(Comparator.comparing(Battery::getName, CODE_POINT_ORDER))
+                    .toList();
+            if (added.isEmpty()) {
+                return this;
+            }
+
+            // Merge the sorted new names into the dictionary, remembering where every old rank moved to.
+            int k = added.size();
+            String[] newDictionary = new String[dictionary.length + k];
+            int[] oldToNewRank = new int[dictionary.length];
+            int[] addedRanks = new int[k];
+            int oldIndex = 0;
+            int addedIndex = 0;
+            for (int rank = 0; rank < newDictionary.length; rank++) {
+                boolean takeAdded = oldIndex == dictionary.length || (addedIndex < k
+                        && CodePointUtil.compare(added.get(addedIndex).getName(), dictionary[oldIndex]) < 0);
+                if (takeAdded) {
+                    newDictionary[rank] = added.get(addedIndex).getName();
+                    addedRanks[addedIndex++] = rank;
+                } else {
+                    newDictionary[rank] = dictionary[oldIndex];
+                    oldToNewRank[oldIndex++] = rank;
+                }
+            }
+
+            // Order the new rows by postcode; the key packs (postcode, position) into one sortable long.
+            long[] addedOrder = new long[k];
+            for (int i = 0; i < k; i++) {
+                addedOrder[i] = ((long) added.get(i).getPostcode() << 32) | i;
+            }
+            Arrays.sort(addedOrder);
+            int[] addedPostcodes = new int[k];
+            long[] addedCapacities = new long[k];
+            int[] addedNameRanks = new int[k];
+            for (int i = 0; i < k; i++) {
+                int position = (int) addedOrder[i];
+                addedPostcodes[i] = added.get(position).getPostcode();
+                addedCapacities[i] = added.get(position).getWattCapacity();
+                addedNameRanks[i] = addedRanks[position];
+            }
+
+            int[] remappedRanks = new int[nameRanks.length];
+            for (int row = 0; row < nameRanks.length; row++) {
+                remappedRanks[row] = oldToNewRank[nameRanks[row]];
+            }
+            return merge(postcodes, capacities, remappedRanks,
+                    addedPostcodes, addedCapacities, addedNameRanks, newDictionary);
+        }
+
+        /**
+         * Returns a new snapshot where the changed batteries carry their current postcode and capacity. Their
+         * rows are taken out and merged back at their new position; the dictionary is unchanged. A battery whose
+         * name is not indexed yet is inserted. Runs in O(n + k log k) for k changes.
+         */
+        Snapshot withUpdated(List<BatteriesUpdatedEvent.Change> changes) {
+            Map<Integer, Battery> currentByRank = new HashMap<>();
+            List<Battery> missing = new ArrayList<>();
+            for (BatteriesUpdatedEvent.Change change : changes) {
+                int rank = Arrays.binarySearch(dictionary, change.current().getName(), CODE_POINT_ORDER);
+                if (rank < 0) {
+                    missing.add(change.current());
+                } else {
+                    currentByRank.put(rank, change.current());
+                }
+            }
+            if (currentByRank.isEmpty()) {
+                return withInserted(missing);
+            }
+
+            int kept = 0;
+            int[] keptPostcodes = new int[postcodes.length];
+            long[] keptCapacities = new long[postcodes.length];
+            int[] keptNameRanks = new int[postcodes.length];
+            for (int row = 0; row < postcodes.length; row++) {
+                if (!currentByRank.containsKey(nameRanks[row])) {
+                    keptPostcodes[kept] = postcodes[row];
+                    keptCapacities[kept] = capacities[row];
+                    keptNameRanks[kept++] = nameRanks[row];
+                }
+            }
+
+            // Same (postcode, rank) packing as for inserts; the rank is below 2^31.
+            long[] changedOrder = currentByRank.entrySet().stream()
+                    .mapToLong(entry -> ((long) entry.getValue().getPostcode() << 32) | entry.getKey())
+                    .sorted()
+                    .toArray();
+            int k = changedOrder.length;
+            int[] changedPostcodes = new int[k];
+            long[] changedCapacities = new long[k];
+            int[] changedNameRanks = new int[k];
+            for (int i = 0; i < k; i++) {
+                int rank = (int) changedOrder[i];
+                changedPostcodes[i] = (int) (changedOrder[i] >> 32);
+                changedCapacities[i] = currentByRank.get(rank).getWattCapacity();
+                changedNameRanks[i] = rank;
+            }
+
+            Snapshot updated = merge(Arrays.copyOf(keptPostcodes, kept), Arrays.copyOf(keptCapacities, kept),
+                    Arrays.copyOf(keptNameRanks, kept), changedPostcodes, changedCapacities, changedNameRanks,
+                    dictionary);
+            return missing.isEmpty() ? updated : updated.withInserted(missing);
+        }
+
+        /**
+         * Merges two row sets that are each ordered by postcode; name ranks must already refer to {@code dictionary}.
+         */
+        private static Snapshot merge(int[] postcodes, long[] capacities, int[] nameRanks,
+                                      int[] addedPostcodes, long[] addedCapacities, int[] addedNameRanks,
+                                      String[] dictionary) {
+            int size = postcodes.length + addedPostcodes.length;
+            int[] newPostcodes = new int[size];
+            long[] newCapacities = new long[size];
+            int[] newNameRanks = new int[size];
+            int oldRow = 0;
+            int addedRow = 0;
+            for (int row = 0; row < size; row++) {
+                boolean takeAdded = oldRow == postcodes.length
+                        || (addedRow < addedPostcodes.length && addedPostcodes[addedRow] < postcodes[oldRow]);
+                if (takeAdded) {
+                    newPostcodes[row] = addedPostcodes[addedRow];
+                    newCapacities[row] = addedCapacities[addedRow];
+                    newNameRanks[row] = addedNameRanks[addedRow];
+                    addedRow++;
+                } else {
+                    newPostcodes[row] = postcodes[oldRow];
+                    newCapacities[row] = capacities[oldRow];
+                    newNameRanks[row] = nameRanks[oldRow];
+                    oldRow++;
+                }
+            }
+            return new Snapshot(newPostcodes, newCapacities, newNameRanks, dictionary);
+        }
+
+        private static int lowerBound(int[] values, int key) {
+            int low = 0;
+            int high = values.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[mid] < key) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private static int upperBound(int[] values, int key) {
+            int low = 0;
+            int high = values.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[mid] <= key) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * Growable {@code int} column used while loading, avoiding boxed collections.
+     */
+    private static final class IntColumn {
+        private int[] values = new int[1024];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * Growable {@code long} column used while loading, avoiding boxed collections.
+     */
+    private static final class LongColumn {
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package org.opensource.energy.vpp_backend.index;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.opensource.energy.vpp_backend.datasource.DataSourceRoutingContext;
+import org.opensource.energy.vpp_backend.entity.Battery;
+import org.opensource.energy.vpp_backend.event.BatteriesSavedEvent;
+import org.opensource.energy.vpp_backend.repository.BatteryJdbcRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * In-process Bloom filter over {@code battery.name}, so a save can tell which submitted names are certainly new
+ * without asking PostgreSQL.
+ *
+ * <p>The filter is scalable: it starts with one stage sized for {@code vpp.name-filter.initial-capacity} names and,
+ * once a stage is full, adds a stage twice as large with half the false-positive rate. The combined rate therefore
+ * stays below {@code vpp.name-filter.false-positive-rate} however many names are added, and memory grows with the
+ * fleet instead of being reserved up front.</p>
+ *
+ * <p>Enabled with {@code vpp.name-filter.enabled=true}. The filter is loaded once the application is ready and
+ * {@link #isReady()} is {@code false} until then. Saved names are added when {@link BatteriesSavedEvent} is
+ * published, before the transaction commits: a rolled-back name only costs an extra false positive, whereas adding
+ * after commit would let a concurrent save of the same name slip past the filter. Names written by other instances
+ * are not seen; the unique index still rejects them.</p>
+ *
+ * <p>Published meters: {@code vpp.name_filter.names}, {@code vpp.name_filter.memory} (bytes),
+ * {@code vpp.name_filter.false_positive_rate} (expected from the current fill) and {@code vpp.name_filter.lookups}
+ * tagged {@code result=absent|present|false_positive}, whose ratio is the observed rate.</p>
+ */
+@Component
+@ConditionalOnProperty(name = "vpp.name-filter.enabled", havingValue = "true")
+@Slf4j
+public class BatteryNameFilter {
+    private static final int GROWTH_FACTOR = 2;
+    private static final double TIGHTENING_RATIO = 0.5;
+    private static final long FNV_OFFSET_BASIS = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final BatteryJdbcRepository batteryJdbcRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final Object growLock = new Object();
+    private volatile Stage[] stages;
+    private volatile boolean ready;
+
+    private final Counter absentNames;
+    private final Counter presentNames;
+    private final Counter falsePositiveNames;
+
+    public BatteryNameFilter(BatteryJdbcRepository batteryJdbcRepository,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry,
+                             @Value("${vpp.name-filter.initial-capacity:1000000}") long initialCapacity,
+                             @Value("${vpp.name-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        if (initialCapacity < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Name filter needs a positive capacity and a false-positive rate in (0, 1)");
+        }
+        this.batteryJdbcRepository = batteryJdbcRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // Stage rates p/2, p/4, ... sum to at most p.
+        this.stages = new Stage[]{new Stage(initialCapacity, falsePositiveRate * (1 - TIGHTENING_RATIO))};
+
+        Gauge.builder("vpp.name_filter.names", this, BatteryNameFilter::size)
+                .description("Names added to the battery name filter")
+                .baseUnit("names")
+                .register(meterRegistry);
+        Gauge.builder("vpp.name_filter.memory", this, BatteryNameFilter::memoryBytes)
+                .description("Memory held by the bit arrays of the battery name filter")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("vpp.name_filter.false_positive_rate", this, BatteryNameFilter::expectedFalsePositiveRate)
+                .description("Probability that a new name is reported as possibly existing, given the current fill")
+                .register(meterRegistry);
+        this.absentNames = lookups(meterRegistry, "absent");
+        this.presentNames = lookups(meterRegistry, "present");
+        this.falsePositiveNames = lookups(meterRegistry, "false_positive");
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("vpp.name_filter.lookups")
+                .description("Names checked against the battery name filter, by outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Adds every stored battery name. Names saved meanwhile are added by {@link #onBatteriesSaved} as usual; adding
+     * a name twice is harmless.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.nanoTime();
+        try (DataSourceRoutingContext.Scope ignored = DataSourceRoutingContext.pinToPrimary()) {
+            readOnlyTransaction.executeWithoutResult(status -> batteryJdbcRepository.streamAllNames(this::put));
+        }
+        ready = true;
+        log.info("Battery name filter loaded with {} name(s), {} bytes in {} stage(s) in {} ms",
+                size(), memoryBytes(), stages.length, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @EventListener
+    public void onBatteriesSaved(BatteriesSavedEvent event) {
+        for (Battery battery : event.batteries()) {
+            put(battery.getName());
+        }
+    }
+
+    /**
+     * Returns the names that are already stored. Names the filter rules out are never looked up; the rest are
+     * passed to {@code lookup} in a single call, and the outcome is recorded in the lookup meters.
+     *
+     * @param names  distinct names to check
+     * @param lookup returns the subset of the given names that exist in the database
+     */
+    public Set<String> findExistingNames(Collection<String> names, Function<List<String>, Set<String>> lookup) {
+        List<String> candidates = new ArrayList<>();
+        for (String name : names) {
+            if (mightContain(name)) {
+                candidates.add(name);
+            }
+        }
+        absentNames.increment(names.size() - candidates.size());
+        if (candidates.isEmpty()) {
+            return Set.of();
+        }
+
+        Set<String> existing = lookup.apply(candidates);
+        presentNames.increment(existing.size());
+        falsePositiveNames.increment(candidates.size() - existing.size());
+        return existing;
+    }
+
+    /**
+     * @return {@code false} if the name was certainly never added
+     */
+    public boolean mightContain(String name) {
+        long hash = fnv1a(name);
+        long h1 = mix(hash);
+        long h2 = mix(hash + GOLDEN_GAMMA) | 1;
+        for (Stage stage : stages) {
+            if (stage.mightContain(h1, h2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void put(String name) {
+        long hash = fnv1a(name);
+        currentStage().put(mix(hash), mix(hash + GOLDEN_GAMMA) | 1);
+    }
+
+    public long size() {
+        return Arrays.stream(stages).mapToLong(stage -> stage.size.get()).sum();
+    }
+
+    public long memoryBytes() {
+        return Arrays.stream(stages).mapToLong(stage -> stage.words.length() * (long) Long.BYTES).sum();
+    }
+
+    /**
+     * @return the probability that at least one stage reports an unseen name, estimated from the bits set so far
+     */
+    public double expectedFalsePositiveRate() {
+        double allNegative = 1;
+        for (Stage stage : stages) {
+            allNegative *= 1 - stage.expectedFalsePositiveRate();
+        }
+        return 1 - allNegative;
+    }
+
+    private Stage currentStage() {
+        Stage[] current = stages;
+        Stage last = current[current.length - 1];
+        if (last.size.get() < last.capacity) {
+            return last;
+        }
+        synchronized (growLock) {
+            current = stages;
+            last = current[current.length - 1];
+            if (last.size.get() >= last.capacity) {
+                Stage next = new Stage(last.capacity * GROWTH_FACTOR, last.falsePositiveRate * TIGHTENING_RATIO);
+                Stage[] grown = Arrays.copyOf(current, current.length + 1);
+                grown[current.length] = next;
+                stages = grown;
+                log.debug("Battery name filter grew to {} stage(s), {} bytes", grown.length, memoryBytes());
+                return next;
+            }
+            return last;
+        }
+    }
+
+    /** FNV-1a over the UTF-16 code units; cheap, and {@link #mix} spreads its weak low bits. */
+    private static long fnv1a(String name) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < name.length(); i++) {
+            hash = (hash ^ name.charAt(i)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /** MurmurHash3's 64-bit finalizer. */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * One classic Bloom filter. Bit positions are derived from two hashes as {@code h1 + i * h2}, which is as good as
+     * {@code k} independent hashes for this purpose.
+     */
+    private static final class Stage {
+        private final long capacity;
+        private final double falsePositiveRate;
+        private final AtomicLongArray words;
+        private final long bitCount;
+        private final int hashCount;
+        private final AtomicLong size = new AtomicLong();
+        private final AtomicLong setBits = new AtomicLong();
+
+        Stage(long capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+            double ln2 = Math.log(2);
+            long bits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (ln2 * ln2));
+            this.words = new AtomicLongArray(Math.toIntExact((bits + Long.SIZE - 1) / Long.SIZE));
+            this.bitCount = (long) words.length() * Long.SIZE;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * ln2));
+        }
+
+        void put(long h1, long h2) {
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                long mask = 1L << bit;
+                long previous = words.getAndAccumulate((int) (bit >>> 6), mask, (word, m) -> word | m);
+                if ((previous & mask) == 0) {
+                    setBits.incrementAndGet();
+                }
+            }
+            size.incrementAndGet();
+        }
+
+        boolean mightContain(long h1, long h2) {
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        double expectedFalsePositiveRate() {
+            return Math.pow((double) setBits.get() / bitCount, hashCount);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package org.opensource.energy.vpp_backend.limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit that follows measured latency instead of a fixed pool size.
+ *
+ * <p>Two moving averages of request latency are kept: a short one ({@value #SHORT_WINDOW} samples) for the current
+ * latency and a long one ({@value #LONG_WINDOW} samples) as the baseline of an unloaded system. Their ratio, relaxed
+ * by {@code rttTolerance} and clamped to {@code [0.5, 1]}, is the gradient: while latency stays within the tolerance
+ * the limit grows by about {@code sqrt(limit)} per sample, and once requests start queueing it shrinks in proportion.
+ * A failed request (server error or exception) cuts the limit by {@value #DROP_RATIO} right away, like AIMD.</p>
+ *
+ * <p>{@link #tryAcquire()} never waits: callers beyond the limit are expected to shed the request.</p>
+ */
+public class GradientConcurrencyLimit {
+    static final int SHORT_WINDOW = 10;
+    static final int LONG_WINDOW = 600;
+    static final double SMOOTHING = 0.2;
+    static final double DROP_RATIO = 0.9;
+    static final double MIN_GRADIENT = 0.5;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile double limit;
+    private double shortRtt;
+    private double longRtt;
+
+    public GradientConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double rttTolerance) {
+        if (minLimit < 1 || maxLimit < minLimit || rttTolerance < 1) {
+            throw new IllegalArgumentException("Concurrency limit needs 1 <= min <= max and an RTT tolerance of at least 1");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.rttTolerance = rttTolerance;
+        this.limit = Math.clamp(initialLimit, minLimit, maxLimit);
+    }
+
+    /**
+     * @return {@code true} if the request may proceed; it must then report back through {@link #onComplete}
+     */
+    public boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    /**
+     * Releases the slot taken by {@link #tryAcquire()} and feeds the request's latency into the limit.
+     *
+     * @param rttNanos how long the request took
+     * @param dropped  whether the request failed on the server side, e.g. because a pool ran dry
+     */
+    public void onComplete(long rttNanos, boolean dropped) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        synchronized (this) {
+            if (dropped) {
+                limit = Math.max(minLimit, limit * DROP_RATIO);
+                return;
+            }
+
+            double rtt = Math.max(1, rttNanos);
+            shortRtt = shortRtt == 0 ? rtt : shortRtt + (rtt - shortRtt) / SHORT_WINDOW;
+            longRtt = longRtt == 0 ? rtt : longRtt + (rtt - longRtt) / LONG_WINDOW;
+            // When latency falls back after an overload, pull the inflated baseline down instead of waiting for it.
+            if (longRtt / shortRtt > 2) {
+                longRtt *= 0.95;
+            }
+
+            double gradient = Math.clamp(rttTolerance * longRtt / shortRtt, MIN_GRADIENT, 1.0);
+            // Only grow a limit that is actually in use; an idle service says nothing about what it can take.
+            if (gradient == 1.0 && inFlightBefore < limit / 2) {
+                return;
+            }
+            double target = limit * gradient + Math.sqrt(limit);
+            limit = Math.clamp(limit * (1 - SMOOTHING) + target * SMOOTHING, minLimit, maxLimit);
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,40 @@
+package org.opensource.energy.vpp_backend.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+
+/**
+ * Publishes {@code vpp.logging.discarded} and {@code vpp.logging.queue.remaining}, tagged {@code appender}, for
+ * every {@link LossyAsyncAppender} on the root logger; registers nothing while logging is synchronous.
+ */
+@Component
+public class AsyncLoggingMetrics {
+
+    public AsyncLoggingMetrics(MeterRegistry meterRegistry) {
+        if (!(LoggerFactory.getILoggerFactory() instanceof LoggerContext context)) {
+            return;
+        }
+        Iterator<Appender<ILoggingEvent>> appenders = context.getLogger(Logger.ROOT_LOGGER_NAME).iteratorForAppenders();
+        while (appenders.hasNext()) {
+            if (appenders.next() instanceof LossyAsyncAppender appender) {
+                FunctionCounter.builder("vpp.logging.discarded", appender, LossyAsyncAppender::getDiscardedCount)
+                        .description("Log events dropped because the async logging queue was nearly full")
+                        .tag("appender", appender.getName())
+                        .register(meterRegistry);
+                Gauge.builder("vpp.logging.queue.remaining", appender, LossyAsyncAppender::getRemainingCapacity)
+                        .description("Free slots in the async logging queue")
+                        .tag("appender", appender.getName())
+                        .register(meterRegistry);
+            }
+        }
+    }
+}
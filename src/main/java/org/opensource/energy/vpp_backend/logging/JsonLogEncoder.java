@@ -0,0 +1,103 @@
+package org.opensource.energy.vpp_backend.logging;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.ThrowableProxyUtil;
+import ch.qos.logback.core.encoder.EncoderBase;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+
+import java.io.IOException;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+
+/**
+ * Encodes each event as one line of JSON: {@code @timestamp}, {@code level}, {@code thread}, {@code logger},
+ * {@code message}, the MDC entries (e.g. {@code traceId}, {@code spanId}) and {@code stack_trace}.
+ *
+ * <p>Fields are streamed straight into a per-thread byte buffer; the timestamp and the message are formatted into a
+ * reused {@link StringBuilder} rather than into intermediate Strings. Message arguments are cut off at
+ * {@code maxArgumentLength} characters by {@link TruncatingMessageFormatter}.</p>
+ */
+public class JsonLogEncoder extends EncoderBase<ILoggingEvent> {
+    private static final JsonFactory JSON = new JsonFactory();
+    /** Buffers that grew past this for one huge event are dropped rather than kept for the thread's lifetime. */
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    private final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(Buffers::new);
+    private int maxArgumentLength = TruncatedMessageConverter.DEFAULT_MAX_ARGUMENT_LENGTH;
+
+    public void setMaxArgumentLength(int maxArgumentLength) {
+        this.maxArgumentLength = maxArgumentLength;
+    }
+
+    @Override
+    public byte[] headerBytes() {
+        return null;
+    }
+
+    @Override
+    public byte[] encode(ILoggingEvent event) {
+        Buffers buffer = buffers.get();
+        buffer.bytes.reset();
+        try (JsonGenerator json = JSON.createGenerator(buffer.bytes)) {
+            json.writeStartObject();
+
+            buffer.text.setLength(0);
+            DateTimeFormatter.ISO_INSTANT.formatTo(event.getInstant(), buffer.text);
+            writeText(json, "@timestamp", buffer);
+            json.writeStringField("level", event.getLevel().levelStr);
+            json.writeStringField("thread", event.getThreadName());
+            json.writeStringField("logger", event.getLoggerName());
+
+            buffer.text.setLength(0);
+            Object[] arguments = event.getArgumentArray();
+            if (arguments == null) {
+                buffer.text.append(event.getFormattedMessage());
+            } else {
+                TruncatingMessageFormatter.format(buffer.text, event.getMessage(), arguments, maxArgumentLength);
+            }
+            writeText(json, "message", buffer);
+
+            for (Map.Entry<String, String> entry : event.getMDCPropertyMap().entrySet()) {
+                json.writeStringField(entry.getKey(), entry.getValue());
+            }
+            IThrowableProxy throwable = event.getThrowableProxy();
+            if (throwable != null) {
+                json.writeStringField("stack_trace", ThrowableProxyUtil.asString(throwable));
+            }
+            json.writeEndObject();
+        } catch (IOException ex) {
+            addError("Could not encode log event as JSON", ex);
+            return new byte[0];
+        }
+        buffer.bytes.write('\n');
+        byte[] encoded = buffer.bytes.toByteArray();
+        if (encoded.length > MAX_RETAINED_CAPACITY || buffer.text.capacity() > MAX_RETAINED_CAPACITY) {
+            buffers.remove();
+        }
+        return encoded;
+    }
+
+    @Override
+    public byte[] footerBytes() {
+        return null;
+    }
+
+    private static void writeText(JsonGenerator json, String field, Buffers buffer) throws IOException {
+        int length = buffer.text.length();
+        if (buffer.chars.length < length) {
+            buffer.chars = new char[Math.max(length, buffer.chars.length * 2)];
+        }
+        buffer.text.getChars(0, length, buffer.chars, 0);
+        json.writeFieldName(field);
+        json.writeString(buffer.chars, 0, length);
+    }
+
+    private static final class Buffers {
+        private final ByteArrayBuilder bytes = new ByteArrayBuilder(512);
+        private final StringBuilder text = new StringBuilder(256);
+        private char[] chars = new char[256];
+    }
+}
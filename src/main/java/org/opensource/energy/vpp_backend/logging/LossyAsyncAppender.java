@@ -0,0 +1,54 @@
+package org.opensource.energy.vpp_backend.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link AsyncAppender} for the request hot path: callers hand events to a bounded queue and return, a single worker
+ * encodes and writes them.
+ *
+ * <p>Once less than {@code discardingThreshold} slots are free (by default a fifth of {@code queueSize}), TRACE,
+ * DEBUG and INFO events are dropped and counted; WARN and ERROR still wait for a slot, so they are never lost. The
+ * message is formatted on the caller with {@link TruncatingMessageFormatter}, since arguments may change once the
+ * call returns; huge arguments therefore cost no more than {@code maxArgumentLength} characters each.</p>
+ */
+public class LossyAsyncAppender extends AsyncAppender {
+    static final int DEFAULT_QUEUE_SIZE = 8192;
+
+    private final AtomicLong discarded = new AtomicLong();
+    private int maxArgumentLength = TruncatedMessageConverter.DEFAULT_MAX_ARGUMENT_LENGTH;
+
+    public LossyAsyncAppender() {
+        setQueueSize(DEFAULT_QUEUE_SIZE);
+        setIncludeCallerData(false);
+    }
+
+    public void setMaxArgumentLength(int maxArgumentLength) {
+        this.maxArgumentLength = maxArgumentLength;
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        // Checked here as well, so events about to be dropped are not formatted first.
+        if (getRemainingCapacity() < getDiscardingThreshold() && isDiscardable(event)) {
+            return;
+        }
+        super.append(event.getArgumentArray() == null ? event : new FormattedLoggingEvent(event, maxArgumentLength));
+    }
+
+    @Override
+    protected boolean isDiscardable(ILoggingEvent event) {
+        boolean discardable = super.isDiscardable(event);
+        if (discardable) {
+            discarded.incrementAndGet();
+        }
+        return discardable;
+    }
+
+    /** @return events dropped because the queue was nearly full */
+    public long getDiscardedCount() {
+        return discarded.get();
+    }
+}
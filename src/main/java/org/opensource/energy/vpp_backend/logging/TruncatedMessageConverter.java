@@ -0,0 +1,38 @@
+package org.opensource.energy.vpp_backend.logging;
+
+import ch.qos.logback.classic.pattern.ClassicConverter;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+/**
+ * {@code %tmsg{maxArgumentLength}}: like {@code %msg}, but formats the message with
+ * {@link TruncatingMessageFormatter}, so huge arguments are cut off instead of being rendered in full.
+ */
+public class TruncatedMessageConverter extends ClassicConverter {
+    static final int DEFAULT_MAX_ARGUMENT_LENGTH = 256;
+
+    private int maxArgumentLength = DEFAULT_MAX_ARGUMENT_LENGTH;
+
+    @Override
+    public void start() {
+        String option = getFirstOption();
+        if (option != null && !option.isBlank()) {
+            try {
+                maxArgumentLength = Integer.parseInt(option.trim());
+            } catch (NumberFormatException ex) {
+                addWarn("Invalid maximum argument length '" + option + "', using " + DEFAULT_MAX_ARGUMENT_LENGTH);
+            }
+        }
+        super.start();
+    }
+
+    @Override
+    public String convert(ILoggingEvent event) {
+        Object[] arguments = event.getArgumentArray();
+        if (arguments == null) {
+            return event.getFormattedMessage();
+        }
+        StringBuilder message = new StringBuilder(event.getMessage().length() + 64);
+        TruncatingMessageFormatter.format(message, event.getMessage(), arguments, maxArgumentLength);
+        return message.toString();
+    }
+}
@@ -0,0 +1,120 @@
+package org.opensource.energy.vpp_backend.logging;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Iterator;
+
+/**
+ * SLF4J-style {@code {}} substitution that renders every argument into at most {@code maxArgumentLength} characters.
+ *
+ * <p>Collections and arrays are rendered element by element and cut off with their size, so logging a list of
+ * 100,000 IDs costs as much as logging its first few, rather than building the full {@code toString()} first.</p>
+ */
+public final class TruncatingMessageFormatter {
+    private static final String PLACEHOLDER = "{}";
+    private static final char ESCAPE = '\\';
+
+    private TruncatingMessageFormatter() {
+    }
+
+    /**
+     * Appends {@code pattern} with its placeholders replaced by {@code arguments} to {@code target}.
+     */
+    public static void format(StringBuilder target, String pattern, Object[] arguments, int maxArgumentLength) {
+        if (pattern == null) {
+            target.append("null");
+            return;
+        }
+        if (arguments == null || arguments.length == 0) {
+            target.append(pattern);
+            return;
+        }
+
+        int from = 0;
+        int argument = 0;
+        while (argument < arguments.length) {
+            int placeholder = pattern.indexOf(PLACEHOLDER, from);
+            if (placeholder < 0) {
+                break;
+            }
+            if (isEscaped(pattern, placeholder)) {
+                if (isEscaped(pattern, placeholder - 1)) {
+                    // "\\{}": a literal backslash followed by a placeholder.
+                    target.append(pattern, from, placeholder - 1);
+                    appendArgument(target, arguments[argument++], maxArgumentLength);
+                } else {
+                    target.append(pattern, from, placeholder - 1).append(PLACEHOLDER);
+                }
+            } else {
+                target.append(pattern, from, placeholder);
+                appendArgument(target, arguments[argument++], maxArgumentLength);
+            }
+            from = placeholder + PLACEHOLDER.length();
+        }
+        target.append(pattern, from, pattern.length());
+    }
+
+    private static boolean isEscaped(String pattern, int index) {
+        return index > 0 && pattern.charAt(index - 1) == ESCAPE;
+    }
+
+    static void appendArgument(StringBuilder target, Object argument, int maxLength) {
+        if (argument instanceof Collection<?> collection) {
+            appendElements(target, collection.iterator(), collection.size(), maxLength);
+        } else if (argument != null && argument.getClass().isArray()) {
+            appendArray(target, argument, maxLength);
+        } else {
+            appendTruncated(target, render(argument), maxLength);
+        }
+    }
+
+    private static void appendElements(StringBuilder target, Iterator<?> elements, int size, int maxLength) {
+        int start = target.length();
+        target.append('[');
+        int rendered = 0;
+        while (elements.hasNext()) {
+            if (target.length() - start >= maxLength) {
+                target.append("... (").append(size).append(" items)]");
+                return;
+            }
+            if (rendered++ > 0) {
+                target.append(", ");
+            }
+            appendTruncated(target, render(elements.next()), maxLength);
+        }
+        target.append(']');
+    }
+
+    private static void appendArray(StringBuilder target, Object array, int maxLength) {
+        int length = Array.getLength(array);
+        appendElements(target, new Iterator<>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < length;
+            }
+
+            @Override
+            public Object next() {
+                return Array.get(array, index++);
+            }
+        }, length, maxLength);
+    }
+
+    private static void appendTruncated(StringBuilder target, String value, int maxLength) {
+        if (value.length() <= maxLength) {
+            target.append(value);
+        } else {
+            target.append(value, 0, maxLength).append("... (").append(value.length()).append(" chars)");
+        }
+    }
+
+    private static String render(Object value) {
+        try {
+            return String.valueOf(value);
+        } catch (RuntimeException ex) {
+            return "[FAILED toString()]";
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package org.opensource.energy.vpp_backend.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.opensource.energy.vpp_backend.dto.response.FilteredBatteryStat;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters for battery ingestion and statistics, fine-grained enough to tell whether a slow call spends its time in the
+ * database, in Java-side aggregation and sorting, or in writing the JSON response.
+ *
+ * <p>Published meters, all with percentile histograms: {@code vpp.batteries.save} and {@code vpp.batteries.stats}
+ * tagged {@code outcome=success|error}, {@code vpp.batteries.stats.phase} tagged {@code engine} and
+ * {@code phase=query|aggregate|sort}, {@code vpp.batteries.stats.serialize}, and the summaries
+ * {@code vpp.batteries.save.batch_size} and {@code vpp.batteries.stats.result_size}.</p>
+ *
+ * <p>Callers pass the {@link System#nanoTime()} a step started at; the phase methods return the time it ended, so
+ * consecutive phases can be recorded without reading the clock twice.</p>
+ */
+@Component
+public class BatteryMetrics {
+
+    /** A step of computing statistics: fetching rows, folding them into totals, and ordering the names. */
+    public enum Phase {
+        QUERY, AGGREGATE, SORT
+    }
+
+    /** Where the statistics were computed, with the phases it runs itself rather than leaving to the database. */
+    public enum Engine {
+        DATABASE(Phase.AGGREGATE, Phase.QUERY),
+        PARALLEL(Phase.QUERY, Phase.SORT),
+        COLUMNAR(Phase.AGGREGATE, Phase.SORT);
+
+        private final Phase[] phases;
+
+        Engine(Phase... phases) {
+            this.phases = phases;
+        }
+    }
+
+    private final Timer saveSuccess;
+    private final Timer saveError;
+    private final DistributionSummary batchSize;
+    private final Timer statSuccess;
+    private final Timer statError;
+    private final DistributionSummary resultSize;
+    private final Timer serialize;
+    private final Map<Engine, Map<Phase, Timer>> phases = new EnumMap<>(Engine.class);
+
+    public BatteryMetrics(MeterRegistry meterRegistry) {
+        this.saveSuccess = callTimer("vpp.batteries.save", "Time to save a batch of batteries", "success", meterRegistry);
+        this.saveError = callTimer("vpp.batteries.save", "Time to save a batch of batteries", "error", meterRegistry);
+        this.batchSize = DistributionSummary.builder("vpp.batteries.save.batch_size")
+                .description("Batteries per saved batch")
+                .baseUnit("batteries")
+                .publishPercentileHistogram()
+                .maximumExpectedValue(1_000_000.0)
+                .register(meterRegistry);
+        this.statSuccess = callTimer("vpp.batteries.stats", "Time to compute filtered battery statistics", "success",
+                meterRegistry);
+        this.statError = callTimer("vpp.batteries.stats", "Time to compute filtered battery statistics", "error",
+                meterRegistry);
+        this.resultSize = DistributionSummary.builder("vpp.batteries.stats.result_size")
+                .description("Battery names returned for a statistics filter")
+                .baseUnit("batteries")
+                .publishPercentileHistogram()
+                .maximumExpectedValue(10_000_000.0)
+                .register(meterRegistry);
+        this.serialize = Timer.builder("vpp.batteries.stats.serialize")
+                .description("Time to write battery statistics as JSON to the response")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        for (Engine engine : Engine.values()) {
+            Map<Phase, Timer> timers = new EnumMap<>(Phase.class);
+            for (Phase phase : engine.phases) {
+                timers.put(phase, Timer.builder("vpp.batteries.stats.phase")
+                        .description("Time spent in one phase of computing battery statistics")
+                        .tag("engine", engine.name().toLowerCase())
+                        .tag("phase", phase.name().toLowerCase())
+                        .publishPercentileHistogram()
+                        .register(meterRegistry));
+            }
+            phases.put(engine, timers);
+        }
+    }
+
+    private static Timer callTimer(String name, String description, String outcome, MeterRegistry meterRegistry) {
+        return Timer.builder(name)
+                .description(description)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    public void recordSave(int batteries, long startNanos, boolean failed) {
+        (failed ? saveError : saveSuccess).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        batchSize.record(batteries);
+    }
+
+    /**
+     * @param result the statistics returned, or {@code null} if the call failed
+     */
+    public void recordStat(FilteredBatteryStat result, long startNanos) {
+        (result == null ? statError : statSuccess).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        if (result != null && result.getBatteryNames() != null) {
+            resultSize.record(result.getBatteryNames().size());
+        }
+    }
+
+    /**
+     * @return the current {@link System#nanoTime()}, the start of the next phase
+     */
+    public long recordPhase(Engine engine, Phase phase, long startNanos) {
+        long now = System.nanoTime();
+        phases.get(engine).get(phase).record(now - startNanos, TimeUnit.NANOSECONDS);
+        return now;
+    }
+
+    public void recordSerialize(long startNanos) {
+        serialize.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+}
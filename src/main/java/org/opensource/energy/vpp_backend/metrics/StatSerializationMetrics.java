@@ -0,0 +1,70 @@
+package org.opensource.energy.vpp_backend.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.opensource.energy.vpp_backend.dto.response.FilteredBatteryStat;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Times the {@code serialize} phase of battery statistics: swaps the JSON message converter for one that records how
+ * long writing a {@link FilteredBatteryStat} response (or a list of them) takes, in {@link BatteryMetrics}. Other
+ * responses are written exactly as before.
+ *
+ * <p>Leaves the converters alone when {@link BatteryMetrics} is not available, as in web-layer test slices.</p>
+ */
+@Component
+@RequiredArgsConstructor
+public class StatSerializationMetrics implements WebMvcConfigurer {
+    private final ObjectProvider<BatteryMetrics> batteryMetrics;
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        BatteryMetrics metrics = batteryMetrics.getIfAvailable();
+        if (metrics == null) {
+            return;
+        }
+        for (int i = 0; i < converters.size(); i++) {
+            if (converters.get(i).getClass() == MappingJackson2HttpMessageConverter.class) {
+                MappingJackson2HttpMessageConverter jackson = (MappingJackson2HttpMessageConverter) converters.get(i);
+                converters.set(i, new TimedConverter(jackson.getObjectMapper(), metrics));
+                return;
+            }
+        }
+    }
+
+    static final class TimedConverter extends MappingJackson2HttpMessageConverter {
+        private final BatteryMetrics metrics;
+
+        TimedConverter(ObjectMapper objectMapper, BatteryMetrics metrics) {
+            super(objectMapper);
+            this.metrics = metrics;
+        }
+
+        @Override
+        protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+                throws IOException, HttpMessageNotWritableException {
+            if (!isStat(object)) {
+                super.writeInternal(object, type, outputMessage);
+                return;
+            }
+            long start = System.nanoTime();
+            super.writeInternal(object, type, outputMessage);
+            metrics.recordSerialize(start);
+        }
+
+        private static boolean isStat(Object object) {
+            return object instanceof FilteredBatteryStat
+                    || object instanceof List<?> list && !list.isEmpty() && list.getFirst() instanceof FilteredBatteryStat;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.opensource.energy.vpp_backend.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Reserves battery IDs from {@code battery_id_seq} for the JDBC write paths that bypass JPA.
+ *
+ * <p>IDs are reserved the same way Hibernate's pooled optimizer does: every {@code nextval} {@code v} owns the
+ * block {@code [v - increment + 1, v]}, so JPA and the JDBC paths can allocate concurrently without collisions.</p>
+ */
+@Repository
+public class BatteryIdAllocator {
+
+    private static final String RESERVE_ID_BLOCKS_SQL = "SELECT nextval('battery_id_seq') FROM generate_series(1, ?)";
+
+    private static final String ID_BLOCK_SIZE_SQL = "SELECT increment_by FROM pg_sequences "
+            + "WHERE schemaname = current_schema() AND sequencename = 'battery_id_seq'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile int idBlockSize;
+
+    public BatteryIdAllocator(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @return {@code count} unused IDs; ascending within each block of the sequence's increment
+     */
+    public long[] reserve(int count) {
+        int blockSize = idBlockSize();
+        long[] ids = new long[count];
+        int filled = 0;
+        while (filled < count) {
+            int blocks = (count - filled + blockSize - 1) / blockSize;
+            for (Long blockEnd : jdbcTemplate.queryForList(RESERVE_ID_BLOCKS_SQL, Long.class, blocks)) {
+                // Hibernate hands out [1, increment + 1] from the very first values; never share that block.
+                if (blockEnd < blockSize) {
+                    continue;
+                }
+                for (long id = blockEnd - blockSize + 1; id <= blockEnd && filled < count; id++) {
+                    ids[filled++] = id;
+                }
+            }
+        }
+        return ids;
+    }
+
+    private int idBlockSize() {
+        if (idBlockSize == 0) {
+            Integer increment = jdbcTemplate.queryForObject(ID_BLOCK_SIZE_SQL, Integer.class);
+            idBlockSize = increment == null || increment < 1 ? 1 : increment;
+        }
+        return idBlockSize;
+    }
+}
@@ -0,0 +1,180 @@
+package org.opensource.energy.vpp_backend.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Plain JDBC access to the {@code battery} table for paths where JPA adds overhead,
+ * such as forward-only cursors over very large result sets.
+ *
+ * <p>Cursor-based reads must run inside a transaction: the PostgreSQL driver only honours the fetch size
+ * when auto-commit is disabled, otherwise it materializes the whole result set.</p>
+ */
+@Repository
+@Slf4j
+public class BatteryJdbcRepository {
+
+    private static final String STREAM_NAMES_SQL = "SELECT b.name, b.watt_capacity FROM battery b WHERE"
+            + BatteryRepository.FILTER_PREDICATE
+            + "ORDER BY b.name COLLATE \"C\"";
+
+    private static final String STREAM_ALL_SQL = "SELECT b.name, b.postcode, b.watt_capacity FROM battery b ORDER BY b.postcode";
+
+    private static final String STREAM_ALL_NAMES_SQL = "SELECT b.name FROM battery b";
+
+    /**
+     * Joins the batteries against a list of filters passed as parallel arrays; {@code f.idx} is the 1-based
+     * position of the filter. Rows come grouped by filter and sorted by name within each group.
+     */
+    private static final String STREAM_BATCH_SQL = """
+            SELECT f.idx, b.name, b.watt_capacity
+            FROM unnest(?, ?, ?, ?) WITH ORDINALITY AS f(postcode_from, postcode_to, wattage_from, wattage_to, idx)
+            JOIN battery b
+              ON b.postcode BETWEEN f.postcode_from AND f.postcode_to
+             AND (f.wattage_from IS NULL OR b.watt_capacity BETWEEN f.wattage_from AND f.wattage_to)
+            ORDER BY f.idx, b.name COLLATE "C"
+            """;
+
+    private static final String EXISTING_NAMES_SQL = "SELECT b.name FROM battery b WHERE b.name = ANY(?)";
+
+    /** Identifier returned by {@code pg_export_snapshot()}, e.g. {@code 00000003-0000001B-1}. */
+    private static final Pattern SNAPSHOT_ID = Pattern.compile("[0-9A-F]+(-[0-9A-F]+)+");
+
+    private final NamedParameterJdbcTemplate streamingJdbcTemplate;
+
+    public BatteryJdbcRepository(DataSource dataSource,
+                                 @Value("${vpp.stream.fetch-size:1000}") int fetchSize) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(fetchSize);
+        this.streamingJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    /**
+     * Streams the name and capacity of every matching battery, ordered by name, through a forward-only cursor
+     * reading {@code vpp.stream.fetch-size} rows per round trip.
+     *
+     * @param handler invoked once per row, in name order
+     */
+    public void streamNamesAndCapacities(int postcodeFrom, int postcodeTo, Long wattageFrom, Long wattageTo,
+                                         BatteryRowHandler handler) {
+        log.debug("Streaming battery names for postcode range [{} - {}] and wattage range [{} - {}]",
+                postcodeFrom, postcodeTo, wattageFrom, wattageTo);
+        streamingJdbcTemplate.query(STREAM_NAMES_SQL,
+                filterParameters(postcodeFrom, postcodeTo, wattageFrom, wattageTo),
+                (RowCallbackHandler) rs -> handler.accept(rs.getString(1), rs.getLong(2)));
+    }
+
+    /**
+     * Evaluates several filters in a single statement and a single pass over the result. The arrays are parallel:
+     * element {@code i} of each describes filter {@code i}; wattage bounds may be {@code null}.
+     *
+     * @param handler invoked once per (filter, matching battery) pair, grouped by filter index and in name order
+     *                within each filter
+     */
+    public void streamNamesAndCapacitiesForFilters(Integer[] postcodeFrom, Integer[] postcodeTo,
+                                                   Long[] wattageFrom, Long[] wattageTo,
+                                                   FilterRowHandler handler) {
+        log.debug("Streaming battery names for {} filter(s) in one statement", postcodeFrom.length);
+        streamingJdbcTemplate.getJdbcTemplate().query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(STREAM_BATCH_SQL);
+            statement.setArray(1, connection.createArrayOf("integer", postcodeFrom));
+            statement.setArray(2, connection.createArrayOf("integer", postcodeTo));
+            statement.setArray(3, connection.createArrayOf("bigint", wattageFrom));
+            statement.setArray(4, connection.createArrayOf("bigint", wattageTo));
+            return statement;
+        }, (RowCallbackHandler) rs -> handler.accept(rs.getInt(1) - 1, rs.getString(2), rs.getLong(3)));
+    }
+
+    /**
+     * Streams every battery ordered by postcode through a forward-only cursor; used to build in-memory read models.
+     *
+     * @param handler invoked once per row, in postcode order
+     */
+    public void streamAllOrderedByPostcode(BatteryRecordHandler handler) {
+        streamingJdbcTemplate.getJdbcTemplate().query(STREAM_ALL_SQL,
+                (RowCallbackHandler) rs -> handler.accept(rs.getString(1), rs.getInt(2), rs.getLong(3)));
+    }
+
+    /**
+     * Streams the name of every battery, in no particular order, through a forward-only cursor.
+     *
+     * @param handler invoked once per row
+     */
+    public void streamAllNames(Consumer<String> handler) {
+        streamingJdbcTemplate.getJdbcTemplate().query(STREAM_ALL_NAMES_SQL,
+                (RowCallbackHandler) rs -> handler.accept(rs.getString(1)));
+    }
+
+    /**
+     * @return the subset of {@code names} that already exist in the {@code battery} table
+     */
+    public Set<String> findExistingNames(Collection<String> names) {
+        if (names.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(streamingJdbcTemplate.getJdbcTemplate().queryForList(
+                EXISTING_NAMES_SQL, String.class, (Object) names.toArray(String[]::new)));
+    }
+
+    /**
+     * Exports the snapshot of the current transaction so that other connections can read exactly the same data
+     * through {@link #importSnapshot(String)}. The snapshot stays importable until this transaction ends.
+     *
+     * @return the snapshot identifier
+     */
+    public String exportSnapshot() {
+        return streamingJdbcTemplate.getJdbcTemplate().queryForObject("SELECT pg_export_snapshot()", String.class);
+    }
+
+    /**
+     * Makes the current transaction read the snapshot exported by another one. Must be the first statement of a
+     * {@code REPEATABLE READ} transaction.
+     */
+    public void importSnapshot(String snapshotId) {
+        // SET TRANSACTION SNAPSHOT takes no bind parameters, so the identifier is validated before inlining it.
+        if (!SNAPSHOT_ID.matcher(snapshotId).matches()) {
+            throw new IllegalArgumentException("Invalid snapshot identifier: " + snapshotId);
+        }
+        streamingJdbcTemplate.getJdbcTemplate().execute("SET TRANSACTION SNAPSHOT '" + snapshotId + "'");
+    }
+
+    static MapSqlParameterSource filterParameters(int postcodeFrom, int postcodeTo, Long wattageFrom, Long wattageTo) {
+        return new MapSqlParameterSource()
+                .addValue("postcodeFrom", postcodeFrom)
+                .addValue("postcodeTo", postcodeTo)
+                .addValue("wattageFrom", wattageFrom, Types.BIGINT)
+                .addValue("wattageTo", wattageTo, Types.BIGINT);
+    }
+
+    @FunctionalInterface
+    public interface BatteryRowHandler {
+        void accept(String name, long wattCapacity);
+    }
+
+    @FunctionalInterface
+    public interface FilterRowHandler {
+        /**
+         * @param filterIndex 0-based position of the filter the battery matched
+         */
+        void accept(int filterIndex, String name, long wattCapacity);
+    }
+
+    @FunctionalInterface
+    public interface BatteryRecordHandler {
+        void accept(String name, int postcode, long wattCapacity);
+    }
+}
@@ -0,0 +1,220 @@
+package org.opensource.energy.vpp_backend.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.opensource.energy.vpp_backend.aggregate.BatteryStatAccumulator;
+import org.opensource.energy.vpp_backend.entity.Battery;
+import org.opensource.energy.vpp_backend.repository.projection.PostcodeAggregate;
+import org.opensource.energy.vpp_backend.repository.projection.PostcodeCount;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * JDBC access to {@code battery_postcode_summary}, the per-postcode aggregate table maintained on every insert.
+ *
+ * <p>All writes must join the transaction that inserts the batteries, so the summary never diverges from the
+ * {@code battery} table as seen by any snapshot.</p>
+ */
+@Repository
+@RequiredArgsConstructor
+@Slf4j
+public class BatteryPostcodeSummaryRepository {
+
+    /**
+     * Adds one postcode's batch aggregate to its summary row. The min/max names keep the alphabetically first
+     * name on ties; every expression on the right-hand side sees the row as it was before the update.
+     */
+    private static final String UPSERT_SQL = """
+            INSERT INTO battery_postcode_summary AS s
+                   (postcode, total_count, total_capacity, min_capacity, min_capacity_name, max_capacity, max_capacity_name)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (postcode) DO UPDATE SET
+                total_count = s.total_count + EXCLUDED.total_count,
+                total_capacity = s.total_capacity + EXCLUDED.total_capacity,
+                min_capacity = LEAST(s.min_capacity, EXCLUDED.min_capacity),
+                min_capacity_name = CASE
+                    WHEN EXCLUDED.min_capacity < s.min_capacity
+                      OR (EXCLUDED.min_capacity = s.min_capacity
+                          AND EXCLUDED.min_capacity_name COLLATE "C" < s.min_capacity_name COLLATE "C")
+                    THEN EXCLUDED.min_capacity_name ELSE s.min_capacity_name END,
+                max_capacity = GREATEST(s.max_capacity, EXCLUDED.max_capacity),
+                max_capacity_name = CASE
+                    WHEN EXCLUDED.max_capacity > s.max_capacity
+                      OR (EXCLUDED.max_capacity = s.max_capacity
+                          AND EXCLUDED.max_capacity_name COLLATE "C" < s.max_capacity_name COLLATE "C")
+                    THEN EXCLUDED.max_capacity_name ELSE s.max_capacity_name END
+            """;
+
+    /**
+     * Per-postcode aggregates computed from the base table, in the summary's column layout; {@code %s} takes an
+     * optional {@code WHERE} clause on {@code battery}.
+     */
+    private static final String AGGREGATE_BATTERIES_TEMPLATE = """
+            SELECT s.postcode, s.total_count, s.total_capacity,
+                   s.min_capacity,
+                   (SELECT b.name FROM battery b
+                     WHERE b.postcode = s.postcode AND b.watt_capacity = s.min_capacity
+                     ORDER BY b.name COLLATE "C" LIMIT 1) AS min_capacity_name,
+                   s.max_capacity,
+                   (SELECT b.name FROM battery b
+                     WHERE b.postcode = s.postcode AND b.watt_capacity = s.max_capacity
+                     ORDER BY b.name COLLATE "C" LIMIT 1) AS max_capacity_name
+            FROM (SELECT postcode, COUNT(*) AS total_count, SUM(watt_capacity) AS total_capacity,
+                         MIN(watt_capacity) AS min_capacity, MAX(watt_capacity) AS max_capacity
+                  FROM battery
+                  %s
+                  GROUP BY postcode) s
+            """;
+
+    private static final String AGGREGATE_BATTERIES_SQL = AGGREGATE_BATTERIES_TEMPLATE.formatted("");
+
+    private static final String INSERT_AGGREGATES_SQL = """
+            INSERT INTO battery_postcode_summary (postcode, total_count, total_capacity,
+                                                  min_capacity, min_capacity_name, max_capacity, max_capacity_name)
+            """;
+
+    private static final String LOCK_POSTCODES_SQL = """
+            SELECT postcode FROM battery_postcode_summary
+            WHERE postcode = ANY(?)
+            ORDER BY postcode
+            FOR UPDATE
+            """;
+
+    private static final String FIND_ALL_SQL = """
+            SELECT postcode, total_count, total_capacity, min_capacity, min_capacity_name, max_capacity, max_capacity_name
+            FROM battery_postcode_summary
+            ORDER BY postcode
+            """;
+
+    private static final String FIND_BY_POSTCODES_SQL = """
+            SELECT postcode, total_count, total_capacity, min_capacity, min_capacity_name, max_capacity, max_capacity_name
+            FROM battery_postcode_summary
+            WHERE postcode = ANY(?)
+            ORDER BY postcode
+            """;
+
+    private static final RowMapper<PostcodeAggregate> AGGREGATE_ROW_MAPPER = (rs, rowNum) -> new PostcodeAggregate(
+            rs.getInt("postcode"),
+            rs.getLong("total_count"),
+            rs.getLong("total_capacity"),
+            rs.getLong("max_capacity"),
+            rs.getString("max_capacity_name"),
+            rs.getLong("min_capacity"),
+            rs.getString("min_capacity_name"));
+
+    private static final String FIND_COUNTS_SQL = """
+            SELECT postcode, total_count
+            FROM battery_postcode_summary
+            WHERE postcode BETWEEN ? AND ?
+            ORDER BY postcode
+            """;
+
+    private static final String FIND_INCONSISTENT_SQL = "WITH actual AS (" + AGGREGATE_BATTERIES_SQL + """
+            )
+            SELECT COALESCE(a.postcode, s.postcode) AS postcode
+            FROM actual a
+            FULL OUTER JOIN battery_postcode_summary s ON s.postcode = a.postcode
+            WHERE a.postcode IS NULL OR s.postcode IS NULL
+               OR a.total_count <> s.total_count
+               OR a.total_capacity <> s.total_capacity
+               OR a.min_capacity <> s.min_capacity
+               OR a.min_capacity_name <> s.min_capacity_name
+               OR a.max_capacity <> s.max_capacity
+               OR a.max_capacity_name <> s.max_capacity_name
+            ORDER BY 1
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Folds newly inserted batteries into the summary with one batched upsert per distinct postcode. Rows are
+     * written in postcode order so that concurrent inserts lock summary rows in the same order.
+     */
+    public void addBatteries(Collection<Battery> batteries) {
+        Map<Integer, BatteryStatAccumulator> byPostcode = new TreeMap<>();
+        for (Battery battery : batteries) {
+            byPostcode.computeIfAbsent(battery.getPostcode(), postcode -> new BatteryStatAccumulator())
+                    .accept(battery.getName(), battery.getWattCapacity());
+        }
+
+        List<Object[]> rows = new ArrayList<>(byPostcode.size());
+        byPostcode.forEach((postcode, stat) -> rows.add(new Object[]{
+                postcode, stat.getCount(), stat.getTotalCapacity(),
+                stat.getMinCapacity(), stat.getMinName(), stat.getMaxCapacity(), stat.getMaxName()}));
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+        log.debug("Upserted {} postcode summary row(s) for {} battery record(s)", rows.size(), batteries.size());
+    }
+
+    /**
+     * @return every summary row, ordered by postcode
+     */
+    public List<PostcodeAggregate> findAll() {
+        return jdbcTemplate.query(FIND_ALL_SQL, AGGREGATE_ROW_MAPPER);
+    }
+
+    /**
+     * @return the summary rows of the given postcodes, ordered by postcode; postcodes without batteries have none
+     */
+    public List<PostcodeAggregate> findByPostcodes(Collection<Integer> postcodes) {
+        if (postcodes.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(FIND_BY_POSTCODES_SQL, AGGREGATE_ROW_MAPPER,
+                (Object) postcodes.toArray(Integer[]::new));
+    }
+
+    /**
+     * @return the battery count of every postcode in the range that has batteries, ordered by postcode
+     */
+    public List<PostcodeCount> findCounts(int postcodeFrom, int postcodeTo) {
+        return jdbcTemplate.query(FIND_COUNTS_SQL,
+                (rs, rowNum) -> new PostcodeCount(rs.getInt("postcode"), rs.getLong("total_count")),
+                postcodeFrom, postcodeTo);
+    }
+
+    /**
+     * Recomputes the whole summary from the {@code battery} table. The summary is locked against concurrent
+     * inserts for the rest of the transaction, which must therefore be short-lived.
+     *
+     * @return the number of summary rows written
+     */
+    public int rebuild() {
+        jdbcTemplate.execute("LOCK TABLE battery_postcode_summary IN EXCLUSIVE MODE");
+        jdbcTemplate.update("DELETE FROM battery_postcode_summary");
+        return jdbcTemplate.update(INSERT_AGGREGATES_SQL + AGGREGATE_BATTERIES_SQL);
+    }
+
+    /**
+     * Recomputes the summary rows of the given postcodes from the {@code battery} table, which is needed whenever
+     * a battery leaves a postcode or changes capacity: a minimum or maximum cannot be subtracted. Postcodes left
+     * without batteries lose their row. The rows are locked in postcode order first, like {@link #addBatteries}.
+     *
+     * @return the number of summary rows written
+     */
+    public int refresh(Collection<Integer> postcodes) {
+        if (postcodes.isEmpty()) {
+            return 0;
+        }
+        Integer[] sortedPostcodes = postcodes.stream().distinct().sorted().toArray(Integer[]::new);
+        jdbcTemplate.queryForList(LOCK_POSTCODES_SQL, Integer.class, (Object) sortedPostcodes);
+        jdbcTemplate.update("DELETE FROM battery_postcode_summary WHERE postcode = ANY(?)", (Object) sortedPostcodes);
+        int rows = jdbcTemplate.update(INSERT_AGGREGATES_SQL
+                + AGGREGATE_BATTERIES_TEMPLATE.formatted("WHERE postcode = ANY(?)"), (Object) sortedPostcodes);
+        log.debug("Recomputed {} postcode summary row(s) for {} postcode(s)", rows, sortedPostcodes.length);
+        return rows;
+    }
+
+    /**
+     * @return postcodes whose summary row is missing, superfluous or differs from the {@code battery} table
+     */
+    public List<Integer> findInconsistentPostcodes() {
+        return jdbcTemplate.queryForList(FIND_INCONSISTENT_SQL, Integer.class);
+    }
+}
@@ -1,10 +1,109 @@
 package org.opensource.energy.vpp_backend.repository;
 
 import org.opensource.energy.vpp_backend.entity.Battery;
+import org.opensource.energy.vpp_backend.repository.projection.BatteryStatProjection;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface BatteryRepository extends JpaRepository<Battery, Long>, JpaSpecificationExecutor<Battery> {
+
+    /**
+     * Native predicate equivalent to {@code BatterySpecification.byPostcodeAndWattageRange}.
+     * The wattage bounds are optional and must be provided together.
+     */
+    String FILTER_PREDICATE = " b.postcode BETWEEN :postcodeFrom AND :postcodeTo"
+            + " AND (CAST(:wattageFrom AS BIGINT) IS NULL OR b.watt_capacity BETWEEN :wattageFrom AND :wattageTo) ";
+
+    /**
+     * Computes count, sum, min and max capacity together with the names of the highest and lowest
+     * capacity batteries in a single round trip and a single pass over the matching rows, without hydrating
+     * any {@link Battery} entity. The rows are folded into one group per distinct capacity holding the first
+     * name in binary ("C") order, and the extremes are then picked from those groups.
+     */
+    @Query(value = """
+            WITH by_capacity AS (
+                SELECT b.watt_capacity,
+                       COUNT(*) AS battery_count,
+                       MIN(b.name COLLATE "C") AS first_name
+                FROM battery b
+                WHERE""" + FILTER_PREDICATE + """
+                GROUP BY b.watt_capacity)
+            SELECT CAST(COALESCE(SUM(c.battery_count), 0) AS BIGINT) AS totalCount,
+                   CAST(COALESCE(SUM(c.battery_count * c.watt_capacity), 0) AS BIGINT) AS totalCapacity,
+                   MIN(c.watt_capacity) AS minCapacity,
+                   MAX(c.watt_capacity) AS maxCapacity,
+                   (SELECT h.first_name FROM by_capacity h
+                     ORDER BY h.watt_capacity DESC
+                     LIMIT 1) AS highestCapacityBatteryName,
+                   (SELECT l.first_name FROM by_capacity l
+                     ORDER BY l.watt_capacity
+                     LIMIT 1) AS lowestCapacityBatteryName
+            FROM by_capacity c
+            """, nativeQuery = true)
+    BatteryStatProjection aggregateStatistics(@Param("postcodeFrom") int postcodeFrom,
+                                              @Param("postcodeTo") int postcodeTo,
+                                              @Param("wattageFrom") Long wattageFrom,
+                                              @Param("wattageTo") Long wattageTo);
+
+    /**
+     * Postcode-only equivalent of {@link #aggregateStatistics} read from {@code battery_postcode_summary}:
+     * scans at most one row per distinct postcode instead of every battery.
+     */
+    @Query(value = """
+            SELECT CAST(COALESCE(SUM(s.total_count), 0) AS BIGINT) AS totalCount,
+                   CAST(COALESCE(SUM(s.total_capacity), 0) AS BIGINT) AS totalCapacity,
+                   MIN(s.min_capacity) AS minCapacity,
+                   MAX(s.max_capacity) AS maxCapacity,
+                   (SELECT h.max_capacity_name FROM battery_postcode_summary h
+                     WHERE h.postcode BETWEEN :postcodeFrom AND :postcodeTo
+                     ORDER BY h.max_capacity DESC, h.max_capacity_name COLLATE "C"
+                     LIMIT 1) AS highestCapacityBatteryName,
+                   (SELECT l.min_capacity_name FROM battery_postcode_summary l
+                     WHERE l.postcode BETWEEN :postcodeFrom AND :postcodeTo
+                     ORDER BY l.min_capacity, l.min_capacity_name COLLATE "C"
+                     LIMIT 1) AS lowestCapacityBatteryName
+            FROM battery_postcode_summary s
+            WHERE s.postcode BETWEEN :postcodeFrom AND :postcodeTo
+            """, nativeQuery = true)
+    BatteryStatProjection aggregatePostcodeSummary(@Param("postcodeFrom") int postcodeFrom,
+                                                   @Param("postcodeTo") int postcodeTo);
+
+    /**
+     * Returns only the names of the matching batteries, sorted by the database using binary ("C")
+     * collation so the order matches {@link org.opensource.energy.vpp_backend.util.CodePointUtil#CODE_POINT_ORDER}.
+     */
+    @Query(value = """
+            SELECT b.name FROM battery b
+            WHERE""" + FILTER_PREDICATE + """
+            ORDER BY b.name COLLATE "C"
+            """, nativeQuery = true)
+    List<String> findSortedNames(@Param("postcodeFrom") int postcodeFrom,
+                                 @Param("postcodeTo") int postcodeTo,
+                                 @Param("wattageFrom") Long wattageFrom,
+                                 @Param("wattageTo") Long wattageTo);
+
+    /**
+     * Keyset page of matching battery names strictly after {@code afterName}, in binary order.
+     * Seeks on {@code idx_battery_name_c}, so deep pages cost the same as the first one.
+     * Pass an empty string as {@code afterName} to read the first page.
+     */
+    @Query(value = """
+            SELECT b.name FROM battery b
+            WHERE""" + FILTER_PREDICATE + """
+              AND b.name COLLATE "C" > :afterName
+            ORDER BY b.name COLLATE "C"
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<String> findSortedNamesAfter(@Param("postcodeFrom") int postcodeFrom,
+                                      @Param("postcodeTo") int postcodeTo,
+                                      @Param("wattageFrom") Long wattageFrom,
+                                      @Param("wattageTo") Long wattageTo,
+                                      @Param("afterName") String afterName,
+                                      @Param("limit") int limit);
 }
@@ -0,0 +1,158 @@
+package org.opensource.energy.vpp_backend.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.opensource.energy.vpp_backend.entity.Battery;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Multi-row {@code INSERT ... ON CONFLICT (name)} writes of batteries, so that names which already exist no longer
+ * abort the whole batch with a unique-constraint violation.
+ *
+ * <p>Rows are sent as parallel arrays expanded with {@code unnest}, {@value #BATCH_SIZE} per statement. Callers
+ * should pass batteries sorted by name: conflicting rows are locked in input order, and a common order keeps
+ * concurrent upserts from deadlocking. Must run inside the caller's transaction.</p>
+ */
+@Repository
+@Slf4j
+public class BatteryUpsertRepository {
+
+    static final int BATCH_SIZE = 1000;
+
+    private static final String LOCK_BY_NAMES_SQL = """
+            SELECT b.id, b.name, b.postcode, b.watt_capacity
+            FROM battery b
+            WHERE b.name = ANY(?)
+            ORDER BY b.name COLLATE "C"
+            FOR UPDATE
+            """;
+
+    private static final String INSERT_SQL = """
+            INSERT INTO battery AS b (id, name, postcode, watt_capacity, created_at, modified_at)
+            SELECT r.id, r.name, r.postcode, r.watt_capacity, ?, ?
+            FROM unnest(?, ?, ?, ?) AS r(id, name, postcode, watt_capacity)
+            """;
+
+    private static final String INSERT_OR_SKIP_SQL = INSERT_SQL + """
+            ON CONFLICT (name) DO NOTHING
+            RETURNING b.id, b.name
+            """;
+
+    /** Rows whose postcode and capacity are unchanged are neither written nor returned. */
+    private static final String INSERT_OR_OVERWRITE_SQL = INSERT_SQL + """
+            ON CONFLICT (name) DO UPDATE SET
+                postcode = EXCLUDED.postcode,
+                watt_capacity = EXCLUDED.watt_capacity,
+                modified_at = EXCLUDED.modified_at
+            WHERE (b.postcode, b.watt_capacity) IS DISTINCT FROM (EXCLUDED.postcode, EXCLUDED.watt_capacity)
+            RETURNING b.id, b.name
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BatteryIdAllocator idAllocator;
+
+    public BatteryUpsertRepository(JdbcTemplate jdbcTemplate, BatteryIdAllocator idAllocator) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.idAllocator = idAllocator;
+    }
+
+    /**
+     * Reads the batteries with the given names and locks them until the end of the transaction, in name order.
+     *
+     * @return the current rows keyed by name; names that do not exist are absent
+     */
+    public Map<String, Battery> lockByNames(Collection<String> names) {
+        Map<String, Battery> existing = new HashMap<>();
+        if (names.isEmpty()) {
+            return existing;
+        }
+        jdbcTemplate.query(LOCK_BY_NAMES_SQL, (RowCallbackHandler) rs -> {
+            Battery battery = Battery.builder()
+                    .id(rs.getLong("id"))
+                    .name(rs.getString("name"))
+                    .postcode(rs.getInt("postcode"))
+                    .wattCapacity(rs.getLong("watt_capacity"))
+                    .build();
+            existing.put(battery.getName(), battery);
+        }, (Object) names.toArray(String[]::new));
+        return existing;
+    }
+
+    /**
+     * Inserts the batteries, leaving rows whose name already exists untouched. Batteries without an ID get a
+     * newly reserved one; all of them get the audit timestamps assigned in place.
+     *
+     * @return the IDs of the inserted rows keyed by name
+     */
+    public Map<String, Long> insertOrSkip(List<Battery> batteries) {
+        return write(INSERT_OR_SKIP_SQL, batteries);
+    }
+
+    /**
+     * Inserts the batteries and overwrites postcode and capacity of rows whose name already exists. Batteries
+     * without an ID get a newly reserved one; an ID set by the caller is only used if the row ends up inserted.
+     *
+     * @return the IDs of the inserted or changed rows keyed by name; names whose stored postcode and capacity
+     * already matched are absent
+     */
+    public Map<String, Long> insertOrOverwrite(List<Battery> batteries) {
+        return write(INSERT_OR_OVERWRITE_SQL, batteries);
+    }
+
+    private Map<String, Long> write(String sql, List<Battery> batteries) {
+        Map<String, Long> written = new LinkedHashMap<>();
+        if (batteries.isEmpty()) {
+            return written;
+        }
+        assignIds(batteries);
+        // JPA auditing stores Instants as UTC wall-clock time in these TIMESTAMP columns; do the same.
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        LocalDateTime timestamp = LocalDateTime.ofInstant(now, ZoneOffset.UTC);
+
+        long start = System.nanoTime();
+        for (int from = 0; from < batteries.size(); from += BATCH_SIZE) {
+            List<Battery> batch = batteries.subList(from, Math.min(from + BATCH_SIZE, batteries.size()));
+            batch.forEach(battery -> {
+                battery.setCreatedAt(now);
+                battery.setModifiedAt(now);
+            });
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(sql);
+                statement.setObject(1, timestamp);
+                statement.setObject(2, timestamp);
+                statement.setArray(3, connection.createArrayOf("bigint",
+                        batch.stream().map(Battery::getId).toArray(Long[]::new)));
+                statement.setArray(4, connection.createArrayOf("varchar",
+                        batch.stream().map(Battery::getName).toArray(String[]::new)));
+                statement.setArray(5, connection.createArrayOf("integer",
+                        batch.stream().map(Battery::getPostcode).toArray(Integer[]::new)));
+                statement.setArray(6, connection.createArrayOf("bigint",
+                        batch.stream().map(Battery::getWattCapacity).toArray(Long[]::new)));
+                return statement;
+            }, (RowCallbackHandler) rs -> written.put(rs.getString(2), rs.getLong(1)));
+        }
+        log.debug("Upserted {} battery record(s), {} written, in {} ms",
+                batteries.size(), written.size(), (System.nanoTime() - start) / 1_000_000);
+        return written;
+    }
+
+    private void assignIds(List<Battery> batteries) {
+        List<Battery> withoutId = batteries.stream().filter(battery -> battery.getId() == null).toList();
+        long[] ids = idAllocator.reserve(withoutId.size());
+        for (int i = 0; i < ids.length; i++) {
+            withoutId.get(i).setId(ids[i]);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package org.opensource.energy.vpp_backend.repository.projection;
+
+/**
+ * Read-only projection of the aggregate statistics computed by the database for a battery filter.
+ *
+ * <p>When several batteries share the highest (or lowest) capacity, the first name in binary ("C")
+ * order, which is code point order, is reported so the result is deterministic.</p>
+ */
+public interface BatteryStatProjection {
+    Long getTotalCount();
+
+    Long getTotalCapacity();
+
+    Long getMinCapacity();
+
+    Long getMaxCapacity();
+
+    String getHighestCapacityBatteryName();
+
+    String getLowestCapacityBatteryName();
+}
@@ -0,0 +1,14 @@
+package org.opensource.energy.vpp_backend.repository.projection;
+
+/**
+ * Capacity statistics of all batteries sharing one postcode, as stored in {@code battery_postcode_summary}. Ties on highest/lowest capacity resolve to the
+ * alphabetically first name, in binary order.
+ */
+public record PostcodeAggregate(int postcode,
+                                long totalCount,
+                                long totalCapacity,
+                                long maxCapacity,
+                                String highestCapacityBatteryName,
+                                long minCapacity,
+                                String lowestCapacityBatteryName) {
+}
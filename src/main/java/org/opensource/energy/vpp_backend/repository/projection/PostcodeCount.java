@@ -0,0 +1,7 @@
+package org.opensource.energy.vpp_backend.repository.projection;
+
+/**
+ * Number of batteries registered under one postcode, as stored in {@code battery_postcode_summary}.
+ */
+public record PostcodeCount(int postcode, long totalCount) {
+}
@@ -0,0 +1,109 @@
+package org.opensource.energy.vpp_backend.retry;
+
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Fails calls fast while a dependency is down instead of letting every caller wait for its own timeout.
+ *
+ * <p>{@link State#CLOSED}: calls pass; {@code failureThreshold} consecutive failures open the breaker.
+ * {@link State#OPEN}: calls are refused for {@code openNanos}. {@link State#HALF_OPEN}: a single probe call is let
+ * through while the others are still refused; its success closes the breaker, its failure opens it again.</p>
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final LongSupplier nanoClock;
+    private final Consumer<State> transitionListener;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probing;
+
+    /**
+     * @param nanoClock          time source in nanoseconds, normally {@link System#nanoTime}
+     * @param transitionListener told about every state change, while the breaker's lock is held
+     */
+    public CircuitBreaker(int failureThreshold, long openNanos, LongSupplier nanoClock, Consumer<State> transitionListener) {
+        if (failureThreshold < 1 || openNanos < 0) {
+            throw new IllegalArgumentException("Circuit breaker needs a positive failure threshold and a non-negative open time");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openNanos;
+        this.nanoClock = nanoClock;
+        this.transitionListener = transitionListener;
+    }
+
+    /**
+     * @return {@code true} if the call may proceed; it must then report back through {@link #onSuccess},
+     * {@link #onFailure} or {@link #release}
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (nanoClock.getAsLong() - openedAt < openNanos) {
+                return false;
+            }
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probing) {
+                return false;
+            }
+            probing = true;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        probing = false;
+        if (state != State.CLOSED) {
+            transition(State.CLOSED);
+        }
+    }
+
+    public synchronized void onFailure() {
+        probing = false;
+        if (state == State.HALF_OPEN || ++consecutiveFailures >= failureThreshold) {
+            open();
+        }
+    }
+
+    /**
+     * Ends a call that never reached the dependency, so it tells nothing about its health. A half-open probe slot is
+     * freed for the next call; the state is left as it is.
+     */
+    public synchronized void release() {
+        probing = false;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * @return how long calls will still be refused; {@code 0} unless open
+     */
+    public synchronized long remainingOpenNanos() {
+        return state == State.OPEN ? Math.max(0, openNanos - (nanoClock.getAsLong() - openedAt)) : 0;
+    }
+
+    private void open() {
+        consecutiveFailures = 0;
+        openedAt = nanoClock.getAsLong();
+        if (state != State.OPEN) {
+            transition(State.OPEN);
+        }
+    }
+
+    private void transition(State next) {
+        state = next;
+        transitionListener.accept(next);
+    }
+}
@@ -0,0 +1,51 @@
+package org.opensource.energy.vpp_backend.retry;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps retries at a fraction of recent calls, so that retries cannot multiply the load on a struggling database.
+ *
+ * <p>A token bucket shared by all callers: every call deposits {@code ratio} tokens, every retry spends one, and at
+ * most {@code maxTokens} are banked. Under sustained traffic retries therefore stay below {@code ratio} of calls;
+ * the banked tokens allow a short burst of retries after a quiet period. The bucket starts full.</p>
+ */
+public class RetryBudget {
+    /** Tokens are kept in thousandths so that fractional deposits need no floating point. */
+    private static final long SCALE = 1000;
+
+    private final long deposit;
+    private final long capacity;
+    private final AtomicLong balance;
+
+    public RetryBudget(double ratio, int maxTokens) {
+        if (ratio < 0 || maxTokens < 0) {
+            throw new IllegalArgumentException("Retry budget ratio and token cap must not be negative");
+        }
+        this.deposit = Math.round(ratio * SCALE);
+        this.capacity = maxTokens * SCALE;
+        this.balance = new AtomicLong(capacity);
+    }
+
+    /** Credits one call, first attempts and retries alike. */
+    public void recordCall() {
+        balance.accumulateAndGet(deposit, (current, amount) -> Math.min(capacity, current + amount));
+    }
+
+    /**
+     * @return {@code true} if a retry may be made; its token has been spent
+     */
+    public boolean tryAcquireRetry() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - SCALE));
+        return true;
+    }
+
+    public double availableTokens() {
+        return (double) balance.get() / SCALE;
+    }
+}
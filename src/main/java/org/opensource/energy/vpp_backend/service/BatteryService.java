@@ -1,10 +1,16 @@
 package org.opensource.energy.vpp_backend.service;
 
+import org.opensource.energy.vpp_backend.dto.request.BatteryStatFilterRequest;
+import org.opensource.energy.vpp_backend.dto.request.ConflictPolicy;
 import org.opensource.energy.vpp_backend.dto.request.CreateBatteryRequest;
+import org.opensource.energy.vpp_backend.dto.response.BatteryPartialSaveResult;
+import org.opensource.energy.vpp_backend.dto.response.BatteryUpsertResult;
 import org.opensource.energy.vpp_backend.dto.response.FilteredBatteryStat;
+import org.opensource.energy.vpp_backend.exception.BatteryNameConflictException;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface BatteryService {
     /**
@@ -12,12 +18,46 @@ public interface BatteryService {
      * <p>
      * The operation is transactional and will automatically retry up to 3 times
      * in case of transient database errors such as deadlocks, connection timeouts, or lock acquisition failures.
+     * With {@code vpp.name-filter.enabled}, repeated and already stored names are rejected before anything is written.
      *
      * @param batteries the collection of battery creation data to be saved
      * @return a list of generated battery IDs after successful persistence
+     * @throws IllegalArgumentException     with the name filter enabled, if a name occurs more than once
+     * @throws BatteryNameConflictException with the name filter enabled, if some names are already stored
      */
     List<Long> saveBatteries(Collection<CreateBatteryRequest> batteries);
 
+    /**
+     * Saves the batteries in one transaction, isolating the rows the database rejects instead of rolling back all
+     * of them.
+     * <p>
+     * The whole list is inserted behind a savepoint first. If that fails on a data error, the list is rolled back to
+     * the savepoint and split in halves that are retried the same way, so a single bad row costs {@code O(log n)}
+     * extra statements. Transient failures still abort the transaction and are retried like {@link #saveBatteries}.
+     *
+     * @param batteries the batteries to store
+     * @return the generated IDs in input order, {@code null} for rejected batteries, and one error per rejected
+     * battery with its 0-based index in {@code batteries}
+     */
+    BatteryPartialSaveResult saveBatteriesIsolatingFailures(List<CreateBatteryRequest> batteries);
+
+    /**
+     * Saves the batteries with multi-row {@code INSERT ... ON CONFLICT (name)} statements, resolving names that
+     * already exist according to {@code policy} instead of failing the whole batch on the unique constraint.
+     * <p>
+     * With {@link ConflictPolicy#OVERWRITE} the stored postcode and capacity are replaced, and the postcode summary
+     * and the in-memory read models are brought in line with the new values. Replaying a batch is therefore cheap:
+     * unchanged batteries are only reported as skipped. Runs in one transaction with the same retries as
+     * {@link #saveBatteries}.
+     *
+     * @param batteries the batteries to store; names must be unique within the collection
+     * @param policy    what to do with names that already exist
+     * @return the submitted names split into inserted, updated and skipped
+     * @throws IllegalArgumentException      if a name occurs more than once in {@code batteries}
+     * @throws BatteryNameConflictException if {@code policy} is {@link ConflictPolicy#FAIL} and a name exists
+     */
+    BatteryUpsertResult upsertBatteries(Collection<CreateBatteryRequest> batteries, ConflictPolicy policy);
+
     /**
      * Retrieves a statistical summary of batteries filtered by a given postcode range
      * and optional watt capacity range. The method returns:
@@ -30,6 +70,9 @@ public interface BatteryService {
      * <p><strong>Note:</strong> If {@code postcodeFrom} is provided, {@code postcodeTo} must also be provided, and vice versa.
      * The same rule applies for {@code wattageFrom} and {@code wattageTo} — ranges must be specified in pairs.</p>
      *
+     * <p>Aggregation and sorting are performed by the database; ties on the highest or lowest capacity
+     * resolve to the alphabetically first battery name.</p>
+     *
      * @param postcodeFrom the lower bound of the postcode range (inclusive), or null if unfiltered
      * @param postcodeTo   the upper bound of the postcode range (inclusive), or null if unfiltered
      * @param wattageFrom  (optional) the minimum watt capacity to include; may be null
@@ -39,4 +82,52 @@ public interface BatteryService {
      */
 
     FilteredBatteryStat getFilteredBatteryStat(Integer postcodeFrom, Integer postcodeTo, Long wattageFrom, Long wattageTo);
+
+    /**
+     * Retrieves one keyset page of battery names for the given filter, sorted alphabetically.
+     * <p>
+     * The aggregate totals (count, total/average capacity, highest/lowest capacity battery) are only
+     * computed and returned on the first page, i.e. when {@code afterCursor} is null; later pages carry
+     * the names and the next cursor only. Each page is a seek on the name index, so deep pages cost the
+     * same as the first one.
+     *
+     * @param postcodeFrom the lower bound of the postcode range (inclusive)
+     * @param postcodeTo   the upper bound of the postcode range (inclusive)
+     * @param wattageFrom  (optional) the minimum watt capacity to include; may be null
+     * @param wattageTo    (optional) the maximum watt capacity to include; may be null
+     * @param pageSize     the maximum number of names to return
+     * @param afterCursor  the opaque cursor returned by the previous page, or null for the first page
+     * @return a {@link FilteredBatteryStat} holding the page of names and, if another page exists, its cursor
+     * @throws IllegalArgumentException if a range is invalid or the cursor is malformed
+     */
+    FilteredBatteryStat getFilteredBatteryStatPage(Integer postcodeFrom, Integer postcodeTo, Long wattageFrom, Long wattageTo,
+                                                   int pageSize, String afterCursor);
+
+    /**
+     * Streams the names of all matching batteries, in alphabetical order, to {@code nameConsumer} while reading
+     * them through a forward-only database cursor, then returns the aggregate totals.
+     * <p>
+     * Heap usage is bounded by the cursor fetch size regardless of how many batteries match, which makes this
+     * the preferred variant for very wide ranges. The totals are accumulated from the same rows that were streamed.
+     *
+     * @param postcodeFrom the lower bound of the postcode range (inclusive)
+     * @param postcodeTo   the upper bound of the postcode range (inclusive)
+     * @param wattageFrom  (optional) the minimum watt capacity to include; may be null
+     * @param wattageTo    (optional) the maximum watt capacity to include; may be null
+     * @param nameConsumer receives each battery name as it is read
+     * @return a {@link FilteredBatteryStat} with the totals; {@code batteryNames} is left null
+     * @throws IllegalArgumentException if a range is invalid
+     */
+    FilteredBatteryStat streamFilteredBatteryStat(Integer postcodeFrom, Integer postcodeTo, Long wattageFrom, Long wattageTo,
+                                                  Consumer<String> nameConsumer);
+
+    /**
+     * Computes the statistics of several filters at once, evaluating all of them in a single database statement.
+     * Each result has the same shape and semantics as {@link #getFilteredBatteryStat}.
+     *
+     * @param filters the filters to evaluate; each must hold a valid postcode range and an optional wattage range
+     * @return one {@link FilteredBatteryStat} per filter, in the order of {@code filters}
+     * @throws IllegalArgumentException if any range is invalid; the message names the offending filter index
+     */
+    List<FilteredBatteryStat> getFilteredBatteryStats(List<BatteryStatFilterRequest> filters);
 }
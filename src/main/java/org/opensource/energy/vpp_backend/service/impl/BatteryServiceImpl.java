@@ -2,104 +2,504 @@ package org.opensource.energy.vpp_backend.service.impl;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.opensource.energy.vpp_backend.aggregate.BatteryStatAccumulator;
 import org.opensource.energy.vpp_backend.aspect.RetryOnDatabaseFailure;
+import org.opensource.energy.vpp_backend.cache.BatteryStatCache;
+import org.opensource.energy.vpp_backend.cache.BatteryStatSingleFlight;
+import org.opensource.energy.vpp_backend.dto.request.BatteryStatFilterRequest;
+import org.opensource.energy.vpp_backend.dto.request.ConflictPolicy;
 import org.opensource.energy.vpp_backend.dto.request.CreateBatteryRequest;
+import org.opensource.energy.vpp_backend.dto.response.BatteryPartialSaveResult;
+import org.opensource.energy.vpp_backend.dto.response.BatteryUpsertResult;
 import org.opensource.energy.vpp_backend.dto.response.FilteredBatteryStat;
+import org.opensource.energy.vpp_backend.dto.response.error.ItemErrorDetail;
 import org.opensource.energy.vpp_backend.entity.Battery;
+import org.opensource.energy.vpp_backend.event.BatteriesSavedEvent;
+import org.opensource.energy.vpp_backend.event.BatteriesUpdatedEvent;
+import org.opensource.energy.vpp_backend.exception.BatteryNameConflictException;
+import org.opensource.energy.vpp_backend.index.BatteryColumnarIndex;
+import org.opensource.energy.vpp_backend.index.BatteryNameFilter;
+import org.opensource.energy.vpp_backend.metrics.BatteryMetrics;
+import org.opensource.energy.vpp_backend.repository.BatteryCopyRepository;
+import org.opensource.energy.vpp_backend.repository.BatteryJdbcRepository;
+import org.opensource.energy.vpp_backend.repository.BatteryPostcodeSummaryRepository;
 import org.opensource.energy.vpp_backend.repository.BatteryRepository;
+import org.opensource.energy.vpp_backend.repository.BatteryUpsertRepository;
 import org.opensource.energy.vpp_backend.service.BatteryService;
-import org.opensource.energy.vpp_backend.specification.BatterySpecification;
-import org.springframework.data.jpa.domain.Specification;
+import org.opensource.energy.vpp_backend.service.reader.DatabaseBatteryStatReader;
+import org.opensource.energy.vpp_backend.service.reader.ParallelBatteryStatReader;
+import org.opensource.energy.vpp_backend.util.CodePointUtil;
+import org.opensource.energy.vpp_backend.util.CursorUtil;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static org.opensource.energy.vpp_backend.util.ValidationUtil.validateRange;
+import static org.opensource.energy.vpp_backend.util.ValidationUtil.validateRangePair;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class BatteryServiceImpl implements BatteryService {
     private final BatteryRepository batteryRepository;
+    private final BatteryJdbcRepository batteryJdbcRepository;
+    private final BatteryCopyRepository batteryCopyRepository;
+    private final BatteryUpsertRepository batteryUpsertRepository;
+    private final BatteryPostcodeSummaryRepository postcodeSummaryRepository;
+    private final DatabaseBatteryStatReader databaseStatReader;
+    private final ObjectProvider<BatteryColumnarIndex> columnarIndex;
+    private final ObjectProvider<ParallelBatteryStatReader> parallelStatReader;
+    private final ObjectProvider<BatteryStatCache> statCache;
+    private final ObjectProvider<BatteryStatSingleFlight> singleFlight;
+    private final ObjectProvider<BatteryNameFilter> nameFilter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BatteryMetrics batteryMetrics;
+
+    /** Batches at least this large are written with {@code COPY} instead of JPA; {@code 0} disables it. */
+    @Value("${vpp.bulk-copy.min-batch-size:1000}")
+    private int bulkCopyMinBatchSize;
 
     @Transactional
     @Override
     @RetryOnDatabaseFailure
     public List<Long> saveBatteries(Collection<CreateBatteryRequest> batteries) {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            List<Long> savedBatteryIds = insertBatteries(batteries);
+            failed = false;
+            return savedBatteryIds;
+        } finally {
+            batteryMetrics.recordSave(batteries.size(), start, failed);
+        }
+    }
+
+    private List<Long> insertBatteries(Collection<CreateBatteryRequest> batteries) {
         log.info("Saving {} battery record(s)...", batteries.size());
 
-        List<Battery> batteriesToSave = batteries.stream()
-                .map(req -> Battery.builder()
-                        .name(req.getName())
-                        .postcode(req.getPostcode())
-                        .wattCapacity(req.getCapacity())
-                        .build()
-                )
-                .collect(Collectors.toList());
+        List<Battery> batteriesToSave = toBatteries(batteries);
+        rejectRepeatedNames(batteriesToSave);
+        rejectKnownDuplicateNames(batteriesToSave);
 
         log.debug("Mapped request to battery entities to save: {}", batteriesToSave);
 
-        List<Long> savedBatteryIds = batteryRepository
-                .saveAll(batteriesToSave)
-                .stream()
+        List<Battery> savedBatteries;
+        if (bulkCopyMinBatchSize > 0 && batteriesToSave.size() >= bulkCopyMinBatchSize) {
+            batteryCopyRepository.insertAll(batteriesToSave);
+            savedBatteries = batteriesToSave;
+        } else {
+            savedBatteries = batteryRepository.saveAll(batteriesToSave);
+        }
+        postcodeSummaryRepository.addBatteries(savedBatteries);
+        List<Long> savedBatteryIds = savedBatteries.stream()
                 .map(Battery::getId)
                 .toList();
+        eventPublisher.publishEvent(new BatteriesSavedEvent(savedBatteries));
 
-        log.info("Successfully saved {} battery record(s). IDs: {}", savedBatteryIds.size(), savedBatteryIds);
+        log.info("Successfully saved {} battery record(s).", savedBatteryIds.size());
+        log.debug("Saved battery IDs: {}", savedBatteryIds);
 
         return savedBatteryIds;
     }
 
+    @Transactional
     @Override
-    public FilteredBatteryStat getFilteredBatteryStat(Integer postcodeFrom, Integer postcodeTo, Long wattageFrom, Long wattageTo) {
-        log.debug("Retrieving filtered battery stats for postcode range [{} - {}] and wattage range [{} - {}]",
-                postcodeFrom, postcodeTo, wattageFrom, wattageTo);
+    @RetryOnDatabaseFailure
+    public BatteryPartialSaveResult saveBatteriesIsolatingFailures(List<CreateBatteryRequest> batteries) {
+        log.info("Saving {} battery record(s), isolating rejected ones...", batteries.size());
 
-        validateRange("postcode", postcodeFrom.longValue(), postcodeTo.longValue());
-        if (wattageFrom != null) {
-            validateRange("wattage", wattageFrom, wattageTo);
+        // Always COPY: JPA's persistence context would keep entities that a savepoint rollback removed.
+        List<Battery> batteriesToSave = toBatteries(batteries);
+        Map<Integer, ItemErrorDetail> errors = new TreeMap<>();
+        int statements = insertBisecting(batteriesToSave, 0, errors);
+
+        List<Battery> savedBatteries = new ArrayList<>(batteriesToSave.size());
+        List<Long> ids = new ArrayList<>(batteriesToSave.size());
+        for (int i = 0; i < batteriesToSave.size(); i++) {
+            Battery battery = batteriesToSave.get(i);
+            if (errors.containsKey(i)) {
+                ids.add(null);
+            } else {
+                savedBatteries.add(battery);
+                ids.add(battery.getId());
+            }
         }
+        if (!savedBatteries.isEmpty()) {
+            postcodeSummaryRepository.addBatteries(savedBatteries);
+            eventPublisher.publishEvent(new BatteriesSavedEvent(savedBatteries));
+        }
+
+        log.info("Saved {} battery record(s) and rejected {} using {} insert statement(s).",
+                savedBatteries.size(), errors.size(), statements);
+
+        return BatteryPartialSaveResult.builder()
+                .savedCount(savedBatteries.size())
+                .rejectedCount(errors.size())
+                .ids(ids)
+                .errors(new ArrayList<>(errors.values()))
+                .build();
+    }
+
+    /**
+     * Inserts the batteries behind a savepoint; on a data error, rolls back to it and retries both halves.
+     *
+     * @param offset index of {@code batteries.get(0)} in the submitted list
+     * @return the number of insert statements issued
+     */
+    private int insertBisecting(List<Battery> batteries, int offset, Map<Integer, ItemErrorDetail> errors) {
+        try {
+            batteryCopyRepository.insertAllAtSavepoint(batteries);
+            return 1;
+        } catch (DataIntegrityViolationException ex) {
+            if (batteries.size() == 1) {
+                errors.put(offset, toItemError(offset, batteries.getFirst(), ex));
+                return 1;
+            }
+            int middle = batteries.size() / 2;
+            return 1 + insertBisecting(batteries.subList(0, middle), offset, errors)
+                    + insertBisecting(batteries.subList(middle, batteries.size()), offset + middle, errors);
+        }
+    }
+
+    private static ItemErrorDetail toItemError(int index, Battery battery, DataIntegrityViolationException ex) {
+        if (ex instanceof DuplicateKeyException) {
+            return ItemErrorDetail.builder()
+                    .index(index)
+                    .field("name")
+                    .message("Battery '" + battery.getName() + "' already exists")
+                    .build();
+        }
+        String cause = String.valueOf(ex.getMostSpecificCause().getMessage());
+        return ItemErrorDetail.builder()
+                .index(index)
+                .message(cause.lines().findFirst().orElse(cause))
+                .build();
+    }
+
+    @Transactional
+    @Override
+    @RetryOnDatabaseFailure
+    public BatteryUpsertResult upsertBatteries(Collection<CreateBatteryRequest> batteries, ConflictPolicy policy) {
+        log.info("Upserting {} battery record(s) with conflict policy {}...", batteries.size(), policy);
+
+        List<Battery> requested = toBatteries(batteries);
+        rejectRepeatedNames(requested);
 
-        Specification<Battery> spec = BatterySpecification
-                .byPostcodeAndWattageRange(postcodeFrom, postcodeTo, wattageFrom, wattageTo);
-        List<Battery> batteries = batteryRepository.findAll(spec);
-        log.info("Found {} battery record(s) matching the criteria.", batteries.size());
+        // Conflicting rows are locked in input order; name order keeps overlapping upserts from deadlocking.
+        List<Battery> sorted = requested.stream()
+                .sorted(Comparator.comparing(Battery::getName, CodePointUtil.CODE_POINT_ORDER))
+                .collect(Collectors.toList());
+        List<String> names = sorted.stream().map(Battery::getName).toList();
 
-        List<String> batteryNames = batteries.stream()
-                .map(Battery::getName)
-                .sorted()
+        List<Battery> inserted = new ArrayList<>();
+        List<BatteriesUpdatedEvent.Change> changes = new ArrayList<>();
+        if (policy == ConflictPolicy.OVERWRITE) {
+            overwrite(sorted, inserted, changes);
+        } else {
+            insertOrSkip(sorted, names, policy, inserted);
+        }
+
+        // A battery moving away from a postcode or changing capacity may take its minimum or maximum along, so those
+        // postcodes are recomputed; inserts into them are covered by the recomputation.
+        Set<Integer> refreshedPostcodes = new HashSet<>();
+        changes.forEach(change -> {
+            refreshedPostcodes.add(change.previous().getPostcode());
+            refreshedPostcodes.add(change.current().getPostcode());
+        });
+        postcodeSummaryRepository.refresh(refreshedPostcodes);
+        List<Battery> addedToSummary = inserted.stream()
+                .filter(battery -> !refreshedPostcodes.contains(battery.getPostcode()))
                 .toList();
+        if (!addedToSummary.isEmpty()) {
+            postcodeSummaryRepository.addBatteries(addedToSummary);
+        }
 
-        long totalCount = batteries.size();
-        long totalCapacity = batteries.stream().mapToLong(Battery::getWattCapacity).sum();
-        long averageCapacity = totalCount == 0 ? 0 : totalCapacity / totalCount;
-
-        String maxCapacityBattery = batteries.stream()
-                .max(Comparator.comparingLong(Battery::getWattCapacity))
-                .map(Battery::getName)
-                .orElse(null);
-
-        String minCapacityBattery = batteries.stream()
-                .min(Comparator.comparingLong(Battery::getWattCapacity))
-                .map(Battery::getName)
-                .orElse(null);
-
-        log.debug("Battery names (sorted): {}", batteryNames);
-        log.debug("Total capacity: {}, Average capacity: {}", totalCapacity, averageCapacity);
-        log.debug("Battery with highest capacity: {}", maxCapacityBattery);
-        log.debug("Battery with lowest capacity: {}", minCapacityBattery);
-
-        return FilteredBatteryStat.builder()
-                .batteryNames(batteryNames)
-                .totalCount(totalCount)
-                .totalCapacity(totalCapacity)
-                .averageCapacity(averageCapacity)
-                .highestCapacityBatteryName(maxCapacityBattery)
-                .lowestCapacityBatteryName(minCapacityBattery)
+        if (!inserted.isEmpty()) {
+            eventPublisher.publishEvent(new BatteriesSavedEvent(inserted));
+        }
+        if (!changes.isEmpty()) {
+            eventPublisher.publishEvent(new BatteriesUpdatedEvent(changes));
+        }
+
+        Set<String> insertedNames = inserted.stream().map(Battery::getName).collect(Collectors.toSet());
+        Set<String> updatedNames = changes.stream().map(change -> change.current().getName()).collect(Collectors.toSet());
+        BatteryUpsertResult result = BatteryUpsertResult.builder()
+                .inserted(requested.stream().map(Battery::getName).filter(insertedNames::contains).toList())
+                .updated(requested.stream().map(Battery::getName).filter(updatedNames::contains).toList())
+                .skipped(requested.stream().map(Battery::getName)
+                        .filter(name -> !insertedNames.contains(name) && !updatedNames.contains(name))
+                        .toList())
                 .build();
+
+        log.info("Upserted {} battery record(s): {} inserted, {} updated, {} skipped.", requested.size(),
+                result.getInserted().size(), result.getUpdated().size(), result.getSkipped().size());
+
+        return result;
+    }
+
+    private void insertOrSkip(List<Battery> sorted, List<String> names, ConflictPolicy policy, List<Battery> inserted) {
+        Set<String> existingNames = batteryJdbcRepository.findExistingNames(names);
+        if (policy == ConflictPolicy.FAIL && !existingNames.isEmpty()) {
+            throw new BatteryNameConflictException(names.stream().filter(existingNames::contains).toList());
+        }
+
+        // Only reserve IDs for names that are not stored yet; a concurrent insert of the same name is still skipped.
+        List<Battery> candidates = sorted.stream()
+                .filter(battery -> !existingNames.contains(battery.getName()))
+                .toList();
+        Map<String, Long> insertedIds = batteryUpsertRepository.insertOrSkip(candidates);
+        if (policy == ConflictPolicy.FAIL && insertedIds.size() < candidates.size()) {
+            throw new BatteryNameConflictException(candidates.stream()
+                    .map(Battery::getName)
+                    .filter(name -> !insertedIds.containsKey(name))
+                    .toList());
+        }
+        candidates.stream()
+                .filter(battery -> insertedIds.containsKey(battery.getName()))
+                .forEach(inserted::add);
+    }
+
+    private void overwrite(List<Battery> sorted, List<Battery> inserted, List<BatteriesUpdatedEvent.Change> changes) {
+        // Locking the stored rows first pins the previous values needed to maintain the summary and read models.
+        Map<String, Battery> previousByName = batteryUpsertRepository.lockByNames(
+                sorted.stream().map(Battery::getName).toList());
+        sorted.forEach(battery -> {
+            Battery previous = previousByName.get(battery.getName());
+            if (previous != null) {
+                battery.setId(previous.getId());
+            }
+        });
+
+        Map<String, Long> writtenIds = batteryUpsertRepository.insertOrOverwrite(sorted);
+        for (Battery battery : sorted) {
+            Long writtenId = writtenIds.get(battery.getName());
+            Battery previous = previousByName.get(battery.getName());
+            if (writtenId == null) {
+                continue;
+            }
+            if (previous != null) {
+                changes.add(new BatteriesUpdatedEvent.Change(previous, Battery.builder()
+                        .id(previous.getId())
+                        .name(previous.getName())
+                        .postcode(battery.getPostcode())
+                        .wattCapacity(battery.getWattCapacity())
+                        .modifiedAt(battery.getModifiedAt())
+                        .build()));
+            } else if (writtenId.equals(battery.getId())) {
+                inserted.add(battery);
+            } else {
+                // Inserted by another transaction after the lock was taken, so its previous values are unknown.
+                throw new ConcurrencyFailureException("Battery '" + battery.getName() + "' was inserted concurrently");
+            }
+        }
+    }
+
+    @Override
+    public FilteredBatteryStat getFilteredBatteryStat(Integer postcodeFrom, Integer postcodeTo, Long wattageFrom, Long wattageTo) {
+        if (log.isDebugEnabled()) {
+            log.debug("Retrieving filtered battery stats for postcode range [{} - {}] and wattage range [{} - {}]",
+                    postcodeFrom, postcodeTo, wattageFrom, wattageTo);
+        }
+
+        validateFilter(postcodeFrom, postcodeTo, wattageFrom, wattageTo);
+
+        long start = System.nanoTime();
+        FilteredBatteryStat stat = null;
+        try {
+            BatteryStatCache cache = statCache.getIfAvailable();
+            stat = cache != null
+                    ? cache.get(postcodeFrom, postcodeTo, wattageFrom, wattageTo,
+                            () -> readCoalescedFilteredBatteryStat(postcodeFrom, postcodeTo, wattageFrom, wattageTo))
+                    : readCoalescedFilteredBatteryStat(postcodeFrom, postcodeTo, wattageFrom, wattageTo);
+            return stat;
+        } finally {
+            batteryMetrics.recordStat(stat, start);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public FilteredBatteryStat getFilteredBatteryStatPage(Integer postcodeFrom, Integer postcodeTo, Long wattageFrom, Long wattageTo,
+                                                          int pageSize, String afterCursor) {
+        if (log.isDebugEnabled()) {
+            log.debug("Retrieving battery stats page of size {} after cursor {} for postcode range [{} - {}] and wattage range [{} - {}]",
+                    pageSize, afterCursor, postcodeFrom, postcodeTo, wattageFrom, wattageTo);
+        }
+
+        validateFilter(postcodeFrom, postcodeTo, wattageFrom, wattageTo);
+        boolean firstPage = afterCursor == null;
+        String afterName = firstPage ? "" : CursorUtil.decodeAfterName(afterCursor);
+
+        // Fetch one extra row to learn whether another page exists without a separate count query.
+        List<String> names = batteryRepository.findSortedNamesAfter(
+                postcodeFrom, postcodeTo, wattageFrom, wattageTo, afterName, pageSize + 1);
+        boolean hasMore = names.size() > pageSize;
+        List<String> pageNames = hasMore ? names.subList(0, pageSize) : names;
+
+        FilteredBatteryStat.FilteredBatteryStatBuilder builder = firstPage
+                ? databaseStatReader.readTotals(postcodeFrom, postcodeTo, wattageFrom, wattageTo)
+                : FilteredBatteryStat.builder();
+
+        log.debug("Returning {} battery name(s), more pages: {}", pageNames.size(), hasMore);
+
+        return builder
+                .batteryNames(pageNames)
+                .nextCursor(hasMore ? CursorUtil.encodeAfterName(pageNames.getLast()) : null)
+                .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public FilteredBatteryStat streamFilteredBatteryStat(Integer postcodeFrom, Integer postcodeTo, Long wattageFrom, Long wattageTo,
+                                                         Consumer<String> nameConsumer) {
+        if (log.isDebugEnabled()) {
+            log.debug("Streaming battery stats for postcode range [{} - {}] and wattage range [{} - {}]",
+                    postcodeFrom, postcodeTo, wattageFrom, wattageTo);
+        }
+
+        validateFilter(postcodeFrom, postcodeTo, wattageFrom, wattageTo);
+
+        BatteryStatAccumulator accumulator = new BatteryStatAccumulator();
+        batteryJdbcRepository.streamNamesAndCapacities(postcodeFrom, postcodeTo, wattageFrom, wattageTo,
+                (name, capacity) -> {
+                    accumulator.accept(name, capacity);
+                    nameConsumer.accept(name);
+                });
+        log.info("Streamed {} battery record(s) matching the criteria.", accumulator.getCount());
+
+        return accumulator.toStatBuilder().build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<FilteredBatteryStat> getFilteredBatteryStats(List<BatteryStatFilterRequest> filters) {
+        log.debug("Retrieving battery stats for {} filter(s)", filters.size());
+
+        int size = filters.size();
+        Integer[] postcodeFrom = new Integer[size];
+        Integer[] postcodeTo = new Integer[size];
+        Long[] wattageFrom = new Long[size];
+        Long[] wattageTo = new Long[size];
+        for (int i = 0; i < size; i++) {
+            BatteryStatFilterRequest filter = filters.get(i);
+            try {
+                validateRangePair("postcode", filter.getPostcodeFrom(), filter.getPostcodeTo());
+                validateRangePair("wattage", filter.getWattageFrom(), filter.getWattageTo());
+                validateFilter(filter.getPostcodeFrom(), filter.getPostcodeTo(), filter.getWattageFrom(), filter.getWattageTo());
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException("filters[" + i + "]: " + ex.getMessage(), ex);
+            }
+            postcodeFrom[i] = filter.getPostcodeFrom();
+            postcodeTo[i] = filter.getPostcodeTo();
+            wattageFrom[i] = filter.getWattageFrom();
+            wattageTo[i] = filter.getWattageTo();
+        }
+
+        List<BatteryStatAccumulator> accumulators = new ArrayList<>(size);
+        List<List<String>> names = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            accumulators.add(new BatteryStatAccumulator());
+            names.add(new ArrayList<>());
+        }
+        batteryJdbcRepository.streamNamesAndCapacitiesForFilters(postcodeFrom, postcodeTo, wattageFrom, wattageTo,
+                (filterIndex, name, capacity) -> {
+                    accumulators.get(filterIndex).accept(name, capacity);
+                    names.get(filterIndex).add(name);
+                });
+
+        List<FilteredBatteryStat> stats = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            stats.add(accumulators.get(i).toStatBuilder()
+                    .batteryNames(names.get(i))
+                    .build());
+        }
+        log.info("Computed battery stats for {} filter(s) in one query.", size);
+        return stats;
+    }
+
+    /**
+     * With the name filter loaded, fails on names already stored before a row is written, instead of on the unique
+     * index; both surface as the same 409. Only names the filter cannot rule out are looked up, in a single query.
+     */
+    private void rejectKnownDuplicateNames(List<Battery> batteries) {
+        BatteryNameFilter filter = nameFilter.getIfAvailable();
+        if (filter == null || !filter.isReady()) {
+            return;
+        }
+        List<String> names = batteries.stream().map(Battery::getName).toList();
+        Set<String> existingNames = filter.findExistingNames(names, batteryJdbcRepository::findExistingNames);
+        if (!existingNames.isEmpty()) {
+            throw new BatteryNameConflictException(existingNames.stream().sorted(CodePointUtil.CODE_POINT_ORDER).toList());
+        }
+    }
+
+    private static void rejectRepeatedNames(List<Battery> batteries) {
+        List<String> duplicateNames = batteries.stream()
+                .collect(Collectors.groupingBy(Battery::getName, LinkedHashMap::new, Collectors.counting()))
+                .entrySet().stream()
+                .filter(entry -> entry.getValue() > 1)
+                .map(Map.Entry::getKey)
+                .toList();
+        if (!duplicateNames.isEmpty()) {
+            throw new IllegalArgumentException("Battery names must be unique within a request: " + duplicateNames);
+        }
+    }
+
+    private static List<Battery> toBatteries(Collection<CreateBatteryRequest> batteries) {
+        return batteries.stream()
+                .map(req -> Battery.builder()
+                        .name(req.getName())
+                        .postcode(req.getPostcode())
+                        .wattCapacity(req.getCapacity())
+                        .build()
+                )
+                .collect(Collectors.toList());
+    }
+
+    private FilteredBatteryStat readCoalescedFilteredBatteryStat(Integer postcodeFrom, Integer postcodeTo,
+                                                                 Long wattageFrom, Long wattageTo) {
+        BatteryStatSingleFlight flights = singleFlight.getIfAvailable();
+        if (flights != null) {
+            return flights.get(postcodeFrom, postcodeTo, wattageFrom, wattageTo,
+                    () -> readFilteredBatteryStat(postcodeFrom, postcodeTo, wattageFrom, wattageTo));
+        }
+        return readFilteredBatteryStat(postcodeFrom, postcodeTo, wattageFrom, wattageTo);
+    }
+
+    private FilteredBatteryStat readFilteredBatteryStat(Integer postcodeFrom, Integer postcodeTo, Long wattageFrom, Long wattageTo) {
+        BatteryColumnarIndex index = columnarIndex.getIfAvailable();
+        if (index != null && index.isReady()) {
+            return index.read(postcodeFrom, postcodeTo, wattageFrom, wattageTo);
+        }
+        ParallelBatteryStatReader parallelReader = parallelStatReader.getIfAvailable();
+        if (parallelReader != null) {
+            return parallelReader.read(postcodeFrom, postcodeTo, wattageFrom, wattageTo);
+        }
+        return databaseStatReader.read(postcodeFrom, postcodeTo, wattageFrom, wattageTo);
+    }
+
+    private void validateFilter(Integer postcodeFrom, Integer postcodeTo, Long wattageFrom, Long wattageTo) {
+        validateRange("postcode", postcodeFrom.longValue(), postcodeTo.longValue());
+        if (wattageFrom != null) {
+            validateRange("wattage", wattageFrom, wattageTo);
+        }
     }
 }
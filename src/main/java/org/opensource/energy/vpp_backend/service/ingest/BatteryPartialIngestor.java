@@ -0,0 +1,113 @@
+package org.opensource.energy.vpp_backend.service.ingest;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.opensource.energy.vpp_backend.dto.request.CreateBatteryRequest;
+import org.opensource.energy.vpp_backend.dto.response.BatteryPartialSaveResult;
+import org.opensource.energy.vpp_backend.dto.response.error.ItemErrorDetail;
+import org.opensource.energy.vpp_backend.service.BatteryService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Saves whatever part of a battery list is valid and reports the rest per element instead of rejecting the list.
+ *
+ * <p>Elements failing bean validation are rejected up front. The remaining ones are saved in chunks of
+ * {@code vpp.partial-ingest.chunk-size}, each through {@link BatteryService#saveBatteriesIsolatingFailures} in its own
+ * transaction, so a retried or failed chunk never replays the ones committed before it.</p>
+ */
+@Component
+@Slf4j
+public class BatteryPartialIngestor {
+    private final BatteryService batteryService;
+    private final Validator validator;
+    private final int chunkSize;
+
+    public BatteryPartialIngestor(BatteryService batteryService,
+                                  Validator validator,
+                                  @Value("${vpp.partial-ingest.chunk-size:1000}") int chunkSize) {
+        this.batteryService = batteryService;
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @return the ID of every element in input order, {@code null} where rejected, and one error per rejected
+     * element ordered by index
+     */
+    public BatteryPartialSaveResult ingest(List<CreateBatteryRequest> batteries) {
+        long start = System.nanoTime();
+        Long[] ids = new Long[batteries.size()];
+        List<ItemErrorDetail> errors = new ArrayList<>();
+        List<CreateBatteryRequest> pending = new ArrayList<>(Math.min(chunkSize, batteries.size()));
+        List<Integer> pendingIndices = new ArrayList<>(pending.size());
+        int saved = 0;
+
+        for (int index = 0; index < batteries.size(); index++) {
+            ItemErrorDetail invalid = validate(index, batteries.get(index));
+            if (invalid != null) {
+                errors.add(invalid);
+                continue;
+            }
+            pending.add(batteries.get(index));
+            pendingIndices.add(index);
+            if (pending.size() == chunkSize) {
+                saved += saveChunk(pending, pendingIndices, ids, errors);
+            }
+        }
+        if (!pending.isEmpty()) {
+            saved += saveChunk(pending, pendingIndices, ids, errors);
+        }
+        errors.sort(Comparator.comparing(ItemErrorDetail::getIndex));
+
+        log.info("Saved {} of {} battery record(s), rejected {}, in {} ms",
+                saved, batteries.size(), errors.size(), (System.nanoTime() - start) / 1_000_000);
+        return BatteryPartialSaveResult.builder()
+                .savedCount(saved)
+                .rejectedCount(errors.size())
+                .ids(Arrays.asList(ids))
+                .errors(errors)
+                .build();
+    }
+
+    private ItemErrorDetail validate(int index, CreateBatteryRequest battery) {
+        if (battery == null) {
+            return ItemErrorDetail.builder().index(index).message("Battery must not be null").build();
+        }
+        // Report the same single violation for a given element every time.
+        return validator.validate(battery).stream()
+                .min(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+                .map(violation -> toItemError(index, violation))
+                .orElse(null);
+    }
+
+    private static ItemErrorDetail toItemError(int index, ConstraintViolation<CreateBatteryRequest> violation) {
+        return ItemErrorDetail.builder()
+                .index(index)
+                .field(violation.getPropertyPath().toString())
+                .message(violation.getMessage())
+                .build();
+    }
+
+    /** Saves and clears the pending chunk, translating its local result indices back to input indices. */
+    private int saveChunk(List<CreateBatteryRequest> pending, List<Integer> pendingIndices,
+                          Long[] ids, List<ItemErrorDetail> errors) {
+        BatteryPartialSaveResult result = batteryService.saveBatteriesIsolatingFailures(pending);
+        for (int i = 0; i < pendingIndices.size(); i++) {
+            ids[pendingIndices.get(i)] = result.getIds().get(i);
+        }
+        for (ItemErrorDetail error : result.getErrors()) {
+            error.setIndex(pendingIndices.get(error.getIndex()));
+            errors.add(error);
+        }
+        pending.clear();
+        pendingIndices.clear();
+        return result.getSavedCount();
+    }
+}
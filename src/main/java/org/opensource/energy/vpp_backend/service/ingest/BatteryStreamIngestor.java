@@ -0,0 +1,152 @@
+package org.opensource.energy.vpp_backend.service.ingest;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.opensource.energy.vpp_backend.dto.request.CreateBatteryRequest;
+import org.opensource.energy.vpp_backend.dto.response.BatteryIngestResult;
+import org.opensource.energy.vpp_backend.service.BatteryService;
+import org.opensource.energy.vpp_backend.util.IdRangeUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Saves batteries read from a request body one element at a time, so heap usage is bounded by the chunk size
+ * instead of the payload size.
+ *
+ * <p>The body is either a JSON array of batteries or NDJSON (one battery object per line). Each element is
+ * validated as soon as it is parsed; every {@code vpp.stream-ingest.chunk-size} valid elements are saved through
+ * {@link BatteryService#saveBatteries} in their own transaction. Chunks saved before an invalid element or a
+ * database error stay committed; the error message says how many.</p>
+ */
+@Component
+@Slf4j
+public class BatteryStreamIngestor {
+    private final BatteryService batteryService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int chunkSize;
+
+    public BatteryStreamIngestor(BatteryService batteryService,
+                                 ObjectMapper objectMapper,
+                                 Validator validator,
+                                 @Value("${vpp.stream-ingest.chunk-size:1000}") int chunkSize) {
+        this.batteryService = batteryService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @param body a JSON array or NDJSON stream of {@link CreateBatteryRequest}s; not closed
+     * @return the IDs generated for each chunk
+     * @throws IllegalArgumentException if the body is empty, malformed, or holds an invalid battery
+     */
+    public BatteryIngestResult ingest(InputStream body) throws IOException {
+        long start = System.nanoTime();
+        List<BatteryIngestResult.Chunk> chunks = new ArrayList<>();
+        List<CreateBatteryRequest> pending = new ArrayList<>(chunkSize);
+        long saved = 0;
+        int index = 0;
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            JsonToken token = parser.nextToken();
+            boolean array = token == JsonToken.START_ARRAY;
+            if (array) {
+                token = parser.nextToken();
+            }
+
+            while (token != null && token != JsonToken.END_ARRAY) {
+                pending.add(readElement(parser, index++, saved));
+                if (pending.size() == chunkSize) {
+                    chunks.add(saveChunk(pending, saved));
+                    saved += pending.size();
+                    pending.clear();
+                }
+                token = nextToken(parser, index, saved);
+            }
+            if (array && (token == null || nextToken(parser, index, saved) != null)) {
+                throw new IllegalArgumentException(failure("Malformed battery stream: expected a single JSON array", saved));
+            }
+        }
+
+        if (!pending.isEmpty()) {
+            chunks.add(saveChunk(pending, saved));
+            saved += pending.size();
+        }
+        if (saved == 0) {
+            throw new IllegalArgumentException("List cannot be empty");
+        }
+
+        log.info("Ingested {} battery record(s) in {} chunk(s) in {} ms",
+                saved, chunks.size(), (System.nanoTime() - start) / 1_000_000);
+        return BatteryIngestResult.builder()
+                .totalCount(saved)
+                .chunks(chunks)
+                .build();
+    }
+
+    private CreateBatteryRequest readElement(JsonParser parser, int index, long saved) throws IOException {
+        CreateBatteryRequest request;
+        try {
+            request = objectMapper.readValue(parser, CreateBatteryRequest.class);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException(failure("batteries[" + index + "]: " + ex.getOriginalMessage(), saved), ex);
+        }
+        if (request == null) {
+            throw new IllegalArgumentException(failure("batteries[" + index + "]: must not be null", saved));
+        }
+
+        Set<ConstraintViolation<CreateBatteryRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            // Report the same single violation for a given element every time.
+            ConstraintViolation<CreateBatteryRequest> violation = violations.stream()
+                    .min(Comparator.comparing(v -> v.getPropertyPath().toString()))
+                    .orElseThrow();
+            throw new IllegalArgumentException(failure("batteries[" + index + "]." + violation.getPropertyPath()
+                    + ": " + violation.getMessage(), saved));
+        }
+        return request;
+    }
+
+    private static JsonToken nextToken(JsonParser parser, int index, long saved) throws IOException {
+        try {
+            return parser.nextToken();
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException(failure("Malformed battery stream after batteries[" + (index - 1) + "]: "
+                    + ex.getOriginalMessage(), saved), ex);
+        }
+    }
+
+    private BatteryIngestResult.Chunk saveChunk(List<CreateBatteryRequest> batteries, long saved) {
+        List<Long> ids;
+        try {
+            ids = batteryService.saveBatteries(batteries);
+        } catch (RuntimeException ex) {
+            log.warn("Battery stream chunk failed after {} saved battery record(s)", saved);
+            throw ex;
+        }
+        return BatteryIngestResult.Chunk.builder()
+                .count(ids.size())
+                .idRanges(IdRangeUtil.toRanges(ids))
+                .build();
+    }
+
+    private static String failure(String message, long saved) {
+        return saved == 0
+                ? message
+                : message + " (" + saved + " battery record(s) saved before this point remain stored)";
+    }
+}
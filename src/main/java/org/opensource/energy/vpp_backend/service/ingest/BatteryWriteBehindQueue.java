@@ -0,0 +1,363 @@
+package org.opensource.energy.vpp_backend.service.ingest;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.opensource.energy.vpp_backend.dto.request.CreateBatteryRequest;
+import org.opensource.energy.vpp_backend.dto.response.BatteryIngestJob;
+import org.opensource.energy.vpp_backend.exception.IngestJobNotFoundException;
+import org.opensource.energy.vpp_backend.exception.WriteBehindQueueFullException;
+import org.opensource.energy.vpp_backend.service.BatteryService;
+import org.opensource.energy.vpp_backend.util.IdRangeUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-process write-behind queue for asynchronous {@code POST /batteries?async=true} submissions.
+ *
+ * <ul>
+ *     <li>A submission becomes a job split into segments of at most {@code vpp.write-behind.max-batch-size}
+ *     batteries. The queue is bounded by {@code vpp.write-behind.queue-capacity} batteries; a submission that does
+ *     not fit is rejected instead of blocking the request thread.</li>
+ *     <li>{@code vpp.write-behind.workers} writer threads drain the queue. Each takes a segment and keeps collecting
+ *     more for up to {@code vpp.write-behind.linger}, so many small submissions are saved as one large batch through
+ *     {@link BatteryService#saveBatteries}.</li>
+ *     <li>If a coalesced batch fails, its segments are retried one by one so a bad submission only fails its own
+ *     job. Segments of a failed job that have not started yet are skipped.</li>
+ *     <li>Anything else a batch throws, {@link Error}s included, fails the jobs of the segments it had not finished
+ *     and the worker carries on, so no job is left running and no queue capacity is held forever.</li>
+ * </ul>
+ *
+ * <p>Job status is kept in memory for {@code vpp.write-behind.job-retention}. Queued work is not durable: it is
+ * lost if the instance stops.</p>
+ */
+@Component
+@Slf4j
+public class BatteryWriteBehindQueue {
+    private final BatteryService batteryService;
+    private final int maxBatchSize;
+    private final long queueCapacity;
+    private final long lingerNanos;
+    private final BlockingQueue<Segment> queue = new LinkedBlockingQueue<>();
+    private final AtomicLong queuedBatteries = new AtomicLong();
+    private final Cache<UUID, Job> jobs;
+    private final ExecutorService workers;
+
+    private final Timer batchLatency;
+    private final Timer queueWait;
+    private final DistributionSummary batchSize;
+    private final Counter completedJobs;
+    private final Counter failedJobs;
+
+    public BatteryWriteBehindQueue(BatteryService batteryService,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${vpp.write-behind.workers:2}") int workerCount,
+                                   @Value("${vpp.write-behind.max-batch-size:5000}") int maxBatchSize,
+                                   @Value("${vpp.write-behind.queue-capacity:200000}") long queueCapacity,
+                                   @Value("${vpp.write-behind.linger:20ms}") Duration linger,
+                                   @Value("${vpp.write-behind.job-retention:1h}") Duration jobRetention) {
+        this.batteryService = batteryService;
+        this.maxBatchSize = maxBatchSize;
+        this.queueCapacity = queueCapacity;
+        this.lingerNanos = linger.toNanos();
+        this.jobs = Caffeine.newBuilder()
+                .expireAfterWrite(jobRetention)
+                .build();
+
+        Gauge.builder("vpp.write_behind.queue.depth", queuedBatteries, AtomicLong::get)
+                .description("Batteries accepted but not yet written")
+                .baseUnit("batteries")
+                .register(meterRegistry);
+        this.batchLatency = Timer.builder("vpp.write_behind.batch.latency")
+                .description("Time to write one coalesced batch")
+                .register(meterRegistry);
+        this.queueWait = Timer.builder("vpp.write_behind.queue.wait")
+                .description("Time a segment waited in the queue before its batch started")
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("vpp.write_behind.batch.size")
+                .description("Batteries per coalesced batch")
+                .baseUnit("batteries")
+                .register(meterRegistry);
+        this.completedJobs = Counter.builder("vpp.write_behind.jobs").tag("outcome", "completed").register(meterRegistry);
+        this.failedJobs = Counter.builder("vpp.write_behind.jobs").tag("outcome", "failed").register(meterRegistry);
+
+        this.workers = Executors.newFixedThreadPool(workerCount,
+                Thread.ofPlatform().name("write-behind-", 1).daemon(true).factory());
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(this::drain);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+        long dropped = queuedBatteries.get();
+        if (dropped > 0) {
+            log.warn("Stopping write-behind queue with {} battery record(s) not written", dropped);
+        }
+    }
+
+    /**
+     * Queues the batteries for writing and returns immediately.
+     *
+     * @return the status of the new job
+     * @throws IllegalArgumentException       if the submission is larger than the whole queue
+     * @throws WriteBehindQueueFullException if the queue has no room for the submission right now
+     */
+    public BatteryIngestJob submit(Collection<CreateBatteryRequest> batteries) {
+        List<CreateBatteryRequest> requests = List.copyOf(batteries);
+        int size = requests.size();
+        if (size > queueCapacity) {
+            throw new IllegalArgumentException("At most " + queueCapacity + " batteries can be submitted asynchronously at once");
+        }
+        reserve(size);
+
+        Job job = new Job(UUID.randomUUID(), requests);
+        jobs.put(job.id, job);
+        // Counted up front: a worker may finish the first segment before the last one is queued.
+        job.pendingSegments.set((size + maxBatchSize - 1) / maxBatchSize);
+        for (int from = 0; from < size; from += maxBatchSize) {
+            queue.add(new Segment(job, from, Math.min(size, from + maxBatchSize), System.nanoTime(),
+                    new AtomicBoolean()));
+        }
+        log.info("Queued job {} with {} battery record(s)", job.id, size);
+        return job.toStatus();
+    }
+
+    /**
+     * @throws IngestJobNotFoundException if the job is unknown or its status has expired
+     */
+    public BatteryIngestJob getJob(UUID jobId) {
+        Job job = jobs.getIfPresent(jobId);
+        if (job == null) {
+            throw new IngestJobNotFoundException(jobId);
+        }
+        return job.toStatus();
+    }
+
+    private void reserve(int size) {
+        long queued;
+        do {
+            queued = queuedBatteries.get();
+            if (queued + size > queueCapacity) {
+                throw new WriteBehindQueueFullException(size, queued, queueCapacity);
+            }
+        } while (!queuedBatteries.compareAndSet(queued, queued + size));
+    }
+
+    private void drain() {
+        Segment carry = null;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                List<Segment> batch = new ArrayList<>();
+                batch.add(carry != null ? carry : queue.take());
+                carry = null;
+                int size = batch.getFirst().size();
+                long deadline = System.nanoTime() + lingerNanos;
+
+                while (size < maxBatchSize) {
+                    Segment next = queue.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    if (size + next.size() > maxBatchSize) {
+                        carry = next;
+                        break;
+                    }
+                    batch.add(next);
+                    size += next.size();
+                }
+                try {
+                    write(batch);
+                } catch (Throwable ex) {
+                    log.error("Write-behind batch of {} job segment(s) failed unexpectedly", batch.size(), ex);
+                    batch.forEach(segment -> fail(segment, ex));
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write(List<Segment> batch) {
+        List<Segment> live = new ArrayList<>(batch.size());
+        long now = System.nanoTime();
+        for (Segment segment : batch) {
+            queueWait.record(now - segment.queuedAtNanos(), TimeUnit.NANOSECONDS);
+            if (segment.job().isFailed()) {
+                finish(segment);
+            } else {
+                segment.job().markRunning();
+                live.add(segment);
+            }
+        }
+        if (live.isEmpty()) {
+            return;
+        }
+
+        try {
+            save(live);
+        } catch (RuntimeException ex) {
+            if (live.size() == 1) {
+                fail(live.getFirst(), ex);
+                return;
+            }
+            log.warn("Coalesced batch of {} job segment(s) failed, writing them one by one", live.size());
+            for (Segment segment : live) {
+                try {
+                    save(List.of(segment));
+                } catch (RuntimeException segmentEx) {
+                    fail(segment, segmentEx);
+                }
+            }
+        }
+    }
+
+    private void save(List<Segment> segments) {
+        List<CreateBatteryRequest> requests = new ArrayList<>();
+        for (Segment segment : segments) {
+            requests.addAll(segment.requests());
+        }
+
+        long start = System.nanoTime();
+        List<Long> ids = batteryService.saveBatteries(requests);
+        batchLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        batchSize.record(requests.size());
+
+        int offset = 0;
+        for (Segment segment : segments) {
+            segment.job().recordSaved(segment.from(), ids.subList(offset, offset + segment.size()));
+            offset += segment.size();
+            finish(segment);
+        }
+    }
+
+    private void fail(Segment segment, Throwable ex) {
+        if (segment.finished().get()) {
+            return;
+        }
+        String message = NestedExceptionUtils.getMostSpecificCause(ex).getMessage();
+        log.warn("Job {} failed: {}", segment.job().id, message);
+        segment.job().fail(message);
+        finish(segment);
+    }
+
+    private void finish(Segment segment) {
+        if (!segment.finished().compareAndSet(false, true)) {
+            return;
+        }
+        queuedBatteries.addAndGet(-segment.size());
+        Job job = segment.job();
+        if (job.pendingSegments.decrementAndGet() == 0) {
+            job.complete();
+            (job.isFailed() ? failedJobs : completedJobs).increment();
+            log.info("Job {} finished: {} of {} battery record(s) saved", job.id, job.savedCount.get(), job.requests.size());
+        }
+    }
+
+    /**
+     * @param finished set once the segment has been counted off its job and the queue, which happens exactly once
+     */
+    private record Segment(Job job, int from, int to, long queuedAtNanos, AtomicBoolean finished) {
+        int size() {
+            return to - from;
+        }
+
+        List<CreateBatteryRequest> requests() {
+            return job.requests.subList(from, to);
+        }
+    }
+
+    private static final class Job {
+        private final UUID id;
+        private final List<CreateBatteryRequest> requests;
+        private final Instant submittedAt = Instant.now();
+        /** Saved ID per input position; {@code 0} until saved, the sequence never hands it out. */
+        private final AtomicLongArray ids;
+        private final AtomicInteger savedCount = new AtomicInteger();
+        private final AtomicInteger pendingSegments = new AtomicInteger();
+        private volatile BatteryIngestJob.Status status = BatteryIngestJob.Status.QUEUED;
+        private volatile String error;
+        private volatile Instant completedAt;
+
+        private Job(UUID id, List<CreateBatteryRequest> requests) {
+            this.id = id;
+            this.requests = requests;
+            this.ids = new AtomicLongArray(requests.size());
+        }
+
+        private synchronized void markRunning() {
+            if (status == BatteryIngestJob.Status.QUEUED) {
+                status = BatteryIngestJob.Status.RUNNING;
+            }
+        }
+
+        private void recordSaved(int from, List<Long> savedIds) {
+            for (int i = 0; i < savedIds.size(); i++) {
+                ids.set(from + i, savedIds.get(i));
+            }
+            savedCount.addAndGet(savedIds.size());
+        }
+
+        private synchronized void fail(String message) {
+            if (error == null) {
+                error = message;
+            }
+            status = BatteryIngestJob.Status.FAILED;
+        }
+
+        private boolean isFailed() {
+            return status == BatteryIngestJob.Status.FAILED;
+        }
+
+        private synchronized void complete() {
+            if (status != BatteryIngestJob.Status.FAILED) {
+                status = BatteryIngestJob.Status.COMPLETED;
+            }
+            completedAt = Instant.now();
+        }
+
+        private BatteryIngestJob toStatus() {
+            List<Long> saved = new ArrayList<>(savedCount.get());
+            for (int i = 0; i < ids.length(); i++) {
+                long id = ids.get(i);
+                if (id != 0) {
+                    saved.add(id);
+                }
+            }
+            return BatteryIngestJob.builder()
+                    .id(id)
+                    .status(status)
+                    .totalCount(requests.size())
+                    .savedCount(saved.size())
+                    .idRanges(IdRangeUtil.toRanges(saved))
+                    .error(error)
+                    .submittedAt(submittedAt)
+                    .completedAt(completedAt)
+                    .build();
+        }
+    }
+}
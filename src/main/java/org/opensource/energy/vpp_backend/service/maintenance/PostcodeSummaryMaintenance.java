@@ -0,0 +1,82 @@
+package org.opensource.energy.vpp_backend.service.maintenance;
+
+import lombok.extern.slf4j.Slf4j;
+import org.opensource.energy.vpp_backend.datasource.DataSourceRoutingContext;
+import org.opensource.energy.vpp_backend.repository.BatteryPostcodeSummaryRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Backfill and consistency check for {@code battery_postcode_summary}.
+ *
+ * <p>Either routine can be run once at startup with {@code vpp.postcode-summary.startup-action=check} or
+ * {@code backfill}; the default {@code none} does nothing.</p>
+ */
+@Component
+@Slf4j
+public class PostcodeSummaryMaintenance {
+    public enum StartupAction { NONE, CHECK, BACKFILL }
+
+    private final BatteryPostcodeSummaryRepository postcodeSummaryRepository;
+    private final TransactionTemplate writeTransaction;
+    private final TransactionTemplate snapshotTransaction;
+    private final StartupAction startupAction;
+
+    public PostcodeSummaryMaintenance(BatteryPostcodeSummaryRepository postcodeSummaryRepository,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${vpp.postcode-summary.startup-action:none}") StartupAction startupAction) {
+        this.postcodeSummaryRepository = postcodeSummaryRepository;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setReadOnly(true);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.startupAction = startupAction;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void runStartupAction() {
+        switch (startupAction) {
+            case CHECK -> check();
+            case BACKFILL -> backfill();
+            case NONE -> log.debug("No postcode summary maintenance requested at startup");
+        }
+    }
+
+    /**
+     * Rebuilds the summary from the {@code battery} table in one transaction; inserts wait until it completes.
+     *
+     * @return the number of summary rows written
+     */
+    public int backfill() {
+        long start = System.nanoTime();
+        Integer rows = writeTransaction.execute(status -> postcodeSummaryRepository.rebuild());
+        log.info("Backfilled {} postcode summary row(s) in {} ms", rows, (System.nanoTime() - start) / 1_000_000);
+        return rows == null ? 0 : rows;
+    }
+
+    /**
+     * Compares the summary with aggregates computed from the {@code battery} table within one snapshot.
+     *
+     * @return the postcodes whose summary row is wrong or missing; empty when consistent
+     */
+    public List<Integer> check() {
+        List<Integer> inconsistent;
+        try (DataSourceRoutingContext.Scope ignored = DataSourceRoutingContext.pinToPrimary()) {
+            inconsistent = snapshotTransaction.execute(status -> postcodeSummaryRepository.findInconsistentPostcodes());
+        }
+        if (inconsistent == null || inconsistent.isEmpty()) {
+            log.info("Postcode summary is consistent with the battery table");
+            return List.of();
+        }
+        log.warn("Postcode summary differs from the battery table for {} postcode(s): {}",
+                inconsistent.size(), inconsistent);
+        return inconsistent;
+    }
+}
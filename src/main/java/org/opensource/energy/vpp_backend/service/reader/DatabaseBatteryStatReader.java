@@ -0,0 +1,103 @@
+package org.opensource.energy.vpp_backend.service.reader;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.opensource.energy.vpp_backend.dto.response.FilteredBatteryStat;
+import org.opensource.energy.vpp_backend.index.BatteryAggregateIndex;
+import org.opensource.energy.vpp_backend.metrics.BatteryMetrics;
+import org.opensource.energy.vpp_backend.metrics.BatteryMetrics.Engine;
+import org.opensource.energy.vpp_backend.metrics.BatteryMetrics.Phase;
+import org.opensource.energy.vpp_backend.repository.BatteryRepository;
+import org.opensource.energy.vpp_backend.repository.projection.BatteryStatProjection;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Computes battery statistics in PostgreSQL: one aggregate query plus one projection-only query for the sorted names,
+ * timed as the {@code aggregate} and {@code query} phases. Postcode-only totals come from
+ * {@code battery_postcode_summary}, or from the optional {@link BatteryAggregateIndex} when they are read without
+ * the names.
+ *
+ * <p>Kept apart from {@link org.opensource.energy.vpp_backend.service.impl.BatteryServiceImpl} so that a database
+ * transaction is only opened when the statistics are actually read from the database.</p>
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DatabaseBatteryStatReader {
+    private final BatteryRepository batteryRepository;
+    private final ObjectProvider<BatteryAggregateIndex> aggregateIndex;
+    private final BatteryMetrics batteryMetrics;
+
+    /**
+     * Both queries run in one repeatable-read transaction so the totals and the names come from the same snapshot.
+     * The {@link BatteryAggregateIndex} is therefore not used here: it may already contain, or still miss, writes
+     * that this snapshot does not.
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public FilteredBatteryStat read(int postcodeFrom, int postcodeTo, Long wattageFrom, Long wattageTo) {
+        long start = System.nanoTime();
+        FilteredBatteryStat.FilteredBatteryStatBuilder totals =
+                readDatabaseTotals(postcodeFrom, postcodeTo, wattageFrom, wattageTo);
+        start = batteryMetrics.recordPhase(Engine.DATABASE, Phase.AGGREGATE, start);
+        List<String> batteryNames = batteryRepository
+                .findSortedNames(postcodeFrom, postcodeTo, wattageFrom, wattageTo);
+        batteryMetrics.recordPhase(Engine.DATABASE, Phase.QUERY, start);
+        log.info("Found {} battery record(s) matching the criteria.", batteryNames.size());
+
+        log.debug("Battery names (sorted): {}", batteryNames);
+
+        return totals
+                .batteryNames(batteryNames)
+                .build();
+    }
+
+    /**
+     * Computes count, capacity totals and highest/lowest capacity battery. Postcode-only ranges are served by the
+     * {@link BatteryAggregateIndex} when it is enabled and covers them, otherwise from the per-postcode summary
+     * table; ranges with a wattage filter need an aggregate query over the batteries. Callers reading the names
+     * separately must not expect both to come from the same snapshot.
+     *
+     * @return a builder pre-populated with the totals; battery names are left for the caller
+     */
+    @Transactional(readOnly = true)
+    public FilteredBatteryStat.FilteredBatteryStatBuilder readTotals(int postcodeFrom, int postcodeTo,
+                                                                     Long wattageFrom, Long wattageTo) {
+        BatteryAggregateIndex index = aggregateIndex.getIfAvailable();
+        if (wattageFrom == null && index != null && index.covers(postcodeFrom, postcodeTo)) {
+            log.debug("Reading totals for postcode range [{} - {}] from the aggregate index", postcodeFrom, postcodeTo);
+            return index.readTotals(postcodeFrom, postcodeTo);
+        }
+        return readDatabaseTotals(postcodeFrom, postcodeTo, wattageFrom, wattageTo);
+    }
+
+    private FilteredBatteryStat.FilteredBatteryStatBuilder readDatabaseTotals(int postcodeFrom, int postcodeTo,
+                                                                             Long wattageFrom, Long wattageTo) {
+        BatteryStatProjection stat = wattageFrom == null
+                ? batteryRepository.aggregatePostcodeSummary(postcodeFrom, postcodeTo)
+                : batteryRepository.aggregateStatistics(postcodeFrom, postcodeTo, wattageFrom, wattageTo);
+        log.debug("Total capacity: {}", stat.getTotalCapacity());
+        log.debug("Battery with highest capacity: {}", stat.getHighestCapacityBatteryName());
+        log.debug("Battery with lowest capacity: {}", stat.getLowestCapacityBatteryName());
+        return toStatBuilder(stat);
+    }
+
+    /**
+     * @return a builder pre-populated with the totals of {@code stat}; battery names are left for the caller
+     */
+    public static FilteredBatteryStat.FilteredBatteryStatBuilder toStatBuilder(BatteryStatProjection stat) {
+        long totalCount = stat.getTotalCount();
+        long totalCapacity = stat.getTotalCapacity();
+
+        return FilteredBatteryStat.builder()
+                .totalCount(totalCount)
+                .totalCapacity(totalCapacity)
+                .averageCapacity(totalCount == 0 ? 0 : totalCapacity / totalCount)
+                .highestCapacityBatteryName(stat.getHighestCapacityBatteryName())
+                .lowestCapacityBatteryName(stat.getLowestCapacityBatteryName());
+    }
+}
@@ -0,0 +1,215 @@
+package org.opensource.energy.vpp_backend.service.reader;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.opensource.energy.vpp_backend.aggregate.BatteryStatAccumulator;
+import org.opensource.energy.vpp_backend.datasource.DataSourceRoutingContext;
+import org.opensource.energy.vpp_backend.datasource.SqlStatementContext;
+import org.opensource.energy.vpp_backend.dto.response.FilteredBatteryStat;
+import org.opensource.energy.vpp_backend.metrics.BatteryMetrics;
+import org.opensource.energy.vpp_backend.metrics.BatteryMetrics.Engine;
+import org.opensource.energy.vpp_backend.metrics.BatteryMetrics.Phase;
+import org.opensource.energy.vpp_backend.repository.BatteryJdbcRepository;
+import org.opensource.energy.vpp_backend.repository.BatteryPostcodeSummaryRepository;
+import org.opensource.energy.vpp_backend.repository.projection.PostcodeCount;
+import org.opensource.energy.vpp_backend.util.SortedMergeUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Reads the statistics of wide postcode ranges by scanning several postcode partitions concurrently, each on its
+ * own connection, and merging the partial results.
+ *
+ * <ul>
+ *     <li>Partitions are cut from the per-postcode counts in {@code battery_postcode_summary} so that each holds
+ *     about the same number of batteries. They always cover the whole range, so a stale histogram only costs
+ *     balance, never correctness.</li>
+ *     <li>The coordinating transaction exports its snapshot and every partition imports it, so all partitions see
+ *     exactly the same data, like the single-connection path. Their statements count towards the SQL accounting
+ *     of the request that started the scan.</li>
+ *     <li>Each partition returns its names already sorted by the database; they are combined with a k-way merge.
+ *     The partition scans are timed as the {@code query} phase, the merge as {@code sort}.</li>
+ * </ul>
+ *
+ * <p>Ranges estimated below {@code vpp.parallel-scan.min-rows} batteries are delegated to
+ * {@link DatabaseBatteryStatReader}. At most {@code vpp.parallel-scan.parallelism} partitions run at a time across
+ * all requests; each running partition holds one extra pooled connection, so keep it well below the pool size.</p>
+ *
+ * <p>A scan's coordinating transaction keeps its connection while it waits for the partitions, which need
+ * connections from the same pool. If coordinators alone filled the pool, every partition would wait for a connection
+ * that never frees up. At most {@code vpp.parallel-scan.max-concurrent-scans} scans therefore run at a time, and
+ * further reads go to {@link DatabaseBatteryStatReader} on a single connection. Keep
+ * {@code max-concurrent-scans + parallelism} below the size of the pool the reads use.</p>
+ */
+@Component
+@ConditionalOnProperty(name = "vpp.parallel-scan.enabled", havingValue = "true")
+@Slf4j
+public class ParallelBatteryStatReader {
+    private final BatteryJdbcRepository batteryJdbcRepository;
+    private final BatteryPostcodeSummaryRepository postcodeSummaryRepository;
+    private final DatabaseBatteryStatReader databaseStatReader;
+    private final BatteryMetrics batteryMetrics;
+    private final TransactionTemplate snapshotTransaction;
+    private final int parallelism;
+    private final Semaphore scanSlots;
+    private final long minRows;
+    private final ExecutorService executor;
+
+    public ParallelBatteryStatReader(BatteryJdbcRepository batteryJdbcRepository,
+                                     BatteryPostcodeSummaryRepository postcodeSummaryRepository,
+                                     DatabaseBatteryStatReader databaseStatReader,
+                                     BatteryMetrics batteryMetrics,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${vpp.parallel-scan.parallelism:4}") int parallelism,
+                                     @Value("${vpp.parallel-scan.min-rows:100000}") long minRows,
+                                     @Value("${vpp.parallel-scan.max-concurrent-scans:2}") int maxConcurrentScans) {
+        this.batteryJdbcRepository = batteryJdbcRepository;
+        this.postcodeSummaryRepository = postcodeSummaryRepository;
+        this.databaseStatReader = databaseStatReader;
+        this.batteryMetrics = batteryMetrics;
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setReadOnly(true);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.parallelism = parallelism;
+        this.minRows = minRows;
+        this.scanSlots = new Semaphore(maxConcurrentScans);
+        this.executor = Executors.newFixedThreadPool(parallelism,
+                Thread.ofPlatform().name("parallel-scan-", 1).daemon(true).factory());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public FilteredBatteryStat read(int postcodeFrom, int postcodeTo, Long wattageFrom, Long wattageTo) {
+        // Taken before the coordinating transaction opens its connection, so a busy reader never holds one.
+        if (!scanSlots.tryAcquire()) {
+            log.debug("All parallel scan slots are busy, reading postcode range [{} - {}] on a single connection",
+                    postcodeFrom, postcodeTo);
+            return databaseStatReader.read(postcodeFrom, postcodeTo, wattageFrom, wattageTo);
+        }
+        try {
+            return snapshotTransaction.execute(status -> {
+                List<PostcodeCount> histogram = postcodeSummaryRepository.findCounts(postcodeFrom, postcodeTo);
+                long estimatedRows = histogram.stream().mapToLong(PostcodeCount::totalCount).sum();
+                List<PostcodeRange> partitions = partition(histogram, postcodeFrom, postcodeTo, parallelism);
+                if (estimatedRows < minRows || partitions.size() < 2) {
+                    return databaseStatReader.read(postcodeFrom, postcodeTo, wattageFrom, wattageTo);
+                }
+                return scan(partitions, wattageFrom, wattageTo);
+            });
+        } finally {
+            scanSlots.release();
+        }
+    }
+
+    /**
+     * Splits {@code [postcodeFrom, postcodeTo]} into at most {@code partitions} contiguous ranges holding about
+     * the same number of batteries. A single postcode is never split.
+     *
+     * @param histogram battery count per postcode within the range, ordered by postcode
+     */
+    public static List<PostcodeRange> partition(List<PostcodeCount> histogram, int postcodeFrom, int postcodeTo,
+                                                int partitions) {
+        long total = histogram.stream().mapToLong(PostcodeCount::totalCount).sum();
+        List<PostcodeRange> ranges = new ArrayList<>(partitions);
+        int start = postcodeFrom;
+        long seen = 0;
+        for (PostcodeCount entry : histogram) {
+            seen += entry.totalCount();
+            // Cut after this postcode once the running count reaches the next 1/partitions boundary.
+            if (ranges.size() < partitions - 1 && entry.postcode() < postcodeTo
+                    && seen * partitions >= total * (ranges.size() + 1)) {
+                ranges.add(new PostcodeRange(start, entry.postcode()));
+                start = entry.postcode() + 1;
+            }
+        }
+        ranges.add(new PostcodeRange(start, postcodeTo));
+        return ranges;
+    }
+
+    private FilteredBatteryStat scan(List<PostcodeRange> partitions, Long wattageFrom, Long wattageTo) {
+        long start = System.nanoTime();
+        String snapshotId = batteryJdbcRepository.exportSnapshot();
+        // The exported snapshot only exists on the server this transaction runs on.
+        boolean pinnedToPrimary = DataSourceRoutingContext.isPinnedToPrimary();
+        SqlStatementContext.Stats sqlStats = SqlStatementContext.current();
+
+        List<Future<PartialStat>> futures = new ArrayList<>(partitions.size());
+        for (PostcodeRange range : partitions) {
+            futures.add(executor.submit(() -> scanPartition(range, wattageFrom, wattageTo, snapshotId, pinnedToPrimary,
+                    sqlStats)));
+        }
+
+        try {
+            BatteryStatAccumulator accumulator = new BatteryStatAccumulator();
+            List<List<String>> sortedNames = new ArrayList<>(futures.size());
+            for (Future<PartialStat> future : futures) {
+                PartialStat partial = future.get();
+                accumulator.merge(partial.accumulator());
+                sortedNames.add(partial.names());
+            }
+            long merge = batteryMetrics.recordPhase(Engine.PARALLEL, Phase.QUERY, start);
+            List<String> batteryNames = SortedMergeUtil.mergeSorted(sortedNames);
+            batteryMetrics.recordPhase(Engine.PARALLEL, Phase.SORT, merge);
+            log.info("Found {} battery record(s) matching the criteria in {} partition(s) in {} ms.",
+                    batteryNames.size(), partitions.size(), (System.nanoTime() - start) / 1_000_000);
+
+            return accumulator.toStatBuilder()
+                    .batteryNames(batteryNames)
+                    .build();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while scanning battery partitions", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Battery partition scan failed", ex.getCause());
+        } finally {
+            // Partitions that have not started yet are dropped; running ones finish on their own.
+            futures.forEach(future -> future.cancel(false));
+        }
+    }
+
+    private PartialStat scanPartition(PostcodeRange range, Long wattageFrom, Long wattageTo,
+                                      String snapshotId, boolean pinnedToPrimary,
+                                      SqlStatementContext.Stats sqlStats) {
+        try (DataSourceRoutingContext.Scope ignored = pinnedToPrimary ? DataSourceRoutingContext.pinToPrimary() : null;
+             SqlStatementContext.Scope counted = SqlStatementContext.bind(sqlStats)) {
+            return snapshotTransaction.execute(status -> {
+                batteryJdbcRepository.importSnapshot(snapshotId);
+
+                BatteryStatAccumulator accumulator = new BatteryStatAccumulator();
+                List<String> names = new ArrayList<>();
+                batteryJdbcRepository.streamNamesAndCapacities(range.from(), range.to(), wattageFrom, wattageTo,
+                        (name, capacity) -> {
+                            accumulator.accept(name, capacity);
+                            names.add(name);
+                        });
+                log.debug("Scanned postcode partition [{} - {}]: {} battery record(s)",
+                        range.from(), range.to(), names.size());
+                return new PartialStat(accumulator, names);
+            });
+        }
+    }
+
+    public record PostcodeRange(int from, int to) {
+    }
+
+    private record PartialStat(BatteryStatAccumulator accumulator, List<String> names) {
+    }
+}
@@ -18,8 +18,10 @@ public class BatterySpecification {
             Long wattageFrom,
             Long wattageTo
     ) {
-        log.debug("Creating specification with postcodeFrom={}, postcodeTo={}, wattageFrom={}, wattageTo={}",
-                postcodeFrom, postcodeTo, wattageFrom, wattageTo);
+        if (log.isDebugEnabled()) {
+            log.debug("Creating specification with postcodeFrom={}, postcodeTo={}, wattageFrom={}, wattageTo={}",
+                    postcodeFrom, postcodeTo, wattageFrom, wattageTo);
+        }
         return (root, query, cb) -> {
 
             List<Predicate> predicates = new ArrayList<>();
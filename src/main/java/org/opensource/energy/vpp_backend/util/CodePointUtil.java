@@ -0,0 +1,44 @@
+package org.opensource.energy.vpp_backend.util;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.Comparator;
+
+@UtilityClass
+public class CodePointUtil {
+
+    /**
+     * Orders strings by Unicode code point, the order of PostgreSQL's binary ({@code COLLATE "C"}) collation on
+     * UTF-8 text. {@link String#compareTo} compares UTF-16 units instead, which sorts characters outside the Basic
+     * Multilingual Plane (emoji, for example) before {@code U+E000}–{@code U+FFFF} rather than after them.
+     */
+    public static final Comparator<String> CODE_POINT_ORDER = CodePointUtil::compare;
+
+    /**
+     * Compares two strings by code point, see {@link #CODE_POINT_ORDER}.
+     *
+     * @return a negative number, zero or a positive number as {@code a} sorts before, equal to or after {@code b}
+     */
+    public static int compare(String a, String b) {
+        int length = Math.min(a.length(), b.length());
+        for (int i = 0; i < length; i++) {
+            char x = a.charAt(i);
+            char y = b.charAt(i);
+            if (x != y) {
+                return codePointRank(x) - codePointRank(y);
+            }
+        }
+        return a.length() - b.length();
+    }
+
+    /**
+     * Moves surrogates above the rest of the BMP, so that comparing the first differing UTF-16 units of two strings
+     * gives the order of the code points they start.
+     */
+    private static int codePointRank(char unit) {
+        if (unit < Character.MIN_SURROGATE) {
+            return unit;
+        }
+        return Character.isSurrogate(unit) ? unit + 0x2000 : unit - 0x800;
+    }
+}
@@ -0,0 +1,46 @@
+package org.opensource.energy.vpp_backend.util;
+
+import lombok.experimental.UtilityClass;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+@UtilityClass
+@Slf4j
+public class CursorUtil {
+    private static final String NAME_CURSOR_PREFIX = "n:";
+
+    /**
+     * Encodes the last battery name of a page into an opaque, URL-safe cursor.
+     *
+     * @param name the last battery name returned on the current page
+     * @return the cursor to pass as {@code after} to fetch the next page
+     */
+    public static String encodeAfterName(String name) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((NAME_CURSOR_PREFIX + name).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor previously produced by {@link #encodeAfterName(String)}.
+     *
+     * @param cursor the opaque cursor received from the client
+     * @return the battery name the next page starts after
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static String decodeAfterName(String cursor) {
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException ex) {
+            log.warn("Rejected malformed cursor: {}", cursor);
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        if (!decoded.startsWith(NAME_CURSOR_PREFIX)) {
+            log.warn("Rejected cursor with unknown format: {}", cursor);
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return decoded.substring(NAME_CURSOR_PREFIX.length());
+    }
+}
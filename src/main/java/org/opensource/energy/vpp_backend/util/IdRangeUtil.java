@@ -0,0 +1,33 @@
+package org.opensource.energy.vpp_backend.util;
+
+import lombok.experimental.UtilityClass;
+import org.opensource.energy.vpp_backend.dto.response.BatteryIngestResult.IdRange;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@UtilityClass
+public class IdRangeUtil {
+
+    /**
+     * Collapses IDs into inclusive ranges of consecutive values, keeping their order. IDs handed out by the
+     * sequence in blocks compress to a handful of ranges per thousand batteries.
+     *
+     * @param ids the IDs in input order
+     * @return one range per run of consecutive IDs
+     */
+    public static List<IdRange> toRanges(List<Long> ids) {
+        List<IdRange> ranges = new ArrayList<>();
+        int i = 0;
+        while (i < ids.size()) {
+            long from = ids.get(i);
+            long to = from;
+            while (i + 1 < ids.size() && ids.get(i + 1) == to + 1) {
+                to = ids.get(++i);
+            }
+            ranges.add(IdRange.builder().from(from).to(to).build());
+            i++;
+        }
+        return ranges;
+    }
+}
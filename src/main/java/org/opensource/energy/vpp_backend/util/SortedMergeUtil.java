@@ -0,0 +1,61 @@
+package org.opensource.energy.vpp_backend.util;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+@UtilityClass
+public class SortedMergeUtil {
+
+    /**
+     * Merges lists that are each sorted in code point ({@link CodePointUtil#CODE_POINT_ORDER}) order into one sorted list in
+     * {@code O(n log k)} time for {@code n} elements in {@code k} lists, without re-sorting.
+     *
+     * @param sortedLists the lists to merge; each must already be sorted
+     * @return a new sorted list holding every element of the input lists
+     */
+    public static List<String> mergeSorted(List<List<String>> sortedLists) {
+        int total = 0;
+        PriorityQueue<Cursor> heads = new PriorityQueue<>(Math.max(1, sortedLists.size()));
+        for (List<String> list : sortedLists) {
+            total += list.size();
+            if (!list.isEmpty()) {
+                heads.add(new Cursor(list));
+            }
+        }
+
+        List<String> merged = new ArrayList<>(total);
+        while (!heads.isEmpty()) {
+            Cursor cursor = heads.poll();
+            merged.add(cursor.current());
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+        return merged;
+    }
+
+    private static final class Cursor implements Comparable<Cursor> {
+        private final List<String> list;
+        private int position;
+
+        private Cursor(List<String> list) {
+            this.list = list;
+        }
+
+        private String current() {
+            return list.get(position);
+        }
+
+        private boolean advance() {
+            return ++position < list.size();
+        }
+
+        @Override
+        public int compareTo(Cursor other) {
+            return CodePointUtil.compare(current(), other.current());
+        }
+    }
+}
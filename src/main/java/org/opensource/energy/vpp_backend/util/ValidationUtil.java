@@ -20,7 +20,9 @@ public class ValidationUtil {
      * @throws IllegalArgumentException if only one of {@code from} or {@code to} is provided (i.e., non-null)
      */
     public static void validateRangePair(String fieldName, Object from, Object to) {
-        log.debug("Validating range pair for {}: from={}, to={}", fieldName, from, to);
+        if (log.isDebugEnabled()) {
+            log.debug("Validating range pair for {}: from={}, to={}", fieldName, from, to);
+        }
         if ((from == null) ^ (to == null)) {
             log.error("Validation failed: Only one side of {} range is provided (from={}, to={})", fieldName, from, to);
             throw new IllegalArgumentException("Both " + fieldName + "From and " + fieldName + "To must be provided together.");
@@ -39,7 +41,9 @@ public class ValidationUtil {
      * @throws IllegalArgumentException if {@code from} or {@code to} is negative, or if {@code from} is greater than {@code to}
      */
     public static void validateRange(String rangeType, Long from, Long to) {
-        log.debug("Validating {} range: from={}, to={}", rangeType, from, to);
+        if (log.isDebugEnabled()) {
+            log.debug("Validating {} range: from={}, to={}", rangeType, from, to);
+        }
         if (from < 0 || to < 0 || from > to) {
             log.error("Validation failed for {}: from={}, to={}", rangeType, from, to);
             throw new IllegalArgumentException("Invalid " + rangeType + " range");
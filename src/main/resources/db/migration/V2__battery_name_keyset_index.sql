@@ -0,0 +1,2 @@
+-- Binary-collated name index used for keyset pagination and name ordering of battery statistics.
+CREATE INDEX IF NOT EXISTS idx_battery_name_c ON battery (name COLLATE "C");
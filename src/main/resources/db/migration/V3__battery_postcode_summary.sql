@@ -0,0 +1,29 @@
+-- One row per postcode with the aggregates of its batteries; maintained by the application in the same
+-- transaction as every battery insert. Ties on min/max capacity keep the alphabetically first name (binary order).
+CREATE TABLE IF NOT EXISTS battery_postcode_summary (
+    postcode          INTEGER PRIMARY KEY,
+    total_count       BIGINT       NOT NULL,
+    total_capacity    BIGINT       NOT NULL,
+    min_capacity      BIGINT       NOT NULL,
+    min_capacity_name VARCHAR(512) NOT NULL,
+    max_capacity      BIGINT       NOT NULL,
+    max_capacity_name VARCHAR(512) NOT NULL
+    );
+
+-- Backfill from the existing batteries.
+INSERT INTO battery_postcode_summary (postcode, total_count, total_capacity,
+                                      min_capacity, min_capacity_name, max_capacity, max_capacity_name)
+SELECT s.postcode, s.total_count, s.total_capacity,
+       s.min_capacity,
+       (SELECT b.name FROM battery b
+         WHERE b.postcode = s.postcode AND b.watt_capacity = s.min_capacity
+         ORDER BY b.name COLLATE "C" LIMIT 1),
+       s.max_capacity,
+       (SELECT b.name FROM battery b
+         WHERE b.postcode = s.postcode AND b.watt_capacity = s.max_capacity
+         ORDER BY b.name COLLATE "C" LIMIT 1)
+FROM (SELECT postcode, COUNT(*) AS total_count, SUM(watt_capacity) AS total_capacity,
+             MIN(watt_capacity) AS min_capacity, MAX(watt_capacity) AS max_capacity
+      FROM battery
+      GROUP BY postcode) s
+ON CONFLICT (postcode) DO NOTHING;
@@ -0,0 +1,129 @@
+package org.opensource.energy.vpp_backend.integration.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.*;
+import org.opensource.energy.vpp_backend.constant.FixedDBConstant;
+import org.opensource.energy.vpp_backend.dto.response.FilteredBatteryStat;
+import org.opensource.energy.vpp_backend.service.BatteryService;
+import org.opensource.energy.vpp_backend.service.maintenance.PostcodeSummaryMaintenance;
+import org.opensource.energy.vpp_backend.service.reader.DatabaseBatteryStatReader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mockingDetails;
+import static org.opensource.energy.vpp_backend.constant.FixedDBConstant.DB_VERSION;
+
+/**
+ * Load test: a burst of identical dashboard queries should reach the database only a handful of times.
+ */
+@SpringBootTest(properties = "vpp.single-flight.enabled=true")
+@Testcontainers
+@ActiveProfiles("test")
+@Tag("integration")
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+@Slf4j
+class BatteryStatSingleFlightTest {
+
+    private static final int CALLERS = 32;
+    private static final int REQUESTS = 640;
+
+    @Autowired
+    private BatteryService batteryService;
+
+    @MockitoSpyBean
+    private DatabaseBatteryStatReader databaseReader;
+
+    @Autowired
+    private PostcodeSummaryMaintenance postcodeSummaryMaintenance;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(DB_VERSION)
+            .withDatabaseName(FixedDBConstant.DB_NAME)
+            .withUsername(FixedDBConstant.DB_USER)
+            .withPassword(FixedDBConstant.DB_PASS);
+
+    @DynamicPropertySource
+    static void overrideProps(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @BeforeEach
+    void seedDatabase() {
+        jdbcTemplate.execute("DELETE FROM battery");
+        jdbcTemplate.update("""
+                INSERT INTO battery (id, name, postcode, watt_capacity, created_at, modified_at)
+                SELECT i, 'Battery-' || i, 1000 + i % 500, i % 997, now(), now()
+                FROM generate_series(1, 100000) AS i
+                """);
+        postcodeSummaryMaintenance.backfill();
+    }
+
+    @Test
+    void given_burst_of_identical_queries_when_served_concurrently_then_database_is_queried_a_fraction_of_the_time()
+            throws Exception {
+        FilteredBatteryStat expected = databaseReader.read(1000, 1499, 100L, 900L);
+        int readsBefore = databaseReads();
+        double collapsedBefore = meterRegistry.get("vpp.single_flight.collapsed").counter().count();
+
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<FilteredBatteryStat>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < REQUESTS; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return batteryService.getFilteredBatteryStat(1000, 1499, 100L, 900L);
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<FilteredBatteryStat> result : results) {
+                assertThat(result.get(60, TimeUnit.SECONDS)).isEqualTo(expected);
+            }
+            double seconds = (System.nanoTime() - begin) / 1e9;
+
+            int reads = databaseReads() - readsBefore;
+            double collapsed = meterRegistry.get("vpp.single_flight.collapsed").counter().count() - collapsedBefore;
+            log.info("{} identical requests from {} callers in {} s: {} database reads ({} req/s, {} queries/s), {} collapsed",
+                    REQUESTS, CALLERS, String.format("%.2f", seconds), reads, Math.round(REQUESTS / seconds),
+                    Math.round(reads / seconds), (long) collapsed);
+
+            assertThat(reads).isLessThan(REQUESTS / 4);
+            assertThat(reads + collapsed).isEqualTo(REQUESTS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private int databaseReads() {
+        return (int) mockingDetails(databaseReader).getInvocations().stream()
+                .filter(invocation -> invocation.getMethod().getName().equals("read"))
+                .count();
+    }
+}
@@ -6,27 +6,58 @@ import org.junit.jupiter.api.DisplayNameGenerator;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.opensource.energy.vpp_backend.controller.BatteryController;
+import org.opensource.energy.vpp_backend.dto.request.BatteryStatFilterRequest;
+import org.opensource.energy.vpp_backend.dto.request.ConflictPolicy;
 import org.opensource.energy.vpp_backend.dto.request.CreateBatteryRequest;
+import org.opensource.energy.vpp_backend.dto.response.BatteryIngestJob;
+import org.opensource.energy.vpp_backend.dto.response.BatteryPartialSaveResult;
+import org.opensource.energy.vpp_backend.dto.response.BatteryUpsertResult;
 import org.opensource.energy.vpp_backend.dto.response.FilteredBatteryStat;
+import org.opensource.energy.vpp_backend.dto.response.error.ItemErrorDetail;
+import org.opensource.energy.vpp_backend.exception.BatteryNameConflictException;
+import org.opensource.energy.vpp_backend.exception.IngestJobNotFoundException;
+import org.opensource.energy.vpp_backend.exception.WriteBehindQueueFullException;
 import org.opensource.energy.vpp_backend.service.BatteryService;
+import org.opensource.energy.vpp_backend.service.ingest.BatteryPartialIngestor;
+import org.opensource.energy.vpp_backend.service.ingest.BatteryStreamIngestor;
+import org.opensource.energy.vpp_backend.service.ingest.BatteryWriteBehindQueue;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.AuditorAware;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.Arrays;
 import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
 
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@WebMvcTest(value = BatteryController.class)
+@WebMvcTest(value = BatteryController.class,
+        properties = {"vpp.stream-ingest.chunk-size=2", "vpp.partial-ingest.chunk-size=2",
+                "vpp.concurrency-limit.enabled=false"})
+@Import({BatteryStreamIngestor.class, BatteryPartialIngestor.class})
 @ActiveProfiles("test")
 @Tag("integration")
 @DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
@@ -41,6 +72,9 @@ class BatteryControllerTest {
     @MockitoBean
     private BatteryService batteryService;
 
+    @MockitoBean
+    private BatteryWriteBehindQueue batteryWriteBehindQueue;
+
     @MockitoBean
     private AuditorAware<String> auditorAware;
 
@@ -190,4 +224,355 @@ class BatteryControllerTest {
                         .content(objectMapper.writeValueAsString(requests)))
                 .andExpect(status().isBadRequest());
     }
+
+    @Test
+    void given_page_size_when_requesting_battery_stats_then_first_page_with_cursor_is_returned() throws Exception {
+        when(batteryService.getFilteredBatteryStatPage(1000, 2000, null, null, 2, null))
+                .thenReturn(FilteredBatteryStat.builder()
+                        .batteryNames(List.of("Battery1", "Battery2"))
+                        .totalCount(3L)
+                        .totalCapacity(600L)
+                        .averageCapacity(200L)
+                        .nextCursor("next")
+                        .build());
+
+        mockMvc.perform(get("/batteries")
+                        .param("postcodeFrom", "1000")
+                        .param("postcodeTo", "2000")
+                        .param("pageSize", "2")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.batteryNames.length()").value(2))
+                .andExpect(jsonPath("$.totalCount").value(3))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+    }
+
+    @Test
+    void given_no_page_size_when_requesting_battery_stats_then_next_cursor_is_omitted() throws Exception {
+        when(batteryService.getFilteredBatteryStat(1000, 2000, null, null))
+                .thenReturn(FilteredBatteryStat.builder().batteryNames(List.of()).totalCount(0L).build());
+
+        mockMvc.perform(get("/batteries")
+                        .param("postcodeFrom", "1000")
+                        .param("postcodeTo", "2000")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void given_cursor_without_page_size_when_requesting_battery_stats_then_status_400_is_returned() throws Exception {
+        mockMvc.perform(get("/batteries")
+                        .param("postcodeFrom", "1000")
+                        .param("postcodeTo", "2000")
+                        .param("after", "abc")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void given_zero_page_size_when_requesting_battery_stats_then_status_400_is_returned() throws Exception {
+        mockMvc.perform(get("/batteries")
+                        .param("postcodeFrom", "1000")
+                        .param("postcodeTo", "2000")
+                        .param("pageSize", "0")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0].field").value("pageSize"));
+    }
+
+    @Test
+    void given_ndjson_accept_header_when_requesting_battery_stats_then_names_and_trailer_are_streamed() throws Exception {
+        when(batteryService.streamFilteredBatteryStat(eq(1000), eq(2000), isNull(), isNull(), any()))
+                .thenAnswer(invocation -> {
+                    Consumer<String> sink = invocation.getArgument(4);
+                    sink.accept("Battery1");
+                    sink.accept("Battery2");
+                    return FilteredBatteryStat.builder().totalCount(2L).totalCapacity(300L).build();
+                });
+
+        MvcResult result = mockMvc.perform(get("/batteries")
+                        .param("postcodeFrom", "1000")
+                        .param("postcodeTo", "2000")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("""
+                        {"batteryName":"Battery1"}
+                        {"batteryName":"Battery2"}
+                        {"totalCapacity":300,"averageCapacity":null,"totalCount":2,"highestCapacityBatteryName":null,"lowestCapacityBatteryName":null}
+                        """));
+    }
+
+    @Test
+    void given_invalid_range_when_streaming_battery_stats_then_status_400_is_returned_before_streaming() throws Exception {
+        mockMvc.perform(get("/batteries")
+                        .param("postcodeFrom", "2000")
+                        .param("postcodeTo", "1000")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void given_several_filters_when_posting_to_stats_endpoint_then_one_result_per_filter_is_returned() throws Exception {
+        List<BatteryStatFilterRequest> filters = List.of(
+                BatteryStatFilterRequest.builder().postcodeFrom(1000).postcodeTo(2000).build(),
+                BatteryStatFilterRequest.builder().postcodeFrom(3000).postcodeTo(4000).wattageFrom(100L).wattageTo(500L).build()
+        );
+        when(batteryService.getFilteredBatteryStats(filters)).thenReturn(List.of(
+                FilteredBatteryStat.builder().batteryNames(List.of("Battery1")).totalCount(1L).build(),
+                FilteredBatteryStat.builder().batteryNames(List.of()).totalCount(0L).build()));
+
+        mockMvc.perform(post("/batteries/stats")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(filters)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].batteryNames[0]").value("Battery1"))
+                .andExpect(jsonPath("$[1].totalCount").value(0));
+    }
+
+    @Test
+    void given_filter_without_postcode_to_when_posting_to_stats_endpoint_then_status_400_is_returned() throws Exception {
+        mockMvc.perform(post("/batteries/stats")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"postcodeFrom\":1000}]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void given_json_array_when_posting_to_stream_endpoint_then_chunks_are_saved_and_id_ranges_returned() throws Exception {
+        when(batteryService.saveBatteries(any())).thenReturn(List.of(1L, 2L), List.of(51L));
+
+        mockMvc.perform(post("/batteries/stream")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"name\":\"Battery1\",\"postcode\":1000,\"capacity\":100},"
+                                + "{\"name\":\"Battery2\",\"postcode\":1001,\"capacity\":200},"
+                                + "{\"name\":\"Battery3\",\"postcode\":1002,\"capacity\":300}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalCount").value(3))
+                .andExpect(jsonPath("$.chunks.length()").value(2))
+                .andExpect(jsonPath("$.chunks[0].count").value(2))
+                .andExpect(jsonPath("$.chunks[0].idRanges[0].from").value(1))
+                .andExpect(jsonPath("$.chunks[0].idRanges[0].to").value(2))
+                .andExpect(jsonPath("$.chunks[1].idRanges[0].from").value(51))
+                .andExpect(jsonPath("$.chunks[1].idRanges[0].to").value(51));
+        verify(batteryService, times(2)).saveBatteries(any());
+    }
+
+    @Test
+    void given_ndjson_body_when_posting_to_stream_endpoint_then_each_line_is_saved() throws Exception {
+        when(batteryService.saveBatteries(any())).thenReturn(List.of(7L));
+
+        mockMvc.perform(post("/batteries/stream")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"name\":\"Battery1\",\"postcode\":1000,\"capacity\":100}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalCount").value(1))
+                .andExpect(jsonPath("$.chunks[0].idRanges[0].from").value(7));
+    }
+
+    @Test
+    void given_invalid_element_after_full_chunk_when_posting_to_stream_endpoint_then_status_400_names_the_element()
+            throws Exception {
+        when(batteryService.saveBatteries(any())).thenReturn(List.of(1L, 2L));
+
+        mockMvc.perform(post("/batteries/stream")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"name\":\"Battery1\",\"postcode\":1000,\"capacity\":100}\n"
+                                + "{\"name\":\"Battery2\",\"postcode\":1001,\"capacity\":200}\n"
+                                + "{\"name\":\"Battery3\",\"capacity\":300}\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(
+                        "batteries[2].postcode: Postcode is required (2 battery record(s) saved before this point remain stored)"));
+        verify(batteryService, times(1)).saveBatteries(any());
+    }
+
+    @Test
+    void given_empty_array_when_posting_to_stream_endpoint_then_status_400_is_returned() throws Exception {
+        mockMvc.perform(post("/batteries/stream")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("List cannot be empty"));
+    }
+
+    @Test
+    void given_async_flag_when_saving_batteries_then_status_202_with_job_location_is_returned() throws Exception {
+        UUID jobId = UUID.fromString("6f1c2a1e-8a8e-4a43-9a57-3f0d8f1b2c55");
+        when(batteryWriteBehindQueue.submit(any())).thenReturn(BatteryIngestJob.builder()
+                .id(jobId).status(BatteryIngestJob.Status.QUEUED).totalCount(1).savedCount(0).idRanges(List.of())
+                .submittedAt(Instant.now()).build());
+
+        mockMvc.perform(post("/batteries")
+                        .param("async", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(
+                                CreateBatteryRequest.builder().name("Battery1").postcode(1000).capacity(100L).build()))))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "http://localhost/batteries/jobs/" + jobId))
+                .andExpect(jsonPath("$.status").value("QUEUED"))
+                .andExpect(jsonPath("$.totalCount").value(1));
+    }
+
+    @Test
+    void given_full_write_behind_queue_when_saving_batteries_async_then_status_503_with_retry_after_is_returned() throws Exception {
+        when(batteryWriteBehindQueue.submit(any())).thenThrow(new WriteBehindQueueFullException(1, 10, 10));
+
+        mockMvc.perform(post("/batteries")
+                        .param("async", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(
+                                CreateBatteryRequest.builder().name("Battery1").postcode(1000).capacity(100L).build()))))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.errorCode").value("QUEUE_FULL"));
+    }
+
+    @Test
+    void given_job_id_when_requesting_job_status_then_progress_is_returned() throws Exception {
+        UUID jobId = UUID.randomUUID();
+        when(batteryWriteBehindQueue.getJob(jobId)).thenReturn(BatteryIngestJob.builder()
+                .id(jobId).status(BatteryIngestJob.Status.RUNNING).totalCount(10).savedCount(5).idRanges(List.of())
+                .submittedAt(Instant.now()).build());
+
+        mockMvc.perform(get("/batteries/jobs/{id}", jobId)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("RUNNING"))
+                .andExpect(jsonPath("$.savedCount").value(5));
+    }
+
+    @Test
+    void given_unknown_job_id_when_requesting_job_status_then_status_404_is_returned() throws Exception {
+        UUID jobId = UUID.randomUUID();
+        when(batteryWriteBehindQueue.getJob(jobId)).thenThrow(new IngestJobNotFoundException(jobId));
+
+        mockMvc.perform(get("/batteries/jobs/{id}", jobId)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.errorCode").value("NOT_FOUND"));
+    }
+
+    @Test
+    void given_overwrite_policy_when_upserting_batteries_then_names_are_reported_per_outcome() throws Exception {
+        when(batteryService.upsertBatteries(any(), eq(ConflictPolicy.OVERWRITE))).thenReturn(BatteryUpsertResult.builder()
+                .inserted(List.of("Battery1")).updated(List.of("Battery2")).skipped(List.of()).build());
+
+        mockMvc.perform(post("/batteries/upsert")
+                        .param("onConflict", "OVERWRITE")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(
+                                CreateBatteryRequest.builder().name("Battery1").postcode(1000).capacity(100L).build(),
+                                CreateBatteryRequest.builder().name("Battery2").postcode(1000).capacity(200L).build()))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inserted[0]").value("Battery1"))
+                .andExpect(jsonPath("$.updated[0]").value("Battery2"))
+                .andExpect(jsonPath("$.skipped").isEmpty());
+    }
+
+    @Test
+    void given_fail_policy_and_existing_name_when_upserting_batteries_then_status_409_lists_the_names() throws Exception {
+        when(batteryService.upsertBatteries(any(), eq(ConflictPolicy.FAIL)))
+                .thenThrow(new BatteryNameConflictException(List.of("Battery1")));
+
+        mockMvc.perform(post("/batteries/upsert")
+                        .param("onConflict", "FAIL")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(
+                                CreateBatteryRequest.builder().name("Battery1").postcode(1000).capacity(100L).build()))))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.errorCode").value("CONFLICT"))
+                .andExpect(jsonPath("$.errors[0].message").value("Battery 'Battery1' already exists"));
+    }
+
+    @Test
+    void given_name_rejected_by_unique_index_when_saving_batteries_then_status_409_lists_the_name() throws Exception {
+        when(batteryService.saveBatteries(any())).thenThrow(new DataIntegrityViolationException("could not execute batch",
+                new SQLException("ERROR: duplicate key value violates unique constraint \"battery_name_key\"\n"
+                        + "  Detail: Key (name)=(Battery (1)) already exists.", "23505")));
+
+        mockMvc.perform(post("/batteries")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(
+                                CreateBatteryRequest.builder().name("Battery (1)").postcode(1000).capacity(100L).build()))))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.errorCode").value("CONFLICT"))
+                .andExpect(jsonPath("$.errors[0].message").value("Battery 'Battery (1)' already exists"));
+    }
+
+    @Test
+    void given_other_integrity_violation_when_saving_batteries_then_status_500_is_returned() throws Exception {
+        when(batteryService.saveBatteries(any())).thenThrow(new DataIntegrityViolationException("could not execute batch",
+                new SQLException("ERROR: value too long for type character varying(512)", "22001")));
+
+        mockMvc.perform(post("/batteries")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(
+                                CreateBatteryRequest.builder().name("Battery1").postcode(1000).capacity(100L).build()))))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.errorCode").value("GEN-500"));
+    }
+
+    @Test
+    void given_no_policy_when_upserting_batteries_then_existing_names_are_skipped() throws Exception {
+        when(batteryService.upsertBatteries(any(), eq(ConflictPolicy.SKIP))).thenReturn(BatteryUpsertResult.builder()
+                .inserted(List.of()).updated(List.of()).skipped(List.of("Battery1")).build());
+
+        mockMvc.perform(post("/batteries/upsert")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(
+                                CreateBatteryRequest.builder().name("Battery1").postcode(1000).capacity(100L).build()))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.skipped[0]").value("Battery1"));
+    }
+
+    @Test
+    void given_invalid_and_conflicting_elements_when_saving_partially_then_the_rest_is_saved_and_errors_use_input_indices()
+            throws Exception {
+        when(batteryService.saveBatteriesIsolatingFailures(any()))
+                .thenReturn(BatteryPartialSaveResult.builder()
+                        .savedCount(1).rejectedCount(1).ids(Arrays.asList(1L, null))
+                        .errors(List.of(ItemErrorDetail.builder().index(1).field("name")
+                                .message("Battery 'Battery3' already exists").build()))
+                        .build())
+                .thenReturn(BatteryPartialSaveResult.builder()
+                        .savedCount(1).rejectedCount(0).ids(List.of(4L)).errors(List.of()).build());
+
+        mockMvc.perform(post("/batteries")
+                        .param("partial", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(
+                                CreateBatteryRequest.builder().name("Battery1").postcode(1000).capacity(100L).build(),
+                                CreateBatteryRequest.builder().name("Battery2").postcode(1000).capacity(-1L).build(),
+                                CreateBatteryRequest.builder().name("Battery3").postcode(1000).capacity(300L).build(),
+                                CreateBatteryRequest.builder().name("Battery4").postcode(1000).capacity(400L).build()))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.savedCount").value(2))
+                .andExpect(jsonPath("$.rejectedCount").value(2))
+                .andExpect(jsonPath("$.ids[0]").value(1L))
+                .andExpect(jsonPath("$.ids[1]").isEmpty())
+                .andExpect(jsonPath("$.ids[2]").isEmpty())
+                .andExpect(jsonPath("$.ids[3]").value(4L))
+                .andExpect(jsonPath("$.errors[0].index").value(1))
+                .andExpect(jsonPath("$.errors[0].field").value("capacity"))
+                .andExpect(jsonPath("$.errors[1].index").value(2))
+                .andExpect(jsonPath("$.errors[1].field").value("name"));
+        verify(batteryService, times(2)).saveBatteriesIsolatingFailures(any());
+    }
+
+    @Test
+    void given_empty_battery_list_when_saving_partially_then_status_400_is_returned() throws Exception {
+        mockMvc.perform(post("/batteries")
+                        .param("partial", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest());
+    }
 }
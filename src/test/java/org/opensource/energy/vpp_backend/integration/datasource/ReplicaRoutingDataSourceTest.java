@@ -0,0 +1,129 @@
+package org.opensource.energy.vpp_backend.integration.datasource;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.*;
+import org.opensource.energy.vpp_backend.constant.FixedDBConstant;
+import org.opensource.energy.vpp_backend.datasource.DataSourceRoutingContext;
+import org.opensource.energy.vpp_backend.dto.request.CreateBatteryRequest;
+import org.opensource.energy.vpp_backend.dto.response.FilteredBatteryStat;
+import org.opensource.energy.vpp_backend.service.BatteryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.opensource.energy.vpp_backend.constant.FixedDBConstant.DB_VERSION;
+
+/**
+ * Two independent containers stand in for a primary and its replica. Without replication between them, where a
+ * battery shows up tells which pool served the query.
+ */
+@SpringBootTest(properties = "vpp.datasource.replica.enabled=true")
+@Testcontainers
+@ActiveProfiles("test")
+@Tag("integration")
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+@EnableJpaAuditing
+class ReplicaRoutingDataSourceTest {
+
+    @Autowired
+    private BatteryService batteryService;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    @Container
+    static PostgreSQLContainer<?> primary = new PostgreSQLContainer<>(DB_VERSION)
+            .withDatabaseName(FixedDBConstant.DB_NAME)
+            .withUsername(FixedDBConstant.DB_USER)
+            .withPassword(FixedDBConstant.DB_PASS);
+
+    @Container
+    static PostgreSQLContainer<?> replica = new PostgreSQLContainer<>(DB_VERSION)
+            .withDatabaseName(FixedDBConstant.DB_NAME)
+            .withUsername(FixedDBConstant.DB_USER)
+            .withPassword(FixedDBConstant.DB_PASS);
+
+    @DynamicPropertySource
+    static void overrideProps(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", primary::getJdbcUrl);
+        registry.add("spring.datasource.username", primary::getUsername);
+        registry.add("spring.datasource.password", primary::getPassword);
+        registry.add("vpp.datasource.replica.url", replica::getJdbcUrl);
+        registry.add("vpp.datasource.replica.username", replica::getUsername);
+        registry.add("vpp.datasource.replica.password", replica::getPassword);
+    }
+
+    @BeforeAll
+    static void migrateReplica() {
+        // Flyway only migrates the primary; a real replica would receive the schema through replication.
+        Flyway.configure()
+                .dataSource(replica.getJdbcUrl(), replica.getUsername(), replica.getPassword())
+                .load()
+                .migrate();
+    }
+
+    @BeforeEach
+    void cleanDatabases() {
+        for (DataSource dataSource : List.of(primaryDataSource, replicaDataSource)) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            jdbcTemplate.execute("DELETE FROM battery");
+            jdbcTemplate.execute("DELETE FROM battery_postcode_summary");
+        }
+    }
+
+    @Test
+    void given_battery_only_on_replica_when_get_battery_stats_then_replica_answers() {
+        new JdbcTemplate(replicaDataSource).update("INSERT INTO battery (id, name, postcode, watt_capacity, created_at, modified_at) "
+                + "VALUES (1, 'ReplicaOnly', 1000, 100, now(), now())");
+
+        FilteredBatteryStat stat = batteryService.getFilteredBatteryStat(1000, 1000, 0L, 1000L);
+
+        assertThat(stat.getBatteryNames()).containsExactly("ReplicaOnly");
+    }
+
+    @Test
+    void given_saved_batteries_when_get_battery_stats_then_write_went_to_primary_and_read_to_replica() {
+        batteryService.saveBatteries(List.of(
+                CreateBatteryRequest.builder().name("Alpha").postcode(1000).capacity(100L).build()));
+
+        FilteredBatteryStat stat = batteryService.getFilteredBatteryStat(1000, 1000, 0L, 1000L);
+
+        assertThat(countBatteries(primaryDataSource)).isEqualTo(1);
+        assertThat(countBatteries(replicaDataSource)).isZero();
+        assertThat(stat.getBatteryNames()).isEmpty();
+    }
+
+    @Test
+    void given_thread_pinned_to_primary_when_get_battery_stats_then_own_write_is_visible() {
+        batteryService.saveBatteries(List.of(
+                CreateBatteryRequest.builder().name("Alpha").postcode(1000).capacity(100L).build()));
+
+        FilteredBatteryStat stat;
+        try (DataSourceRoutingContext.Scope ignored = DataSourceRoutingContext.pinToPrimary()) {
+            stat = batteryService.getFilteredBatteryStat(1000, 1000, 0L, 1000L);
+        }
+
+        assertThat(stat.getBatteryNames()).containsExactly("Alpha");
+    }
+
+    private static Integer countBatteries(DataSource dataSource) {
+        return new JdbcTemplate(dataSource).queryForObject("SELECT count(*) FROM battery", Integer.class);
+    }
+}
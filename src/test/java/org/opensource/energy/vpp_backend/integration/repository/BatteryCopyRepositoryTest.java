@@ -0,0 +1,103 @@
+package org.opensource.energy.vpp_backend.integration.repository;
+
+import org.junit.jupiter.api.*;
+import org.opensource.energy.vpp_backend.constant.FixedDBConstant;
+import org.opensource.energy.vpp_backend.dto.request.CreateBatteryRequest;
+import org.opensource.energy.vpp_backend.dto.response.FilteredBatteryStat;
+import org.opensource.energy.vpp_backend.entity.Battery;
+import org.opensource.energy.vpp_backend.repository.BatteryRepository;
+import org.opensource.energy.vpp_backend.service.BatteryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.opensource.energy.vpp_backend.constant.FixedDBConstant.DB_VERSION;
+
+/**
+ * With a threshold of 3, three or more batteries go through {@code COPY} and smaller batches through JPA.
+ */
+@SpringBootTest(properties = "vpp.bulk-copy.min-batch-size=3")
+@Testcontainers
+@ActiveProfiles("test")
+@Tag("integration")
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+@EnableJpaAuditing
+class BatteryCopyRepositoryTest {
+
+    @Autowired
+    private BatteryService batteryService;
+
+    @Autowired
+    private BatteryRepository batteryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(DB_VERSION)
+            .withDatabaseName(FixedDBConstant.DB_NAME)
+            .withUsername(FixedDBConstant.DB_USER)
+            .withPassword(FixedDBConstant.DB_PASS);
+
+    @DynamicPropertySource
+    static void overrideProps(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @BeforeEach
+    void cleanDatabase() {
+        batteryRepository.deleteAll();
+        jdbcTemplate.update("DELETE FROM battery_postcode_summary");
+    }
+
+    @Test
+    void given_large_batch_when_save_batteries_then_rows_are_copied_with_ids_in_input_order_and_timestamps_set() {
+        Instant before = Instant.now();
+
+        List<Long> ids = batteryService.saveBatteries(List.of(
+                CreateBatteryRequest.builder().name("Charlie").postcode(1000).capacity(300L).build(),
+                CreateBatteryRequest.builder().name("Alpha").postcode(1000).capacity(100L).build(),
+                CreateBatteryRequest.builder().name("Bravo é").postcode(1001).capacity(200L).build()));
+
+        assertThat(ids).hasSize(3).doesNotHaveDuplicates();
+        assertThat(ids.stream().map(id -> batteryRepository.findById(id).orElseThrow().getName()))
+                .containsExactly("Charlie", "Alpha", "Bravo é");
+        Battery copied = batteryRepository.findById(ids.getFirst()).orElseThrow();
+        assertThat(copied.getWattCapacity()).isEqualTo(300L);
+        assertThat(copied.getCreatedAt()).isCloseTo(before, within(1, ChronoUnit.MINUTES));
+        assertThat(copied.getModifiedAt()).isEqualTo(copied.getCreatedAt());
+    }
+
+    @Test
+    void given_copied_and_jpa_batches_when_get_battery_stats_then_ids_do_not_collide_and_summary_matches() {
+        List<Long> copiedIds = batteryService.saveBatteries(List.of(
+                CreateBatteryRequest.builder().name("Alpha").postcode(1000).capacity(100L).build(),
+                CreateBatteryRequest.builder().name("Bravo").postcode(1000).capacity(200L).build(),
+                CreateBatteryRequest.builder().name("Charlie").postcode(1001).capacity(300L).build()));
+        List<Long> jpaIds = batteryService.saveBatteries(List.of(
+                CreateBatteryRequest.builder().name("Delta").postcode(1001).capacity(400L).build()));
+
+        FilteredBatteryStat stat = batteryService.getFilteredBatteryStat(1000, 1001, null, null);
+
+        assertThat(copiedIds).doesNotContainAnyElementsOf(jpaIds);
+        assertThat(stat.getBatteryNames()).containsExactly("Alpha", "Bravo", "Charlie", "Delta");
+        assertThat(stat.getTotalCapacity()).isEqualTo(1000);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT sum(total_count) FROM battery_postcode_summary", Long.class)).isEqualTo(4);
+    }
+}
@@ -7,8 +7,10 @@ import org.junit.jupiter.api.Test;
 import org.opensource.energy.vpp_backend.constant.FixedDBConstant;
 import org.opensource.energy.vpp_backend.entity.Battery;
 import org.opensource.energy.vpp_backend.repository.BatteryRepository;
+import org.opensource.energy.vpp_backend.repository.projection.BatteryStatProjection;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
@@ -28,6 +30,7 @@ import static org.opensource.energy.vpp_backend.constant.FixedDBConstant.DB_VERS
 @ActiveProfiles("test")
 @Tag("integration")
 @DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+@EnableJpaAuditing
 public class BatteryRepositoryTest {
 
     @Container
@@ -100,5 +103,36 @@ public class BatteryRepositoryTest {
             batteryRepository.flush(); // force insert to catch constraint
         });
     }
+
+    @Test
+    void given_capacity_ties_when_aggregating_then_first_name_in_code_point_order_is_reported() {
+        batteryRepository.saveAllAndFlush(List.of(
+                Battery.builder().name("Tie \ud83d\udd0b").postcode(6000).wattCapacity(900L).build(),
+                Battery.builder().name("Tie \uff21").postcode(6001).wattCapacity(900L).build(),
+                Battery.builder().name("Small b").postcode(6002).wattCapacity(100L).build(),
+                Battery.builder().name("Small a").postcode(6003).wattCapacity(100L).build(),
+                Battery.builder().name("Middle").postcode(6004).wattCapacity(500L).build(),
+                Battery.builder().name("Outside").postcode(6005).wattCapacity(5000L).build()));
+
+        BatteryStatProjection stat = batteryRepository.aggregateStatistics(6000, 6005, 100L, 1000L);
+
+        assertThat(stat.getTotalCount()).isEqualTo(5);
+        assertThat(stat.getTotalCapacity()).isEqualTo(2500);
+        assertThat(stat.getMinCapacity()).isEqualTo(100);
+        assertThat(stat.getMaxCapacity()).isEqualTo(900);
+        assertThat(stat.getHighestCapacityBatteryName()).isEqualTo("Tie \uff21");
+        assertThat(stat.getLowestCapacityBatteryName()).isEqualTo("Small a");
+    }
+
+    @Test
+    void given_no_matching_battery_when_aggregating_then_totals_are_zero_and_names_null() {
+        BatteryStatProjection stat = batteryRepository.aggregateStatistics(7000, 7100, 100L, 1000L);
+
+        assertThat(stat.getTotalCount()).isZero();
+        assertThat(stat.getTotalCapacity()).isZero();
+        assertThat(stat.getMaxCapacity()).isNull();
+        assertThat(stat.getHighestCapacityBatteryName()).isNull();
+        assertThat(stat.getLowestCapacityBatteryName()).isNull();
+    }
 }
 
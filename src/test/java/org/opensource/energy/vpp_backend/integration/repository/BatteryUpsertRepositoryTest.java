@@ -0,0 +1,141 @@
+package org.opensource.energy.vpp_backend.integration.repository;
+
+import org.junit.jupiter.api.*;
+import org.opensource.energy.vpp_backend.constant.FixedDBConstant;
+import org.opensource.energy.vpp_backend.dto.request.ConflictPolicy;
+import org.opensource.energy.vpp_backend.dto.request.CreateBatteryRequest;
+import org.opensource.energy.vpp_backend.dto.response.BatteryUpsertResult;
+import org.opensource.energy.vpp_backend.dto.response.FilteredBatteryStat;
+import org.opensource.energy.vpp_backend.entity.Battery;
+import org.opensource.energy.vpp_backend.exception.BatteryNameConflictException;
+import org.opensource.energy.vpp_backend.repository.BatteryPostcodeSummaryRepository;
+import org.opensource.energy.vpp_backend.repository.BatteryRepository;
+import org.opensource.energy.vpp_backend.repository.projection.PostcodeAggregate;
+import org.opensource.energy.vpp_backend.service.BatteryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.opensource.energy.vpp_backend.constant.FixedDBConstant.DB_VERSION;
+
+@SpringBootTest
+@Testcontainers
+@ActiveProfiles("test")
+@Tag("integration")
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+@EnableJpaAuditing
+class BatteryUpsertRepositoryTest {
+
+    @Autowired
+    private BatteryService batteryService;
+
+    @Autowired
+    private BatteryRepository batteryRepository;
+
+    @Autowired
+    private BatteryPostcodeSummaryRepository postcodeSummaryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(DB_VERSION)
+            .withDatabaseName(FixedDBConstant.DB_NAME)
+            .withUsername(FixedDBConstant.DB_USER)
+            .withPassword(FixedDBConstant.DB_PASS);
+
+    @DynamicPropertySource
+    static void overrideProps(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @BeforeEach
+    void setUp() {
+        batteryRepository.deleteAll();
+        jdbcTemplate.update("DELETE FROM battery_postcode_summary");
+        batteryService.saveBatteries(List.of(
+                request("Alpha", 1000, 100L),
+                request("Bravo", 1000, 500L),
+                request("Charlie", 1001, 300L)));
+    }
+
+    @Test
+    void given_existing_names_and_skip_policy_when_upsert_then_stored_batteries_are_kept() {
+        BatteryUpsertResult result = batteryService.upsertBatteries(List.of(
+                request("Delta", 1001, 50L), request("Alpha", 1001, 999L)), ConflictPolicy.SKIP);
+
+        assertThat(result.getInserted()).containsExactly("Delta");
+        assertThat(result.getSkipped()).containsExactly("Alpha");
+        Battery alpha = batteryRepository.findAll().stream()
+                .filter(battery -> battery.getName().equals("Alpha")).findFirst().orElseThrow();
+        assertThat(alpha.getPostcode()).isEqualTo(1000);
+        assertThat(alpha.getWattCapacity()).isEqualTo(100L);
+        assertThat(batteryService.getFilteredBatteryStat(1001, 1001, null, null).getBatteryNames())
+                .containsExactly("Charlie", "Delta");
+        assertThat(postcodeSummaryRepository.findInconsistentPostcodes()).isEmpty();
+    }
+
+    @Test
+    void given_moved_maximum_and_overwrite_policy_when_upsert_then_summary_is_recomputed_for_both_postcodes() {
+        BatteryUpsertResult result = batteryService.upsertBatteries(List.of(
+                request("Bravo", 1001, 200L), request("Charlie", 1001, 300L), request("Echo", 1000, 150L)),
+                ConflictPolicy.OVERWRITE);
+
+        assertThat(result.getInserted()).containsExactly("Echo");
+        assertThat(result.getUpdated()).containsExactly("Bravo");
+        assertThat(result.getSkipped()).containsExactly("Charlie");
+        assertThat(postcodeSummaryRepository.findInconsistentPostcodes()).isEmpty();
+        FilteredBatteryStat postcode1000 = batteryService.getFilteredBatteryStat(1000, 1000, null, null);
+        assertThat(postcode1000.getBatteryNames()).containsExactly("Alpha", "Echo");
+        assertThat(postcode1000.getHighestCapacityBatteryName()).isEqualTo("Echo");
+        assertThat(batteryService.getFilteredBatteryStat(1001, 1001, null, null).getTotalCapacity()).isEqualTo(500);
+        assertThat(postcodeSummaryRepository.findByPostcodes(List.of(1001, 1000, 4242)))
+                .extracting(PostcodeAggregate::postcode, PostcodeAggregate::totalCount,
+                        PostcodeAggregate::highestCapacityBatteryName)
+                .containsExactly(tuple(1000, 2L, "Echo"), tuple(1001, 2L, "Charlie"));
+    }
+
+    @Test
+    void given_identical_batch_when_replayed_with_overwrite_policy_then_nothing_is_written() {
+        List<CreateBatteryRequest> batch = List.of(request("Alpha", 1000, 100L), request("Bravo", 1000, 500L));
+        Integer modifiedBefore = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM battery WHERE modified_at <> created_at", Integer.class);
+
+        BatteryUpsertResult result = batteryService.upsertBatteries(batch, ConflictPolicy.OVERWRITE);
+
+        assertThat(result.getSkipped()).containsExactly("Alpha", "Bravo");
+        assertThat(result.getInserted()).isEmpty();
+        assertThat(result.getUpdated()).isEmpty();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM battery WHERE modified_at <> created_at", Integer.class)).isEqualTo(modifiedBefore);
+    }
+
+    @Test
+    void given_existing_name_and_fail_policy_when_upsert_then_nothing_is_stored() {
+        BatteryNameConflictException ex = assertThrows(BatteryNameConflictException.class, () ->
+                batteryService.upsertBatteries(List.of(request("Foxtrot", 1002, 10L), request("Charlie", 1002, 10L)),
+                        ConflictPolicy.FAIL));
+
+        assertThat(ex.getNames()).containsExactly("Charlie");
+        assertThat(batteryRepository.count()).isEqualTo(3);
+        assertThat(postcodeSummaryRepository.findInconsistentPostcodes()).isEmpty();
+    }
+
+    private static CreateBatteryRequest request(String name, int postcode, long capacity) {
+        return CreateBatteryRequest.builder().name(name).postcode(postcode).capacity(capacity).build();
+    }
+}
@@ -2,14 +2,19 @@ package org.opensource.energy.vpp_backend.integration.service.impl;
 
 import org.junit.jupiter.api.*;
 import org.opensource.energy.vpp_backend.constant.FixedDBConstant;
+import org.opensource.energy.vpp_backend.dto.request.BatteryStatFilterRequest;
 import org.opensource.energy.vpp_backend.dto.request.CreateBatteryRequest;
+import org.opensource.energy.vpp_backend.dto.response.BatteryPartialSaveResult;
 import org.opensource.energy.vpp_backend.dto.response.FilteredBatteryStat;
+import org.opensource.energy.vpp_backend.dto.response.error.ItemErrorDetail;
 import org.opensource.energy.vpp_backend.entity.Battery;
 import org.opensource.energy.vpp_backend.repository.BatteryRepository;
 import org.opensource.energy.vpp_backend.service.BatteryService;
+import org.opensource.energy.vpp_backend.service.maintenance.PostcodeSummaryMaintenance;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
@@ -36,6 +41,12 @@ class BatteryServiceImplTest {
     @Autowired
     private BatteryRepository batteryRepository;
 
+    @Autowired
+    private PostcodeSummaryMaintenance postcodeSummaryMaintenance;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Container
     static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(DB_VERSION)
             .withDatabaseName(FixedDBConstant.DB_NAME)
@@ -52,6 +63,7 @@ class BatteryServiceImplTest {
     @BeforeEach
     void cleanDatabase() {
         batteryRepository.deleteAll();
+        jdbcTemplate.update("DELETE FROM battery_postcode_summary");
     }
 
     @Test
@@ -75,6 +87,8 @@ class BatteryServiceImplTest {
 
 
         batteryRepository.saveAll(List.of(b1, b2, b3));
+        // Inserted behind the service's back, so the per-postcode summary has to be rebuilt.
+        postcodeSummaryMaintenance.backfill();
 
         FilteredBatteryStat stat = batteryService.getFilteredBatteryStat(1000, 1100, null, null);
 
@@ -85,4 +99,99 @@ class BatteryServiceImplTest {
         assertThat(stat.getLowestCapacityBatteryName()).isEqualTo("Alpha");
         assertThat(stat.getTotalCount()).isEqualTo(3);
     }
+
+    @Test
+    void given_wattage_filter_and_equal_capacities_when_get_battery_stats_then_ties_resolve_to_first_name() {
+        batteryRepository.saveAll(List.of(
+                Battery.builder().name("delta").postcode(1000).wattCapacity(500L).build(),
+                Battery.builder().name("Charlie").postcode(1000).wattCapacity(500L).build(),
+                Battery.builder().name("Bravo").postcode(1001).wattCapacity(100L).build(),
+                Battery.builder().name("Echo").postcode(1001).wattCapacity(50L).build()
+        ));
+
+        FilteredBatteryStat stat = batteryService.getFilteredBatteryStat(1000, 1001, 100L, 500L);
+
+        assertThat(stat.getBatteryNames()).containsExactly("Bravo", "Charlie", "delta");
+        assertThat(stat.getTotalCount()).isEqualTo(3);
+        assertThat(stat.getTotalCapacity()).isEqualTo(1100);
+        assertThat(stat.getHighestCapacityBatteryName()).isEqualTo("Charlie");
+        assertThat(stat.getLowestCapacityBatteryName()).isEqualTo("Bravo");
+    }
+
+    @Test
+    void given_saved_batteries_when_checking_postcode_summary_then_it_matches_the_battery_table() {
+        batteryService.saveBatteries(List.of(
+                CreateBatteryRequest.builder().name("Charlie").postcode(1000).capacity(500L).build(),
+                CreateBatteryRequest.builder().name("Bravo").postcode(1000).capacity(500L).build()));
+        batteryService.saveBatteries(List.of(
+                CreateBatteryRequest.builder().name("Alpha").postcode(1000).capacity(500L).build(),
+                CreateBatteryRequest.builder().name("Delta").postcode(1001).capacity(20L).build()));
+
+        FilteredBatteryStat stat = batteryService.getFilteredBatteryStat(1000, 1001, null, null);
+
+        assertThat(postcodeSummaryMaintenance.check()).isEmpty();
+        assertThat(stat.getTotalCount()).isEqualTo(4);
+        assertThat(stat.getTotalCapacity()).isEqualTo(1520);
+        assertThat(stat.getHighestCapacityBatteryName()).isEqualTo("Alpha");
+        assertThat(stat.getLowestCapacityBatteryName()).isEqualTo("Delta");
+    }
+
+    @Test
+    void given_drifted_postcode_summary_when_backfilled_then_check_reports_no_difference() {
+        batteryService.saveBatteries(List.of(
+                CreateBatteryRequest.builder().name("Alpha").postcode(1000).capacity(100L).build()));
+        jdbcTemplate.update("UPDATE battery_postcode_summary SET total_count = 7 WHERE postcode = 1000");
+        jdbcTemplate.update("INSERT INTO battery_postcode_summary VALUES (1500, 1, 1, 1, 'Ghost', 1, 'Ghost')");
+
+        assertThat(postcodeSummaryMaintenance.check()).containsExactly(1000, 1500);
+
+        postcodeSummaryMaintenance.backfill();
+
+        assertThat(postcodeSummaryMaintenance.check()).isEmpty();
+    }
+
+    @Test
+    void given_several_filters_when_get_battery_stats_in_batch_then_each_matches_the_single_filter_result() {
+        batteryRepository.saveAll(List.of(
+                Battery.builder().name("delta").postcode(1000).wattCapacity(500L).build(),
+                Battery.builder().name("Charlie").postcode(1000).wattCapacity(500L).build(),
+                Battery.builder().name("Bravo").postcode(1001).wattCapacity(100L).build(),
+                Battery.builder().name("Echo").postcode(1100).wattCapacity(50L).build()
+        ));
+        postcodeSummaryMaintenance.backfill();
+
+        List<BatteryStatFilterRequest> filters = List.of(
+                BatteryStatFilterRequest.builder().postcodeFrom(1000).postcodeTo(1100).build(),
+                BatteryStatFilterRequest.builder().postcodeFrom(2000).postcodeTo(3000).build(),
+                BatteryStatFilterRequest.builder().postcodeFrom(1000).postcodeTo(1001).wattageFrom(100L).wattageTo(500L).build());
+
+        List<FilteredBatteryStat> stats = batteryService.getFilteredBatteryStats(filters);
+
+        assertThat(stats).containsExactly(
+                batteryService.getFilteredBatteryStat(1000, 1100, null, null),
+                batteryService.getFilteredBatteryStat(2000, 3000, null, null),
+                batteryService.getFilteredBatteryStat(1000, 1001, 100L, 500L));
+        assertThat(stats.get(2).getBatteryNames()).containsExactly("Bravo", "Charlie", "delta");
+    }
+
+    @Test
+    void given_stored_and_repeated_names_when_saving_isolating_failures_then_only_those_rows_are_rejected() {
+        batteryService.saveBatteries(List.of(
+                CreateBatteryRequest.builder().name("Stored").postcode(1000).capacity(100L).build()));
+
+        BatteryPartialSaveResult result = batteryService.saveBatteriesIsolatingFailures(List.of(
+                CreateBatteryRequest.builder().name("Alpha").postcode(1000).capacity(10L).build(),
+                CreateBatteryRequest.builder().name("Stored").postcode(1001).capacity(20L).build(),
+                CreateBatteryRequest.builder().name("Bravo").postcode(1001).capacity(30L).build(),
+                CreateBatteryRequest.builder().name("Alpha").postcode(1002).capacity(40L).build(),
+                CreateBatteryRequest.builder().name("Charlie").postcode(1002).capacity(50L).build()));
+
+        assertThat(result.getSavedCount()).isEqualTo(3);
+        assertThat(result.getErrors()).extracting(ItemErrorDetail::getIndex).containsExactly(1, 3);
+        assertThat(result.getIds().get(1)).isNull();
+        assertThat(result.getIds().get(3)).isNull();
+        assertThat(batteryRepository.findAll()).extracting(Battery::getName)
+                .containsExactlyInAnyOrder("Stored", "Alpha", "Bravo", "Charlie");
+        assertThat(postcodeSummaryMaintenance.check()).isEmpty();
+    }
 }
@@ -0,0 +1,117 @@
+package org.opensource.energy.vpp_backend.integration.service.impl;
+
+import org.junit.jupiter.api.*;
+import org.opensource.energy.vpp_backend.constant.FixedDBConstant;
+import org.opensource.energy.vpp_backend.dto.request.BatteryStatFilterRequest;
+import org.opensource.energy.vpp_backend.dto.request.CreateBatteryRequest;
+import org.opensource.energy.vpp_backend.dto.response.FilteredBatteryStat;
+import org.opensource.energy.vpp_backend.service.BatteryService;
+import org.opensource.energy.vpp_backend.service.maintenance.PostcodeSummaryMaintenance;
+import org.opensource.energy.vpp_backend.support.StatementBudget;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.opensource.energy.vpp_backend.constant.FixedDBConstant.DB_VERSION;
+
+/**
+ * Statement budgets of the hot paths: a regression that adds a query per battery, or unbatches inserts, fails here.
+ */
+@SpringBootTest
+@Testcontainers
+@ActiveProfiles("test")
+@Tag("integration")
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+@EnableJpaAuditing
+class BatteryStatementBudgetTest {
+
+    @Autowired
+    private BatteryService batteryService;
+
+    @Autowired
+    private PostcodeSummaryMaintenance postcodeSummaryMaintenance;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(DB_VERSION)
+            .withDatabaseName(FixedDBConstant.DB_NAME)
+            .withUsername(FixedDBConstant.DB_USER)
+            .withPassword(FixedDBConstant.DB_PASS);
+
+    @DynamicPropertySource
+    static void overrideProps(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @BeforeEach
+    void seedDatabase() {
+        jdbcTemplate.execute("DELETE FROM battery");
+        jdbcTemplate.update("""
+                INSERT INTO battery (id, name, postcode, watt_capacity, created_at, modified_at)
+                SELECT i, 'Battery-' || i, 1000 + i % 500, i % 997, now(), now()
+                FROM generate_series(1, 10000) AS i
+                """);
+        postcodeSummaryMaintenance.backfill();
+    }
+
+    @Test
+    @StatementBudget(2)
+    void given_postcode_range_when_get_filtered_battery_stat_then_totals_and_names_take_two_statements() {
+        FilteredBatteryStat stat = batteryService.getFilteredBatteryStat(1000, 1099, null, null);
+
+        assertThat(stat.getBatteryNames()).hasSize(2000);
+    }
+
+    @Test
+    @StatementBudget(1)
+    void given_several_filters_when_get_filtered_battery_stats_then_all_are_answered_by_one_statement() {
+        List<FilteredBatteryStat> stats = batteryService.getFilteredBatteryStats(List.of(
+                BatteryStatFilterRequest.builder().postcodeFrom(1000).postcodeTo(1099).build(),
+                BatteryStatFilterRequest.builder().postcodeFrom(1100).postcodeTo(1199).wattageFrom(500L).wattageTo(999L).build(),
+                BatteryStatFilterRequest.builder().postcodeFrom(1200).postcodeTo(1499).wattageFrom(0L).wattageTo(100L).build()));
+
+        assertThat(stats).hasSize(3);
+    }
+
+    @Test
+    @StatementBudget(4)
+    void given_ten_thousand_batteries_when_save_batteries_then_they_are_copied_in_a_handful_of_statements() {
+        List<Long> ids = batteryService.saveBatteries(batteries(10_000));
+
+        assertThat(ids).hasSize(10_000);
+    }
+
+    @Test
+    // 20 JDBC batches of 50 inserts, one sequence call per 50 IDs, and one postcode summary upsert.
+    @StatementBudget(41)
+    void given_batch_below_copy_threshold_when_save_batteries_then_inserts_are_sent_in_jdbc_batches() {
+        List<Long> ids = batteryService.saveBatteries(batteries(999));
+
+        assertThat(ids).hasSize(999);
+    }
+
+    private static List<CreateBatteryRequest> batteries(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> CreateBatteryRequest.builder()
+                        .name("Budget-" + i)
+                        .postcode(2000 + i % 100)
+                        .capacity(100L + i)
+                        .build())
+                .toList();
+    }
+}
@@ -0,0 +1,85 @@
+package org.opensource.energy.vpp_backend.integration.service.reader;
+
+import org.junit.jupiter.api.*;
+import org.opensource.energy.vpp_backend.constant.FixedDBConstant;
+import org.opensource.energy.vpp_backend.dto.response.FilteredBatteryStat;
+import org.opensource.energy.vpp_backend.service.maintenance.PostcodeSummaryMaintenance;
+import org.opensource.energy.vpp_backend.service.reader.DatabaseBatteryStatReader;
+import org.opensource.energy.vpp_backend.service.reader.ParallelBatteryStatReader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.opensource.energy.vpp_backend.constant.FixedDBConstant.DB_VERSION;
+
+@SpringBootTest(properties = {
+        "vpp.parallel-scan.enabled=true",
+        "vpp.parallel-scan.parallelism=4",
+        "vpp.parallel-scan.min-rows=1"
+})
+@Testcontainers
+@ActiveProfiles("test")
+@Tag("integration")
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class ParallelBatteryStatReaderTest {
+
+    @Autowired
+    private ParallelBatteryStatReader parallelReader;
+
+    @Autowired
+    private DatabaseBatteryStatReader databaseReader;
+
+    @Autowired
+    private PostcodeSummaryMaintenance postcodeSummaryMaintenance;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(DB_VERSION)
+            .withDatabaseName(FixedDBConstant.DB_NAME)
+            .withUsername(FixedDBConstant.DB_USER)
+            .withPassword(FixedDBConstant.DB_PASS);
+
+    @DynamicPropertySource
+    static void overrideProps(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @BeforeEach
+    void seedDatabase() {
+        jdbcTemplate.execute("DELETE FROM battery");
+        // Mixed-case names and repeated capacities exercise the merge order and the tie-breaking.
+        jdbcTemplate.update("""
+                INSERT INTO battery (id, name, postcode, watt_capacity, created_at, modified_at)
+                SELECT i, CASE WHEN i % 3 = 0 THEN 'battery-' ELSE 'Battery-' END || i, 1000 + i % 50, i % 97, now(), now()
+                FROM generate_series(1, 5000) AS i
+                """);
+        postcodeSummaryMaintenance.backfill();
+    }
+
+    @Test
+    void given_wide_range_when_read_in_parallel_then_result_equals_single_connection_read() {
+        FilteredBatteryStat parallel = parallelReader.read(0, 9999, null, null);
+
+        assertThat(parallel.getTotalCount()).isEqualTo(5000);
+        assertThat(parallel).isEqualTo(databaseReader.read(0, 9999, null, null));
+    }
+
+    @Test
+    void given_wattage_filter_when_read_in_parallel_then_result_equals_single_connection_read() {
+        FilteredBatteryStat parallel = parallelReader.read(1010, 1040, 10L, 20L);
+
+        assertThat(parallel.getTotalCount()).isPositive();
+        assertThat(parallel).isEqualTo(databaseReader.read(1010, 1040, 10L, 20L));
+    }
+}
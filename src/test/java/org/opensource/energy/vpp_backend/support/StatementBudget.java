@@ -0,0 +1,22 @@
+package org.opensource.energy.vpp_backend.support;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Fails the annotated test if its body runs more SQL statements than {@link #value()}, as counted by
+ * {@code StatementAccountingDataSource}; a JDBC batch counts as one. {@code @BeforeEach} and {@code @AfterEach}
+ * methods are not counted. Needs {@code vpp.sql-accounting.enabled=true}, the default.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(StatementBudgetExtension.class)
+public @interface StatementBudget {
+
+    /** The most statements the test may run. */
+    long value();
+}
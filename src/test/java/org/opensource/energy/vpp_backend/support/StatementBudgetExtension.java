@@ -0,0 +1,63 @@
+package org.opensource.energy.vpp_backend.support;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.opensource.energy.vpp_backend.datasource.SqlStatementContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Counts the SQL statements run by a test annotated with {@link StatementBudget} and fails it when they exceed the
+ * budget, listing them. Statements run by worker threads count only if the code under test hands them the
+ * caller's {@link SqlStatementContext}.
+ */
+public class StatementBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE =
+            ExtensionContext.Namespace.create(StatementBudgetExtension.class);
+    private static final int MAX_SQL_LENGTH = 200;
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        List<String> statements = Collections.synchronizedList(new ArrayList<>());
+        SqlStatementContext.Scope scope = SqlStatementContext.begin((stats, sql) -> {
+            if (sql != null) {
+                statements.add(sql);
+            }
+        });
+        ExtensionContext.Store store = context.getStore(NAMESPACE);
+        store.put(SqlStatementContext.Stats.class, SqlStatementContext.current());
+        store.put(List.class, statements);
+        store.put(SqlStatementContext.Scope.class, scope);
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        ExtensionContext.Store store = context.getStore(NAMESPACE);
+        store.remove(SqlStatementContext.Scope.class, SqlStatementContext.Scope.class).close();
+        SqlStatementContext.Stats stats = store.remove(SqlStatementContext.Stats.class, SqlStatementContext.Stats.class);
+        @SuppressWarnings("unchecked")
+        List<String> statements = store.remove(List.class, List.class);
+
+        long budget = context.getRequiredTestMethod().getAnnotation(StatementBudget.class).value();
+        if (stats.getStatements() > budget) {
+            StringBuilder message = new StringBuilder()
+                    .append("Expected at most ").append(budget).append(" SQL statement(s) but ")
+                    .append(stats.getStatements()).append(" were run:");
+            synchronized (statements) {
+                for (String sql : statements) {
+                    message.append(System.lineSeparator()).append("  ").append(abbreviate(sql));
+                }
+            }
+            throw new AssertionError(message.toString());
+        }
+    }
+
+    private static String abbreviate(String sql) {
+        String oneLine = sql.replaceAll("\\s+", " ").strip();
+        return oneLine.length() > MAX_SQL_LENGTH ? oneLine.substring(0, MAX_SQL_LENGTH) + "..." : oneLine;
+    }
+}
@@ -0,0 +1,71 @@
+package org.opensource.energy.vpp_backend.unit.aggregate;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.opensource.energy.vpp_backend.aggregate.BatteryStatAccumulator;
+import org.opensource.energy.vpp_backend.dto.response.FilteredBatteryStat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("unit")
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class BatteryStatAccumulatorTest {
+
+    @Test
+    void given_no_batteries_when_building_stat_then_returns_zero_totals_and_null_names() {
+        FilteredBatteryStat stat = new BatteryStatAccumulator().toStatBuilder().build();
+
+        assertThat(stat.getTotalCount()).isZero();
+        assertThat(stat.getTotalCapacity()).isZero();
+        assertThat(stat.getAverageCapacity()).isZero();
+        assertThat(stat.getHighestCapacityBatteryName()).isNull();
+        assertThat(stat.getLowestCapacityBatteryName()).isNull();
+    }
+
+    @Test
+    void given_batteries_when_accepted_then_totals_and_extremes_are_computed() {
+        BatteryStatAccumulator accumulator = new BatteryStatAccumulator();
+        accumulator.accept("Alpha", 100);
+        accumulator.accept("Beta", 300);
+        accumulator.accept("Gamma", 200);
+
+        FilteredBatteryStat stat = accumulator.toStatBuilder().build();
+
+        assertThat(stat.getTotalCount()).isEqualTo(3);
+        assertThat(stat.getTotalCapacity()).isEqualTo(600);
+        assertThat(stat.getAverageCapacity()).isEqualTo(200);
+        assertThat(stat.getHighestCapacityBatteryName()).isEqualTo("Beta");
+        assertThat(stat.getLowestCapacityBatteryName()).isEqualTo("Alpha");
+    }
+
+    @Test
+    void given_equal_capacities_in_any_order_when_accepted_then_first_name_wins() {
+        BatteryStatAccumulator accumulator = new BatteryStatAccumulator();
+        accumulator.accept("delta", 500);
+        accumulator.accept("Charlie", 500);
+
+        FilteredBatteryStat stat = accumulator.toStatBuilder().build();
+
+        assertThat(stat.getHighestCapacityBatteryName()).isEqualTo("Charlie");
+        assertThat(stat.getLowestCapacityBatteryName()).isEqualTo("Charlie");
+    }
+
+    @Test
+    void given_partial_results_when_merged_then_result_equals_single_pass() {
+        BatteryStatAccumulator left = new BatteryStatAccumulator();
+        left.accept("Zulu", 700);
+        left.accept("Bravo", 50);
+        BatteryStatAccumulator right = new BatteryStatAccumulator();
+        right.accept("Alpha", 700);
+        right.accept("Yankee", 50);
+
+        FilteredBatteryStat merged = left.merge(right).merge(new BatteryStatAccumulator()).toStatBuilder().build();
+
+        assertThat(merged.getTotalCount()).isEqualTo(4);
+        assertThat(merged.getTotalCapacity()).isEqualTo(1500);
+        assertThat(merged.getHighestCapacityBatteryName()).isEqualTo("Alpha");
+        assertThat(merged.getLowestCapacityBatteryName()).isEqualTo("Bravo");
+    }
+}
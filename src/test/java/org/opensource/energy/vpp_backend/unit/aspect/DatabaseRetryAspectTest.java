@@ -0,0 +1,164 @@
+package org.opensource.energy.vpp_backend.unit.aspect;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.opensource.energy.vpp_backend.aspect.DatabaseRetryAspect;
+import org.opensource.energy.vpp_backend.aspect.RetryOnDatabaseFailure;
+import org.opensource.energy.vpp_backend.exception.DatabaseUnavailableException;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@Tag("unit")
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class DatabaseRetryAspectTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private FlakyRepository target;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        target = new FlakyRepository();
+    }
+
+    @Test
+    void given_transient_failure_when_called_then_retried_and_result_returned() {
+        FlakyRepository repository = proxy(3, 1.0, 10, 5);
+        target.failures.add(new ConcurrencyFailureException("could not serialize access"));
+
+        assertThat(repository.save()).isEqualTo("saved");
+        assertThat(target.calls).isEqualTo(2);
+        assertThat(meterRegistry.get("vpp.db_retry.retries").counter().count()).isEqualTo(1);
+        assertThat(attempts("contention")).isEqualTo(1);
+        assertThat(attempts("success")).isEqualTo(1);
+    }
+
+    @Test
+    void given_data_error_when_called_then_it_is_not_retried() {
+        FlakyRepository repository = proxy(3, 1.0, 10, 5);
+        target.failures.add(new DataIntegrityViolationException("duplicate key"));
+
+        assertThrows(DataIntegrityViolationException.class, repository::save);
+        assertThat(target.calls).isEqualTo(1);
+        assertThat(attempts("other")).isEqualTo(1);
+    }
+
+    @Test
+    void given_exhausted_retry_budget_when_failure_persists_then_caller_gets_the_failure_early() {
+        FlakyRepository repository = proxy(5, 0.0, 1, 5);
+        target.failures.addAll(List.of(new ConcurrencyFailureException("1"), new ConcurrencyFailureException("2"),
+                new ConcurrencyFailureException("3")));
+
+        assertThrows(ConcurrencyFailureException.class, repository::save);
+        assertThat(target.calls).isEqualTo(2);
+        assertThat(failures("budget_exhausted")).isEqualTo(1);
+    }
+
+    @Test
+    void given_repeated_connection_failures_when_called_again_then_breaker_fails_fast_without_reaching_the_database() {
+        FlakyRepository repository = proxy(1, 1.0, 10, 2);
+        for (int i = 0; i < 2; i++) {
+            target.failures.add(new CannotCreateTransactionException("Could not open JPA EntityManager",
+                    new SQLTransientConnectionException("Connection is not available, request timed out")));
+            assertThrows(CannotCreateTransactionException.class, repository::save);
+        }
+
+        DatabaseUnavailableException ex = assertThrows(DatabaseUnavailableException.class, repository::save);
+
+        assertThat(target.calls).isEqualTo(2);
+        assertThat(ex.getRetryAfterSeconds()).isEqualTo(60);
+        assertThat(meterRegistry.get("vpp.db_retry.breaker.state").gauge().value()).isEqualTo(2);
+        assertThat(failures("short_circuited")).isEqualTo(1);
+    }
+
+    @Test
+    void given_lock_contention_when_attempts_are_exhausted_then_breaker_stays_closed() {
+        FlakyRepository repository = proxy(2, 1.0, 10, 1);
+        target.failures.addAll(List.of(new CannotAcquireLockException("deadlock detected"),
+                new CannotAcquireLockException("deadlock detected")));
+
+        assertThrows(CannotAcquireLockException.class, repository::save);
+
+        assertThat(target.calls).isEqualTo(2);
+        assertThat(failures("attempts_exhausted")).isEqualTo(1);
+        assertThat(meterRegistry.get("vpp.db_retry.breaker.state").gauge().value()).isZero();
+        assertThat(repository.save()).isEqualTo("saved");
+    }
+
+    @Test
+    void given_half_open_breaker_when_probe_calls_another_retried_method_then_nested_call_passes_and_closes_breaker() {
+        FlakyRepository repository = proxy(1, 1.0, 10, 1, Duration.ZERO);
+        target.self = repository;
+        target.failures.add(new CannotCreateTransactionException("Could not open JPA EntityManager",
+                new SQLTransientConnectionException("Connection is not available, request timed out")));
+        assertThrows(CannotCreateTransactionException.class, repository::save);
+        assertThat(meterRegistry.get("vpp.db_retry.breaker.state").gauge().value()).isEqualTo(2);
+
+        assertThat(repository.saveTwice()).isEqualTo("saved");
+
+        assertThat(target.calls).isEqualTo(3);
+        assertThat(failures("short_circuited")).isZero();
+        assertThat(meterRegistry.get("vpp.db_retry.breaker.state").gauge().value()).isZero();
+    }
+
+    private FlakyRepository proxy(int maxAttempts, double budgetRatio, int budgetMaxTokens, int breakerThreshold) {
+        return proxy(maxAttempts, budgetRatio, budgetMaxTokens, breakerThreshold, Duration.ofMinutes(1));
+    }
+
+    private FlakyRepository proxy(int maxAttempts, double budgetRatio, int budgetMaxTokens, int breakerThreshold,
+                                  Duration breakerOpenDuration) {
+        DatabaseRetryAspect aspect = new DatabaseRetryAspect(meterRegistry, maxAttempts, Duration.ZERO, Duration.ZERO,
+                budgetRatio, budgetMaxTokens, breakerThreshold, breakerOpenDuration);
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        return factory.getProxy();
+    }
+
+    private double attempts(String outcome) {
+        return meterRegistry.get("vpp.db_retry.attempts").tag("outcome", outcome).counter().count();
+    }
+
+    private double failures(String reason) {
+        return meterRegistry.get("vpp.db_retry.failures").tag("reason", reason).counter().count();
+    }
+
+    static class FlakyRepository {
+        final Deque<RuntimeException> failures = new ArrayDeque<>();
+        int calls;
+        /** The proxy, so that {@link #saveTwice} goes through the aspect again. */
+        FlakyRepository self;
+
+        @RetryOnDatabaseFailure
+        public String saveTwice() {
+            self.save();
+            return self.save();
+        }
+
+        @RetryOnDatabaseFailure
+        public String save() {
+            calls++;
+            RuntimeException failure = failures.poll();
+            if (failure != null) {
+                throw failure;
+            }
+            return "saved";
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package org.opensource.energy.vpp_backend.unit.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.opensource.energy.vpp_backend.cache.BatteryStatCache;
+import org.opensource.energy.vpp_backend.datasource.DataSourceRoutingContext;
+import org.opensource.energy.vpp_backend.dto.response.FilteredBatteryStat;
+import org.opensource.energy.vpp_backend.entity.Battery;
+import org.opensource.energy.vpp_backend.event.BatteriesSavedEvent;
+import org.opensource.energy.vpp_backend.event.BatteriesUpdatedEvent;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("unit")
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class BatteryStatCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private BatteryStatCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new BatteryStatCache(1_000_000, false, Duration.ofSeconds(5), meterRegistry);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void given_cached_filter_when_get_then_loader_runs_once_and_hits_are_counted() {
+        FilteredBatteryStat first = cache.get(1000, 2000, null, null, this::load);
+        FilteredBatteryStat second = cache.get(1000, 2000, null, null, this::load);
+
+        assertThat(second).isSameAs(first);
+        assertThat(loads).hasValue(1);
+        assertThat(cacheGets("hit")).isEqualTo(1);
+        assertThat(cacheGets("miss")).isEqualTo(1);
+    }
+
+    @Test
+    void given_different_wattage_filter_when_get_then_cached_separately() {
+        cache.get(1000, 2000, null, null, this::load);
+        cache.get(1000, 2000, 100L, 200L, this::load);
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void given_entry_cached_by_unpinned_caller_when_pinned_caller_gets_then_loader_runs_again() {
+        cache.get(1000, 2000, null, null, this::load);
+
+        try (DataSourceRoutingContext.Scope ignored = DataSourceRoutingContext.pinToPrimary()) {
+            cache.get(1000, 2000, null, null, this::load);
+            cache.get(1000, 2000, null, null, this::load);
+        }
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void given_replica_enabled_when_replica_ttl_passes_then_only_unpinned_entry_expires() throws InterruptedException {
+        cache = new BatteryStatCache(1_000_000, true, Duration.ofMillis(20), meterRegistry);
+        cache.get(1000, 2000, null, null, this::load);
+        try (DataSourceRoutingContext.Scope ignored = DataSourceRoutingContext.pinToPrimary()) {
+            cache.get(1000, 2000, null, null, this::load);
+        }
+
+        Thread.sleep(50);
+
+        cache.get(1000, 2000, null, null, this::load);
+        try (DataSourceRoutingContext.Scope ignored = DataSourceRoutingContext.pinToPrimary()) {
+            cache.get(1000, 2000, null, null, this::load);
+        }
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void given_saved_battery_inside_postcode_range_when_committed_then_entry_is_invalidated() {
+        cache.get(1000, 2000, null, null, this::load);
+        cache.get(3000, 4000, null, null, this::load);
+
+        cache.onBatteriesSaved(saved(battery(2000, 150)));
+
+        cache.get(1000, 2000, null, null, this::load);
+        cache.get(3000, 4000, null, null, this::load);
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void given_saved_battery_outside_wattage_range_when_committed_then_entry_is_kept() {
+        cache.get(1000, 2000, 100L, 200L, this::load);
+
+        cache.onBatteriesSaved(saved(battery(1500, 500)));
+        cache.get(1000, 2000, 100L, 200L, this::load);
+        assertThat(loads).hasValue(1);
+
+        cache.onBatteriesSaved(saved(battery(1500, 200)));
+        cache.get(1000, 2000, 100L, 200L, this::load);
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void given_battery_moved_out_of_cached_range_when_update_committed_then_entry_is_invalidated() {
+        cache.get(1000, 2000, null, null, this::load);
+        cache.get(3000, 4000, null, null, this::load);
+        cache.get(5000, 6000, null, null, this::load);
+
+        cache.onBatteriesUpdated(new BatteriesUpdatedEvent(List.of(
+                new BatteriesUpdatedEvent.Change(battery(1500, 100), battery(3500, 100)))));
+
+        cache.get(1000, 2000, null, null, this::load);
+        cache.get(3000, 4000, null, null, this::load);
+        cache.get(5000, 6000, null, null, this::load);
+        assertThat(loads).hasValue(5);
+    }
+
+    @Test
+    void given_save_committed_while_loading_when_get_then_result_is_not_cached() {
+        cache.get(1000, 2000, null, null, () -> {
+            cache.onBatteriesSaved(saved(battery(5000, 1)));
+            return load();
+        });
+
+        cache.get(1000, 2000, null, null, this::load);
+
+        assertThat(loads).hasValue(2);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    private FilteredBatteryStat load() {
+        return FilteredBatteryStat.builder()
+                .batteryNames(List.of("Battery-" + loads.incrementAndGet()))
+                .totalCount(1L)
+                .build();
+    }
+
+    private double cacheGets(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", "batteryStats").tag("result", result)
+                .functionCounter().count();
+    }
+
+    private static BatteriesSavedEvent saved(Battery... batteries) {
+        return new BatteriesSavedEvent(List.of(batteries));
+    }
+
+    private static Battery battery(int postcode, long capacity) {
+        return Battery.builder().name("Saved-" + postcode + "-" + capacity).postcode(postcode).wattCapacity(capacity).build();
+    }
+}
@@ -0,0 +1,157 @@
+package org.opensource.energy.vpp_backend.unit.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.opensource.energy.vpp_backend.cache.BatteryStatSingleFlight;
+import org.opensource.energy.vpp_backend.datasource.DataSourceRoutingContext;
+import org.opensource.energy.vpp_backend.dto.response.FilteredBatteryStat;
+import org.opensource.energy.vpp_backend.event.BatteriesSavedEvent;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@Tag("unit")
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class BatteryStatSingleFlightTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Thread> workers = new CopyOnWriteArrayList<>();
+    private final ExecutorService executor = Executors.newFixedThreadPool(8, task -> {
+        Thread worker = new Thread(task);
+        workers.add(worker);
+        return worker;
+    });
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void given_identical_query_in_flight_when_more_callers_arrive_then_all_share_one_load() throws Exception {
+        BatteryStatSingleFlight singleFlight = new BatteryStatSingleFlight(Duration.ofSeconds(10), meterRegistry);
+        FilteredBatteryStat expected = FilteredBatteryStat.builder().totalCount(3L).build();
+
+        List<Future<FilteredBatteryStat>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> singleFlight.get(1000, 2000, null, null, () -> blockingLoad(expected))));
+        }
+        waitUntil(() -> waitingWorkers() == 8);
+        assertThat(collapsed()).isZero();
+        release.countDown();
+
+        for (Future<FilteredBatteryStat> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isSameAs(expected);
+        }
+        assertThat(loads).hasValue(1);
+        assertThat(collapsed()).isEqualTo(7);
+        assertThat(meterRegistry.get("vpp.single_flight.in_flight").gauge().value()).isZero();
+    }
+
+    @Test
+    void given_shared_query_fails_when_callers_wait_then_every_caller_gets_the_failure() throws Exception {
+        BatteryStatSingleFlight singleFlight = new BatteryStatSingleFlight(Duration.ofSeconds(10), meterRegistry);
+        IllegalStateException failure = new IllegalStateException("connection reset");
+
+        Future<FilteredBatteryStat> leader = executor.submit(() -> singleFlight.get(1000, 2000, null, null, () -> {
+            blockingLoad(null);
+            throw failure;
+        }));
+        waitUntil(() -> loads.get() == 1);
+        Future<FilteredBatteryStat> follower = executor.submit(() -> singleFlight.get(1000, 2000, null, null,
+                () -> blockingLoad(null)));
+        waitUntil(() -> waitingWorkers() == 2);
+        release.countDown();
+
+        assertThat(assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS))).hasCause(failure);
+        assertThat(assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS))).hasCause(failure);
+        assertThat(loads).hasValue(1);
+        assertThat(collapsed()).isEqualTo(1);
+    }
+
+    @Test
+    void given_shared_query_slower_than_max_wait_when_caller_waits_then_it_queries_itself() throws Exception {
+        BatteryStatSingleFlight singleFlight = new BatteryStatSingleFlight(Duration.ofMillis(50), meterRegistry);
+        FilteredBatteryStat own = FilteredBatteryStat.builder().totalCount(1L).build();
+
+        executor.submit(() -> singleFlight.get(1000, 2000, null, null, () -> blockingLoad(null)));
+        waitUntil(() -> loads.get() == 1);
+
+        assertThat(singleFlight.get(1000, 2000, null, null, () -> own)).isSameAs(own);
+        assertThat(meterRegistry.get("vpp.single_flight.timeouts").counter().count()).isEqualTo(1);
+        assertThat(collapsed()).isZero();
+    }
+
+    @Test
+    void given_caller_pinned_to_primary_when_same_filter_is_in_flight_then_it_does_not_join() throws Exception {
+        BatteryStatSingleFlight singleFlight = new BatteryStatSingleFlight(Duration.ofSeconds(10), meterRegistry);
+        FilteredBatteryStat primary = FilteredBatteryStat.builder().totalCount(2L).build();
+
+        executor.submit(() -> singleFlight.get(1000, 2000, null, null, () -> blockingLoad(null)));
+        waitUntil(() -> loads.get() == 1);
+
+        try (DataSourceRoutingContext.Scope ignored = DataSourceRoutingContext.pinToPrimary()) {
+            assertThat(singleFlight.get(1000, 2000, null, null, () -> primary)).isSameAs(primary);
+        }
+        assertThat(collapsed()).isZero();
+    }
+
+    @Test
+    void given_save_committed_while_query_in_flight_when_next_caller_arrives_then_it_starts_a_fresh_query() throws Exception {
+        BatteryStatSingleFlight singleFlight = new BatteryStatSingleFlight(Duration.ofSeconds(10), meterRegistry);
+        FilteredBatteryStat fresh = FilteredBatteryStat.builder().totalCount(4L).build();
+
+        executor.submit(() -> singleFlight.get(1000, 2000, null, null, () -> blockingLoad(null)));
+        waitUntil(() -> loads.get() == 1);
+        singleFlight.onBatteriesSaved(new BatteriesSavedEvent(List.of()));
+
+        assertThat(singleFlight.get(1000, 2000, null, null, () -> fresh)).isSameAs(fresh);
+        assertThat(collapsed()).isZero();
+    }
+
+    private FilteredBatteryStat blockingLoad(FilteredBatteryStat result) {
+        loads.incrementAndGet();
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        return result;
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(condition.getAsBoolean()).as("condition met within 5 s").isTrue();
+    }
+
+    /** Workers parked in a timed wait: the leader in {@link #blockingLoad}, followers on the shared query. */
+    private long waitingWorkers() {
+        return workers.stream().filter(worker -> worker.getState() == Thread.State.TIMED_WAITING).count();
+    }
+
+    private double collapsed() {
+        return meterRegistry.get("vpp.single_flight.collapsed").counter().count();
+    }
+}
@@ -0,0 +1,96 @@
+package org.opensource.energy.vpp_backend.unit.datasource;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.opensource.energy.vpp_backend.datasource.DataSourceRoutingContext;
+import org.opensource.energy.vpp_backend.datasource.ReplicaRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@Tag("unit")
+@ExtendWith(MockitoExtension.class)
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class ReplicaRoutingDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource replica;
+
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaConnection = mock(Connection.class);
+
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @BeforeEach
+    void setUp() {
+        routingDataSource = new ReplicaRoutingDataSource(primary, replica);
+    }
+
+    @AfterEach
+    void clearTransactionState() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    @Test
+    void given_read_only_transaction_when_getting_connection_then_replica_is_used() throws SQLException {
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        beginTransaction(true);
+
+        assertThat(routingDataSource.getConnection()).isSameAs(replicaConnection);
+    }
+
+    @Test
+    void given_read_write_transaction_when_getting_connection_then_primary_is_used_and_write_is_reported()
+            throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        AtomicInteger writes = new AtomicInteger();
+        beginTransaction(false);
+
+        try (DataSourceRoutingContext.Scope ignored = DataSourceRoutingContext.onWrite(writes::incrementAndGet)) {
+            assertThat(routingDataSource.getConnection()).isSameAs(primaryConnection);
+        }
+        assertThat(writes).hasValue(1);
+    }
+
+    @Test
+    void given_read_only_transaction_pinned_to_primary_when_getting_connection_then_primary_is_used()
+            throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        beginTransaction(true);
+
+        try (DataSourceRoutingContext.Scope ignored = DataSourceRoutingContext.pinToPrimary()) {
+            assertThat(routingDataSource.getConnection()).isSameAs(primaryConnection);
+        }
+        assertThat(DataSourceRoutingContext.isPinnedToPrimary()).isFalse();
+    }
+
+    @Test
+    void given_no_transaction_when_getting_connection_then_primary_is_used_without_reporting_a_write()
+            throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        AtomicInteger writes = new AtomicInteger();
+
+        try (DataSourceRoutingContext.Scope ignored = DataSourceRoutingContext.onWrite(writes::incrementAndGet)) {
+            assertThat(routingDataSource.getConnection()).isSameAs(primaryConnection);
+        }
+        assertThat(writes).hasValue(0);
+    }
+
+    private static void beginTransaction(boolean readOnly) {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+    }
+}
@@ -0,0 +1,125 @@
+package org.opensource.energy.vpp_backend.unit.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.*;
+import org.opensource.energy.vpp_backend.datasource.SqlStatementContext;
+import org.opensource.energy.vpp_backend.datasource.StatementAccountingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Tag("unit")
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class StatementAccountingDataSourceTest {
+
+    private static final String SELECT = "SELECT name FROM battery WHERE postcode BETWEEN ? AND ?";
+    private static final String INSERT = "INSERT INTO battery (name) VALUES (?)";
+
+    private final DataSource pool = mock(DataSource.class);
+    private final Connection connection = mock(Connection.class);
+    private final PreparedStatement statement = mock(PreparedStatement.class);
+    private final ResultSet resultSet = mock(ResultSet.class);
+    private final StatementAccountingDataSource dataSource =
+            new StatementAccountingDataSource(pool, Duration.ofSeconds(10));
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        when(pool.getConnection()).thenReturn(connection);
+    }
+
+    @Test
+    void given_open_scope_when_query_is_read_to_the_end_then_statement_and_rows_are_counted() throws SQLException {
+        when(connection.prepareStatement(SELECT)).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, true, false);
+        List<String> recorded = new ArrayList<>();
+
+        try (SqlStatementContext.Scope ignored = SqlStatementContext.begin((stats, sql) -> recorded.add(sql))) {
+            try (Connection con = dataSource.getConnection();
+                 ResultSet rows = con.prepareStatement(SELECT).executeQuery()) {
+                while (rows.next()) {
+                    rows.getString(1);
+                }
+            }
+            SqlStatementContext.Stats stats = SqlStatementContext.current();
+
+            assertThat(stats.getStatements()).isEqualTo(1);
+            assertThat(stats.getRows()).isEqualTo(2);
+            assertThat(recorded).containsExactly(SELECT, null);
+        }
+    }
+
+    @Test
+    void given_nested_scopes_when_batch_is_executed_then_it_counts_once_in_each() throws SQLException {
+        when(connection.prepareStatement(INSERT)).thenReturn(statement);
+        when(statement.executeBatch()).thenReturn(new int[]{1, 1, 1});
+
+        try (SqlStatementContext.Scope outer = SqlStatementContext.begin(null)) {
+            SqlStatementContext.Stats outerStats = SqlStatementContext.current();
+            try (SqlStatementContext.Scope inner = SqlStatementContext.begin(null)) {
+                PreparedStatement insert = dataSource.getConnection().prepareStatement(INSERT);
+                for (int i = 0; i < 3; i++) {
+                    insert.setString(1, "Battery " + i);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+
+                assertThat(SqlStatementContext.current().getStatements()).isEqualTo(1);
+            }
+            assertThat(SqlStatementContext.current()).isSameAs(outerStats);
+            assertThat(outerStats.getStatements()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void given_worker_bound_to_callers_stats_when_it_queries_then_statement_counts_for_the_caller() throws Exception {
+        when(connection.prepareStatement(SELECT)).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+
+        try (SqlStatementContext.Scope ignored = SqlStatementContext.begin(null)) {
+            SqlStatementContext.Stats callerStats = SqlStatementContext.current();
+            Thread worker = new Thread(() -> {
+                try (SqlStatementContext.Scope bound = SqlStatementContext.bind(callerStats)) {
+                    dataSource.getConnection().prepareStatement(SELECT).executeQuery();
+                } catch (SQLException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            });
+            worker.start();
+            worker.join();
+
+            assertThat(callerStats.getStatements()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void given_no_scope_when_query_is_executed_then_result_set_is_returned_unwrapped() throws SQLException {
+        when(connection.prepareStatement(SELECT)).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+
+        ResultSet rows = dataSource.getConnection().prepareStatement(SELECT).executeQuery();
+
+        assertThat(rows).isSameAs(resultSet);
+        assertThat(SqlStatementContext.current()).isNull();
+    }
+
+    @Test
+    void given_wrapped_pool_when_closed_then_pool_is_closed() throws Exception {
+        HikariDataSource hikari = mock(HikariDataSource.class);
+
+        new StatementAccountingDataSource(hikari, Duration.ofSeconds(10)).close();
+
+        verify(hikari).close();
+    }
+}
@@ -0,0 +1,86 @@
+package org.opensource.energy.vpp_backend.unit.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.opensource.energy.vpp_backend.filter.ConcurrencyLimitFilter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("unit")
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class ConcurrencyLimitFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(
+            new ObjectMapper().registerModule(new JavaTimeModule()), meterRegistry,
+            1, 1, 1, 1, 1, 1, 2.0, Duration.ofSeconds(3));
+
+    @Test
+    void given_read_limit_taken_when_another_read_arrives_then_it_is_shed_with_429_and_retry_after() throws Exception {
+        AtomicReference<MockHttpServletResponse> nested = new AtomicReference<>();
+
+        filter.doFilter(request("GET", "/batteries"), new MockHttpServletResponse(), (req, res) -> {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(request("POST", "/batteries/stats"), response, failIfCalled());
+            nested.set(response);
+        });
+
+        MockHttpServletResponse shed = nested.get();
+        assertThat(shed.getStatus()).isEqualTo(429);
+        assertThat(shed.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("3");
+        assertThat(shed.getContentAsString()).contains("\"errorCode\":\"TOO_MANY_REQUESTS\"");
+        assertThat(meterRegistry.get("vpp.concurrency.rejected").tag("class", "read").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("vpp.concurrency.in_flight").tag("class", "read").gauge().value()).isZero();
+    }
+
+    @Test
+    void given_read_limit_taken_when_an_ingest_arrives_then_it_uses_its_own_limit() throws Exception {
+        AtomicReference<Integer> status = new AtomicReference<>();
+
+        filter.doFilter(request("GET", "/batteries"), new MockHttpServletResponse(), (req, res) -> {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(request("POST", "/batteries"), response, (ingestReq, ingestRes) -> { });
+            status.set(response.getStatus());
+        });
+
+        assertThat(status.get()).isEqualTo(200);
+    }
+
+    @Test
+    void given_path_outside_batteries_when_limit_is_taken_then_request_is_not_limited() throws Exception {
+        AtomicReference<Integer> status = new AtomicReference<>();
+
+        filter.doFilter(request("GET", "/batteries"), new MockHttpServletResponse(), (req, res) -> {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(request("GET", "/actuator/health"), response, (healthReq, healthRes) -> { });
+            status.set(response.getStatus());
+        });
+
+        assertThat(status.get()).isEqualTo(200);
+    }
+
+    private static MockHttpServletRequest request(String method, String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/api" + path);
+        request.setContextPath("/api");
+        return request;
+    }
+
+    private static FilterChain failIfCalled() {
+        return (req, res) -> {
+            throw new ServletException("Shed request must not reach the chain");
+        };
+    }
+}
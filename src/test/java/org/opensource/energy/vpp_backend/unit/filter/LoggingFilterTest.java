@@ -5,13 +5,19 @@ import jakarta.servlet.ServletException;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.opensource.energy.vpp_backend.filter.BoundedCaptureRequestWrapper;
+import org.opensource.energy.vpp_backend.filter.BoundedCaptureResponseWrapper;
 import org.opensource.energy.vpp_backend.filter.LoggingFilter;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 
@@ -24,7 +30,7 @@ public class LoggingFilterTest {
 
     @BeforeEach
     void setup() {
-        filter = new LoggingFilter();
+        filter = new LoggingFilter(10, 1_000, 1.0, 1.0, 1.0, "");
         filterChain = mock(FilterChain.class);
     }
 
@@ -39,4 +45,62 @@ public class LoggingFilterTest {
 
         verify(filterChain).doFilter(any(), any());
     }
+
+    @Test
+    void given_ndjson_request_when_filtered_then_response_is_passed_through_unwrapped() throws ServletException, IOException {
+        MockHttpServletRequest mockRequest = new MockHttpServletRequest("GET", "/batteries");
+        mockRequest.addHeader("Accept", "application/x-ndjson");
+
+        MockHttpServletResponse mockResponse = new MockHttpServletResponse();
+
+        filter.doFilter(mockRequest, mockResponse, filterChain);
+
+        verify(filterChain).doFilter(any(), same(mockResponse));
+    }
+
+    @Test
+    void given_bodies_longer_than_capture_limit_when_filtered_then_they_pass_through_whole_and_only_a_prefix_is_kept()
+            throws ServletException, IOException {
+        MockHttpServletRequest mockRequest = new MockHttpServletRequest("POST", "/batteries");
+        mockRequest.setContent("[{\"name\":\"Battery A\"}]".getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse mockResponse = new MockHttpServletResponse();
+        AtomicReference<String> readBody = new AtomicReference<>();
+        AtomicReference<BoundedCaptureRequestWrapper> capturedRequest = new AtomicReference<>();
+        AtomicReference<BoundedCaptureResponseWrapper> capturedResponse = new AtomicReference<>();
+
+        filter.doFilter(mockRequest, mockResponse, (req, res) -> {
+            readBody.set(new String(req.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+            res.getWriter().write("{\"ids\":[1,2,3,4,5]}");
+            capturedRequest.set((BoundedCaptureRequestWrapper) req);
+            capturedResponse.set((BoundedCaptureResponseWrapper) res);
+        });
+
+        assertThat(readBody.get()).isEqualTo("[{\"name\":\"Battery A\"}]");
+        assertThat(mockResponse.getContentAsString()).isEqualTo("{\"ids\":[1,2,3,4,5]}");
+        assertThat(new String(capturedRequest.get().getCapturedBody(), StandardCharsets.UTF_8)).isEqualTo("[{\"name\":\"");
+        assertThat(capturedRequest.get().isTruncated()).isTrue();
+        assertThat(new String(capturedResponse.get().getCapturedBody(), StandardCharsets.UTF_8)).isEqualTo("{\"ids\":[1,");
+    }
+
+    @Test
+    void given_request_body_above_content_length_threshold_when_filtered_then_it_is_not_wrapped()
+            throws ServletException, IOException {
+        MockHttpServletRequest mockRequest = new MockHttpServletRequest("POST", "/batteries");
+        mockRequest.setContent(new byte[2_000]);
+
+        filter.doFilter(mockRequest, new MockHttpServletResponse(), filterChain);
+
+        verify(filterChain).doFilter(same(mockRequest), any());
+    }
+
+    @Test
+    void given_route_sampled_out_when_filtered_then_nothing_is_captured() throws ServletException, IOException {
+        LoggingFilter sampledOut = new LoggingFilter(10, 1_000, 1.0, 1.0, 1.0, "POST /batteries=0");
+        MockHttpServletRequest mockRequest = new MockHttpServletRequest("POST", "/batteries");
+        MockHttpServletResponse mockResponse = new MockHttpServletResponse();
+
+        sampledOut.doFilter(mockRequest, mockResponse, filterChain);
+
+        verify(filterChain).doFilter(same(mockRequest), same(mockResponse));
+    }
 }
@@ -0,0 +1,93 @@
+package org.opensource.energy.vpp_backend.unit.filter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.*;
+import org.opensource.energy.vpp_backend.datasource.DataSourceRoutingContext;
+import org.opensource.energy.vpp_backend.datasource.ReplicaRoutingDataSource;
+import org.opensource.energy.vpp_backend.filter.ReadYourWritesFilter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+@Tag("unit")
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class ReadYourWritesFilterTest {
+
+    private final ReadYourWritesFilter filter = new ReadYourWritesFilter(Duration.ofSeconds(5));
+
+    @Test
+    void given_request_that_writes_when_filtered_then_primary_until_cookie_is_set_once() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/batteries");
+        request.setContextPath("/api");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        long before = System.currentTimeMillis();
+
+        filter.doFilter(request, response, (req, res) -> {
+            recordWrite();
+            recordWrite();
+        });
+
+        assertThat(response.getHeaders(HttpHeaders.SET_COOKIE)).hasSize(1);
+        Cookie cookie = response.getCookie(ReadYourWritesFilter.PRIMARY_UNTIL_COOKIE);
+        assertThat(cookie).isNotNull();
+        assertThat(cookie.getPath()).isEqualTo("/api");
+        assertThat(Long.parseLong(cookie.getValue())).isGreaterThanOrEqualTo(before + 5_000);
+    }
+
+    @Test
+    void given_read_only_request_when_filtered_then_no_cookie_is_set() throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/batteries"), response, (req, res) -> {
+        });
+
+        assertThat(response.getHeaders(HttpHeaders.SET_COOKIE)).isEmpty();
+    }
+
+    @Test
+    void given_cookie_inside_window_when_filtered_then_request_is_pinned_to_primary() throws ServletException, IOException {
+        assertThat(pinnedDuring(System.currentTimeMillis() + 60_000)).isTrue();
+        assertThat(DataSourceRoutingContext.isPinnedToPrimary()).isFalse();
+    }
+
+    @Test
+    void given_expired_cookie_when_filtered_then_request_is_not_pinned() throws ServletException, IOException {
+        assertThat(pinnedDuring(System.currentTimeMillis() - 1)).isFalse();
+    }
+
+    private boolean pinnedDuring(long primaryUntil) throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/batteries");
+        request.setCookies(new Cookie(ReadYourWritesFilter.PRIMARY_UNTIL_COOKIE, Long.toString(primaryUntil)));
+        boolean[] pinned = new boolean[1];
+        FilterChain chain = (req, res) -> pinned[0] = DataSourceRoutingContext.isPinnedToPrimary();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        return pinned[0];
+    }
+
+    /**
+     * Opens a connection for a read-write transaction, as the service layer does when it saves batteries.
+     */
+    private static void recordWrite() throws ServletException {
+        ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(mock(DataSource.class), mock(DataSource.class));
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            routingDataSource.getConnection();
+        } catch (SQLException ex) {
+            throw new ServletException(ex);
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package org.opensource.energy.vpp_backend.unit.filter;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.opensource.energy.vpp_backend.filter.RequestLogSampler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@Tag("unit")
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class RequestLogSamplerTest {
+
+    @Test
+    void given_status_rates_when_sampling_then_rate_follows_status_class() {
+        RequestLogSampler sampler = new RequestLogSampler(0.01, 0.5, 1.0, "");
+
+        assertThat(sampler.statusRate(200)).isEqualTo(0.01);
+        assertThat(sampler.statusRate(302)).isEqualTo(0.01);
+        assertThat(sampler.statusRate(429)).isEqualTo(0.5);
+        assertThat(sampler.statusRate(503)).isEqualTo(1.0);
+        assertThat(sampler.maxStatusRate()).isEqualTo(1.0);
+    }
+
+    @Test
+    void given_route_rates_when_sampling_then_longest_matching_prefix_and_method_win() {
+        RequestLogSampler sampler = new RequestLogSampler(1.0, 1.0, 1.0,
+                "/batteries=0.5, POST /batteries=0.2, POST /batteries/stream=0");
+
+        assertThat(sampler.routeRate("POST", "/batteries/stream")).isZero();
+        assertThat(sampler.routeRate("POST", "/batteries")).isEqualTo(0.2);
+        assertThat(sampler.routeRate("GET", "/batteries/jobs/42")).isEqualTo(0.5);
+        assertThat(sampler.routeRate("GET", "/actuator/health")).isEqualTo(1.0);
+    }
+
+    @Test
+    void given_rate_outside_zero_to_one_when_created_then_rejected() {
+        assertThrows(IllegalArgumentException.class, () -> new RequestLogSampler(1.5, 1.0, 1.0, ""));
+        assertThrows(IllegalArgumentException.class, () -> new RequestLogSampler(1.0, 1.0, 1.0, "/batteries"));
+    }
+}
@@ -0,0 +1,56 @@
+package org.opensource.energy.vpp_backend.unit.filter;
+
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.*;
+import org.opensource.energy.vpp_backend.datasource.SqlStatementContext;
+import org.opensource.energy.vpp_backend.filter.SqlAccountingFilter;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("unit")
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class SqlAccountingFilterTest {
+
+    private final SqlAccountingFilter filter = new SqlAccountingFilter(50, Duration.ofSeconds(1));
+
+    @Test
+    void given_request_running_statements_when_filtered_then_mdc_and_server_timing_report_them()
+            throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        String[] mdcStatements = new String[1];
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/batteries"), response, (req, res) -> {
+            SqlStatementContext.recordStatement("SELECT 1", 2_000_000);
+            SqlStatementContext.recordStatement("SELECT 2", 1_500_000);
+            mdcStatements[0] = MDC.get("dbStatements");
+            res.getWriter().write("{}");
+        });
+
+        assertThat(mdcStatements[0]).isEqualTo("2");
+        assertThat(response.getHeader(SqlAccountingFilter.SERVER_TIMING))
+                .isEqualTo("db;dur=3.5;desc=\"2 statement(s), 0 row(s)\"");
+        assertThat(MDC.get("dbStatements")).isNull();
+        assertThat(SqlStatementContext.current()).isNull();
+    }
+
+    @Test
+    void given_statements_after_response_is_committed_when_filtered_then_header_reports_those_before()
+            throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/batteries"), response, (req, res) -> {
+            SqlStatementContext.recordStatement("SELECT 1", 1_000_000);
+            res.flushBuffer();
+            SqlStatementContext.recordStatement("SELECT 2", 1_000_000);
+        });
+
+        assertThat(response.getHeaders(SqlAccountingFilter.SERVER_TIMING))
+                .containsExactly("db;dur=1.0;desc=\"1 statement(s), 0 row(s)\"");
+    }
+}
@@ -0,0 +1,264 @@
+package org.opensource.energy.vpp_backend.unit.index;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.opensource.energy.vpp_backend.aggregate.BatteryStatAccumulator;
+import org.opensource.energy.vpp_backend.dto.response.FilteredBatteryStat;
+import org.opensource.energy.vpp_backend.entity.Battery;
+import org.opensource.energy.vpp_backend.event.BatteriesSavedEvent;
+import org.opensource.energy.vpp_backend.event.BatteriesUpdatedEvent;
+import org.opensource.energy.vpp_backend.index.BatteryAggregateIndex;
+import org.opensource.energy.vpp_backend.repository.BatteryJdbcRepository;
+import org.opensource.energy.vpp_backend.repository.BatteryPostcodeSummaryRepository;
+import org.opensource.energy.vpp_backend.repository.projection.PostcodeAggregate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Tag("unit")
+@ExtendWith(MockitoExtension.class)
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class BatteryAggregateIndexTest {
+
+    @Mock
+    private BatteryJdbcRepository batteryJdbcRepository;
+
+    @Mock
+    private BatteryPostcodeSummaryRepository postcodeSummaryRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void given_loaded_aggregates_when_readTotals_then_returns_range_totals_and_extremes() {
+        BatteryAggregateIndex index = loadedIndex(9999, List.of(
+                new PostcodeAggregate(1000, 2, 500, 400, "Charlie", 100, "Bravo"),
+                new PostcodeAggregate(1001, 1, 200, 200, "Alpha", 200, "Alpha"),
+                new PostcodeAggregate(2000, 1, 200, 200, "Echo", 200, "Echo")));
+
+        FilteredBatteryStat stat = index.readTotals(1000, 1001).build();
+
+        assertThat(stat.getTotalCount()).isEqualTo(3);
+        assertThat(stat.getTotalCapacity()).isEqualTo(700);
+        assertThat(stat.getAverageCapacity()).isEqualTo(233);
+        assertThat(stat.getHighestCapacityBatteryName()).isEqualTo("Charlie");
+        assertThat(stat.getLowestCapacityBatteryName()).isEqualTo("Bravo");
+    }
+
+    @Test
+    void given_equal_capacities_in_different_postcodes_when_readTotals_then_alphabetically_first_name_wins() {
+        BatteryAggregateIndex index = loadedIndex(9999, List.of(
+                new PostcodeAggregate(1001, 1, 200, 200, "Echo", 200, "Echo"),
+                new PostcodeAggregate(2000, 1, 200, 200, "Alpha", 200, "Alpha")));
+
+        FilteredBatteryStat stat = index.readTotals(0, 9999).build();
+
+        assertThat(stat.getHighestCapacityBatteryName()).isEqualTo("Alpha");
+        assertThat(stat.getLowestCapacityBatteryName()).isEqualTo("Alpha");
+    }
+
+    @Test
+    void given_empty_range_when_readTotals_then_returns_zero_totals() {
+        BatteryAggregateIndex index = loadedIndex(9999, List.of(
+                new PostcodeAggregate(1000, 1, 100, 100, "Alpha", 100, "Alpha")));
+
+        FilteredBatteryStat stat = index.readTotals(3000, 4000).build();
+
+        assertThat(stat.getTotalCount()).isZero();
+        assertThat(stat.getAverageCapacity()).isZero();
+        assertThat(stat.getHighestCapacityBatteryName()).isNull();
+        assertThat(stat.getLowestCapacityBatteryName()).isNull();
+    }
+
+    @Test
+    void given_saved_batteries_when_event_applied_then_totals_are_updated_in_place() {
+        BatteryAggregateIndex index = loadedIndex(9999, List.of(
+                new PostcodeAggregate(1000, 1, 100, 100, "Bravo", 100, "Bravo")));
+
+        index.onBatteriesSaved(new BatteriesSavedEvent(List.of(
+                battery("Alpha", 1000, 100), battery("Zulu", 1500, 900), battery("Far", 20000, 5))));
+
+        FilteredBatteryStat stat = index.readTotals(0, 9999).build();
+        assertThat(stat.getTotalCount()).isEqualTo(3);
+        assertThat(stat.getTotalCapacity()).isEqualTo(1100);
+        assertThat(stat.getHighestCapacityBatteryName()).isEqualTo("Zulu");
+        assertThat(stat.getLowestCapacityBatteryName()).isEqualTo("Alpha");
+    }
+
+    @Test
+    void given_updated_battery_when_event_applied_then_only_its_postcodes_are_refreshed_from_summary() throws InterruptedException {
+        BatteryAggregateIndex index = loadedIndex(9999, List.of(
+                new PostcodeAggregate(1000, 2, 500, 400, "Charlie", 100, "Bravo"),
+                new PostcodeAggregate(3000, 1, 10, 10, "Delta", 10, "Delta")));
+        when(postcodeSummaryRepository.findByPostcodes(anyCollection())).thenReturn(List.of(
+                new PostcodeAggregate(1000, 1, 100, 100, "Bravo", 100, "Bravo"),
+                new PostcodeAggregate(2000, 1, 50, 50, "Charlie", 50, "Charlie")));
+
+        index.onBatteriesUpdated(new BatteriesUpdatedEvent(List.of(new BatteriesUpdatedEvent.Change(
+                battery("Charlie", 1000, 400), battery("Charlie", 2000, 50)))));
+
+        assertThat(index.isReady()).isTrue();
+        assertThat(index.covers(3000, 3000)).isTrue();
+        awaitCovered(index, 0, 9999);
+        FilteredBatteryStat postcode1000 = index.readTotals(1000, 1000).build();
+        assertThat(postcode1000.getTotalCount()).isEqualTo(1);
+        assertThat(postcode1000.getHighestCapacityBatteryName()).isEqualTo("Bravo");
+        FilteredBatteryStat all = index.readTotals(0, 9999).build();
+        assertThat(all.getTotalCount()).isEqualTo(3);
+        assertThat(all.getTotalCapacity()).isEqualTo(160);
+        assertThat(all.getHighestCapacityBatteryName()).isEqualTo("Bravo");
+        assertThat(all.getLowestCapacityBatteryName()).isEqualTo("Delta");
+        verify(postcodeSummaryRepository).findByPostcodes(Set.of(1000, 2000));
+        verify(postcodeSummaryRepository, times(1)).findAll();
+    }
+
+    @Test
+    void given_failing_refresh_when_retried_then_postcode_becomes_covered_again() throws InterruptedException {
+        BatteryAggregateIndex index = loadedIndex(9999, List.of(
+                new PostcodeAggregate(1000, 1, 400, 400, "Charlie", 400, "Charlie")));
+        when(postcodeSummaryRepository.findByPostcodes(anyCollection()))
+                .thenThrow(new IllegalStateException("database unavailable"))
+                .thenReturn(List.of(new PostcodeAggregate(1000, 1, 300, 300, "Charlie", 300, "Charlie")));
+
+        index.onBatteriesUpdated(new BatteriesUpdatedEvent(List.of(new BatteriesUpdatedEvent.Change(
+                battery("Charlie", 1000, 400), battery("Charlie", 1000, 300)))));
+
+        awaitCovered(index, 1000, 1000);
+        assertThat(index.readTotals(1000, 1000).build().getTotalCapacity()).isEqualTo(300);
+        verify(postcodeSummaryRepository, times(2)).findByPostcodes(anyCollection());
+    }
+
+    @Test
+    void given_save_delivered_while_loading_when_loaded_then_its_postcode_is_refreshed_before_it_is_covered() throws InterruptedException {
+        BatteryAggregateIndex index = new BatteryAggregateIndex(batteryJdbcRepository, postcodeSummaryRepository, transactionManager, 9999);
+        index.onBatteriesSaved(new BatteriesSavedEvent(List.of(battery("Alpha", 1000, 100))));
+        when(postcodeSummaryRepository.findAll()).thenAnswer(invocation -> {
+            index.onBatteriesSaved(new BatteriesSavedEvent(List.of(battery("Beta", 2000, 50))));
+            return List.of(new PostcodeAggregate(1000, 1, 100, 100, "Alpha", 100, "Alpha"));
+        });
+        when(postcodeSummaryRepository.findByPostcodes(Set.of(2000))).thenReturn(List.of(
+                new PostcodeAggregate(2000, 1, 50, 50, "Beta", 50, "Beta")));
+
+        index.load();
+
+        assertThat(index.covers(1000, 1000)).isTrue();
+        assertThat(index.readTotals(1000, 1000).build().getTotalCount()).isEqualTo(1);
+        awaitCovered(index, 0, 9999);
+        FilteredBatteryStat stat = index.readTotals(0, 9999).build();
+        assertThat(stat.getTotalCount()).isEqualTo(2);
+        assertThat(stat.getLowestCapacityBatteryName()).isEqualTo("Beta");
+    }
+
+    @Test
+    void given_save_committed_before_load_snapshot_when_delivered_after_load_then_it_is_not_counted_twice() {
+        BatteryAggregateIndex index = new BatteryAggregateIndex(batteryJdbcRepository, postcodeSummaryRepository, transactionManager, 9999);
+        BatteriesSavedEvent event = new BatteriesSavedEvent(List.of(battery("Alpha", 1000, 100)));
+        index.onBatteriesCommitting(event);
+        when(postcodeSummaryRepository.findAll()).thenReturn(List.of(
+                new PostcodeAggregate(1000, 1, 100, 100, "Alpha", 100, "Alpha")));
+        when(batteryJdbcRepository.findExistingNames(List.of("Alpha"))).thenReturn(Set.of("Alpha"));
+        index.load();
+
+        index.onBatteriesSaved(event);
+        index.onBatteriesSaved(new BatteriesSavedEvent(List.of(battery("Beta", 1000, 50))));
+
+        FilteredBatteryStat stat = index.readTotals(1000, 1000).build();
+        assertThat(stat.getTotalCount()).isEqualTo(2);
+        assertThat(stat.getTotalCapacity()).isEqualTo(150);
+    }
+
+    @Test
+    void given_save_committed_after_load_snapshot_when_delivered_after_load_then_it_is_counted() {
+        BatteryAggregateIndex index = loadedIndex(9999, List.of());
+        BatteriesSavedEvent committing = new BatteriesSavedEvent(List.of(battery("Alpha", 1000, 100)));
+        BatteriesSavedEvent rolledBack = new BatteriesSavedEvent(List.of(battery("Beta", 1000, 50)));
+        index.onBatteriesCommitting(committing);
+        index.onBatteriesCommitting(rolledBack);
+        index.onBatteriesRolledBack(rolledBack);
+        index.load();
+
+        index.onBatteriesSaved(committing);
+
+        assertThat(index.readTotals(1000, 1000).build().getTotalCount()).isEqualTo(1);
+    }
+
+    @Test
+    void given_range_beyond_max_postcode_when_covers_then_returns_false() {
+        BatteryAggregateIndex index = loadedIndex(9999, List.of());
+
+        assertThat(index.covers(0, 9999)).isTrue();
+        assertThat(index.covers(9000, 10000)).isFalse();
+        assertThrows(IllegalStateException.class, () -> index.readTotals(9000, 10000));
+    }
+
+    @Test
+    void given_index_not_loaded_when_covers_then_returns_false() {
+        BatteryAggregateIndex index = new BatteryAggregateIndex(batteryJdbcRepository, postcodeSummaryRepository, transactionManager, 9999);
+
+        assertThat(index.isReady()).isFalse();
+        assertThat(index.covers(0, 10)).isFalse();
+    }
+
+    @Test
+    void given_random_fleet_when_readTotals_then_matches_linear_scan_for_every_range() {
+        Random random = new Random(42);
+        int maxPostcode = 40;
+        List<Battery> fleet = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            fleet.add(battery("bat-" + random.nextInt(100_000), random.nextInt(maxPostcode + 1), random.nextInt(20)));
+        }
+        BatteryAggregateIndex index = loadedIndex(maxPostcode, List.of());
+        index.onBatteriesSaved(new BatteriesSavedEvent(fleet));
+
+        for (int from = 0; from <= maxPostcode; from++) {
+            for (int to = from; to <= maxPostcode; to++) {
+                BatteryStatAccumulator expected = new BatteryStatAccumulator();
+                for (Battery battery : fleet) {
+                    if (battery.getPostcode() >= from && battery.getPostcode() <= to) {
+                        expected.accept(battery.getName(), battery.getWattCapacity());
+                    }
+                }
+                assertThat(index.readTotals(from, to).build())
+                        .as("postcode range [%d - %d]", from, to)
+                        .isEqualTo(expected.toStatBuilder().build());
+            }
+        }
+    }
+
+    private BatteryAggregateIndex loadedIndex(int maxPostcode, List<PostcodeAggregate> aggregates) {
+        when(postcodeSummaryRepository.findAll()).thenReturn(aggregates);
+        when(batteryJdbcRepository.findExistingNames(anyCollection())).thenReturn(Set.of());
+        BatteryAggregateIndex index = new BatteryAggregateIndex(batteryJdbcRepository, postcodeSummaryRepository, transactionManager, maxPostcode);
+        index.load();
+        return index;
+    }
+
+    /** Dirty postcodes are refreshed on a background thread. */
+    private static void awaitCovered(BatteryAggregateIndex index, int postcodeFrom, int postcodeTo)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!index.covers(postcodeFrom, postcodeTo) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(index.covers(postcodeFrom, postcodeTo)).isTrue();
+    }
+
+    private static Battery battery(String name, int postcode, long capacity) {
+        return Battery.builder().name(name).postcode(postcode).wattCapacity(capacity).build();
+    }
+}
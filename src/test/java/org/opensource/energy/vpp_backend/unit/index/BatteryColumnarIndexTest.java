@@ -0,0 +1,186 @@
+package org.opensource.energy.vpp_backend.unit.index;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.opensource.energy.vpp_backend.dto.response.FilteredBatteryStat;
+import org.opensource.energy.vpp_backend.entity.Battery;
+import org.opensource.energy.vpp_backend.event.BatteriesSavedEvent;
+import org.opensource.energy.vpp_backend.event.BatteriesUpdatedEvent;
+import org.opensource.energy.vpp_backend.index.BatteryColumnarIndex;
+import org.opensource.energy.vpp_backend.metrics.BatteryMetrics;
+import org.opensource.energy.vpp_backend.repository.BatteryJdbcRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@Tag("unit")
+@ExtendWith(MockitoExtension.class)
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class BatteryColumnarIndexTest {
+
+    @Mock
+    private BatteryJdbcRepository batteryJdbcRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private BatteryColumnarIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BatteryColumnarIndex(batteryJdbcRepository, new BatteryMetrics(new SimpleMeterRegistry()),
+                transactionManager);
+    }
+
+    @Test
+    void given_loaded_index_when_read_then_returns_sorted_names_and_totals() {
+        givenDatabaseRows();
+        index.load();
+
+        FilteredBatteryStat stat = index.read(1000, 1002, null, null);
+
+        assertThat(stat.getBatteryNames()).containsExactly("Alpha", "Bravo", "Charlie", "delta");
+        assertThat(stat.getTotalCount()).isEqualTo(4);
+        assertThat(stat.getTotalCapacity()).isEqualTo(1000);
+        assertThat(stat.getAverageCapacity()).isEqualTo(250);
+        assertThat(stat.getHighestCapacityBatteryName()).isEqualTo("Charlie");
+        assertThat(stat.getLowestCapacityBatteryName()).isEqualTo("Bravo");
+    }
+
+    @Test
+    void given_wattage_filter_when_read_then_only_matching_capacities_are_counted() {
+        givenDatabaseRows();
+        index.load();
+
+        FilteredBatteryStat stat = index.read(1000, 2000, 200L, 300L);
+
+        assertThat(stat.getBatteryNames()).containsExactly("Alpha", "Echo", "delta");
+        assertThat(stat.getTotalCapacity()).isEqualTo(700);
+    }
+
+    @Test
+    void given_equal_capacities_when_read_then_alphabetically_first_name_wins_ties() {
+        givenDatabaseRows();
+        index.load();
+        index.onBatteriesSaved(new BatteriesSavedEvent(List.of(battery("Able", 2500, 400L))));
+
+        FilteredBatteryStat stat = index.read(1000, 2500, 400L, 400L);
+
+        assertThat(stat.getBatteryNames()).containsExactly("Able", "Charlie");
+        assertThat(stat.getHighestCapacityBatteryName()).isEqualTo("Able");
+        assertThat(stat.getLowestCapacityBatteryName()).isEqualTo("Able");
+    }
+
+    @Test
+    void given_names_outside_the_bmp_when_read_then_names_and_ties_follow_code_point_order() {
+        givenDatabaseRows();
+        index.load();
+        String emoji = "Battery \ud83d\udd0b";
+        String fullwidth = "Battery \uff21";
+        index.onBatteriesSaved(new BatteriesSavedEvent(List.of(battery(emoji, 3000, 700L),
+                battery(fullwidth, 3000, 700L))));
+
+        FilteredBatteryStat stat = index.read(3000, 3000, null, null);
+
+        assertThat(stat.getBatteryNames()).containsExactly(fullwidth, emoji);
+        assertThat(stat.getHighestCapacityBatteryName()).isEqualTo(fullwidth);
+        assertThat(stat.getLowestCapacityBatteryName()).isEqualTo(fullwidth);
+    }
+
+    @Test
+    void given_empty_range_when_read_then_returns_zero_stats() {
+        givenDatabaseRows();
+        index.load();
+
+        FilteredBatteryStat stat = index.read(3000, 4000, null, null);
+
+        assertThat(stat.getBatteryNames()).isEmpty();
+        assertThat(stat.getTotalCount()).isZero();
+        assertThat(stat.getAverageCapacity()).isZero();
+        assertThat(stat.getHighestCapacityBatteryName()).isNull();
+    }
+
+    @Test
+    void given_saved_batteries_when_event_applied_then_they_are_merged_in_order() {
+        givenDatabaseRows();
+        index.load();
+
+        index.onBatteriesSaved(new BatteriesSavedEvent(List.of(
+                battery("Zulu", 999, 50L),
+                battery("Bravo", 1001, 5000L),
+                battery("Aardvark", 1001, 400L))));
+
+        FilteredBatteryStat stat = index.read(0, 5000, null, null);
+        assertThat(index.size()).isEqualTo(7);
+        assertThat(stat.getBatteryNames())
+                .containsExactly("Aardvark", "Alpha", "Bravo", "Charlie", "Echo", "Zulu", "delta");
+        assertThat(stat.getLowestCapacityBatteryName()).isEqualTo("Zulu");
+        assertThat(index.read(1001, 1001, null, null).getBatteryNames()).containsExactly("Aardvark", "Alpha");
+    }
+
+    @Test
+    void given_updated_batteries_when_event_applied_then_rows_move_to_their_new_postcode_and_capacity() {
+        givenDatabaseRows();
+        index.load();
+
+        index.onBatteriesUpdated(new BatteriesUpdatedEvent(List.of(
+                new BatteriesUpdatedEvent.Change(battery("Charlie", 1000, 400L), battery("Charlie", 2000, 50L)),
+                new BatteriesUpdatedEvent.Change(battery("Alpha", 1001, 200L), battery("Alpha", 1001, 900L)))));
+
+        assertThat(index.size()).isEqualTo(5);
+        FilteredBatteryStat postcode1000 = index.read(1000, 1000, null, null);
+        assertThat(postcode1000.getBatteryNames()).containsExactly("Bravo");
+        assertThat(postcode1000.getHighestCapacityBatteryName()).isEqualTo("Bravo");
+        FilteredBatteryStat postcode2000 = index.read(2000, 2000, null, null);
+        assertThat(postcode2000.getBatteryNames()).containsExactly("Charlie", "Echo");
+        assertThat(postcode2000.getLowestCapacityBatteryName()).isEqualTo("Charlie");
+        assertThat(index.read(0, 5000, null, null).getHighestCapacityBatteryName()).isEqualTo("Alpha");
+        assertThat(index.read(0, 5000, null, null).getTotalCapacity()).isEqualTo(1550);
+    }
+
+    @Test
+    void given_event_before_load_when_loaded_then_pending_batteries_are_applied_once() {
+        index.onBatteriesSaved(new BatteriesSavedEvent(List.of(battery("Alpha", 1001, 200L), battery("Foxtrot", 1500, 10L))));
+        givenDatabaseRows();
+
+        index.load();
+
+        assertThat(index.size()).isEqualTo(6);
+        assertThat(index.read(1000, 2000, null, null).getTotalCount()).isEqualTo(6);
+    }
+
+    @Test
+    void given_index_not_loaded_when_read_then_throws_exception() {
+        assertThat(index.isReady()).isFalse();
+
+        assertThrows(IllegalStateException.class, () -> index.read(1000, 2000, null, null));
+    }
+
+    private void givenDatabaseRows() {
+        doAnswer(invocation -> {
+            BatteryJdbcRepository.BatteryRecordHandler handler = invocation.getArgument(0);
+            handler.accept("Charlie", 1000, 400L);
+            handler.accept("Bravo", 1000, 100L);
+            handler.accept("Alpha", 1001, 200L);
+            handler.accept("delta", 1002, 300L);
+            handler.accept("Echo", 2000, 200L);
+            return null;
+        }).when(batteryJdbcRepository).streamAllOrderedByPostcode(any());
+    }
+
+    private static Battery battery(String name, int postcode, long capacity) {
+        return Battery.builder().name(name).postcode(postcode).wattCapacity(capacity).build();
+    }
+}
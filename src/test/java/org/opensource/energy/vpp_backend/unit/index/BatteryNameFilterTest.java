@@ -0,0 +1,122 @@
+package org.opensource.energy.vpp_backend.unit.index;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.opensource.energy.vpp_backend.entity.Battery;
+import org.opensource.energy.vpp_backend.event.BatteriesSavedEvent;
+import org.opensource.energy.vpp_backend.index.BatteryNameFilter;
+import org.opensource.energy.vpp_backend.repository.BatteryJdbcRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@Tag("unit")
+@ExtendWith(MockitoExtension.class)
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class BatteryNameFilterTest {
+
+    @Mock
+    private BatteryJdbcRepository batteryJdbcRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void given_stored_names_when_loaded_then_they_are_reported_as_possibly_existing() {
+        doAnswer(invocation -> {
+            Consumer<String> handler = invocation.getArgument(0);
+            List.of("Alpha", "Bravo").forEach(handler);
+            return null;
+        }).when(batteryJdbcRepository).streamAllNames(any());
+        BatteryNameFilter filter = filter(1000, 0.01);
+
+        assertThat(filter.isReady()).isFalse();
+        filter.load();
+
+        assertThat(filter.isReady()).isTrue();
+        assertThat(filter.mightContain("Alpha")).isTrue();
+        assertThat(filter.mightContain("Bravo")).isTrue();
+        assertThat(meterRegistry.get("vpp.name_filter.names").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    void given_names_beyond_initial_capacity_when_added_then_filter_grows_without_false_negatives_or_exceeding_the_rate() {
+        BatteryNameFilter filter = filter(1000, 0.01);
+        long initialBytes = filter.memoryBytes();
+
+        IntStream.range(0, 20_000).forEach(i -> filter.put("Battery-" + i));
+
+        assertThat(filter.memoryBytes()).isGreaterThan(initialBytes);
+        assertThat(IntStream.range(0, 20_000).allMatch(i -> filter.mightContain("Battery-" + i))).isTrue();
+        long falsePositives = IntStream.range(0, 100_000).filter(i -> filter.mightContain("Unknown-" + i)).count();
+        assertThat(falsePositives / 100_000.0).isLessThan(0.015);
+        assertThat(filter.expectedFalsePositiveRate()).isLessThan(0.01);
+        assertThat(meterRegistry.get("vpp.name_filter.memory").gauge().value()).isEqualTo(filter.memoryBytes());
+    }
+
+    @Test
+    void given_certainly_new_names_when_finding_existing_names_then_database_is_not_asked() {
+        BatteryNameFilter filter = filter(1000, 0.01);
+        List<List<String>> lookups = new ArrayList<>();
+
+        Set<String> existing = filter.findExistingNames(List.of("Alpha", "Bravo"), names -> {
+            lookups.add(names);
+            return Set.of();
+        });
+
+        assertThat(existing).isEmpty();
+        assertThat(lookups).isEmpty();
+        assertThat(lookups("absent")).isEqualTo(2);
+    }
+
+    @Test
+    void given_saved_names_when_finding_existing_names_then_only_positives_are_looked_up_and_false_positives_counted() {
+        BatteryNameFilter filter = filter(1000, 0.01);
+        filter.onBatteriesSaved(new BatteriesSavedEvent(List.of(
+                Battery.builder().name("Alpha").build(), Battery.builder().name("Bravo").build())));
+        List<List<String>> lookups = new ArrayList<>();
+
+        // Bravo was saved in a transaction that rolled back, so only Alpha is really stored.
+        Set<String> existing = filter.findExistingNames(List.of("Alpha", "Bravo", "Charlie"), names -> {
+            lookups.add(names);
+            return Set.of("Alpha");
+        });
+
+        assertThat(existing).containsExactly("Alpha");
+        assertThat(lookups).containsExactly(List.of("Alpha", "Bravo"));
+        assertThat(lookups("absent")).isEqualTo(1);
+        assertThat(lookups("present")).isEqualTo(1);
+        assertThat(lookups("false_positive")).isEqualTo(1);
+    }
+
+    private BatteryNameFilter filter(long initialCapacity, double falsePositiveRate) {
+        return new BatteryNameFilter(batteryJdbcRepository, transactionManager, meterRegistry,
+                initialCapacity, falsePositiveRate);
+    }
+
+    private double lookups(String result) {
+        return meterRegistry.get("vpp.name_filter.lookups").tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,92 @@
+package org.opensource.energy.vpp_backend.unit.limit;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.opensource.energy.vpp_backend.limit.GradientConcurrencyLimit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("unit")
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class GradientConcurrencyLimitTest {
+
+    private static final long RTT = 10_000_000;
+
+    @Test
+    void given_limit_reached_when_acquiring_then_request_is_refused_until_a_slot_is_released() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(2, 1, 10, 2.0);
+
+        assertThat(limit.tryAcquire()).isTrue();
+        assertThat(limit.tryAcquire()).isTrue();
+        assertThat(limit.tryAcquire()).isFalse();
+        assertThat(limit.getInFlight()).isEqualTo(2);
+
+        limit.onComplete(RTT, false);
+
+        assertThat(limit.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void given_saturated_limit_and_steady_latency_when_requests_complete_then_limit_grows_up_to_max() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(10, 1, 50, 2.0);
+
+        for (int i = 0; i < 500; i++) {
+            fillAndComplete(limit, RTT);
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(50);
+    }
+
+    @Test
+    void given_idle_service_when_requests_complete_then_limit_does_not_grow() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(10, 1, 50, 2.0);
+
+        for (int i = 0; i < 100; i++) {
+            limit.tryAcquire();
+            limit.onComplete(RTT, false);
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(10);
+    }
+
+    @Test
+    void given_latency_rising_well_beyond_tolerance_when_requests_complete_then_limit_shrinks() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(40, 2, 50, 2.0);
+        for (int i = 0; i < 20; i++) {
+            fillAndComplete(limit, RTT);
+        }
+        int before = limit.getLimit();
+
+        for (int i = 0; i < 10; i++) {
+            fillAndComplete(limit, RTT * 20);
+        }
+
+        assertThat(limit.getLimit()).isLessThan(before / 4);
+    }
+
+    @Test
+    void given_failed_request_when_completed_then_limit_drops_by_ten_percent_but_not_below_min() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(20, 17, 50, 2.0);
+
+        limit.tryAcquire();
+        limit.onComplete(RTT, true);
+        assertThat(limit.getLimit()).isEqualTo(18);
+
+        limit.tryAcquire();
+        limit.onComplete(RTT, true);
+        assertThat(limit.getLimit()).isEqualTo(17);
+    }
+
+    /** Takes every slot, then completes them all, so each sample sees a fully used limit. */
+    private static void fillAndComplete(GradientConcurrencyLimit limit, long rttNanos) {
+        int acquired = 0;
+        while (limit.tryAcquire()) {
+            acquired++;
+        }
+        for (int i = 0; i < acquired; i++) {
+            limit.onComplete(rttNanos, false);
+        }
+    }
+}
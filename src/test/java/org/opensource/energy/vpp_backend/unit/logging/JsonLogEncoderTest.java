@@ -0,0 +1,65 @@
+package org.opensource.energy.vpp_backend.unit.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.opensource.energy.vpp_backend.logging.JsonLogEncoder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("unit")
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class JsonLogEncoderTest {
+
+    private final LoggerContext context = new LoggerContext();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private JsonLogEncoder encoder;
+
+    @BeforeEach
+    void setUp() {
+        context.setMDCAdapter(new LogbackMDCAdapter());
+        encoder = new JsonLogEncoder();
+        encoder.setContext(context);
+        encoder.setMaxArgumentLength(8);
+        encoder.start();
+    }
+
+    @Test
+    void given_event_with_mdc_and_exception_when_encoding_then_one_json_line_carries_all_fields() throws Exception {
+        LoggingEvent event = new LoggingEvent("fqcn", context.getLogger("battery.service"), Level.ERROR,
+                "Saving \"{}\" failed", new IllegalStateException("pool exhausted"), new Object[]{"line\nbreak"});
+        event.setMDCPropertyMap(Map.of("traceId", "abc123"));
+
+        String line = new String(encoder.encode(event), StandardCharsets.UTF_8);
+
+        assertThat(line).endsWith("}\n").doesNotContain("line\nbreak");
+        JsonNode json = objectMapper.readTree(line);
+        assertThat(json.get("level").asText()).isEqualTo("ERROR");
+        assertThat(json.get("logger").asText()).isEqualTo("battery.service");
+        assertThat(json.get("message").asText()).isEqualTo("Saving \"line\nbre... (10 chars)\" failed");
+        assertThat(json.get("traceId").asText()).isEqualTo("abc123");
+        assertThat(json.get("stack_trace").asText()).contains("IllegalStateException: pool exhausted");
+        assertThat(json.get("@timestamp").asText()).endsWith("Z");
+    }
+
+    @Test
+    void given_huge_message_when_encoding_repeatedly_then_later_events_are_unaffected() throws Exception {
+        String huge = "x".repeat(200_000);
+        encoder.encode(new LoggingEvent("fqcn", context.getLogger("big"), Level.INFO, huge, null, null));
+
+        byte[] small = encoder.encode(new LoggingEvent("fqcn", context.getLogger("small"), Level.INFO, "ok", null, null));
+
+        assertThat(objectMapper.readTree(small).get("message").asText()).isEqualTo("ok");
+    }
+}
@@ -0,0 +1,94 @@
+package org.opensource.energy.vpp_backend.unit.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.AppenderBase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.opensource.energy.vpp_backend.logging.LossyAsyncAppender;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("unit")
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class LossyAsyncAppenderTest {
+
+    private final LoggerContext context = new LoggerContext();
+    private final CountDownLatch released = new CountDownLatch(1);
+    private final List<String> written = new CopyOnWriteArrayList<>();
+    private LossyAsyncAppender appender;
+    private Logger logger;
+
+    @BeforeEach
+    void setUp() {
+        context.setMDCAdapter(new LogbackMDCAdapter());
+        AppenderBase<ILoggingEvent> slowSink = new AppenderBase<>() {
+            @Override
+            protected void append(ILoggingEvent event) {
+                try {
+                    released.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                written.add(event.getLevel() + " " + event.getFormattedMessage());
+            }
+        };
+        slowSink.setContext(context);
+        slowSink.start();
+
+        appender = new LossyAsyncAppender();
+        appender.setContext(context);
+        appender.setQueueSize(10);
+        appender.setMaxArgumentLength(16);
+        appender.addAppender(slowSink);
+        appender.start();
+
+        logger = context.getLogger(LossyAsyncAppenderTest.class);
+        logger.addAppender(appender);
+    }
+
+    @AfterEach
+    void tearDown() {
+        released.countDown();
+        context.stop();
+    }
+
+    @Test
+    void given_blocked_writer_when_queue_fills_up_then_info_is_dropped_and_counted_while_warn_is_kept() {
+        for (int i = 0; i < 20; i++) {
+            logger.info("Event {}", i);
+        }
+        logger.warn("Still delivered");
+
+        released.countDown();
+        appender.stop();
+
+        assertThat(appender.getDiscardedCount()).isPositive();
+        assertThat(written).hasSize(21 - (int) appender.getDiscardedCount());
+        assertThat(written).contains("WARN Still delivered");
+    }
+
+    @Test
+    void given_argument_mutated_after_call_when_written_then_message_reflects_call_time_and_is_truncated() {
+        List<Long> ids = new ArrayList<>(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L));
+
+        logger.info("IDs: {}", ids);
+        ids.clear();
+        released.countDown();
+        appender.stop();
+
+        assertThat(written).containsExactly("INFO IDs: [1, 2, 3, 4, 5, 6... (8 items)]");
+    }
+}
@@ -0,0 +1,56 @@
+package org.opensource.energy.vpp_backend.unit.logging;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.opensource.energy.vpp_backend.logging.TruncatingMessageFormatter;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("unit")
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class TruncatingMessageFormatterTest {
+
+    @Test
+    void given_short_arguments_when_formatting_then_output_matches_slf4j() {
+        assertThat(format("Saved {} of {} record(s){}", 10, 3, 2L, "."))
+                .isEqualTo("Saved 3 of 2 record(s).");
+        assertThat(format("Escaped \\{} and {}", 10, "value")).isEqualTo("Escaped {} and value");
+        assertThat(format("Missing {} and {}", 10, "one")).isEqualTo("Missing one and {}");
+    }
+
+    @Test
+    void given_long_string_when_formatting_then_it_is_cut_with_its_length() {
+        assertThat(format("Body: {}", 5, "abcdefghij")).isEqualTo("Body: abcde... (10 chars)");
+    }
+
+    @Test
+    void given_large_id_list_when_formatting_then_only_the_first_elements_and_the_size_are_rendered() {
+        List<Long> ids = LongStream.rangeClosed(1, 100_000).boxed().toList();
+
+        assertThat(format("IDs: {}", 10, ids)).isEqualTo("IDs: [1, 2, 3, 4... (100000 items)]");
+        assertThat(format("IDs: {}", 10, (Object) new long[]{1, 2})).isEqualTo("IDs: [1, 2]");
+    }
+
+    @Test
+    void given_failing_to_string_when_formatting_then_placeholder_text_is_rendered() {
+        Object broken = new Object() {
+            @Override
+            public String toString() {
+                throw new IllegalStateException("boom");
+            }
+        };
+
+        assertThat(format("Value: {}", 32, broken)).isEqualTo("Value: [FAILED toString()]");
+    }
+
+    private static String format(String pattern, int maxArgumentLength, Object... arguments) {
+        StringBuilder target = new StringBuilder();
+        TruncatingMessageFormatter.format(target, pattern, arguments, maxArgumentLength);
+        return target.toString();
+    }
+}
@@ -0,0 +1,44 @@
+package org.opensource.energy.vpp_backend.unit.retry;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.opensource.energy.vpp_backend.retry.RetryBudget;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("unit")
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class RetryBudgetTest {
+
+    @Test
+    void given_banked_tokens_spent_when_calls_are_recorded_then_retries_are_earned_back_up_to_the_cap() {
+        RetryBudget budget = new RetryBudget(0.1, 2);
+        assertThat(budget.tryAcquireRetry()).isTrue();
+        assertThat(budget.tryAcquireRetry()).isTrue();
+        assertThat(budget.tryAcquireRetry()).isFalse();
+
+        for (int i = 0; i < 100; i++) {
+            budget.recordCall();
+        }
+
+        // 100 calls earn 10 retries, but only 2 can be banked.
+        assertThat(budget.availableTokens()).isEqualTo(2.0);
+    }
+
+    @Test
+    void given_steady_traffic_when_every_call_wants_a_retry_then_one_in_ten_gets_it() {
+        RetryBudget budget = new RetryBudget(0.1, 1);
+        int retries = 0;
+
+        for (int i = 0; i < 1_000; i++) {
+            budget.recordCall();
+            if (budget.tryAcquireRetry()) {
+                retries++;
+            }
+        }
+
+        assertThat(retries).isEqualTo(100);
+    }
+}
@@ -1,27 +1,61 @@
 package org.opensource.energy.vpp_backend.unit.service.impl;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.mockito.MockedStatic;
-import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.opensource.energy.vpp_backend.cache.BatteryStatCache;
+import org.opensource.energy.vpp_backend.cache.BatteryStatSingleFlight;
+import org.opensource.energy.vpp_backend.dto.request.BatteryStatFilterRequest;
+import org.opensource.energy.vpp_backend.dto.request.ConflictPolicy;
 import org.opensource.energy.vpp_backend.dto.request.CreateBatteryRequest;
+import org.opensource.energy.vpp_backend.dto.response.BatteryPartialSaveResult;
+import org.opensource.energy.vpp_backend.dto.response.BatteryUpsertResult;
 import org.opensource.energy.vpp_backend.dto.response.FilteredBatteryStat;
 import org.opensource.energy.vpp_backend.entity.Battery;
+import org.opensource.energy.vpp_backend.event.BatteriesSavedEvent;
+import org.opensource.energy.vpp_backend.event.BatteriesUpdatedEvent;
+import org.opensource.energy.vpp_backend.exception.BatteryNameConflictException;
+import org.opensource.energy.vpp_backend.index.BatteryColumnarIndex;
+import org.opensource.energy.vpp_backend.index.BatteryNameFilter;
+import org.opensource.energy.vpp_backend.metrics.BatteryMetrics;
+import org.opensource.energy.vpp_backend.repository.BatteryCopyRepository;
+import org.opensource.energy.vpp_backend.repository.BatteryJdbcRepository;
+import org.opensource.energy.vpp_backend.repository.BatteryPostcodeSummaryRepository;
 import org.opensource.energy.vpp_backend.repository.BatteryRepository;
+import org.opensource.energy.vpp_backend.repository.BatteryUpsertRepository;
 import org.opensource.energy.vpp_backend.service.impl.BatteryServiceImpl;
-import org.opensource.energy.vpp_backend.specification.BatterySpecification;
-import org.springframework.data.jpa.domain.Specification;
+import org.opensource.energy.vpp_backend.service.reader.DatabaseBatteryStatReader;
+import org.opensource.energy.vpp_backend.service.reader.ParallelBatteryStatReader;
+import org.opensource.energy.vpp_backend.util.CursorUtil;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
-import static org.mockito.Mockito.mockStatic;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @Tag("unit")
@@ -32,27 +66,49 @@ class BatteryServiceImplTest {
     @Mock
     private BatteryRepository batteryRepository;
 
-    @InjectMocks
-    private BatteryServiceImpl batteryService;
+    @Mock
+    private BatteryJdbcRepository batteryJdbcRepository;
 
-    private MockedStatic<BatterySpecification> batterySpecMock;
+    @Mock
+    private BatteryCopyRepository batteryCopyRepository;
 
-    @BeforeEach
-    void setUp() {
-        batterySpecMock = mockStatic(BatterySpecification.class);
+    @Mock
+    private BatteryUpsertRepository batteryUpsertRepository;
 
-        batterySpecMock.when(() ->
-                BatterySpecification.byPostcodeAndWattageRange(
-                        anyInt(),
-                        anyInt(),
-                        any(),
-                        any()
-                )).thenReturn((Specification<Battery>) (root, query, cb) -> null);
-    }
+    @Mock
+    private BatteryPostcodeSummaryRepository postcodeSummaryRepository;
+
+    @Mock
+    private DatabaseBatteryStatReader databaseStatReader;
+
+    @Mock
+    private ObjectProvider<BatteryColumnarIndex> columnarIndex;
+
+    @Mock
+    private ObjectProvider<ParallelBatteryStatReader> parallelStatReader;
+
+    @Mock
+    private ObjectProvider<BatteryStatCache> statCache;
+
+    @Mock
+    private ObjectProvider<BatteryStatSingleFlight> singleFlight;
+
+    @Mock
+    private ObjectProvider<BatteryNameFilter> nameFilter;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
-    @AfterEach
-    void tearDown() {
-        batterySpecMock.close();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private BatteryServiceImpl batteryService;
+
+    @BeforeEach
+    void setUp() {
+        // Built by hand: the ObjectProvider mocks are indistinguishable by type for @InjectMocks.
+        batteryService = new BatteryServiceImpl(batteryRepository, batteryJdbcRepository, batteryCopyRepository,
+                batteryUpsertRepository, postcodeSummaryRepository, databaseStatReader, columnarIndex, parallelStatReader, statCache, singleFlight,
+                nameFilter, eventPublisher, new BatteryMetrics(meterRegistry));
     }
 
     // region saveBatteries
@@ -70,43 +126,339 @@ class BatteryServiceImplTest {
         List<Long> result = batteryService.saveBatteries(List.of(r1, r2));
 
         assertThat(result).containsExactly(1L, 2L);
+        verify(postcodeSummaryRepository).addBatteries(List.of(b1, b2));
+        verify(eventPublisher).publishEvent(new BatteriesSavedEvent(List.of(b1, b2)));
+        verifyNoInteractions(batteryCopyRepository);
+    }
+
+    @Test
+    void given_batch_at_bulk_copy_threshold_when_saveBatteries_then_rows_are_copied_and_ids_returned_in_order() {
+        ReflectionTestUtils.setField(batteryService, "bulkCopyMinBatchSize", 2);
+        CreateBatteryRequest r1 = CreateBatteryRequest.builder().name("Alpha").postcode(1000).capacity(200L).build();
+        CreateBatteryRequest r2 = CreateBatteryRequest.builder().name("Beta").postcode(1001).capacity(300L).build();
+        doAnswer(invocation -> {
+            List<Battery> batteries = invocation.getArgument(0);
+            batteries.get(0).setId(51L);
+            batteries.get(1).setId(52L);
+            return 2L;
+        }).when(batteryCopyRepository).insertAll(any());
+
+        List<Long> result = batteryService.saveBatteries(List.of(r1, r2));
+
+        assertThat(result).containsExactly(51L, 52L);
+        verify(batteryRepository, never()).saveAll(any());
+        verify(postcodeSummaryRepository).addBatteries(any());
+        verify(eventPublisher).publishEvent(any(BatteriesSavedEvent.class));
+    }
+
+    @Test
+    void given_name_filter_reporting_a_stored_name_when_saveBatteries_then_conflict_is_thrown_before_writing() {
+        BatteryNameFilter filter = mock(BatteryNameFilter.class);
+        when(nameFilter.getIfAvailable()).thenReturn(filter);
+        when(filter.isReady()).thenReturn(true);
+        when(filter.findExistingNames(eq(List.of("Alpha", "Beta")), any())).thenReturn(Set.of("Beta"));
+
+        BatteryNameConflictException ex = assertThrows(BatteryNameConflictException.class, () ->
+                batteryService.saveBatteries(List.of(
+                        CreateBatteryRequest.builder().name("Alpha").postcode(1000).capacity(200L).build(),
+                        CreateBatteryRequest.builder().name("Beta").postcode(1001).capacity(300L).build())));
+
+        assertThat(ex.getNames()).containsExactly("Beta");
+        verifyNoInteractions(batteryRepository, batteryCopyRepository, postcodeSummaryRepository, eventPublisher);
+    }
+
+    @Test
+    void given_name_filter_reporting_names_outside_the_bmp_when_saveBatteries_then_conflicts_are_in_code_point_order() {
+        String emoji = "Battery \ud83d\udd0b";
+        String fullwidth = "Battery \uff21";
+        BatteryNameFilter filter = mock(BatteryNameFilter.class);
+        when(nameFilter.getIfAvailable()).thenReturn(filter);
+        when(filter.isReady()).thenReturn(true);
+        when(filter.findExistingNames(any(), any())).thenReturn(Set.of(emoji, fullwidth));
+
+        BatteryNameConflictException ex = assertThrows(BatteryNameConflictException.class, () ->
+                batteryService.saveBatteries(List.of(
+                        CreateBatteryRequest.builder().name(emoji).postcode(1000).capacity(200L).build(),
+                        CreateBatteryRequest.builder().name(fullwidth).postcode(1001).capacity(300L).build())));
+
+        assertThat(ex.getNames()).containsExactly(fullwidth, emoji);
+    }
+
+    @Test
+    void given_successful_and_failed_saves_when_saveBatteries_then_timers_are_tagged_by_outcome_and_batch_sizes_recorded() {
+        when(batteryRepository.saveAll(any()))
+                .thenReturn(List.of(Battery.builder().id(1L).name("Alpha").postcode(1000).wattCapacity(200L).build()))
+                .thenThrow(new DataIntegrityViolationException("duplicate"));
+        List<CreateBatteryRequest> batch = List.of(
+                CreateBatteryRequest.builder().name("Alpha").postcode(1000).capacity(200L).build());
+
+        batteryService.saveBatteries(batch);
+        assertThrows(DataIntegrityViolationException.class, () -> batteryService.saveBatteries(batch));
+
+        assertThat(meterRegistry.get("vpp.batteries.save").tag("outcome", "success").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("vpp.batteries.save").tag("outcome", "error").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("vpp.batteries.save.batch_size").summary().totalAmount()).isEqualTo(2);
+    }
+
+    @Test
+    void given_repeated_name_when_saveBatteries_then_rejected_before_name_filter_or_write() {
+        assertThrows(IllegalArgumentException.class, () -> batteryService.saveBatteries(List.of(
+                CreateBatteryRequest.builder().name("Alpha").postcode(1000).capacity(200L).build(),
+                CreateBatteryRequest.builder().name("Alpha").postcode(1001).capacity(300L).build())));
+
+        verifyNoInteractions(nameFilter, batteryRepository, batteryJdbcRepository, batteryCopyRepository,
+                postcodeSummaryRepository);
     }
 
     //endregion
 
-    // region getFilteredBatteryStat
+    // region saveBatteriesIsolatingFailures
+
+    @Test
+    void given_one_duplicate_name_when_saveBatteriesIsolatingFailures_then_only_its_half_is_bisected_and_the_rest_is_saved() {
+        AtomicLong nextId = new AtomicLong(1);
+        doAnswer(invocation -> {
+            List<Battery> batteries = invocation.getArgument(0);
+            if (batteries.stream().anyMatch(battery -> battery.getName().equals("Charlie"))) {
+                throw new DuplicateKeyException("duplicate key value violates unique constraint");
+            }
+            batteries.forEach(battery -> battery.setId(nextId.getAndIncrement()));
+            return (long) batteries.size();
+        }).when(batteryCopyRepository).insertAllAtSavepoint(any());
+
+        BatteryPartialSaveResult result = batteryService.saveBatteriesIsolatingFailures(List.of(
+                CreateBatteryRequest.builder().name("Alpha").postcode(1000).capacity(100L).build(),
+                CreateBatteryRequest.builder().name("Bravo").postcode(1000).capacity(200L).build(),
+                CreateBatteryRequest.builder().name("Charlie").postcode(1001).capacity(300L).build(),
+                CreateBatteryRequest.builder().name("Delta").postcode(1001).capacity(400L).build()));
+
+        assertThat(result.getSavedCount()).isEqualTo(3);
+        assertThat(result.getRejectedCount()).isEqualTo(1);
+        assertThat(result.getIds()).containsExactly(1L, 2L, null, 3L);
+        assertThat(result.getErrors()).singleElement().satisfies(error -> {
+            assertThat(error.getIndex()).isEqualTo(2);
+            assertThat(error.getField()).isEqualTo("name");
+            assertThat(error.getMessage()).isEqualTo("Battery 'Charlie' already exists");
+        });
+        // All four, both halves, then both quarters of the failing half.
+        verify(batteryCopyRepository, times(5)).insertAllAtSavepoint(any());
+        verify(postcodeSummaryRepository).addBatteries(argThat(batteries -> batteries.size() == 3));
+        verify(eventPublisher).publishEvent(any(BatteriesSavedEvent.class));
+    }
+
+    @Test
+    void given_only_rejected_batteries_when_saveBatteriesIsolatingFailures_then_nothing_is_summarized_or_published() {
+        when(batteryCopyRepository.insertAllAtSavepoint(any())).thenThrow(new DataIntegrityViolationException(
+                "insert failed", new SQLException("ERROR: value too long for type character varying(255)\n  Where: COPY battery")));
+
+        BatteryPartialSaveResult result = batteryService.saveBatteriesIsolatingFailures(List.of(
+                CreateBatteryRequest.builder().name("Alpha").postcode(1000).capacity(100L).build()));
+
+        assertThat(result.getSavedCount()).isZero();
+        assertThat(result.getIds()).containsExactly((Long) null);
+        assertThat(result.getErrors()).singleElement().satisfies(error -> {
+            assertThat(error.getField()).isNull();
+            assertThat(error.getMessage()).isEqualTo("ERROR: value too long for type character varying(255)");
+        });
+        verifyNoInteractions(postcodeSummaryRepository, eventPublisher);
+    }
+
+    //endregion
+
+    // region upsertBatteries
 
     @Test
-    void given_valid_data_when_getFilteredBatteryStat_then_returns_stats() {
-        Battery b1 = Battery.builder().name("Zeta").postcode(1000).wattCapacity(100L).build();
-        Battery b2 = Battery.builder().name("Alpha").postcode(1001).wattCapacity(300L).build();
+    void given_existing_name_and_skip_policy_when_upsertBatteries_then_only_new_names_are_inserted() {
+        when(batteryJdbcRepository.findExistingNames(List.of("Alpha", "Bravo", "Charlie"))).thenReturn(Set.of("Bravo"));
+        when(batteryUpsertRepository.insertOrSkip(any())).thenAnswer(invocation -> {
+            List<Battery> candidates = invocation.getArgument(0);
+            assertThat(candidates).extracting(Battery::getName).containsExactly("Alpha", "Charlie");
+            return Map.of("Alpha", 1L, "Charlie", 2L);
+        });
 
-        when(batteryRepository.findAll(Mockito.<Specification<Battery>>any()))
-                .thenReturn(List.of(b1, b2));
+        BatteryUpsertResult result = batteryService.upsertBatteries(List.of(
+                request("Charlie", 1000, 300L), request("Bravo", 1000, 200L), request("Alpha", 1001, 100L)),
+                ConflictPolicy.SKIP);
+
+        assertThat(result.getInserted()).containsExactly("Charlie", "Alpha");
+        assertThat(result.getUpdated()).isEmpty();
+        assertThat(result.getSkipped()).containsExactly("Bravo");
+        verify(postcodeSummaryRepository).refresh(Set.of());
+        verify(postcodeSummaryRepository).addBatteries(any());
+        verify(eventPublisher).publishEvent(any(BatteriesSavedEvent.class));
+        verify(eventPublisher, never()).publishEvent(any(BatteriesUpdatedEvent.class));
+    }
+
+    @Test
+    void given_existing_name_and_fail_policy_when_upsertBatteries_then_conflict_is_thrown_before_writing() {
+        when(batteryJdbcRepository.findExistingNames(any())).thenReturn(Set.of("Bravo"));
+
+        BatteryNameConflictException ex = assertThrows(BatteryNameConflictException.class, () ->
+                batteryService.upsertBatteries(List.of(request("Alpha", 1000, 100L), request("Bravo", 1000, 200L)),
+                        ConflictPolicy.FAIL));
+
+        assertThat(ex.getNames()).containsExactly("Bravo");
+        verifyNoInteractions(batteryUpsertRepository, postcodeSummaryRepository, eventPublisher);
+    }
+
+    @Test
+    void given_changed_and_unchanged_batteries_and_overwrite_policy_when_upsertBatteries_then_summary_is_recomputed_for_both_postcodes() {
+        Battery storedBravo = Battery.builder().id(7L).name("Bravo").postcode(1000).wattCapacity(200L).build();
+        Battery storedCharlie = Battery.builder().id(8L).name("Charlie").postcode(1000).wattCapacity(300L).build();
+        when(batteryUpsertRepository.lockByNames(List.of("Alpha", "Bravo", "Charlie")))
+                .thenReturn(Map.of("Bravo", storedBravo, "Charlie", storedCharlie));
+        when(batteryUpsertRepository.insertOrOverwrite(any())).thenAnswer(invocation -> {
+            List<Battery> batteries = invocation.getArgument(0);
+            batteries.getFirst().setId(51L);
+            // Charlie is unchanged, so the statement neither writes nor returns it.
+            return Map.of("Alpha", 51L, "Bravo", 7L);
+        });
+
+        BatteryUpsertResult result = batteryService.upsertBatteries(List.of(
+                request("Alpha", 1000, 100L), request("Bravo", 2000, 250L), request("Charlie", 1000, 300L)),
+                ConflictPolicy.OVERWRITE);
+
+        assertThat(result.getInserted()).containsExactly("Alpha");
+        assertThat(result.getUpdated()).containsExactly("Bravo");
+        assertThat(result.getSkipped()).containsExactly("Charlie");
+        verify(postcodeSummaryRepository).refresh(Set.of(1000, 2000));
+        // Alpha's postcode is recomputed anyway, so adding it as well would count it twice.
+        verify(postcodeSummaryRepository, never()).addBatteries(any());
+        verify(eventPublisher).publishEvent(new BatteriesUpdatedEvent(List.of(new BatteriesUpdatedEvent.Change(
+                storedBravo,
+                Battery.builder().id(7L).name("Bravo").postcode(2000).wattCapacity(250L).build()))));
+    }
+
+    @Test
+    void given_duplicate_names_when_upsertBatteries_then_throws_exception() {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () ->
+                batteryService.upsertBatteries(List.of(request("Alpha", 1000, 100L), request("Alpha", 1001, 200L)),
+                        ConflictPolicy.OVERWRITE));
+
+        assertThat(ex.getMessage()).contains("[Alpha]");
+        verifyNoInteractions(batteryUpsertRepository);
+    }
+
+    //endregion
+
+    // region getFilteredBatteryStat
+
+    @Test
+    void given_no_columnar_index_when_getFilteredBatteryStat_then_reads_from_database() {
+        FilteredBatteryStat expected = FilteredBatteryStat.builder().totalCount(2L).build();
+        when(columnarIndex.getIfAvailable()).thenReturn(null);
+        when(databaseStatReader.read(1000, 1001, 100L, 300L)).thenReturn(expected);
 
         FilteredBatteryStat stat = batteryService.getFilteredBatteryStat(1000, 1001, 100L, 300L);
 
-        assertThat(stat.getBatteryNames()).containsExactly("Alpha", "Zeta");
-        assertThat(stat.getTotalCount()).isEqualTo(2);
-        assertThat(stat.getTotalCapacity()).isEqualTo(400L);
-        assertThat(stat.getAverageCapacity()).isEqualTo(200L);
-        assertThat(stat.getHighestCapacityBatteryName()).isEqualTo("Alpha");
-        assertThat(stat.getLowestCapacityBatteryName()).isEqualTo("Zeta");
+        assertThat(stat).isSameAs(expected);
+    }
+
+    @Test
+    void given_database_result_when_getFilteredBatteryStat_then_call_is_timed_and_result_size_recorded() {
+        when(columnarIndex.getIfAvailable()).thenReturn(null);
+        when(databaseStatReader.read(1000, 1001, null, null)).thenReturn(FilteredBatteryStat.builder()
+                .totalCount(3L)
+                .batteryNames(List.of("Alpha", "Beta", "Gamma"))
+                .build());
+
+        batteryService.getFilteredBatteryStat(1000, 1001, null, null);
+
+        assertThat(meterRegistry.get("vpp.batteries.stats").tag("outcome", "success").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("vpp.batteries.stats.result_size").summary().max()).isEqualTo(3);
+    }
+
+    @Test
+    void given_ready_columnar_index_when_getFilteredBatteryStat_then_database_is_not_queried() {
+        BatteryColumnarIndex index = mock(BatteryColumnarIndex.class);
+        FilteredBatteryStat expected = FilteredBatteryStat.builder().totalCount(1L).build();
+        when(columnarIndex.getIfAvailable()).thenReturn(index);
+        when(index.isReady()).thenReturn(true);
+        when(index.read(1000, 1001, null, null)).thenReturn(expected);
+
+        FilteredBatteryStat stat = batteryService.getFilteredBatteryStat(1000, 1001, null, null);
+
+        assertThat(stat).isSameAs(expected);
+        verifyNoInteractions(databaseStatReader);
+    }
+
+    @Test
+    void given_columnar_index_still_loading_when_getFilteredBatteryStat_then_falls_back_to_database() {
+        BatteryColumnarIndex index = mock(BatteryColumnarIndex.class);
+        FilteredBatteryStat expected = FilteredBatteryStat.builder().totalCount(0L).build();
+        when(columnarIndex.getIfAvailable()).thenReturn(index);
+        when(index.isReady()).thenReturn(false);
+        when(databaseStatReader.read(1000, 1001, null, null)).thenReturn(expected);
+
+        FilteredBatteryStat stat = batteryService.getFilteredBatteryStat(1000, 1001, null, null);
+
+        assertThat(stat).isSameAs(expected);
+        verify(index, never()).read(anyInt(), anyInt(), any(), any());
+    }
+
+    @Test
+    void given_stat_cache_when_getFilteredBatteryStat_then_result_is_read_through_cache() {
+        BatteryStatCache cache = mock(BatteryStatCache.class);
+        FilteredBatteryStat expected = FilteredBatteryStat.builder().totalCount(2L).build();
+        when(statCache.getIfAvailable()).thenReturn(cache);
+        when(cache.get(eq(1000), eq(1001), isNull(), isNull(), any())).thenAnswer(invocation -> {
+            Supplier<FilteredBatteryStat> loader = invocation.getArgument(4);
+            return loader.get();
+        });
+        when(databaseStatReader.read(1000, 1001, null, null)).thenReturn(expected);
+
+        FilteredBatteryStat stat = batteryService.getFilteredBatteryStat(1000, 1001, null, null);
+
+        assertThat(stat).isSameAs(expected);
+    }
+
+    @Test
+    void given_first_page_when_getFilteredBatteryStatPage_then_returns_totals_and_next_cursor() {
+        when(databaseStatReader.readTotals(1000, 1100, null, null))
+                .thenReturn(FilteredBatteryStat.builder().totalCount(3L).averageCapacity(200L));
+        when(batteryRepository.findSortedNamesAfter(1000, 1100, null, null, "", 3))
+                .thenReturn(List.of("Alpha", "Beta", "Gamma"));
+
+        FilteredBatteryStat page = batteryService.getFilteredBatteryStatPage(1000, 1100, null, null, 2, null);
+
+        assertThat(page.getBatteryNames()).containsExactly("Alpha", "Beta");
+        assertThat(page.getTotalCount()).isEqualTo(3);
+        assertThat(page.getAverageCapacity()).isEqualTo(200L);
+        assertThat(CursorUtil.decodeAfterName(page.getNextCursor())).isEqualTo("Beta");
+    }
+
+    @Test
+    void given_cursor_when_getFilteredBatteryStatPage_then_seeks_after_name_without_totals() {
+        when(batteryRepository.findSortedNamesAfter(1000, 1100, null, null, "Beta", 3))
+                .thenReturn(List.of("Gamma"));
+
+        FilteredBatteryStat page = batteryService.getFilteredBatteryStatPage(
+                1000, 1100, null, null, 2, CursorUtil.encodeAfterName("Beta"));
+
+        assertThat(page.getBatteryNames()).containsExactly("Gamma");
+        assertThat(page.getNextCursor()).isNull();
+        assertThat(page.getTotalCount()).isNull();
+        verify(databaseStatReader, never()).readTotals(anyInt(), anyInt(), any(), any());
     }
 
     @Test
-    void given_no_matching_batteries_when_getFilteredBatteryStat_then_returns_zero_stats() {
-        when(batteryRepository.findAll(Mockito.<Specification<Battery>>any()))
-                .thenReturn(List.of());
+    void given_matching_rows_when_streamFilteredBatteryStat_then_names_are_streamed_and_totals_returned() {
+        doAnswer(invocation -> {
+            BatteryJdbcRepository.BatteryRowHandler handler = invocation.getArgument(4);
+            handler.accept("Alpha", 100);
+            handler.accept("Beta", 300);
+            return null;
+        }).when(batteryJdbcRepository).streamNamesAndCapacities(eq(1000), eq(1001), isNull(), isNull(), any());
+        List<String> streamed = new ArrayList<>();
 
-        FilteredBatteryStat stat = batteryService.getFilteredBatteryStat(2000, 2010, null, null);
+        FilteredBatteryStat totals = batteryService.streamFilteredBatteryStat(1000, 1001, null, null, streamed::add);
 
-        assertThat(stat.getBatteryNames()).isEmpty();
-        assertThat(stat.getTotalCount()).isZero();
-        assertThat(stat.getTotalCapacity()).isZero();
-        assertThat(stat.getAverageCapacity()).isZero();
-        assertThat(stat.getHighestCapacityBatteryName()).isNull();
-        assertThat(stat.getLowestCapacityBatteryName()).isNull();
+        assertThat(streamed).containsExactly("Alpha", "Beta");
+        assertThat(totals.getBatteryNames()).isNull();
+        assertThat(totals.getTotalCount()).isEqualTo(2);
+        assertThat(totals.getTotalCapacity()).isEqualTo(400);
+        assertThat(totals.getHighestCapacityBatteryName()).isEqualTo("Beta");
+        assertThat(totals.getLowestCapacityBatteryName()).isEqualTo("Alpha");
     }
 
     @Test
@@ -126,4 +478,52 @@ class BatteryServiceImplTest {
     }
 
     //endregion
+
+    // region getFilteredBatteryStats
+
+    @Test
+    void given_several_filters_when_getFilteredBatteryStats_then_rows_are_grouped_per_filter_in_order() {
+        doAnswer(invocation -> {
+            BatteryJdbcRepository.FilterRowHandler handler = invocation.getArgument(4);
+            handler.accept(0, "Alpha", 100);
+            handler.accept(0, "Beta", 300);
+            handler.accept(2, "Gamma", 500);
+            return null;
+        }).when(batteryJdbcRepository).streamNamesAndCapacitiesForFilters(any(), any(), any(), any(), any());
+
+        List<FilteredBatteryStat> stats = batteryService.getFilteredBatteryStats(List.of(
+                BatteryStatFilterRequest.builder().postcodeFrom(1000).postcodeTo(1001).build(),
+                BatteryStatFilterRequest.builder().postcodeFrom(3000).postcodeTo(3001).build(),
+                BatteryStatFilterRequest.builder().postcodeFrom(1000).postcodeTo(2000).wattageFrom(400L).wattageTo(600L).build()));
+
+        assertThat(stats).hasSize(3);
+        assertThat(stats.get(0).getBatteryNames()).containsExactly("Alpha", "Beta");
+        assertThat(stats.get(0).getTotalCapacity()).isEqualTo(400);
+        assertThat(stats.get(0).getHighestCapacityBatteryName()).isEqualTo("Beta");
+        assertThat(stats.get(1).getTotalCount()).isZero();
+        assertThat(stats.get(1).getBatteryNames()).isEmpty();
+        assertThat(stats.get(2).getBatteryNames()).containsExactly("Gamma");
+        verify(batteryJdbcRepository).streamNamesAndCapacitiesForFilters(
+                eq(new Integer[]{1000, 3000, 1000}), eq(new Integer[]{1001, 3001, 2000}),
+                eq(new Long[]{null, null, 400L}), eq(new Long[]{null, null, 600L}), any());
+    }
+
+    @Test
+    void given_one_invalid_filter_when_getFilteredBatteryStats_then_error_names_its_index() {
+        List<BatteryStatFilterRequest> filters = List.of(
+                BatteryStatFilterRequest.builder().postcodeFrom(1000).postcodeTo(1001).build(),
+                BatteryStatFilterRequest.builder().postcodeFrom(1000).postcodeTo(1001).wattageFrom(500L).wattageTo(200L).build());
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> batteryService.getFilteredBatteryStats(filters));
+
+        assertThat(ex.getMessage()).isEqualTo("filters[1]: Invalid wattage range");
+        verifyNoInteractions(batteryJdbcRepository);
+    }
+
+    //endregion
+
+    private static CreateBatteryRequest request(String name, int postcode, long capacity) {
+        return CreateBatteryRequest.builder().name(name).postcode(postcode).capacity(capacity).build();
+    }
 }
@@ -0,0 +1,174 @@
+package org.opensource.energy.vpp_backend.unit.service.ingest;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.opensource.energy.vpp_backend.dto.request.CreateBatteryRequest;
+import org.opensource.energy.vpp_backend.dto.response.BatteryIngestJob;
+import org.opensource.energy.vpp_backend.dto.response.BatteryIngestResult.IdRange;
+import org.opensource.energy.vpp_backend.exception.IngestJobNotFoundException;
+import org.opensource.energy.vpp_backend.exception.WriteBehindQueueFullException;
+import org.opensource.energy.vpp_backend.service.BatteryService;
+import org.opensource.energy.vpp_backend.service.ingest.BatteryWriteBehindQueue;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Tag("unit")
+@ExtendWith(MockitoExtension.class)
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class BatteryWriteBehindQueueTest {
+
+    @Mock
+    private BatteryService batteryService;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private BatteryWriteBehindQueue queue;
+
+    @AfterEach
+    void tearDown() {
+        queue.shutdown();
+    }
+
+    @Test
+    void given_small_submissions_within_linger_when_drained_then_they_are_saved_as_one_batch() throws InterruptedException {
+        queue = newQueue(1, 100, 1000, Duration.ofMillis(500));
+        when(batteryService.saveBatteries(any())).thenAnswer(invocation -> assignIds(invocation.getArgument(0)));
+
+        BatteryIngestJob first = queue.submit(batteries("a", 2));
+        BatteryIngestJob second = queue.submit(batteries("b", 3));
+
+        BatteryIngestJob firstDone = awaitFinished(first.getId());
+        BatteryIngestJob secondDone = awaitFinished(second.getId());
+        assertThat(firstDone.getStatus()).isEqualTo(BatteryIngestJob.Status.COMPLETED);
+        assertThat(firstDone.getIdRanges()).containsExactly(IdRange.builder().from(1L).to(2L).build());
+        assertThat(secondDone.getIdRanges()).containsExactly(IdRange.builder().from(3L).to(5L).build());
+        verify(batteryService, times(1)).saveBatteries(any());
+        assertThat(meterRegistry.get("vpp.write_behind.batch.size").summary().max()).isEqualTo(5);
+        assertThat(meterRegistry.get("vpp.write_behind.queue.depth").gauge().value()).isZero();
+    }
+
+    @Test
+    void given_submission_larger_than_batch_size_when_drained_then_it_is_split_and_progress_is_reported() throws InterruptedException {
+        queue = newQueue(1, 2, 1000, Duration.ZERO);
+        when(batteryService.saveBatteries(any())).thenAnswer(invocation -> assignIds(invocation.getArgument(0)));
+
+        BatteryIngestJob job = queue.submit(batteries("a", 5));
+
+        BatteryIngestJob done = awaitFinished(job.getId());
+        assertThat(done.getSavedCount()).isEqualTo(5);
+        assertThat(done.getTotalCount()).isEqualTo(5);
+        assertThat(done.getIdRanges()).containsExactly(IdRange.builder().from(1L).to(5L).build());
+        verify(batteryService, times(3)).saveBatteries(any());
+    }
+
+    @Test
+    void given_coalesced_batch_with_one_bad_submission_when_drained_then_only_that_job_fails() throws InterruptedException {
+        queue = newQueue(1, 100, 1000, Duration.ofMillis(500));
+        when(batteryService.saveBatteries(any())).thenAnswer(invocation -> {
+            List<CreateBatteryRequest> requests = invocation.getArgument(0);
+            if (requests.stream().anyMatch(request -> request.getName().startsWith("dup"))) {
+                throw new DataIntegrityViolationException("duplicate key value violates unique constraint \"battery_name_key\"");
+            }
+            return assignIds(requests);
+        });
+
+        BatteryIngestJob good = queue.submit(batteries("a", 2));
+        BatteryIngestJob bad = queue.submit(batteries("dup", 1));
+
+        assertThat(awaitFinished(good.getId()).getStatus()).isEqualTo(BatteryIngestJob.Status.COMPLETED);
+        BatteryIngestJob failed = awaitFinished(bad.getId());
+        assertThat(failed.getStatus()).isEqualTo(BatteryIngestJob.Status.FAILED);
+        assertThat(failed.getError()).contains("battery_name_key");
+        assertThat(failed.getSavedCount()).isZero();
+        assertThat(meterRegistry.get("vpp.write_behind.jobs").tag("outcome", "failed").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void given_batch_throwing_an_error_when_drained_then_its_job_fails_and_the_worker_keeps_draining() throws InterruptedException {
+        queue = newQueue(1, 100, 1000, Duration.ZERO);
+        when(batteryService.saveBatteries(any()))
+                .thenThrow(new StackOverflowError("mapping recursed"))
+                .thenAnswer(invocation -> assignIds(invocation.getArgument(0)));
+
+        BatteryIngestJob failed = awaitFinished(queue.submit(batteries("a", 2)).getId());
+        BatteryIngestJob next = awaitFinished(queue.submit(batteries("b", 2)).getId());
+
+        assertThat(failed.getStatus()).isEqualTo(BatteryIngestJob.Status.FAILED);
+        assertThat(failed.getError()).isEqualTo("mapping recursed");
+        assertThat(next.getStatus()).isEqualTo(BatteryIngestJob.Status.COMPLETED);
+        assertThat(meterRegistry.get("vpp.write_behind.queue.depth").gauge().value()).isZero();
+    }
+
+    @Test
+    void given_full_queue_when_submitted_then_submission_is_rejected() throws InterruptedException {
+        queue = newQueue(1, 100, 3, Duration.ZERO);
+        CountDownLatch release = new CountDownLatch(1);
+        // The worker may not have picked up the first submission before the test ends.
+        lenient().when(batteryService.saveBatteries(any())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return assignIds(invocation.getArgument(0));
+        });
+
+        queue.submit(batteries("a", 2));
+
+        assertThrows(WriteBehindQueueFullException.class, () -> queue.submit(batteries("b", 2)));
+        assertThrows(IllegalArgumentException.class, () -> queue.submit(batteries("c", 4)));
+        release.countDown();
+    }
+
+    @Test
+    void given_unknown_job_id_when_get_job_then_not_found_is_thrown() {
+        queue = newQueue(1, 100, 1000, Duration.ZERO);
+
+        assertThrows(IngestJobNotFoundException.class, () -> queue.getJob(UUID.randomUUID()));
+    }
+
+    private BatteryWriteBehindQueue newQueue(int workers, int maxBatchSize, long capacity, Duration linger) {
+        return new BatteryWriteBehindQueue(batteryService, meterRegistry, workers, maxBatchSize, capacity, linger,
+                Duration.ofMinutes(1));
+    }
+
+    private List<Long> assignIds(Collection<CreateBatteryRequest> requests) {
+        List<Long> ids = new ArrayList<>(requests.size());
+        requests.forEach(request -> ids.add(nextId.getAndIncrement()));
+        return ids;
+    }
+
+    private static List<CreateBatteryRequest> batteries(String prefix, int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> CreateBatteryRequest.builder().name(prefix + i).postcode(1000).capacity(100L).build())
+                .toList();
+    }
+
+    private BatteryIngestJob awaitFinished(UUID jobId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        BatteryIngestJob job = queue.getJob(jobId);
+        while (job.getCompletedAt() == null && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            job = queue.getJob(jobId);
+        }
+        assertThat(job.getCompletedAt()).as("job %s finished", jobId).isNotNull();
+        return job;
+    }
+}
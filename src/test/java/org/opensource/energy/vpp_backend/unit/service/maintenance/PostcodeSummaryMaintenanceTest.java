@@ -0,0 +1,61 @@
+package org.opensource.energy.vpp_backend.unit.service.maintenance;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.opensource.energy.vpp_backend.repository.BatteryPostcodeSummaryRepository;
+import org.opensource.energy.vpp_backend.service.maintenance.PostcodeSummaryMaintenance;
+import org.opensource.energy.vpp_backend.service.maintenance.PostcodeSummaryMaintenance.StartupAction;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@Tag("unit")
+@ExtendWith(MockitoExtension.class)
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class PostcodeSummaryMaintenanceTest {
+
+    @Mock
+    private BatteryPostcodeSummaryRepository postcodeSummaryRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void given_inconsistent_postcodes_when_check_then_returns_them() {
+        when(postcodeSummaryRepository.findInconsistentPostcodes()).thenReturn(List.of(1000, 2000));
+
+        assertThat(maintenance(StartupAction.NONE).check()).containsExactly(1000, 2000);
+    }
+
+    @Test
+    void given_backfill_startup_action_when_application_ready_then_summary_is_rebuilt() {
+        when(postcodeSummaryRepository.rebuild()).thenReturn(3);
+
+        maintenance(StartupAction.BACKFILL).runStartupAction();
+
+        verify(postcodeSummaryRepository).rebuild();
+        verify(postcodeSummaryRepository, never()).findInconsistentPostcodes();
+    }
+
+    @Test
+    void given_no_startup_action_when_application_ready_then_nothing_runs() {
+        maintenance(StartupAction.NONE).runStartupAction();
+
+        verifyNoInteractions(postcodeSummaryRepository);
+    }
+
+    private PostcodeSummaryMaintenance maintenance(StartupAction startupAction) {
+        return new PostcodeSummaryMaintenance(postcodeSummaryRepository, transactionManager, startupAction);
+    }
+}
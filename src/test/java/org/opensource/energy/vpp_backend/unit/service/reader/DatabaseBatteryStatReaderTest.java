@@ -0,0 +1,139 @@
+package org.opensource.energy.vpp_backend.unit.service.reader;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.opensource.energy.vpp_backend.dto.response.FilteredBatteryStat;
+import org.opensource.energy.vpp_backend.index.BatteryAggregateIndex;
+import org.opensource.energy.vpp_backend.metrics.BatteryMetrics;
+import org.opensource.energy.vpp_backend.repository.BatteryRepository;
+import org.opensource.energy.vpp_backend.repository.projection.BatteryStatProjection;
+import org.opensource.energy.vpp_backend.service.reader.DatabaseBatteryStatReader;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Tag("unit")
+@ExtendWith(MockitoExtension.class)
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class DatabaseBatteryStatReaderTest {
+
+    @Mock
+    private BatteryRepository batteryRepository;
+
+    @Mock
+    private ObjectProvider<BatteryAggregateIndex> aggregateIndex;
+
+    @Mock
+    private BatteryMetrics batteryMetrics;
+
+    @InjectMocks
+    private DatabaseBatteryStatReader reader;
+
+    @Test
+    void given_valid_data_when_read_then_returns_stats() {
+        BatteryStatProjection projection = statProjection(2L, 400L, "Alpha", "Zeta");
+        when(batteryRepository.aggregateStatistics(1000, 1001, 100L, 300L)).thenReturn(projection);
+        when(batteryRepository.findSortedNames(1000, 1001, 100L, 300L)).thenReturn(List.of("Alpha", "Zeta"));
+
+        FilteredBatteryStat stat = reader.read(1000, 1001, 100L, 300L);
+
+        assertThat(stat.getBatteryNames()).containsExactly("Alpha", "Zeta");
+        assertThat(stat.getTotalCount()).isEqualTo(2);
+        assertThat(stat.getTotalCapacity()).isEqualTo(400L);
+        assertThat(stat.getAverageCapacity()).isEqualTo(200L);
+        assertThat(stat.getHighestCapacityBatteryName()).isEqualTo("Alpha");
+        assertThat(stat.getLowestCapacityBatteryName()).isEqualTo("Zeta");
+    }
+
+    @Test
+    void given_no_matching_batteries_when_read_then_returns_zero_stats() {
+        BatteryStatProjection projection = statProjection(0L, 0L, null, null);
+        when(batteryRepository.aggregatePostcodeSummary(2000, 2010)).thenReturn(projection);
+        when(batteryRepository.findSortedNames(2000, 2010, null, null)).thenReturn(List.of());
+
+        FilteredBatteryStat stat = reader.read(2000, 2010, null, null);
+
+        assertThat(stat.getBatteryNames()).isEmpty();
+        assertThat(stat.getTotalCount()).isZero();
+        assertThat(stat.getTotalCapacity()).isZero();
+        assertThat(stat.getAverageCapacity()).isZero();
+        assertThat(stat.getHighestCapacityBatteryName()).isNull();
+        assertThat(stat.getLowestCapacityBatteryName()).isNull();
+    }
+
+    @Test
+    void given_postcode_only_filter_when_read_then_totals_come_from_summary_and_no_entities_are_loaded() {
+        BatteryStatProjection projection = statProjection(1L, 100L, "Alpha", "Alpha");
+        when(batteryRepository.aggregatePostcodeSummary(1000, 1001)).thenReturn(projection);
+        when(batteryRepository.findSortedNames(1000, 1001, null, null)).thenReturn(List.of("Alpha"));
+
+        reader.read(1000, 1001, null, null);
+
+        verify(batteryRepository, never()).aggregateStatistics(anyInt(), anyInt(), any(), any());
+        verify(batteryRepository, never()).findAll(any(Specification.class));
+    }
+
+    @Test
+    void given_postcode_only_filter_when_read_then_totals_come_from_the_names_snapshot_not_the_index() {
+        BatteryStatProjection projection = statProjection(1L, 100L, "Alpha", "Alpha");
+        when(batteryRepository.aggregatePostcodeSummary(1000, 1001)).thenReturn(projection);
+        when(batteryRepository.findSortedNames(1000, 1001, null, null)).thenReturn(List.of("Alpha"));
+
+        FilteredBatteryStat stat = reader.read(1000, 1001, null, null);
+
+        assertThat(stat.getBatteryNames()).containsExactly("Alpha");
+        assertThat(stat.getTotalCount()).isEqualTo(1L);
+        verify(aggregateIndex, never()).getIfAvailable();
+    }
+
+    @Test
+    void given_aggregate_index_covering_range_when_readTotals_then_aggregate_query_is_skipped() {
+        BatteryAggregateIndex index = mock(BatteryAggregateIndex.class);
+        when(aggregateIndex.getIfAvailable()).thenReturn(index);
+        when(index.covers(1000, 1001)).thenReturn(true);
+        when(index.readTotals(1000, 1001)).thenReturn(FilteredBatteryStat.builder().totalCount(1L).totalCapacity(100L));
+
+        FilteredBatteryStat stat = reader.readTotals(1000, 1001, null, null).build();
+
+        assertThat(stat.getTotalCapacity()).isEqualTo(100L);
+        verify(batteryRepository, never()).aggregateStatistics(anyInt(), anyInt(), any(), any());
+        verify(batteryRepository, never()).aggregatePostcodeSummary(anyInt(), anyInt());
+    }
+
+    @Test
+    void given_wattage_filter_when_readTotals_then_aggregate_index_is_not_used() {
+        BatteryAggregateIndex index = mock(BatteryAggregateIndex.class);
+        when(aggregateIndex.getIfAvailable()).thenReturn(index);
+        BatteryStatProjection projection = statProjection(1L, 150L, "Alpha", "Alpha");
+        when(batteryRepository.aggregateStatistics(1000, 1001, 100L, 200L)).thenReturn(projection);
+
+        FilteredBatteryStat stat = reader.readTotals(1000, 1001, 100L, 200L).build();
+
+        assertThat(stat.getTotalCapacity()).isEqualTo(150L);
+        verify(index, never()).readTotals(anyInt(), anyInt());
+    }
+
+    private static BatteryStatProjection statProjection(long count, long capacity, String highest, String lowest) {
+        BatteryStatProjection projection = mock(BatteryStatProjection.class);
+        when(projection.getTotalCount()).thenReturn(count);
+        when(projection.getTotalCapacity()).thenReturn(capacity);
+        when(projection.getHighestCapacityBatteryName()).thenReturn(highest);
+        when(projection.getLowestCapacityBatteryName()).thenReturn(lowest);
+        return projection;
+    }
+}
@@ -0,0 +1,137 @@
+package org.opensource.energy.vpp_backend.unit.service.reader;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.opensource.energy.vpp_backend.dto.response.FilteredBatteryStat;
+import org.opensource.energy.vpp_backend.metrics.BatteryMetrics;
+import org.opensource.energy.vpp_backend.repository.BatteryJdbcRepository;
+import org.opensource.energy.vpp_backend.repository.BatteryPostcodeSummaryRepository;
+import org.opensource.energy.vpp_backend.repository.projection.PostcodeCount;
+import org.opensource.energy.vpp_backend.service.reader.DatabaseBatteryStatReader;
+import org.opensource.energy.vpp_backend.service.reader.ParallelBatteryStatReader;
+import org.opensource.energy.vpp_backend.service.reader.ParallelBatteryStatReader.PostcodeRange;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Tag("unit")
+@ExtendWith(MockitoExtension.class)
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class ParallelBatteryStatReaderTest {
+
+    @Mock
+    private BatteryJdbcRepository batteryJdbcRepository;
+
+    @Mock
+    private BatteryPostcodeSummaryRepository postcodeSummaryRepository;
+
+    @Mock
+    private DatabaseBatteryStatReader databaseStatReader;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ParallelBatteryStatReader reader;
+
+    @BeforeEach
+    void setUp() {
+        reader = new ParallelBatteryStatReader(batteryJdbcRepository, postcodeSummaryRepository, databaseStatReader,
+                new BatteryMetrics(new SimpleMeterRegistry()), transactionManager, 2, 10, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        reader.shutdown();
+    }
+
+    @Test
+    void given_even_histogram_when_partitioned_then_ranges_hold_equal_counts_and_cover_the_whole_range() {
+        List<PostcodeRange> ranges = ParallelBatteryStatReader.partition(List.of(
+                new PostcodeCount(1000, 10), new PostcodeCount(1001, 10),
+                new PostcodeCount(1002, 10), new PostcodeCount(1003, 10)), 0, 9999, 2);
+
+        assertThat(ranges).containsExactly(new PostcodeRange(0, 1001), new PostcodeRange(1002, 9999));
+    }
+
+    @Test
+    void given_one_dominant_postcode_when_partitioned_then_it_gets_a_partition_of_its_own() {
+        List<PostcodeRange> ranges = ParallelBatteryStatReader.partition(List.of(
+                new PostcodeCount(1000, 100), new PostcodeCount(1001, 1), new PostcodeCount(1002, 1)), 1000, 1002, 3);
+
+        assertThat(ranges).containsExactly(
+                new PostcodeRange(1000, 1000), new PostcodeRange(1001, 1001), new PostcodeRange(1002, 1002));
+    }
+
+    @Test
+    void given_empty_histogram_when_partitioned_then_single_range_is_returned() {
+        assertThat(ParallelBatteryStatReader.partition(List.of(), 1000, 2000, 4))
+                .containsExactly(new PostcodeRange(1000, 2000));
+    }
+
+    @Test
+    void given_range_below_min_rows_when_read_then_database_reader_is_used() {
+        FilteredBatteryStat expected = FilteredBatteryStat.builder().totalCount(5L).build();
+        when(postcodeSummaryRepository.findCounts(1000, 1001))
+                .thenReturn(List.of(new PostcodeCount(1000, 2), new PostcodeCount(1001, 3)));
+        when(databaseStatReader.read(1000, 1001, null, null)).thenReturn(expected);
+
+        assertThat(reader.read(1000, 1001, null, null)).isSameAs(expected);
+        verify(batteryJdbcRepository, never()).exportSnapshot();
+    }
+
+    @Test
+    void given_no_free_scan_slot_when_read_then_database_reader_is_used_without_a_snapshot() {
+        reader.shutdown();
+        reader = new ParallelBatteryStatReader(batteryJdbcRepository, postcodeSummaryRepository, databaseStatReader,
+                new BatteryMetrics(new SimpleMeterRegistry()), transactionManager, 2, 10, 0);
+        FilteredBatteryStat expected = FilteredBatteryStat.builder().totalCount(20L).build();
+        when(databaseStatReader.read(1000, 2000, null, null)).thenReturn(expected);
+
+        assertThat(reader.read(1000, 2000, null, null)).isSameAs(expected);
+        verify(postcodeSummaryRepository, never()).findCounts(anyInt(), anyInt());
+        verify(batteryJdbcRepository, never()).exportSnapshot();
+    }
+
+    @Test
+    void given_wide_range_when_read_then_partitions_share_the_snapshot_and_names_are_merged_in_order() {
+        when(postcodeSummaryRepository.findCounts(1000, 2000))
+                .thenReturn(List.of(new PostcodeCount(1000, 10), new PostcodeCount(2000, 10)));
+        when(batteryJdbcRepository.exportSnapshot()).thenReturn("00000003-0000001B-1");
+        doAnswer(invocation -> {
+            BatteryJdbcRepository.BatteryRowHandler handler = invocation.getArgument(4);
+            handler.accept("Alpha", 100);
+            handler.accept("Charlie", 500);
+            return null;
+        }).when(batteryJdbcRepository).streamNamesAndCapacities(eq(1000), eq(1000), isNull(), isNull(), any());
+        doAnswer(invocation -> {
+            BatteryJdbcRepository.BatteryRowHandler handler = invocation.getArgument(4);
+            handler.accept("Bravo", 500);
+            handler.accept("Delta", 50);
+            return null;
+        }).when(batteryJdbcRepository).streamNamesAndCapacities(eq(1001), eq(2000), isNull(), isNull(), any());
+
+        FilteredBatteryStat stat = reader.read(1000, 2000, null, null);
+
+        assertThat(stat.getBatteryNames()).containsExactly("Alpha", "Bravo", "Charlie", "Delta");
+        assertThat(stat.getTotalCount()).isEqualTo(4);
+        assertThat(stat.getTotalCapacity()).isEqualTo(1150);
+        assertThat(stat.getHighestCapacityBatteryName()).isEqualTo("Bravo");
+        assertThat(stat.getLowestCapacityBatteryName()).isEqualTo("Delta");
+        verify(batteryJdbcRepository, times(2)).importSnapshot("00000003-0000001B-1");
+        verify(databaseStatReader, never()).read(anyInt(), anyInt(), any(), any());
+    }
+}
@@ -0,0 +1,51 @@
+package org.opensource.energy.vpp_backend.unit.util;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.opensource.energy.vpp_backend.util.CodePointUtil;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("unit")
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class CodePointUtilTest {
+
+    @Test
+    void given_supplementary_and_high_bmp_names_when_sorted_then_code_point_order_is_used() {
+        String emoji = "Battery \ud83d\udd0b";
+        String fullwidth = "Battery \uff21";
+
+        assertThat(fullwidth.compareTo(emoji)).isPositive();
+        assertThat(CodePointUtil.compare(fullwidth, emoji)).isNegative();
+        assertThat(Stream.of(emoji, "Battery A", fullwidth).sorted(CodePointUtil.CODE_POINT_ORDER))
+                .containsExactly("Battery A", fullwidth, emoji);
+    }
+
+    @Test
+    void given_mixed_names_when_sorted_then_order_matches_utf8_bytes_as_postgres_c_collation() {
+        List<String> names = List.of("alpha", "Bravo", "Bravo 2", "\u00e9clair", "\ud7ff", "\ue000", "\ufffd",
+                "\ud800\udc00", "\udbff\udfff", "\uffff", "a\ud83d\udd0b", "a\uff5e");
+
+        List<String> byCodePoint = names.stream().sorted(CodePointUtil.CODE_POINT_ORDER).toList();
+        List<String> byUtf8Bytes = names.stream()
+                .sorted(Comparator.comparing((String name) -> name.getBytes(StandardCharsets.UTF_8),
+                        Arrays::compareUnsigned))
+                .toList();
+
+        assertThat(byCodePoint).isEqualTo(byUtf8Bytes);
+    }
+
+    @Test
+    void given_prefix_when_compared_then_shorter_name_sorts_first() {
+        assertThat(CodePointUtil.compare("Battery", "Battery 1")).isNegative();
+        assertThat(CodePointUtil.compare("Battery", "Battery")).isZero();
+    }
+}
@@ -0,0 +1,34 @@
+package org.opensource.energy.vpp_backend.unit.util;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.opensource.energy.vpp_backend.util.CursorUtil;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@Tag("unit")
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class CursorUtilTest {
+
+    @Test
+    void given_battery_name_when_encoded_then_it_decodes_back_to_the_same_name() {
+        String cursor = CursorUtil.encodeAfterName("Battery-Ä/1 ?&");
+
+        assertEquals("Battery-Ä/1 ?&", CursorUtil.decodeAfterName(cursor));
+    }
+
+    @Test
+    void given_malformed_cursor_when_decoded_then_throws_exception() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> CursorUtil.decodeAfterName("%%%"));
+        assertEquals("Invalid cursor", exception.getMessage());
+    }
+
+    @Test
+    void given_cursor_with_unknown_format_when_decoded_then_throws_exception() {
+        assertThrows(IllegalArgumentException.class, () -> CursorUtil.decodeAfterName("QmF0dGVyeQ"));
+    }
+}
@@ -0,0 +1,32 @@
+package org.opensource.energy.vpp_backend.unit.util;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.opensource.energy.vpp_backend.dto.response.BatteryIngestResult.IdRange;
+import org.opensource.energy.vpp_backend.util.IdRangeUtil;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("unit")
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class IdRangeUtilTest {
+
+    @Test
+    void given_ids_from_two_sequence_blocks_when_collapsed_then_one_range_per_block_in_input_order() {
+        List<IdRange> ranges = IdRangeUtil.toRanges(List.of(101L, 102L, 103L, 51L, 52L, 7L));
+
+        assertThat(ranges).containsExactly(
+                IdRange.builder().from(101L).to(103L).build(),
+                IdRange.builder().from(51L).to(52L).build(),
+                IdRange.builder().from(7L).to(7L).build());
+    }
+
+    @Test
+    void given_no_ids_when_collapsed_then_no_ranges() {
+        assertThat(IdRangeUtil.toRanges(List.of())).isEmpty();
+    }
+}
@@ -0,0 +1,39 @@
+package org.opensource.energy.vpp_backend.unit.util;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.opensource.energy.vpp_backend.util.SortedMergeUtil;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("unit")
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class SortedMergeUtilTest {
+
+    @Test
+    void given_interleaved_sorted_lists_when_merged_then_result_is_sorted_and_complete() {
+        List<String> merged = SortedMergeUtil.mergeSorted(List.of(
+                List.of("Alpha", "Delta", "Golf"),
+                List.of(),
+                List.of("Bravo", "Charlie", "Hotel"),
+                List.of("Delta", "Echo")));
+
+        assertThat(merged).containsExactly("Alpha", "Bravo", "Charlie", "Delta", "Delta", "Echo", "Golf", "Hotel");
+    }
+
+    @Test
+    void given_names_differing_in_case_when_merged_then_binary_order_is_kept() {
+        List<String> merged = SortedMergeUtil.mergeSorted(List.of(List.of("Bravo", "alpha"), List.of("Charlie")));
+
+        assertThat(merged).containsExactly("Bravo", "Charlie", "alpha");
+    }
+
+    @Test
+    void given_no_lists_when_merged_then_result_is_empty() {
+        assertThat(SortedMergeUtil.mergeSorted(List.of())).isEmpty();
+    }
+}